@@ -9,25 +9,49 @@ public class AfterCompile {
 	private ClassWriter cw;
 	private ClassData data;
 	private List<PostCompiler> compilers = new ArrayList<>();
-	
+	private List<MethodOutput> outputs = new ArrayList<>();
+
 	public AfterCompile(ClassWriter cw, ClassData data) {
 		this.cw = cw;
 		this.data = data;
 	}
-	
+
 	public void finish() {
-		List<PostCompiler> clone = new ArrayList<>(compilers);
-		
-		compilers.clear();
-		
-		for(PostCompiler compiler : clone) {
-			compiler.write();
+		for (Runnable task : take()) {
+			task.run();
+		}
+	}
+
+	/**
+	 * Removes the pending compilers so that they can be run independently of
+	 * each other, on any thread.
+	 */
+	public List<Runnable> take() {
+		List<Runnable> tasks = new ArrayList<>();
+		for (PostCompiler compiler : compilers) {
+			tasks.add(() -> {
+				ClassData.setCurrentClass(data);
+				compiler.write();
+			});
 		}
+
+		compilers.clear();
+		return tasks;
+	}
+
+	public synchronized MethodOutput reserve() {
+		MethodOutput output = new MethodOutput(data, outputs.size());
+		outputs.add(output);
+		return output;
 	}
-	
+
 	public void end() {
+		data.getCompilationContext().getInliner().remove(data);
+		for (MethodOutput output : outputs) {
+			output.accept(cw);
+		}
 		cw.visitEnd();
-		data.setByteCode(cw.toByteArray());		
+		data.setByteCode(cw.toByteArray());
 	}
 
 	public List<PostCompiler> getCompilers() {
@@ -59,6 +59,19 @@ public class Block implements Comparable<Block> {
 		Collections.sort(subBlocks);
 	}
 
+	public boolean encloses(Block block) {
+		if (this == block) {
+			return true;
+		}
+
+		for (Block sub : subBlocks) {
+			if (sub.encloses(block)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	@Override
 	public int compareTo(Block o2) {
 		return this.start - o2.start;
@@ -14,6 +14,7 @@ public class BooleanExpressionCompiler implements GenericCompiler {
 	private boolean write;
 	private boolean valid = true;
 	private boolean requireBranch = true;
+	private Boolean constant;
 
 	public BooleanExpressionCompiler(MethodData data, Label end, boolean val) {
 		this.data = data;
@@ -33,6 +34,14 @@ public class BooleanExpressionCompiler implements GenericCompiler {
 		Line[] split = null;
 		Line body = lines[0];
 
+		constant = ConstantFolder.foldCondition(this.data, data, block, body.getLine());
+		if (constant != null) {
+			if (this.write && !constant) {
+				m.visitJumpInsn(GOTO, end);
+			}
+			return;
+		}
+
 		if (Strings.contains(body, "&&")) {
 			split = Strings.split(body, "&&", 2);
 			ifType = AND;
@@ -91,7 +100,6 @@ public class BooleanExpressionCompiler implements GenericCompiler {
 			}
 
 			if (this.write) {
-				m.visitFrame(F_SAME, this.data.getLocalVariables(), null, this.data.getCurrentStack(), null);
 				m.visitJumpInsn(IFEQ, end);
 			}
 		} else {
@@ -111,7 +119,6 @@ public class BooleanExpressionCompiler implements GenericCompiler {
 
 			if (ifType != IS && leftType.isPrimitive() && rightType.isPrimitive()) {
 				int op = 0;
-				int stack = this.data.getCurrentStack();
 				if (ifType == EQUAL) {
 					op = IF_ICMPNE;
 				} else if (ifType == NOT_EQUAL) {
@@ -132,13 +139,11 @@ public class BooleanExpressionCompiler implements GenericCompiler {
 					op = IFEQ;
 					if (this.write) {
 						m.visitInsn(ifType == AND ? IAND : IOR);
-						stack--;
 					}
 				} else {
 					invalid(new CompileError("Cannot compare " + leftType + " to " + rightType));
 				}
 				if (this.write) {
-					m.visitFrame(F_SAME, this.data.getLocalVariables(), null, stack, null);
 					m.visitJumpInsn(op, end);
 				}
 			} else {
@@ -230,7 +235,7 @@ public class BooleanExpressionCompiler implements GenericCompiler {
 						} else if (toString.equals("false")) {
 							m.visitInsn(ICONST_0);
 						} else {
-							m.visitVarInsn(oc, Integer.parseInt(toString));
+							m.visitIntInsn(oc, Integer.parseInt(toString));
 						}
 					}
 				}
@@ -261,6 +266,10 @@ public class BooleanExpressionCompiler implements GenericCompiler {
 		this.end = label;
 	}
 
+	public Boolean getConstant() {
+		return constant;
+	}
+
 	public boolean isRequireBranch() {
 		return requireBranch;
 	}
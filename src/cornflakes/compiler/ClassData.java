@@ -15,11 +15,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.signature.SignatureReader;
+import org.objectweb.asm.signature.SignatureVisitor;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
 
 public class ClassData {
-	private static final HashMap<String, ClassData> classes = new HashMap<>();
+	private static final Map<String, ClassData> library = new ConcurrentHashMap<>();
 
 	public static final int TYPE_CLASS = 1;
 	public static final int TYPE_STRUCT = 2 | TYPE_CLASS;
@@ -27,7 +35,6 @@ public class ClassData {
 	public static final int TYPE_ENUM = 8 | TYPE_CLASS;
 	public static final int TYPE_ANNOTATION = 16 | TYPE_INTERFACE;
 
-	private static ClassData currentClass;
 	private String simpleClassName;
 	private String parentName;
 	private String className;
@@ -38,40 +45,225 @@ public class ClassData {
 	private byte[] byteCode;
 	private String[] interfaces;
 	private Map<String, String> use = new HashMap<>();
-	private Set<MethodData> methods = new HashSet<>();
-	private Set<ConstructorData> constructors = new HashSet<>();
-	private Set<FieldData> fields = new HashSet<>();
+	// members are added by signature tasks while other workers already read them
+	private List<MethodData> methods = new CopyOnWriteArrayList<>();
+	private Map<String, List<MethodData>> methodsByName = new ConcurrentHashMap<>();
+	private Map<String, MethodData> methodsByDescriptor = new ConcurrentHashMap<>();
+	private List<ConstructorData> constructors = new CopyOnWriteArrayList<>();
+	private List<FieldData> fields = new CopyOnWriteArrayList<>();
+	private Map<String, FieldData> fieldsByName = new ConcurrentHashMap<>();
+	private boolean frozen;
+	private volatile Map<String, MethodData[]> allMethods;
+	private Map<String, MethodData> overloads = new ConcurrentHashMap<>();
+	private Map<String, DefinitiveType> resolved = new ConcurrentHashMap<>();
+	private Set<String> unresolved = ConcurrentHashMap.newKeySet();
+	private Map<String, Boolean> assignableFrom = new ConcurrentHashMap<>();
+	private Map<String, Boolean> supertypes = new ConcurrentHashMap<>();
+	private Set<String> references = ConcurrentHashMap.newKeySet();
 	private Map<String, String> macros = new HashMap<>();
 	private Set<GenericParameter> genericParameters = new HashSet<>();
 	private ClassWriter classWriter;
+	private CompilationContext context;
 	private Class<?> javaClass;
+	private boolean indexed;
+	private ClassNode classNode;
 	private boolean isGetIndexed;
 	private boolean isSetIndexed;
 	private boolean isInterface;
 	private int classType = TYPE_CLASS;
-	private int lambdas;
 
 	public static ClassData forName(String name) throws ClassNotFoundException {
+		ClassData data = find(name);
+		if (data == null) {
+			throw new ClassNotFoundException(name);
+		}
+		return data;
+	}
+
+	public static ClassData find(String name) {
 		if (Types.isTupleDefinition(name)) {
 			return new TupleClassData(name);
+		} else if (Types.isTupleArrayDefinition(name)) {
+			return new TupleArrayClassData(name);
 		} else if (Types.isPointer(name)) {
 			return PointerClassData.from(name);
 		} else {
 			name = Strings.transformClassName(Types.unpadSignature(name));
 
-			if (classes.containsKey(name)) {
-				return classes.get(name);
+			CompilationContext context = CompilationContext.get();
+			ClassData data = context.getClass(name);
+			if (data != null) {
+				data.reference("");
+				return data;
+			}
+
+			data = library.get(name);
+			if (data != null) {
+				return data;
+			}
+
+			ClassNode node = context.getClassIndex().getClassNode(name);
+			if (node != null) {
+				return fromClassNode(node);
+			}
+
+			if (name.startsWith("[") || context.getClassIndex().exists(name)) {
+				try {
+					return fromJavaClass(Class.forName(name.replace('/', '.'), false, ClassData.class.getClassLoader()));
+				} catch (ClassNotFoundException | LinkageError e) {
+					return null;
+				}
 			}
+			return null;
+		}
+	}
+
+	private static ClassData fromClassNode(ClassNode node) {
+		boolean isInterface = (node.access & Opcodes.ACC_INTERFACE) != 0;
+		ClassData container = isInterface ? new LambdaClassData() : new ClassData(false);
+		container.indexed = true;
+		container.classNode = node;
+		container.setIsInterface(isInterface);
+		container.setClassName(node.name);
 
-			return fromJavaClass(Class.forName(name.replace('/', '.')));
+		String simpleName = node.name.substring(node.name.lastIndexOf('/') + 1);
+		container.setSimpleClassName(simpleName.substring(simpleName.lastIndexOf('$') + 1));
+		container.setParentName(true, node.superName == null ? "java/lang/Object" : node.superName);
+
+		if (node.signature != null) {
+			Set<GenericParameter> par = getSuperclassGenerics(node.signature);
+			if (!par.isEmpty()) {
+				container.genericParameters = par;
+			}
+		}
+
+		container.setInterfaces(node.interfaces.toArray(new String[node.interfaces.size()]));
+		container.freeze();
+
+		ClassData existing = library.putIfAbsent(node.name, container);
+		return existing == null ? container : existing;
+	}
+
+	private static Set<GenericParameter> getSuperclassGenerics(String signature) {
+		Set<GenericParameter> par = new HashSet<>();
+		new SignatureReader(signature).accept(new SignatureVisitor(Opcodes.ASM9) {
+			@Override
+			public SignatureVisitor visitSuperclass() {
+				return new SignatureVisitor(Opcodes.ASM9) {
+					@Override
+					public void visitTypeArgument() {
+						par.add(new GenericParameter("?"));
+					}
+
+					@Override
+					public SignatureVisitor visitTypeArgument(char wildcard) {
+						return new SignatureVisitor(Opcodes.ASM9) {
+							@Override
+							public void visitClassType(String name) {
+								par.add(new GenericParameter(name.replace('/', '.')));
+							}
+
+							@Override
+							public void visitTypeVariable(String name) {
+								par.add(new GenericParameter(name));
+							}
+
+							@Override
+							public SignatureVisitor visitTypeArgument(char wildcard) {
+								return new SignatureVisitor(Opcodes.ASM9) {
+								};
+							}
+						};
+					}
+				};
+			}
+		});
+		return par;
+	}
+
+	private synchronized void loadMembers() {
+		if (classNode == null) {
+			return;
+		}
+
+		ClassNode node = classNode;
+		classNode = null;
+
+		// indexed classes are frozen up front and fill in their members on first use
+		for (MethodNode method : node.methods) {
+			if (method.name.equals("<init>")) {
+				if (!isInterface && (method.access & Opcodes.ACC_PUBLIC) != 0) {
+					constructors.add(ConstructorData.fromMethodNode(this, method));
+				}
+			} else if (!method.name.equals("<clinit>")) {
+				putMethod(MethodData.fromMethodNode(this, method));
+			}
+		}
+
+		ClassIndex index = CompilationContext.get().getClassIndex();
+		List<String> supertypes = new ArrayList<>();
+		if (!isInterface) {
+			for (String parent = node.superName; parent != null;) {
+				supertypes.add(parent);
+				ClassNode parentNode = index.getClassNode(parent);
+				parent = parentNode == null ? null : parentNode.superName;
+			}
+		}
+
+		List<String> types = new ArrayList<>(supertypes);
+		types.add(0, node.name);
+		for (int i = 0; i < types.size(); i++) {
+			ClassNode type = index.getClassNode(types.get(i));
+			if (type != null) {
+				for (String itf : type.interfaces) {
+					if (!types.contains(itf)) {
+						types.add(itf);
+						supertypes.add(itf);
+					}
+				}
+			}
+		}
+
+		for (String supertype : supertypes) {
+			ClassNode type = index.getClassNode(supertype);
+			ClassData owner = ClassData.find(supertype);
+			if (type == null || owner == null) {
+				continue;
+			}
+
+			boolean itf = (type.access & Opcodes.ACC_INTERFACE) != 0;
+			for (MethodNode method : type.methods) {
+				if ((method.access & Opcodes.ACC_PUBLIC) == 0 || method.name.startsWith("<")
+						|| (itf && (method.access & Opcodes.ACC_STATIC) != 0)) {
+					continue;
+				}
+
+				MethodData data = MethodData.fromMethodNode(owner, method);
+				if (!methodsByDescriptor.containsKey(data.toString())) {
+					putMethod(data);
+				}
+			}
+		}
+
+		if (!isInterface) {
+			for (FieldNode field : node.fields) {
+				String type = Types.getTypeSignature(org.objectweb.asm.Type.getType(field.desc));
+				putField(new FieldData(this, field.name, DefinitiveType.assume(type), field.access & 0xFFFF));
+			}
 		}
 	}
 
 	public static ClassData fromJavaClass(Class<?> cls) {
 		String t = Strings.transformClassName(cls.getName());
 
-		if (classes.containsKey(t)) {
-			return classes.get(t);
+		if (library.containsKey(t)) {
+			return library.get(t);
+		}
+		if (!cls.isPrimitive() && !cls.isArray()) {
+			ClassNode node = CompilationContext.get().getClassIndex().getClassNode(t);
+			if (node != null) {
+				return fromClassNode(node);
+			}
 		}
 
 		ClassData container;
@@ -121,7 +313,7 @@ public class ClassData {
 		for (Method method : cls.getMethods()) {
 			MethodData data = MethodData.fromJavaMethod(cls == Object.class || method.getDeclaringClass() == cls
 					? container : ClassData.fromJavaClass(method.getDeclaringClass()), method);
-			if (!container.methods.contains(data)) {
+			if (!container.methodsByDescriptor.containsKey(data.toString())) {
 				container.addMethod(data);
 			}
 		}
@@ -131,13 +323,14 @@ public class ClassData {
 				container.addConstructor(ConstructorData.fromJavaConstructor(container, constructor));
 			}
 			for (Field field : cls.getDeclaredFields()) {
-				container.fields.add(new FieldData(container, field.getName(),
+				container.addField(new FieldData(container, field.getName(),
 						DefinitiveType.assume(Types.getTypeSignature(field.getType())), field.getModifiers()));
 			}
 		}
 
-		classes.put(t, container);
-		return container;
+		container.freeze();
+		ClassData existing = library.putIfAbsent(t, container);
+		return existing == null ? container : existing;
 	}
 
 	public ClassData() {
@@ -163,10 +356,25 @@ public class ClassData {
 			use("java.lang.RuntimeException");
 			use("java.lang.Error");
 			use("cornflakes.lang.Tuple");
+			use("cornflakes.lang.TupleArray");
+			use("cornflakes.lang.Arena");
+			use("cornflakes.lang.DirectMemory");
+			use("cornflakes.lang.DirectI8Pointer");
+			use("cornflakes.lang.DirectI16Pointer");
+			use("cornflakes.lang.DirectI32Pointer");
+			use("cornflakes.lang.DirectI64Pointer");
+			use("cornflakes.lang.DirectF32Pointer");
+			use("cornflakes.lang.DirectF64Pointer");
+			use("cornflakes.lang.AtomicI32Pointer");
+			use("cornflakes.lang.AtomicI64Pointer");
+			use("cornflakes.lang.AtomicObjectPointer");
+			use("cornflakes.lang.StripedI64Pointer");
 			use("cornflakes.lang.FunctionalIterator");
 			use("cornflakes.lang.Range");
 			use("cornflakes.lang.I32Range");
 			use("cornflakes.lang.F32Range");
+			use("cornflakes.lang.I64Range");
+			use("cornflakes.lang.F64Range");
 			useMacro("println", "System.out.println");
 			useMacro("iter", "FunctionalIterator");
 			useMacro("range", "Range.from");
@@ -186,12 +394,12 @@ public class ClassData {
 	}
 
 	public void use(String use, String as) {
-		try {
-			ClassData.forName(use);
-			this.use.put(as, Strings.transformClassName(use));
-		} catch (ClassNotFoundException e) {
+		if (ClassData.find(use) == null) {
 			throw new CompileError("Unresolved class: " + Types.beautify(use));
 		}
+		this.use.put(as, Strings.transformClassName(use));
+		this.resolved.clear();
+		this.unresolved.clear();
 	}
 
 	public void useMacro(String macro, String result) {
@@ -220,6 +428,40 @@ public class ClassData {
 	}
 
 	public DefinitiveType resolveClass(String name, boolean prim) {
+		String key = prim ? name : "#" + name;
+		boolean tuple = Types.isTupleDefinition(name) || Types.isTupleArrayDefinition(name);
+		if (!tuple) {
+			reference("?" + key);
+		}
+
+		DefinitiveType type = resolved.get(key);
+		if (type != null) {
+			return type;
+		}
+		if (unresolved.contains(key)) {
+			throw new CompileError("Unresolved type: " + name.replace("[]", ""));
+		}
+
+		// library classes are shared between compilations, so their lookups are not cached
+		boolean cache = !isJavaClass() && !tuple;
+		type = findClass(name, prim);
+		if (type == null) {
+			if (cache) {
+				unresolved.add(key);
+			}
+			throw new CompileError("Unresolved type: " + name.replace("[]", ""));
+		}
+		if (cache) {
+			resolved.put(key, type);
+		}
+		return type;
+	}
+
+	private DefinitiveType findClass(String name, boolean prim) {
+		if (Types.isTupleArrayDefinition(name)) {
+			return DefinitiveType.object(name);
+		}
+
 		boolean arrayType = false;
 
 		if (name.endsWith("[]")) {
@@ -236,18 +478,19 @@ public class ClassData {
 
 		Strings.handleLetterString(name, Strings.TYPE);
 
-		try {
-			return DefinitiveType.object(ClassData.forName(name));
-		} catch (ClassNotFoundException e) {
-			for (Entry<String, String> use : this.use.entrySet()) {
-				if (use.getKey().equals(name) || use.getValue().equals(name.replace('.', '/'))
-						|| use.getValue().endsWith("/" + name)) {
-					return DefinitiveType.assume(
-							arrayType ? "[L" + use.getValue().replace('.', '/') : use.getValue().replace('.', '/'));
-				}
+		ClassData data = ClassData.find(name);
+		if (data != null) {
+			return DefinitiveType.object(data);
+		}
+
+		for (Entry<String, String> use : this.use.entrySet()) {
+			if (use.getKey().equals(name) || use.getValue().equals(name.replace('.', '/'))
+					|| use.getValue().endsWith("/" + name)) {
+				return DefinitiveType.assume(
+						arrayType ? "[L" + use.getValue().replace('.', '/') : use.getValue().replace('.', '/'));
 			}
-			throw new CompileError("Unresolved type: " + name);
 		}
+		return null;
 	}
 
 	public boolean isTuple() {
@@ -311,6 +554,7 @@ public class ClassData {
 	}
 
 	public void setParentName(boolean isJavaClass, String parentName) {
+		checkMutable();
 		this.parentName = parentName;
 
 		try {
@@ -333,78 +577,165 @@ public class ClassData {
 	}
 
 	public MethodData[] getMethods() {
+		loadMembers();
 		return this.methods.toArray(new MethodData[this.methods.size()]);
 	}
 
 	public MethodData[] getMethods(String name) {
-		List<MethodData> methods = new ArrayList<>();
+		reference(name);
+		loadMembers();
+		List<MethodData> methods = methodsByName.get(name);
+		return methods == null ? new MethodData[0] : methods.toArray(new MethodData[methods.size()]);
+	}
 
-		getMethods(name, methods);
+	public MethodData getMethod(String name, String signature) {
+		reference(name);
+		loadMembers();
+		return methodsByDescriptor.get(name + signature);
+	}
 
+	public MethodData[] getAllMethods(String name) throws ClassNotFoundException {
+		reference(name);
+		if (frozen) {
+			Map<String, MethodData[]> table = allMethods;
+			if (table == null) {
+				synchronized (this) {
+					if ((table = allMethods) == null) {
+						allMethods = table = flattenMethods();
+					}
+				}
+			}
+			MethodData[] methods = table.get(name);
+			return methods == null ? new MethodData[0] : methods;
+		}
+
+		List<MethodData> methods = new ArrayList<>();
+		collectAllMethods(name, methods);
 		return methods.toArray(new MethodData[methods.size()]);
 	}
 
-	public MethodData[] getAllMethods(String name) throws ClassNotFoundException {
+	public MethodData[] getAllMethods(String name, int arity) throws ClassNotFoundException {
 		List<MethodData> methods = new ArrayList<>();
-		this.getMethods(name, methods);
+		for (MethodData data : getAllMethods(name)) {
+			if (data.getParameters().size() == arity) {
+				methods.add(data);
+			}
+		}
+		return methods.toArray(new MethodData[methods.size()]);
+	}
+
+	public MethodData[] getAllMethodsBySignature(String name, String signature) throws ClassNotFoundException {
+		List<MethodData> methods = new ArrayList<>();
+		for (MethodData data : getAllMethods(name)) {
+			if (data.getSignature().equals(signature)) {
+				methods.add(data);
+			}
+		}
+		return methods.toArray(new MethodData[methods.size()]);
+	}
+
+	private void collectAllMethods(String name, List<MethodData> methods) throws ClassNotFoundException {
+		addAll(this.getMethodTable().get(name), methods);
 
 		ClassData parent = this;
 		while ((parent = parent.getParentClass()) != null) {
-			parent.getMethods(name, methods);
+			addAll(parent.getMethodTable().get(name), methods);
 		}
 
-		if (interfaces.length > 0) {
-			for (String itf : interfaces) {
-				ClassData.forName(itf).getMethods(name, methods);
-			}
+		for (String itf : interfaces) {
+			addAll(ClassData.forName(itf).getMethodTable().get(name), methods);
 		}
-
-		return methods.toArray(new MethodData[methods.size()]);
 	}
 
-	public MethodData[] getAllMethodsBySignature(String name, String signature) throws ClassNotFoundException {
-		List<MethodData> methods = new ArrayList<>();
-		this.getMethodsBySignature(name, signature, methods);
+	private Map<String, MethodData[]> flattenMethods() throws ClassNotFoundException {
+		Set<String> names = new HashSet<>(getMethodTable().keySet());
 
 		ClassData parent = this;
 		while ((parent = parent.getParentClass()) != null) {
-			parent.getMethodsBySignature(name, signature, methods);
+			names.addAll(parent.getMethodTable().keySet());
 		}
 
-		if (interfaces.length > 0) {
-			for (String itf : interfaces) {
-				ClassData.forName(itf).getMethodsBySignature(name, signature, methods);
-			}
+		for (String itf : interfaces) {
+			names.addAll(ClassData.forName(itf).getMethodTable().keySet());
 		}
 
-		return methods.toArray(new MethodData[methods.size()]);
+		Map<String, MethodData[]> table = new HashMap<>();
+		for (String name : names) {
+			List<MethodData> methods = new ArrayList<>();
+			collectAllMethods(name, methods);
+			table.put(name, methods.toArray(new MethodData[methods.size()]));
+		}
+		return table;
 	}
 
-	private void getMethods(String name, List<MethodData> methods) {
-		for (MethodData data : this.methods) {
-			if (data.getName().equals(name)) {
-				methods.add(data);
-			}
+	private Map<String, List<MethodData>> getMethodTable() {
+		loadMembers();
+		return methodsByName;
+	}
+
+	private static void addAll(List<MethodData> from, List<MethodData> to) {
+		if (from != null) {
+			to.addAll(from);
 		}
 	}
 
-	private void getMethodsBySignature(String name, String signature, List<MethodData> methods) {
-		for (MethodData data : this.methods) {
-			if (data.getName().equals(name) && data.getSignature().equals(signature)) {
-				methods.add(data);
+	/**
+	 * Marks the members and supertypes of this class as final, so that lookups
+	 * can be cached. Any later attempt to change them is rejected.
+	 */
+	public void freeze() {
+		this.frozen = true;
+	}
+
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	private void checkMutable() {
+		if (frozen) {
+			throw new IllegalStateException("Class " + className.replace('/', '.') + " is frozen");
+		}
+	}
+
+	public MethodData getOverload(String key) {
+		if (!frozen) {
+			return null;
+		}
+		return isJavaClass() ? CompilationContext.get().getOverload(className + '\t' + key) : overloads.get(key);
+	}
+
+	public void cacheOverload(String key, MethodData method) {
+		if (frozen) {
+			// argument types may be classes of the current compilation
+			if (isJavaClass()) {
+				CompilationContext.get().cacheOverload(className + '\t' + key, method);
+			} else {
+				overloads.put(key, method);
 			}
 		}
 	}
 
 	public void addMethod(MethodData method) {
+		checkMutable();
+		putMethod(method);
+	}
+
+	private void putMethod(MethodData method) {
 		methods.add(method);
+		methodsByName.computeIfAbsent(method.getName(), x -> new CopyOnWriteArrayList<>()).add(method);
+		methodsByDescriptor.putIfAbsent(method.toString(), method);
+		allMethods = null;
+		overloads.clear();
 	}
 
 	public ConstructorData[] getConstructors() {
+		reference("<init>");
+		loadMembers();
 		return constructors.toArray(new ConstructorData[constructors.size()]);
 	}
 
 	public void addConstructor(ConstructorData method) {
+		checkMutable();
 		constructors.add(method);
 	}
 
@@ -413,17 +744,19 @@ public class ClassData {
 	}
 
 	public FieldData getField(String name) {
-		for (FieldData data : this.fields) {
-			if (data.getName().equals(name)) {
-				return data;
-			}
-		}
+		reference(name);
+		loadMembers();
+		return fieldsByName.get(name);
+	}
 
-		return null;
+	public void addField(FieldData field) {
+		checkMutable();
+		putField(field);
 	}
 
-	public void addField(FieldData method) {
-		fields.add(method);
+	private void putField(FieldData field) {
+		fields.add(field);
+		fieldsByName.putIfAbsent(field.getName(), field);
 	}
 
 	public int getModifiers() {
@@ -431,6 +764,7 @@ public class ClassData {
 	}
 
 	public void setModifiers(int modifiers) {
+		checkMutable();
 		this.modifiers = modifiers;
 	}
 
@@ -443,6 +777,19 @@ public class ClassData {
 	}
 
 	public boolean isAssignableFrom(ClassData test) {
+		if (!frozen || !test.frozen || isJavaClass() && !test.isJavaClass()) {
+			return computeAssignableFrom(test);
+		}
+
+		Boolean result = assignableFrom.get(test.className);
+		if (result == null) {
+			result = computeAssignableFrom(test);
+			assignableFrom.put(test.className, result);
+		}
+		return result;
+	}
+
+	private boolean computeAssignableFrom(ClassData test) {
 		if (this.isInterface) {
 			for (String iface : test.interfaces) {
 				if (iface.equals(className)) {
@@ -454,27 +801,110 @@ public class ClassData {
 		if (test.className.equals(className)) {
 			return true;
 		}
-		if (javaClass != null && test.javaClass != null) {
-			return javaClass.isAssignableFrom(test.javaClass);
+		if (isJavaClass() && test.isJavaClass()) {
+			if (javaClass != null && test.javaClass != null) {
+				return javaClass.isAssignableFrom(test.javaClass);
+			}
+			if ((javaClass != null && javaClass.isPrimitive())
+					|| (test.javaClass != null && test.javaClass.isPrimitive())) {
+				return false;
+			}
+			return isSupertypeOf(test);
 		}
 
 		while (!test.className.equals("java/lang/Object")) {
-			try {
-				test = ClassData.forName(test.parentName);
+			ClassData parent = ClassData.find(test.parentName);
+			if (parent == null) {
+				throw new CompileError("Invalid parent: " + Types.beautify(test.parentName));
+			}
 
-				if (test.className.equals(className)) {
-					return true;
+			test = parent;
+			if (test.className.equals(className)) {
+				return true;
+			}
+		}
+
+		return false; // TODO
+	}
+
+	private boolean isSupertypeOf(ClassData test) {
+		if (test.className.equals(className)) {
+			return true;
+		}
+		if (!test.className.equals("java/lang/Object")) {
+			ClassData parent = ClassData.find(test.parentName);
+			if (parent != null && isSupertypeOf(parent)) {
+				return true;
+			}
+		}
+		for (String itf : test.interfaces) {
+			ClassData data = ClassData.find(itf);
+			if (data != null && isSupertypeOf(data)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void reference(String member) {
+		if (context != null && context.isTrackingReferences()) {
+			ClassData current = context.getCurrentClass();
+			if (current != null) {
+				current.references.add(className + "\t" + member);
+			}
+		}
+	}
+
+	public Set<String> getReferences() {
+		return references;
+	}
+
+	public String getMemberDigest(String member) {
+		StringBuilder abi = new StringBuilder();
+		if (member.isEmpty()) {
+			abi.append(parentName).append(Arrays.toString(interfaces)).append(modifiers).append(classType)
+					.append(isInterface).append(isGetIndexed).append(isSetIndexed);
+			for (GenericParameter par : getGenerics()) {
+				abi.append(par.getName()).append(';');
+			}
+		} else if (member.startsWith("?")) {
+			String key = member.substring(1);
+			boolean prim = !key.startsWith("#");
+			try {
+				DefinitiveType type = findClass(prim ? key : key.substring(1), prim);
+				abi.append(type == null ? "" : type.getTypeName());
+			} catch (CompileError e) {
+				abi.append(e.getMessage());
+			}
+		} else if (member.equals("<init>")) {
+			for (ConstructorData data : getConstructors()) {
+				abi.append(data).append(data.getModifiers()).append(';');
+			}
+		} else {
+			try {
+				for (MethodData data : getAllMethods(member)) {
+					abi.append(data.getContext().getClassName()).append(data).append(data.getModifiers())
+							.append(';');
 				}
 			} catch (ClassNotFoundException e) {
-				throw new CompileError("Invalid parent: " + Types.beautify(test.parentName));
+				throw new CompileError(e);
+			}
+
+			FieldData field = getField(member);
+			if (field != null) {
+				abi.append(field.getType().getTypeSignature()).append(field.getModifiers())
+						.append(field.getProposedData());
 			}
 		}
+		return abi.toString();
+	}
 
-		return false; // TODO
+	public CompilationContext getCompilationContext() {
+		return context;
 	}
 
-	public static void registerCornflakesClass(ClassData data) {
-		classes.put(data.getClassName(), data);
+	void setCompilationContext(CompilationContext context) {
+		this.context = context;
 	}
 
 	@Override
@@ -498,11 +928,13 @@ public class ClassData {
 		this.packageName = packageName;
 	}
 
-	public Set<FieldData> getFields() {
+	public List<FieldData> getFields() {
+		loadMembers();
 		return fields;
 	}
 
 	public void setInterfaces(String[] intArr) {
+		checkMutable();
 		this.interfaces = intArr;
 	}
 
@@ -524,6 +956,19 @@ public class ClassData {
 
 	public boolean is(String type) throws ClassNotFoundException {
 		type = Types.unpadSignature(Strings.transformClassName(type));
+		if (!frozen) {
+			return computeIs(type);
+		}
+
+		Boolean result = supertypes.get(type);
+		if (result == null) {
+			result = computeIs(type);
+			supertypes.put(type, result);
+		}
+		return result;
+	}
+
+	private boolean computeIs(String type) throws ClassNotFoundException {
 		if (className.equals(type)) {
 			return true;
 		}
@@ -582,7 +1027,7 @@ public class ClassData {
 	}
 
 	public boolean isJavaClass() {
-		return javaClass != null;
+		return javaClass != null || indexed;
 	}
 
 	public Map<String, String> getMacros() {
@@ -590,11 +1035,11 @@ public class ClassData {
 	}
 
 	public static ClassData getCurrentClass() {
-		return currentClass;
+		return CompilationContext.get().getCurrentClass();
 	}
 
 	public static void setCurrentClass(ClassData currentClass) {
-		ClassData.currentClass = currentClass;
+		CompilationContext.get().setCurrentClass(currentClass);
 	}
 
 	public int getClassType() {
@@ -604,16 +1049,4 @@ public class ClassData {
 	public void setClassType(int classType) {
 		this.classType = classType;
 	}
-
-	public int getLambdas() {
-		return lambdas;
-	}
-
-	public void setLambdas(int lambdas) {
-		this.lambdas = lambdas;
-	}
-
-	public void addLambda() {
-		this.lambdas++;
-	}
 }
@@ -0,0 +1,359 @@
+package cornflakes.compiler;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * Locates and reads the class files of library classes, so that they can be
+ * described without loading them. The classes of the runtime image and of
+ * every jar on the boot and class path are listed once, and the listings and
+ * the parsed headers can be cached on disk.
+ *
+ * Class files are read with the bundled ASM 9.8, which understands class
+ * files up to Java 25. Classes of a newer runtime, or any other class file
+ * ASM rejects, are not read here; {@link ClassData} falls back to reflection
+ * for them.
+ */
+public class ClassIndex {
+	private static final ClassIndex uncached = new ClassIndex(null);
+	private static final Map<File, ClassIndex> indexes = new ConcurrentHashMap<>();
+
+	private final File cache;
+	private final ClassLoader loader = ClassIndex.class.getClassLoader();
+	private final Map<String, Location> listed = new ConcurrentHashMap<>();
+	private final Map<String, ClassNode> nodes = new ConcurrentHashMap<>();
+	private final Set<String> missing = ConcurrentHashMap.newKeySet();
+	private final Set<String> unreadable = ConcurrentHashMap.newKeySet();
+	private volatile FileSystem image;
+	private volatile boolean indexed;
+
+	private static class Location {
+		private final String key;
+		private final String module;
+
+		private Location(String key, String module) {
+			this.key = key;
+			this.module = module;
+		}
+	}
+
+	private interface Scanner {
+		List<String> scan() throws IOException;
+	}
+
+	private ClassIndex(File cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * @return An index which keeps nothing on disk
+	 */
+	public static ClassIndex getDefault() {
+		return uncached;
+	}
+
+	/**
+	 * @param output
+	 *            The directory compiled classes are written to
+	 * @return The index whose listings and member stubs are cached in the
+	 *         output directory
+	 */
+	public static ClassIndex forOutput(String output) {
+		return indexes.computeIfAbsent(new File(output, ".cfindex").getAbsoluteFile(), ClassIndex::new);
+	}
+
+	public boolean exists(String name) {
+		if (nodes.containsKey(name) || listed.containsKey(name)) {
+			return true;
+		}
+		if (missing.contains(name)) {
+			return false;
+		}
+		if (!indexed) {
+			indexClassPath();
+			if (listed.containsKey(name)) {
+				return true;
+			}
+		}
+
+		boolean exists = loader.getResource(name + ".class") != null;
+		if (!exists) {
+			missing.add(name);
+		}
+		return exists;
+	}
+
+	public ClassNode getClassNode(String name) {
+		ClassNode node = nodes.get(name);
+		if (node != null || unreadable.contains(name) || !exists(name)) {
+			return node;
+		}
+
+		Location location = listed.get(name);
+		File stub = location == null ? null : getStub(location.key, name);
+		node = stub != null && stub.isFile() ? readStub(stub) : null;
+		if (node == null) {
+			try (InputStream in = open(location, name)) {
+				if (in == null) {
+					missing.add(name);
+					return null;
+				}
+
+				node = new ClassNode();
+				new ClassReader(in).accept(node,
+						ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+			} catch (IllegalArgumentException e) {
+				// class file version is newer than the bundled ASM understands
+				unreadable.add(name);
+				return null;
+			} catch (IOException e) {
+				throw new CompileError("Could not read class " + Types.beautify(name) + ": " + e.getMessage());
+			}
+
+			if (stub != null) {
+				writeStub(stub, node);
+			}
+		}
+
+		ClassNode existing = nodes.putIfAbsent(name, node);
+		return existing == null ? node : existing;
+	}
+
+	public boolean isSubtype(String name, String parent) {
+		if (name.equals(parent)) {
+			return true;
+		}
+
+		ClassNode node = getClassNode(name);
+		if (node == null) {
+			return false;
+		}
+		if (node.superName != null && isSubtype(node.superName, parent)) {
+			return true;
+		}
+		for (String itf : node.interfaces) {
+			if (isSubtype(itf, parent)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private InputStream open(Location location, String name) throws IOException {
+		if (location != null && location.module != null) {
+			return Files.newInputStream(image.getPath("/modules", location.module, name + ".class"));
+		}
+		return loader.getResourceAsStream(name + ".class");
+	}
+
+	private synchronized void indexClassPath() {
+		if (indexed) {
+			return;
+		}
+
+		// runtimes newer than the bundled ASM are not listed, as their classes are loaded reflectively anyway
+		FileSystem image = getRuntimeImage();
+		if (image != null && isRuntimeReadable()) {
+			try {
+				String key = getRuntimeKey();
+				for (String entry : getListing(key, () -> listRuntimeImage(image))) {
+					int slash = entry.indexOf('/');
+					listed.putIfAbsent(entry.substring(slash + 1), new Location(key, entry.substring(0, slash)));
+				}
+				this.image = image;
+			} catch (IOException e) {
+				// the runtime image falls back to class loader lookups
+			}
+		}
+
+		List<String> entries = new ArrayList<>();
+		for (String property : new String[] { "sun.boot.class.path", "java.class.path" }) {
+			String path = System.getProperty(property);
+			if (path != null && !path.isEmpty()) {
+				for (String entry : path.split(File.pathSeparator)) {
+					entries.add(entry);
+				}
+			}
+		}
+
+		for (String entry : entries) {
+			File file = new File(entry);
+			if (file.isFile() && entry.endsWith(".jar")) {
+				try {
+					Location location = new Location(getKey(file), null);
+					for (String name : getListing(location.key, () -> listJar(file))) {
+						listed.putIfAbsent(name, location);
+					}
+				} catch (IOException e) {
+					// unreadable entries fall back to class loader lookups
+				}
+			}
+		}
+		indexed = true;
+	}
+
+	private static FileSystem getRuntimeImage() {
+		try {
+			return FileSystems.getFileSystem(URI.create("jrt:/"));
+		} catch (RuntimeException e) {
+			// runtimes before 9 have no image; their classes are listed through sun.boot.class.path
+			return null;
+		}
+	}
+
+	private static boolean isRuntimeReadable() {
+		try (InputStream in = Object.class.getResourceAsStream("Object.class")) {
+			if (in == null) {
+				return false;
+			}
+			// ClassReader rejects class file versions newer than it understands
+			new ClassReader(in);
+			return true;
+		} catch (IllegalArgumentException | IOException e) {
+			return false;
+		}
+	}
+
+	private static List<String> listRuntimeImage(FileSystem image) throws IOException {
+		List<String> classes = new ArrayList<>();
+		try (DirectoryStream<Path> modules = Files.newDirectoryStream(image.getPath("/modules"))) {
+			for (Path module : modules) {
+				try (Stream<Path> files = Files.walk(module)) {
+					files.forEach(file -> {
+						String name = module.relativize(file).toString();
+						if (name.endsWith(".class") && !name.equals("module-info.class")) {
+							classes.add(module.getFileName() + "/" + name.substring(0, name.length() - ".class".length()));
+						}
+					});
+				}
+			}
+		}
+		return classes;
+	}
+
+	private static List<String> listJar(File jar) throws IOException {
+		List<String> classes = new ArrayList<>();
+		try (JarFile file = new JarFile(jar)) {
+			Enumeration<JarEntry> entries = file.entries();
+			while (entries.hasMoreElements()) {
+				String name = entries.nextElement().getName();
+				if (name.endsWith(".class") && !name.startsWith("META-INF/")) {
+					classes.add(name.substring(0, name.length() - ".class".length()));
+				}
+			}
+		}
+		return classes;
+	}
+
+	private List<String> getListing(String key, Scanner scanner) throws IOException {
+		File cached = cache == null ? null : new File(cache, key + ".idx");
+		if (cached != null && cached.isFile()) {
+			return Files.readAllLines(cached.toPath(), StandardCharsets.UTF_8);
+		}
+
+		List<String> classes = scanner.scan();
+		if (cached != null && (cache.isDirectory() || cache.mkdirs())) {
+			try {
+				File temp = File.createTempFile(key, ".tmp", cache);
+				Files.write(temp.toPath(), classes, StandardCharsets.UTF_8);
+				Files.move(temp.toPath(), cached.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException e) {
+				// the index is only a cache; keep compiling without it
+			}
+		}
+		return classes;
+	}
+
+	private File getStub(String key, String name) {
+		return cache == null ? null : new File(cache, key + File.separator + name + ".class");
+	}
+
+	private static ClassNode readStub(File stub) {
+		try (InputStream in = Files.newInputStream(stub.toPath())) {
+			ClassNode node = new ClassNode();
+			new ClassReader(in).accept(node, 0);
+			return node;
+		} catch (IOException | RuntimeException e) {
+			// a damaged stub is read again from its class file
+			return null;
+		}
+	}
+
+	private static void writeStub(File stub, ClassNode node) {
+		// stubs keep the members which were read, without code, so later compilations parse less
+		ClassWriter writer = new ClassWriter(0);
+		node.accept(writer);
+
+		File dir = stub.getParentFile();
+		if (dir.isDirectory() || dir.mkdirs()) {
+			try {
+				File temp = File.createTempFile(stub.getName(), ".tmp", dir);
+				Files.write(temp.toPath(), writer.toByteArray());
+				Files.move(temp.toPath(), stub.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			} catch (IOException e) {
+				// the index is only a cache; keep compiling without it
+			}
+		}
+	}
+
+	private static String getKey(File file) throws IOException {
+		// a jar which is replaced changes its size or modification time, so its contents need not be hashed
+		return hash(file.getCanonicalPath() + File.pathSeparator + file.length() + File.pathSeparator
+				+ file.lastModified());
+	}
+
+	private static String getRuntimeKey() throws IOException {
+		File modules = new File(System.getProperty("java.home"), "lib" + File.separator + "modules");
+		return hash(System.getProperty("java.version") + File.pathSeparator + getKey(modules));
+	}
+
+	private static String hash(String text) throws IOException {
+		return hash(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	static String hash(InputStream in) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IOException(e);
+		}
+
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			digest.update(buffer, 0, read);
+		}
+
+		StringBuilder hex = new StringBuilder();
+		for (byte b : digest.digest()) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+}
@@ -0,0 +1,144 @@
+package cornflakes.compiler;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+
+public class CompilationContext {
+	private static final ThreadLocal<CompilationContext> current = new ThreadLocal<>();
+
+	private final Map<String, ClassData> classes = new ConcurrentHashMap<>();
+	private final Map<String, AfterCompile> postCompilers = new ConcurrentHashMap<>();
+	private final Map<String, MethodData> overloads = new ConcurrentHashMap<>();
+	private final Set<String> tupleShapes = ConcurrentHashMap.newKeySet();
+	private final ThreadLocal<ClassData> currentClass = new ThreadLocal<>();
+	private volatile boolean trackReferences;
+	private volatile boolean optimize;
+	private volatile int target = Opcodes.V1_8;
+	private volatile int parallelism = Runtime.getRuntime().availableProcessors();
+	private final Inliner inliner = new Inliner();
+	private volatile ClassIndex index = ClassIndex.getDefault();
+
+	/**
+	 * @return The context of the compilation running on this thread
+	 * @throws IllegalStateException
+	 *             If no compilation is running on this thread
+	 */
+	public static CompilationContext get() {
+		CompilationContext context = current.get();
+		if (context == null) {
+			throw new IllegalStateException("No compilation is running on this thread");
+		}
+		return context;
+	}
+
+	public CompilationContext enter() {
+		CompilationContext previous = current.get();
+		current.set(this);
+		return previous;
+	}
+
+	public void exit(CompilationContext previous) {
+		if (previous != this) {
+			currentClass.remove();
+		}
+		if (previous == null) {
+			current.remove();
+		} else {
+			current.set(previous);
+		}
+	}
+
+	public ClassData getClass(String name) {
+		return classes.get(name);
+	}
+
+	public void register(ClassWriter cw, ClassData data) {
+		data.setCompilationContext(this);
+		classes.put(data.getClassName(), data);
+		postCompilers.put(data.getClassName(), new AfterCompile(cw, data));
+	}
+
+	public AfterCompile getPostCompilers(String name) {
+		AfterCompile after = postCompilers.get(name);
+		if (after == null) {
+			throw new CompileError("Class " + Types.beautify(name) + " is not part of this compilation");
+		}
+		return after;
+	}
+
+	public Iterable<AfterCompile> getPostCompilers() {
+		return postCompilers.values();
+	}
+
+	public MethodData getOverload(String key) {
+		return overloads.get(key);
+	}
+
+	public void cacheOverload(String key, MethodData method) {
+		overloads.put(key, method);
+	}
+
+	public void useTupleShape(String shape) {
+		tupleShapes.add(shape);
+	}
+
+	public Set<String> getTupleShapes() {
+		return tupleShapes;
+	}
+
+	public ClassData getCurrentClass() {
+		return currentClass.get();
+	}
+
+	public void setCurrentClass(ClassData data) {
+		currentClass.set(data);
+	}
+
+	public boolean isTrackingReferences() {
+		return trackReferences;
+	}
+
+	public void setTrackReferences(boolean trackReferences) {
+		this.trackReferences = trackReferences;
+	}
+
+	public boolean isOptimizing() {
+		return optimize;
+	}
+
+	public void setOptimize(boolean optimize) {
+		this.optimize = optimize;
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	public void setParallelism(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	public Inliner getInliner() {
+		return inliner;
+	}
+
+	public ClassIndex getClassIndex() {
+		return index;
+	}
+
+	public void setClassIndex(ClassIndex index) {
+		this.index = index;
+	}
+
+	public int getTarget() {
+		return target;
+	}
+
+	public void setTarget(int target) {
+		this.target = target;
+	}
+}
@@ -122,7 +122,7 @@ public class CompileUtils {
 			String[] spaces = Line.toString(split[1].trim().split("="));
 			variableType = spaces[0].trim();
 
-			if (!Types.isTupleDefinition(variableType)) {
+			if (!Types.isTupleDefinition(variableType) && !Types.isTupleArrayDefinition(variableType)) {
 				if (!Types.isPrimitive(variableType)) {
 					variableType = data.resolveClass(variableType).getTypeSignature();
 				} else {
@@ -144,22 +144,6 @@ public class CompileUtils {
 					valueType = compiler.getResultType().getTypeSignature();
 				}
 
-				boolean math = false;
-				ExpressionCompiler compiler = null;
-
-				if (!isMember && valueType == null) {
-					compiler = new ExpressionCompiler(true, methodData);
-					compiler.compile(data, m, block, new Line[] { line.derive(givenValue) });
-					valueType = compiler.getResultType().getTypeSignature();
-					math = compiler.isMath();
-					generics = compiler.getGenericTypes();
-					isRef = !compiler.isPrimitiveResult();
-
-					if (valueType.equals("null")) {
-						value = "null";
-					}
-				}
-
 				if (valueType != null) {
 					if (!Types.isSuitable(variableType, valueType)) {
 						throw new CompileError(
@@ -167,9 +151,7 @@ public class CompileUtils {
 					}
 				}
 
-				if (!isRef && !math && valueType != null
-						&& (compiler == null || compiler.getExpressionType() != ExpressionCompiler.CAST)
-						&& rawType != null) {
+				if (rawType != null) {
 					value = Types.parseLiteral(valueType, givenValue);
 				}
 
@@ -205,7 +187,7 @@ public class CompileUtils {
 						m.visitInsn(toString.equals("false") ? ICONST_0 : ICONST_1);
 				} else {
 					if (actual)
-						m.visitVarInsn(push, Integer.parseInt(val.toString()));
+						m.visitIntInsn(push, Integer.parseInt(val.toString()));
 				}
 			}
 			data.ics();
@@ -217,4 +199,88 @@ public class CompileUtils {
 			return exp.getResultType();
 		}
 	}
+
+	public static void saveLocal(MethodVisitor m, MethodData data, LocalData local) {
+		String sig = local.getType().getAbsoluteTypeSignature();
+		String kind = getFrameKind(sig);
+
+		m.visitVarInsn(ALOAD, data.getIterator());
+		m.visitLdcInsn(data.getFrameSlot(local));
+		m.visitVarInsn(Types.getOpcode(Types.LOAD, sig), local.getIndex());
+		m.visitMethodInsn(INVOKEVIRTUAL, "cornflakes/lang/Generator", "store" + kind,
+				"(I" + getFrameSignature(kind) + ")V", false);
+		data.ics();
+		data.ics();
+		data.ics();
+	}
+
+	public static void restoreLocal(MethodVisitor m, MethodData data, LocalData local) {
+		String sig = local.getType().getAbsoluteTypeSignature();
+		String kind = getFrameKind(sig);
+
+		m.visitVarInsn(ALOAD, data.getIterator());
+		m.visitLdcInsn(data.getFrameSlot(local));
+		m.visitMethodInsn(INVOKEVIRTUAL, "cornflakes/lang/Generator", "load" + kind,
+				"(I)" + getFrameSignature(kind), false);
+		if (kind.equals("Object") && !sig.equals("Ljava/lang/Object;")) {
+			m.visitTypeInsn(CHECKCAST, sig.startsWith("[") ? sig : sig.substring(1, sig.length() - 1));
+		}
+		m.visitVarInsn(Types.getOpcode(Types.STORE, sig), local.getIndex());
+	}
+
+	public static void clearLocal(MethodVisitor m, LocalData local) {
+		String sig = local.getType().getAbsoluteTypeSignature();
+		switch (getFrameKind(sig)) {
+			case "Int":
+				m.visitInsn(ICONST_0);
+				break;
+			case "Long":
+				m.visitInsn(LCONST_0);
+				break;
+			case "Float":
+				m.visitInsn(FCONST_0);
+				break;
+			case "Double":
+				m.visitInsn(DCONST_0);
+				break;
+			default:
+				m.visitInsn(ACONST_NULL);
+				break;
+		}
+		m.visitVarInsn(Types.getOpcode(Types.STORE, sig), local.getIndex());
+	}
+
+	private static String getFrameKind(String sig) {
+		switch (sig) {
+			case "I":
+			case "Z":
+			case "C":
+			case "S":
+			case "B":
+				return "Int";
+			case "J":
+				return "Long";
+			case "F":
+				return "Float";
+			case "D":
+				return "Double";
+			default:
+				return "Object";
+		}
+	}
+
+	private static String getFrameSignature(String kind) {
+		switch (kind) {
+			case "Int":
+				return "I";
+			case "Long":
+				return "J";
+			case "Float":
+				return "F";
+			case "Double":
+				return "D";
+			default:
+				return "Ljava/lang/Object;";
+		}
+	}
 }
@@ -1,65 +1,65 @@
 package cornflakes.compiler;
 
-import java.awt.Dimension;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Opcodes;
 
 public abstract class Compiler implements Opcodes {
-	private static Map<String, AfterCompile> postCompilers = new HashMap<>();
+	public abstract void compile(ClassData data, ClassWriter cw, SyntaxNode node);
 
-	public static Dimension dim = new Dimension(5, 5);
+	public static ClassData compile(CompilationContext context, String file, String cls) {
+		return compile(context, file, parse(cls));
+	}
 
-	public abstract void compile(ClassData data, ClassWriter cw, Line body, Line[] lines);
+	public static SyntaxNode parse(String cls) {
+		return new Parser(new Lexer(cls)).parse();
+	}
 
-	public static ClassData compile(String file, String cls) {
-		List<Line> raw = new ArrayList<>();
-		String[] split = cls.split(System.lineSeparator());
-		for(int i = 0; i < split.length; i++) {
-			raw.add(new Line(i + 1, split[i]));
-		}
-		
-		List<Line> list = raw.stream().map((x) -> {
-			Line trim = x.trim();
-			if (trim.endsWith(";")) {
-				trim = trim.substring(0, trim.length() - 1).trim();
-			}
-			return trim;
-		}).filter((x) -> !x.isEmpty() && !x.startsWith("//")).collect(Collectors.toList());
-		
-		Line[] lines = list.toArray(new Line[list.size()]);
+	public static ClassData compile(CompilationContext context, String file, SyntaxNode root) {
+		CompilationContext previous = context.enter();
+		try {
+			ClassWriter cw = new CompilerClassWriter();
+			ClassData data = new ClassData();
+			data.setSourceName(file);
 
-		ClassWriter cw = new ClassWriter(0);
-		ClassData data = new ClassData();
-		data.setSourceName(file);
+			new HeadCompiler(context).compile(data, cw, root);
 
-		new HeadCompiler().compile(data, cw, Strings.accumulate(lines), lines);
+			return data;
+		} finally {
+			context.exit(previous);
+		}
+	}
 
-		return data;
+	public static void addPostCompiler(ClassData data, PostCompiler compiler) {
+		data.getCompilationContext().getPostCompilers(data.getClassName()).getCompilers().add(compiler);
 	}
 
-	public static void addPostCompiler(String name, PostCompiler compiler) {
-		postCompilers.get(name).getCompilers().add(compiler);
+	public static MethodOutput reserveOutput(ClassData data) {
+		return data.getCompilationContext().getPostCompilers(data.getClassName()).reserve();
 	}
 
-	public static void executePostCompilers() {
-		for (AfterCompile after : postCompilers.values()) {
+	public static void executePostCompilers(CompilationContext context) {
+		for (AfterCompile after : context.getPostCompilers()) {
 			after.finish();
 		}
 	}
+
+	public static void executePostCompilers(ClassData data) {
+		data.getCompilationContext().getPostCompilers(data.getClassName()).finish();
+	}
 	
-	public static void endPostCompilers() {
-		for (AfterCompile after : postCompilers.values()) {
+	public static List<Runnable> takePostCompilers(ClassData data) {
+		return data.getCompilationContext().getPostCompilers(data.getClassName()).take();
+	}
+
+	public static void endPostCompilers(CompilationContext context) {
+		for (AfterCompile after : context.getPostCompilers()) {
 			after.end();
 		}
 	}
 
-	public static void register(ClassWriter cw, ClassData data) {
-		postCompilers.put(data.getClassName(), new AfterCompile(cw, data));
+	public static void endPostCompilers(ClassData data) {
+		data.getCompilationContext().getPostCompilers(data.getClassName()).end();
 	}
 }
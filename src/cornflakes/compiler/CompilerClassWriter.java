@@ -0,0 +1,34 @@
+package cornflakes.compiler;
+
+import org.objectweb.asm.ClassWriter;
+
+public class CompilerClassWriter extends ClassWriter {
+	public CompilerClassWriter() {
+		super(COMPUTE_FRAMES);
+	}
+
+	@Override
+	protected String getCommonSuperClass(String type1, String type2) {
+		// classes being compiled cannot be loaded, so resolve the hierarchy through the compiler's own class data
+		try {
+			ClassData first = ClassData.forName(type1);
+			ClassData second = ClassData.forName(type2);
+			if (first.isAssignableFrom(second)) {
+				return first.getClassName();
+			}
+			if (second.isAssignableFrom(first)) {
+				return second.getClassName();
+			}
+			if (first.isInterface() || second.isInterface()) {
+				return "java/lang/Object";
+			}
+
+			do {
+				first = first.getParentClass();
+			} while (first != null && !first.isAssignableFrom(second));
+			return first == null ? "java/lang/Object" : first.getClassName();
+		} catch (ClassNotFoundException | CompileError e) {
+			return "java/lang/Object";
+		}
+	}
+}
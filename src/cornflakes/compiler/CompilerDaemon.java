@@ -0,0 +1,174 @@
+package cornflakes.compiler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Keeps the compiler loaded and rebuilds incrementally on request. Each
+ * source directory is compiled into the <code>bin</code> directory next to
+ * it, so <code>project/src</code> is written to <code>project/bin</code>.
+ * <p>
+ * Requests are read one per line from standard input or, with a port, from
+ * each connection to it on the loopback address:
+ * <ul>
+ * <li><code>compile [dir]</code> builds <code>dir</code>, or the source
+ * directory the daemon was started with.</li>
+ * <li><code>quit</code> stops the daemon.</li>
+ * </ul>
+ * Every request is answered with one line. A build answers
+ * <code>ok &lt;classes&gt; &lt;time&gt;ms</code>, where <code>classes</code>
+ * is the number of classes recompiled (0 when everything was up to date),
+ * or <code>error &lt;message&gt;</code>. <code>quit</code> answers
+ * <code>ok</code>. The daemon answers its first build, and in watch mode the
+ * build after every change to the sources, on standard output as well.
+ */
+public class CompilerDaemon {
+	private final String source;
+	private final boolean optimize;
+	private final int target;
+	private volatile boolean running = true;
+
+	public CompilerDaemon(String source, boolean optimize) {
+		this(source, optimize, Opcodes.V1_8);
+	}
+
+	public CompilerDaemon(String source, boolean optimize, int target) {
+		this.source = source;
+		this.optimize = optimize;
+		this.target = target;
+	}
+
+	public void run(boolean watch, int port) throws IOException, InterruptedException {
+		System.out.println(build(source));
+
+		Thread watcher = null;
+		if (watch) {
+			watcher = new Thread(this::watch, "cornflakes-watch");
+			watcher.setDaemon(true);
+			watcher.start();
+		}
+
+		if (port != -1) {
+			serve(port);
+		} else {
+			BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+			if (!serve(in, System.out) && watcher != null) {
+				watcher.join();
+			}
+		}
+	}
+
+	private void serve(int port) throws IOException {
+		try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+			while (running) {
+				try (Socket socket = server.accept()) {
+					BufferedReader in = new BufferedReader(
+							new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+					PrintStream out = new PrintStream(socket.getOutputStream(), true, "UTF-8");
+					serve(in, out);
+				} catch (IOException e) {
+					System.err.println("Connection failed: " + e.getMessage());
+				}
+			}
+		}
+	}
+
+	private boolean serve(BufferedReader in, PrintStream out) throws IOException {
+		String line;
+		while (running && (line = in.readLine()) != null) {
+			line = line.trim();
+			if (line.isEmpty()) {
+				continue;
+			}
+
+			String[] split = line.split("\\s+", 2);
+			if (split[0].equals("compile")) {
+				out.println(build(split.length > 1 ? split[1] : source));
+			} else if (split[0].equals("quit")) {
+				running = false;
+				out.println("ok");
+				return true;
+			} else {
+				out.println("error Unknown command: " + split[0]);
+			}
+		}
+		return !running;
+	}
+
+	private void watch() {
+		Path dir = Paths.get(source);
+		try (WatchService service = FileSystems.getDefault().newWatchService()) {
+			dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+					StandardWatchEventKinds.ENTRY_DELETE);
+
+			while (running) {
+				WatchKey key = service.take();
+				boolean changed = false;
+				// editors often write a file in several steps, so wait for the directory to settle
+				while (key != null) {
+					changed |= hasSourceChange(key);
+					if (!key.reset()) {
+						return;
+					}
+					key = service.poll(100, TimeUnit.MILLISECONDS);
+				}
+
+				if (changed && running) {
+					System.out.println(build(source));
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("Could not watch " + dir + ": " + e.getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static boolean hasSourceChange(WatchKey key) {
+		boolean changed = false;
+		for (WatchEvent<?> event : key.pollEvents()) {
+			if (event.kind() == StandardWatchEventKinds.OVERFLOW || event.context().toString().endsWith(".cf")) {
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	private synchronized String build(String dir) {
+		long time = System.currentTimeMillis();
+		try {
+			CompilationContext context = new CompilationContext();
+			context.setOptimize(optimize);
+			context.setTarget(target);
+			List<ClassData> compiled = MainCompiler.compile(context, dir, getOutput(dir), true);
+			return "ok " + compiled.size() + " " + (System.currentTimeMillis() - time) + "ms";
+		} catch (CompileError | IOException | ClassNotFoundException e) {
+			return "error " + String.valueOf(e.getMessage()).replaceAll("\\r\\n|\\r|\\n", " ");
+		} catch (RuntimeException e) {
+			return "error " + e;
+		}
+	}
+
+	private static String getOutput(String source) {
+		Path dir = Paths.get(source).toAbsolutePath().normalize();
+		Path parent = dir.getParent();
+		return (parent == null ? dir : parent).resolve("bin").toString();
+	}
+}
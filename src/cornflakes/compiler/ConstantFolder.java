@@ -0,0 +1,413 @@
+package cornflakes.compiler;
+
+import static cornflakes.compiler.Operator.*;
+
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+public class ConstantFolder implements Opcodes {
+	private static final String[] MATH_OPERATORS = { "&", "+", "- ", "/", "*", "^", "|", "%", ">>>", "<<", ">>" };
+	private static final int[] MATH_TYPES = { BITWISE_AND, ADD, SUBTRACT, DIVIDE, MULTIPLY, XOR, BITWISE_OR, MOD,
+			RIGHT_LOGICAL_SHIFT, LEFT_SHIFT, RIGHT_SHIFT };
+
+	public static Object fold(MethodData method, ClassData data, Block block, String expression) {
+		String body = expression.trim();
+		if (body.isEmpty()) {
+			return null;
+		}
+
+		String type = Types.getType(body, null);
+		if (type != null) {
+			return toConstant(Types.parseLiteral(type, body), Types.getTypeSignature(type));
+		}
+		if (isName(body)) {
+			FieldData field = method != null && block != null && method.hasLocal(body, block)
+					? method.getLocal(body, block) : data.getField(body);
+			return field == null ? null : field.getConstantValue();
+		}
+		if (getConditionSplit(body) != -1) {
+			return foldCondition(method, data, block, body);
+		}
+		return foldMath(method, data, block, body);
+	}
+
+	public static Boolean foldCondition(MethodData method, ClassData data, Block block, String expression) {
+		String body = expression.trim();
+		int op = getConditionSplit(body);
+		if (op == -1) {
+			String type = Types.getType(body, "");
+			Object value = type != null ? (type.equals("bool") ? Boolean.valueOf(body) : null)
+					: isName(body) ? fold(method, data, block, body) : foldMath(method, data, block, body);
+			return value instanceof Boolean ? (Boolean) value : null;
+		}
+
+		String operator = getConditionOperator(op);
+		if (operator == null) {
+			return null;
+		}
+		String[] split = Strings.split(body, operator, 2);
+		Object left = fold(method, data, block, split[0]);
+		Object right = left == null ? null : fold(method, data, block, split[1]);
+		if (right == null) {
+			return null;
+		}
+
+		if (op == AND || op == OR) {
+			if (!(left instanceof Boolean) || !(right instanceof Boolean)) {
+				return null;
+			}
+			return op == AND ? (Boolean) left & (Boolean) right : (Boolean) left | (Boolean) right;
+		}
+		if (left instanceof String && right instanceof String) {
+			return op == EQUAL ? left.equals(right) : null;
+		}
+
+		if (left instanceof Boolean || right instanceof Boolean) {
+			return op == EQUAL && left instanceof Boolean && right instanceof Boolean ? left.equals(right) : null;
+		}
+
+		// operands are promoted the way the comparison itself would promote them
+		Number x = toNumber(left);
+		Number y = toNumber(right);
+		if (x == null || y == null) {
+			return null;
+		}
+		if (x instanceof Double || y instanceof Double) {
+			return compare(op, x.doubleValue(), y.doubleValue());
+		} else if (x instanceof Float || y instanceof Float) {
+			return compare(op, x.floatValue(), y.floatValue());
+		}
+		return compare(op, x.longValue(), y.longValue());
+	}
+
+	private static Boolean compare(int op, double x, double y) {
+		switch (op) {
+			case EQUAL:
+				return x == y;
+			case GREATER_THAN_OR_EQUAL:
+				return x >= y;
+			case LESS_THAN_OR_EQUAL:
+				return x <= y;
+			case GREATER_THAN:
+				return x > y;
+			case LESS_THAN:
+				return x < y;
+			default:
+				return null;
+		}
+	}
+
+	private static Boolean compare(int op, long x, long y) {
+		switch (op) {
+			case EQUAL:
+				return x == y;
+			case GREATER_THAN_OR_EQUAL:
+				return x >= y;
+			case LESS_THAN_OR_EQUAL:
+				return x <= y;
+			case GREATER_THAN:
+				return x > y;
+			case LESS_THAN:
+				return x < y;
+			default:
+				return null;
+		}
+	}
+
+	public static Object foldMath(MethodData method, ClassData data, Block block, String expression) {
+		String body = expression.trim();
+		if (isIncrement(body)) {
+			return null;
+		}
+
+		int op = -1;
+		String[] split = null;
+		for (int i = 0; i < MATH_OPERATORS.length; i++) {
+			if (Strings.contains(body, MATH_OPERATORS[i])) {
+				op = MATH_TYPES[i];
+				split = Strings.split(body, MATH_OPERATORS[i], 2);
+				break;
+			}
+		}
+		if (split == null) {
+			return null;
+		}
+
+		Object left = fold(method, data, block, split[0]);
+		Object right = left == null ? null : fold(method, data, block, split[1]);
+		if (right == null) {
+			return null;
+		}
+
+		if (left instanceof String || right instanceof String) {
+			return op == ADD ? String.valueOf(left) + right : null;
+		}
+		if (left.getClass() != right.getClass()) {
+			return null;
+		}
+
+		if (left instanceof Integer) {
+			int x = (Integer) left;
+			int y = (Integer) right;
+			switch (op) {
+				case ADD:
+					return x + y;
+				case SUBTRACT:
+					return x - y;
+				case MULTIPLY:
+					return x * y;
+				case DIVIDE:
+					return y == 0 ? null : x / y;
+				case MOD:
+					return y == 0 ? null : x % y;
+				case BITWISE_AND:
+					return x & y;
+				case BITWISE_OR:
+					return x | y;
+				case XOR:
+					return x ^ y;
+				case LEFT_SHIFT:
+					return x << y;
+				case RIGHT_SHIFT:
+					return x >> y;
+				case RIGHT_LOGICAL_SHIFT:
+					return x >>> y;
+			}
+		} else if (left instanceof Long) {
+			long x = (Long) left;
+			long y = (Long) right;
+			switch (op) {
+				case ADD:
+					return x + y;
+				case SUBTRACT:
+					return x - y;
+				case MULTIPLY:
+					return x * y;
+				case DIVIDE:
+					return y == 0 ? null : x / y;
+				case MOD:
+					return y == 0 ? null : x % y;
+				case BITWISE_AND:
+					return x & y;
+				case BITWISE_OR:
+					return x | y;
+				case XOR:
+					return x ^ y;
+			}
+		} else if (left instanceof Float) {
+			float x = (Float) left;
+			float y = (Float) right;
+			switch (op) {
+				case ADD:
+					return x + y;
+				case SUBTRACT:
+					return x - y;
+				case MULTIPLY:
+					return x * y;
+				case DIVIDE:
+					return x / y;
+				case MOD:
+					return x % y;
+			}
+		} else if (left instanceof Double) {
+			double x = (Double) left;
+			double y = (Double) right;
+			switch (op) {
+				case ADD:
+					return x + y;
+				case SUBTRACT:
+					return x - y;
+				case MULTIPLY:
+					return x * y;
+				case DIVIDE:
+					return x / y;
+				case MOD:
+					return x % y;
+			}
+		} else if (left instanceof Boolean) {
+			boolean x = (Boolean) left;
+			boolean y = (Boolean) right;
+			switch (op) {
+				case BITWISE_AND:
+					return x & y;
+				case BITWISE_OR:
+					return x | y;
+				case XOR:
+					return x ^ y;
+			}
+		}
+		return null;
+	}
+
+	public static Object toConstant(Object value, String signature) {
+		if (value == null) {
+			return null;
+		}
+
+		switch (signature) {
+			case "Z":
+				return value instanceof Boolean ? value : null;
+			case "C":
+				return value instanceof Character ? value
+						: value instanceof Integer ? Character.valueOf((char) (int) (Integer) value) : null;
+			case "B":
+				return value instanceof Byte ? value
+						: value instanceof Integer ? Byte.valueOf((byte) (int) (Integer) value) : null;
+			case "S":
+				return value instanceof Short ? value
+						: value instanceof Integer ? Short.valueOf((short) (int) (Integer) value) : null;
+			case "I":
+				return value instanceof Integer ? value : null;
+			case "J":
+				return value instanceof Long ? value : null;
+			case "F":
+				return value instanceof Float ? value : null;
+			case "D":
+				return value instanceof Double ? value : null;
+			case "Ljava/lang/String;":
+				return value instanceof String ? value : null;
+		}
+		return null;
+	}
+
+	public static DefinitiveType getType(Object constant) {
+		if (constant instanceof String) {
+			return DefinitiveType.object("Ljava/lang/String;");
+		} else if (constant instanceof Boolean) {
+			return DefinitiveType.primitive("Z");
+		} else if (constant instanceof Character) {
+			return DefinitiveType.primitive("C");
+		} else if (constant instanceof Byte) {
+			return DefinitiveType.primitive("B");
+		} else if (constant instanceof Short) {
+			return DefinitiveType.primitive("S");
+		} else if (constant instanceof Long) {
+			return DefinitiveType.primitive("J");
+		} else if (constant instanceof Float) {
+			return DefinitiveType.primitive("F");
+		} else if (constant instanceof Double) {
+			return DefinitiveType.primitive("D");
+		}
+		return DefinitiveType.primitive("I");
+	}
+
+	public static void push(MethodVisitor m, Object constant) {
+		if (constant instanceof Boolean) {
+			m.visitInsn((Boolean) constant ? ICONST_1 : ICONST_0);
+			return;
+		}
+
+		Integer value = toInt(constant);
+		if (value != null) {
+			int x = value;
+			if (x >= -1 && x <= 5) {
+				m.visitInsn(ICONST_0 + x);
+			} else if (x >= Byte.MIN_VALUE && x <= Byte.MAX_VALUE) {
+				m.visitIntInsn(BIPUSH, x);
+			} else if (x >= Short.MIN_VALUE && x <= Short.MAX_VALUE) {
+				m.visitIntInsn(SIPUSH, x);
+			} else {
+				m.visitLdcInsn(x);
+			}
+		} else if (constant instanceof Long && ((Long) constant == 0L || (Long) constant == 1L)) {
+			m.visitInsn(LCONST_0 + ((Long) constant).intValue());
+		} else if (constant instanceof Float && (Float.floatToRawIntBits((Float) constant) == 0
+				|| (Float) constant == 1f || (Float) constant == 2f)) {
+			m.visitInsn(FCONST_0 + ((Float) constant).intValue());
+		} else if (constant instanceof Double
+				&& (Double.doubleToRawLongBits((Double) constant) == 0L || (Double) constant == 1d)) {
+			m.visitInsn(DCONST_0 + ((Double) constant).intValue());
+		} else {
+			m.visitLdcInsn(constant);
+		}
+	}
+
+	private static Integer toInt(Object value) {
+		if (value instanceof Integer) {
+			return (Integer) value;
+		} else if (value instanceof Character) {
+			return (int) (Character) value;
+		} else if (value instanceof Byte || value instanceof Short) {
+			return ((Number) value).intValue();
+		} else if (value instanceof Boolean) {
+			return (Boolean) value ? 1 : 0;
+		}
+		return null;
+	}
+
+	private static Number toNumber(Object value) {
+		if (value instanceof Character) {
+			return (int) (Character) value;
+		}
+		return value instanceof Number ? (Number) value : null;
+	}
+
+	private static int getConditionSplit(String body) {
+		if (Strings.contains(body, "&&")) {
+			return AND;
+		} else if (Strings.contains(body, "||")) {
+			return OR;
+		} else if (Strings.contains(body, "==")) {
+			return EQUAL;
+		} else if (Strings.contains(body, "!=")) {
+			return NOT_EQUAL;
+		} else if (Strings.contains(body, ">=")) {
+			return GREATER_THAN_OR_EQUAL;
+		} else if (Strings.contains(body, "<=")) {
+			return LESS_THAN_OR_EQUAL;
+		} else if (Strings.contains(body, ">") && !Strings.contains(body, ">>")) {
+			return GREATER_THAN;
+		} else if (Strings.contains(body, "<") && !Strings.contains(body, "<<")) {
+			return LESS_THAN;
+		} else if (Strings.contains(body, "is")) {
+			return Integer.MAX_VALUE;
+		}
+		return -1;
+	}
+
+	private static String getConditionOperator(int op) {
+		switch (op) {
+			case AND:
+				return "&&";
+			case OR:
+				return "||";
+			case EQUAL:
+				return "==";
+			case GREATER_THAN_OR_EQUAL:
+				return ">=";
+			case LESS_THAN_OR_EQUAL:
+				return "<=";
+			case GREATER_THAN:
+				return ">";
+			case LESS_THAN:
+				return "<";
+			default:
+				return null;
+		}
+	}
+
+	private static boolean isIncrement(String body) {
+		if (body.length() < 3) {
+			return false;
+		}
+		for (int x = 0; x < body.length(); x++) {
+			char c = body.charAt(x);
+			if (!Character.isLetterOrDigit(c)) {
+				return (c == '+' || c == '-') && x + 1 < body.length() && body.charAt(x + 1) == c;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isName(String body) {
+		if (!Character.isJavaIdentifierStart(body.charAt(0))) {
+			return false;
+		}
+		for (int i = 1; i < body.length(); i++) {
+			if (!Character.isJavaIdentifierPart(body.charAt(i))) {
+				return false;
+			}
+		}
+		return !body.equals("this") && !body.equals("true") && !body.equals("false") && !body.equals("null");
+	}
+}
@@ -14,24 +14,24 @@ public class ConstructorCompiler extends Compiler implements PostCompiler {
 	private int accessor;
 	private ClassData data;
 	private ClassWriter cw;
-	private Line body;
-	private Line[] lines;
+	private SyntaxNode node;
+	private boolean isDefault;
 
 	public ConstructorCompiler(boolean write) {
 		this.write = write;
 	}
 
 	@Override
-	public void compile(ClassData data, ClassWriter cw, Line body, Line[] lines) {
+	public void compile(ClassData data, ClassWriter cw, SyntaxNode node) {
 		if (!write) {
-			Compiler.addPostCompiler(data.getClassName(), this);
+			Compiler.addPostCompiler(data, this);
 
 			this.data = data;
 			this.cw = cw;
-			this.body = body;
-			this.lines = lines;
+			this.node = node;
 
-			String keywords = lines[0].substring(0, lines[0].indexOf("constructor")).trim().getLine();
+			Line header = node.getLine();
+			String keywords = header.substring(0, header.indexOf("constructor")).trim().getLine();
 			List<String> usedKeywords = new ArrayList<>();
 			if (!keywords.isEmpty()) {
 				String[] split = keywords.split(" ");
@@ -69,7 +69,7 @@ public class ConstructorCompiler extends Compiler implements PostCompiler {
 				}
 			}
 
-			String after = lines[0].substring(lines[0].indexOf("constructor") + "constructor".length()).trim()
+			String after = header.substring(header.indexOf("constructor") + "constructor".length()).trim()
 					.getLine();
 			String withoutBracket = after.substring(0, after.length() - 1).trim();
 			String exceptionString = null;
@@ -91,6 +91,7 @@ public class ConstructorCompiler extends Compiler implements PostCompiler {
 					.trim();
 			List<ParameterData> parameters = new ArrayList<>();
 			methodData = new ConstructorData(data, -1);
+			methodData.setOutput(Compiler.reserveOutput(data));
 			if (!params.isEmpty()) {
 				String[] split = Strings.splitParameters(params);
 				for (String par : split) {
@@ -115,7 +116,7 @@ public class ConstructorCompiler extends Compiler implements PostCompiler {
 						}
 					}
 
-					if (Types.isTupleDefinition(type)) {
+					if (Types.isTupleDefinition(type) || Types.isTupleArrayDefinition(type)) {
 						parameters
 								.add(new ParameterData(this.methodData, name, DefinitiveType.assume(type), ACC_FINAL));
 					} else {
@@ -157,7 +158,8 @@ public class ConstructorCompiler extends Compiler implements PostCompiler {
 						.toArray(String[]::new);
 			}
 
-			MethodVisitor m = cw.visitMethod(accessor, "<init>", methodData.getSignature(), null, ex);
+			MethodVisitor m = Optimizer.visitMethod(methodData.getOutput(), accessor, "<init>", methodData.getSignature(),
+					null, ex);
 			m.visitCode();
 
 			Label start = new Label();
@@ -173,13 +175,16 @@ public class ConstructorCompiler extends Compiler implements PostCompiler {
 			for (ParameterData par : methodData.getParameters()) {
 				paramMap.put(par.getName(), this.methodData.getLocalVariables());
 				this.methodData.addLocalVariable();
+				if (par.getType().equals("J") || par.getType().equals("D")) {
+					this.methodData.addLocalVariable();
+				}
 			}
 
 			assignDefaults(m, data, this.methodData, block);
 
-			Line[] inner = Strings.before(Strings.after(lines, 1), 1);
+			methodData.setScalarPointers(new EscapeAnalysis(node.getChildren()).getScalarPointers());
 			GenericBodyCompiler gbc = new GenericBodyCompiler(methodData);
-			gbc.compile(data, m, block, inner);
+			gbc.compile(data, m, block, node.getChildren());
 
 			if (!block.hasCalledConstructor()) {
 				throw new CompileError("Super must be called exactly one time before the constructor ends");
@@ -202,12 +207,31 @@ public class ConstructorCompiler extends Compiler implements PostCompiler {
 	}
 
 	public void write() {
+		if (isDefault) {
+			compileDefault();
+			return;
+		}
+
 		write = true;
-		compile(data, cw, body, lines);
+		compile(data, cw, node);
 	}
 
-	public void compileDefault(ClassData data, ClassWriter cw) {
-		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+	/**
+	 * Declares the public constructor without parameters of a class which
+	 * declares none. Its body is written along with the other functions.
+	 */
+	public void declareDefault(ClassData data) {
+		this.data = data;
+		this.isDefault = true;
+		this.methodData = new ConstructorData(data, ACC_PUBLIC);
+		this.methodData.setOutput(Compiler.reserveOutput(data));
+
+		data.addConstructor(methodData);
+		Compiler.addPostCompiler(data, this);
+	}
+
+	private void compileDefault() {
+		MethodVisitor mv = Optimizer.visitMethod(methodData.getOutput(), ACC_PUBLIC, "<init>", "()V", null, null);
 		mv.visitCode();
 		Label l0 = new Label();
 		Label l1 = new Label();
@@ -215,15 +239,12 @@ public class ConstructorCompiler extends Compiler implements PostCompiler {
 		mv.visitLineNumber(0, l0);
 		mv.visitVarInsn(ALOAD, 0);
 		mv.visitMethodInsn(INVOKESPECIAL, data.getParentName(), "<init>", "()V", false);
-		ConstructorData mData = new ConstructorData(data, ACC_PUBLIC);
-		assignDefaults(mv, data, mData, new ConstructorBlock(0, l0, l1));
+		assignDefaults(mv, data, methodData, new ConstructorBlock(0, l0, l1));
 		mv.visitInsn(RETURN);
 		mv.visitLabel(l1);
 		mv.visitLocalVariable("this", "L" + data.getClassName() + ";", null, l0, l1, 0);
-		mv.visitMaxs(1 + mData.getStackSize(), 1);
+		mv.visitMaxs(1 + methodData.getStackSize(), 1);
 		mv.visitEnd();
-
-		data.addConstructor(mData);
 	}
 
 	private void assignDefaults(MethodVisitor m, ClassData data, MethodData mData, Block block) {
@@ -237,7 +258,7 @@ public class ConstructorCompiler extends Compiler implements PostCompiler {
 					if (push == LDC) {
 						m.visitLdcInsn(datum.getProposedData());
 					} else {
-						m.visitVarInsn(push, Integer.parseInt(datum.getProposedData().toString()));
+						m.visitIntInsn(push, Integer.parseInt(datum.getProposedData().toString()));
 					}
 					mData.ics();
 
@@ -247,7 +268,7 @@ public class ConstructorCompiler extends Compiler implements PostCompiler {
 					String raw = (String) datum.getProposedData();
 
 					ExpressionCompiler compiler = new ExpressionCompiler(true, this.methodData);
-					compiler.compile(data, m, block, new Line[] { body.derive(raw) });
+					compiler.compile(data, m, block, new Line[] { node == null ? new Line(-1, raw) : node.getLine().derive(raw) });
 
 					if (!Types.isSuitable(datum.getType(), compiler.getResultType())) {
 						throw new CompileError(Types.beautify(compiler.getResultType().getTypeName())
@@ -3,6 +3,9 @@ package cornflakes.compiler;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Parameter;
 
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.MethodNode;
+
 public class ConstructorData extends MethodData {
 	public ConstructorData(ClassData context, int mods) {
 		super(context, "<init>", DefinitiveType.primitive("V"), false, mods);
@@ -17,4 +20,14 @@ public class ConstructorData extends MethodData {
 		}
 		return mData;
 	}
+
+	public static ConstructorData fromMethodNode(ClassData data, MethodNode method) {
+		ConstructorData mData = new ConstructorData(data, method.access & 0xFFFF);
+		Type[] params = Type.getArgumentTypes(method.desc);
+		for (int i = 0; i < params.length; i++) {
+			mData.addParameter(new ParameterData(mData, getParameterName(method, i),
+					DefinitiveType.assume(Types.getTypeSignature(params[i])), 0));
+		}
+		return mData;
+	}
 }
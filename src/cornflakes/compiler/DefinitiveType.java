@@ -63,6 +63,8 @@ public class DefinitiveType {
 	public String getAbsoluteTypeSignature() {
 		if (Types.isTupleDefinition(getTypeSignature())) {
 			return "Lcornflakes/lang/Tuple;";
+		} else if (Types.isTupleArrayDefinition(getTypeSignature())) {
+			return "Lcornflakes/lang/TupleArray;";
 		}
 		return getTypeSignature();
 	}
@@ -70,6 +72,8 @@ public class DefinitiveType {
 	public String getAbsoluteTypeName() {
 		if (Types.isTupleDefinition(getTypeSignature())) {
 			return "cornflakes/lang/Tuple";
+		} else if (Types.isTupleArrayDefinition(getTypeSignature())) {
+			return "cornflakes/lang/TupleArray";
 		}
 		return getTypeName();
 	}
@@ -94,6 +98,10 @@ public class DefinitiveType {
 		return isObject() && !isNull() && this.data instanceof TupleClassData;
 	}
 
+	public boolean isTupleArray() {
+		return isObject() && !isNull() && this.data instanceof TupleArrayClassData;
+	}
+
 	public boolean isPointer() {
 		return isObject() && !isNull() && this.data instanceof PointerClassData;
 	}
@@ -0,0 +1,121 @@
+package cornflakes.compiler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class EscapeAnalysis {
+	private static final Pattern DECLARATION = Pattern.compile("^(?:var|const) ([A-Za-z_][A-Za-z0-9_]*)\\b(.*)$");
+	private static final String UNARY = "(,=[{!+-*/%<>&|?:";
+
+	private final List<String> lines = new ArrayList<>();
+	private final Set<SyntaxNode> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+	private boolean lambda;
+
+	public EscapeAnalysis(SyntaxNode[] body) {
+		collect(body);
+	}
+
+	private void collect(SyntaxNode[] nodes) {
+		for (SyntaxNode node : nodes) {
+			for (SyntaxNode link : node.getChain()) {
+				if (visited.add(link)) {
+					if (link.getLine() != null) {
+						lines.add(Strings.normalizeSpaces(link.getLine().getLine().trim()));
+					}
+					// lambdas capture locals by value, so every pointer they see must stay shared
+					if (link.hasToken("=>")) {
+						lambda = true;
+					}
+					collect(link.getChildren());
+				}
+			}
+		}
+	}
+
+	public Set<String> getScalarPointers() {
+		if (lambda) {
+			return Collections.emptySet();
+		}
+
+		Map<String, Integer> declarations = new HashMap<>();
+		Set<String> pointers = new HashSet<>();
+		for (String line : lines) {
+			Matcher matcher = DECLARATION.matcher(line);
+			if (matcher.matches()) {
+				String name = matcher.group(1);
+				declarations.merge(name, 1, Integer::sum);
+				if (matcher.group(2).startsWith(" = &") && !matcher.group(2).startsWith(" = &&")) {
+					pointers.add(name);
+				}
+			}
+		}
+
+		Set<String> scalars = new HashSet<>();
+		for (Entry<String, Integer> entry : declarations.entrySet()) {
+			String name = entry.getKey();
+			if (entry.getValue() == 1 && pointers.contains(name) && !escapes(name)) {
+				scalars.add(name);
+			}
+		}
+		return scalars;
+	}
+
+	private boolean escapes(String name) {
+		for (String line : lines) {
+			char quote = 0;
+			for (int i = 0; i < line.length(); i++) {
+				char c = line.charAt(i);
+				if (quote != 0) {
+					if (c == '\\') {
+						i++;
+					} else if (c == quote) {
+						quote = 0;
+					}
+				} else if (c == '"' || c == '\'') {
+					quote = c;
+				} else if (line.startsWith(name, i) && isReference(line, i, name.length())
+						&& !isScalarUse(line, i, name)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	static boolean isReference(String line, int start, int length) {
+		if (start > 0) {
+			char before = line.charAt(start - 1);
+			if (before == '.' || Character.isJavaIdentifierPart(before)) {
+				return false;
+			}
+		}
+		int end = start + length;
+		return end >= line.length() || !Character.isJavaIdentifierPart(line.charAt(end));
+	}
+
+	private static boolean isScalarUse(String line, int start, String name) {
+		String before = line.substring(0, start).trim();
+		if (before.equals("var") || before.equals("const")) {
+			return true;
+		}
+		if (before.isEmpty()) {
+			return line.startsWith(name + " = ");
+		}
+
+		if (before.endsWith("*")) {
+			before = before.substring(0, before.length() - 1).trim();
+			return before.isEmpty() || UNARY.indexOf(before.charAt(before.length() - 1)) != -1
+					|| before.endsWith("return");
+		}
+		return false;
+	}
+}
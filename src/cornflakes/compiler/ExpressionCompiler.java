@@ -9,8 +9,6 @@ import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Type;
 
-import cornflakes.lang.Tuple;
-
 public class ExpressionCompiler implements GenericCompiler {
 	public static final int LOCAL_VARIABLE = 0;
 	public static final int MEMBER_VARIABLE = 1;
@@ -50,11 +48,67 @@ public class ExpressionCompiler implements GenericCompiler {
 
 	@Override
 	public void compile(ClassData data, MethodVisitor m, Block block, Line[] lines) {
+		String expression = lines[0].getLine();
+		TypeCache cache = isCacheable(block, expression) ? this.data.getTypeCache() : null;
+		if (cache != null) {
+			TypeCache.Entry entry = cache.get(block, expression);
+			if (entry != null) {
+				resultType = entry.getResultType();
+				resultName = entry.getResultName();
+				resultOwner = entry.getResultOwner();
+				expressionType = entry.getExpressionType();
+				math = entry.isMath();
+				genericTypes = entry.getGenericTypes();
+				field = entry.getField();
+				return;
+			}
+		}
+
 		try {
 			compile(null, data, data, m, block, lines);
 		} catch (ClassNotFoundException e) {
 			throw new CompileError(e);
 		}
+
+		if (cache != null && expressionType != LAMBDA && !"<init>".equals(resultName)) {
+			cache.put(block, expression,
+					new TypeCache.Entry(resultType, resultName, resultOwner, expressionType, math, genericTypes, field));
+		}
+	}
+
+	private boolean isCacheable(Block block, String expression) {
+		return !write && this.data != null && block != null && loadVariableReference && allowBoolean && allowMath
+				&& allowImplicitGetters && source == null && !Strings.contains(expression, "=>");
+	}
+
+	private String getOverloadKey(ClassData owner, ClassData data, MethodVisitor m, Block block, Line line,
+			String name, String[] args) {
+		if (!owner.isFrozen()) {
+			return null;
+		}
+
+		StringBuilder key = new StringBuilder(name).append('(');
+		for (String arg : args) {
+			if (Strings.contains(arg, "=>")) {
+				return null;
+			}
+
+			if (Types.getType(arg, null) != null) {
+				key.append('#').append(arg);
+			} else {
+				key.append(typeOf(data, m, block, line, arg, null).getTypeSignature());
+			}
+			key.append(',');
+		}
+		return key.append(')').toString();
+	}
+
+	private DefinitiveType typeOf(ClassData data, MethodVisitor m, Block block, Line line, String expression,
+			DefinitiveType hint) {
+		ExpressionCompiler compiler = new ExpressionCompiler(false, this.data);
+		compiler.typeHint = hint;
+		compiler.compile(data, m, block, new Line[] { line.derive(expression) });
+		return compiler.getResultType();
 	}
 
 	private void compile(ExpressionCompiler last, ClassData containerData, ClassData data, MethodVisitor m, Block block,
@@ -182,124 +236,27 @@ public class ExpressionCompiler implements GenericCompiler {
 		} else if (Types.isTupleDefinition(part)) {
 			String[] tuple = Strings.splitParameters(part.substring(1, part.length() - 1).trim());
 
-			int idx = 16384 + this.data.getSyntheticVariables();
-			if (write) {
-				m.visitLocalVariable("_tuple_init_" + idx, "Lcornflakes/lang/Tuple;", null, block.getStartLabel(),
-						block.getEndLabel(), idx);
-
-				m.visitTypeInsn(NEW, "cornflakes/lang/Tuple");
-				m.visitInsn(DUP);
-				m.visitLdcInsn(tuple.length);
-				m.visitLdcInsn(9);
-				m.visitIntInsn(NEWARRAY, T_INT);
-				int idx2 = 16385 + this.data.getSyntheticVariables();
-				m.visitLocalVariable("_tuple_init_typearr_" + idx2, "[I", null, block.getStartLabel(),
-						block.getEndLabel(), idx2);
-				m.visitVarInsn(ASTORE, idx2);
-
-				for (int i = 0; i < tuple.length; i++) {
-					m.visitVarInsn(ALOAD, idx2);
-
-					String type = Types.getType(tuple[i].trim(), null);
-					int t = -1;
-					if (type == null || type.equals("string")) {
-						t = Tuple.OBJECT;
-					} else {
-						if (type.equals("i8")) {
-							t = Tuple.I8;
-						} else if (type.equals("i16")) {
-							t = Tuple.I16;
-						} else if (type.equals("i32")) {
-							t = Tuple.I32;
-						} else if (type.equals("i64")) {
-							t = Tuple.I64;
-						} else if (type.equals("f32")) {
-							t = Tuple.F32;
-						} else if (type.equals("f64")) {
-							t = Tuple.F64;
-						} else if (type.equals("bool")) {
-							t = Tuple.BOOL;
-						} else if (type.equals("char")) {
-							t = Tuple.CHAR;
-						}
-					}
-
-					m.visitLdcInsn(t);
-
-					m.visitVarInsn(ALOAD, idx2); // get the value of
-													// array[index] + 1
-					m.visitLdcInsn(t);
-					m.visitInsn(IALOAD);
-					m.visitLdcInsn(1);
-					m.visitInsn(IADD);
-
-					m.visitInsn(IASTORE);
-				}
-
-				m.visitVarInsn(ALOAD, idx2);
-				m.visitMethodInsn(INVOKESPECIAL, "cornflakes/lang/Tuple", "<init>", "(I[I)V", false);
-				m.visitVarInsn(ASTORE, idx);
-				this.data.addSyntheticVariable();
-				this.data.addSyntheticVariable();
-			}
-
 			String[] types = new String[tuple.length];
+			String shape = "";
 			for (int i = 0; i < tuple.length; i++) {
-				String par = tuple[i].trim();
-				String type = Types.getType(par, null);
-				if (write) {
-					m.visitVarInsn(ALOAD, idx);
-					m.visitLdcInsn(i);
-				}
-				if (type == null) {
-					ExpressionCompiler exp = new ExpressionCompiler(this.write, this.data);
-					exp.compile(data, m, block, new Line[] { line.derive(par) });
-
-					String sig = exp.getResultType().getAbsoluteTypeSignature();
-					if (write) {
-						if (Types.isPrimitive(sig)) {
-							m.visitMethodInsn(INVOKEVIRTUAL, "cornflakes/lang/Tuple", "item", "(I" + sig + ")V", false);
-						} else {
-							m.visitMethodInsn(INVOKEVIRTUAL, "cornflakes/lang/Tuple", "item", "(ILjava/lang/Object;)V",
-									false);
-						}
-					}
-
-					types[i] = Types.primitiveToCornflakes(exp.getResultType().getTypeSignature());
-				} else {
-					Object value = Types.parseLiteral(type, par);
-					int push = Types.getOpcode(Types.PUSH, type);
-
-					if (write) {
-						if (push == LDC) {
-							m.visitLdcInsn(value);
-							this.data.ics();
-						} else if (value != null) {
-							String toString = value.toString();
-							if (toString.equals("true") || toString.equals("false")) {
-								m.visitInsn(toString.equals("false") ? ICONST_0 : ICONST_1);
-							} else {
-								m.visitVarInsn(push, Integer.parseInt(toString));
-								this.data.ics();
-							}
-						}
-					}
-
-					String sig = Types.getTypeSignature(type);
-					types[i] = Types.primitiveToCornflakes(sig);
-					if (write) {
-						if (Types.isPrimitive(sig)) {
-							m.visitMethodInsn(INVOKEVIRTUAL, "cornflakes/lang/Tuple", "item", "(I" + sig + ")V", false);
-						} else {
-							m.visitMethodInsn(INVOKEVIRTUAL, "cornflakes/lang/Tuple", "item", "(ILjava/lang/Object;)V",
-									false);
-						}
-					}
-				}
+				DefinitiveType type = CompileUtils.push(tuple[i].trim(), data, m, block, line, this.data, false);
+				types[i] = Types.primitiveToCornflakes(type.getTypeSignature());
+				shape += TupleCompiler.getShape(type);
 			}
+			containerData.getCompilationContext().useTupleShape(shape);
 
 			if (write) {
-				m.visitVarInsn(ALOAD, idx);
+				String className = TupleCompiler.getClassName(shape);
+				m.visitTypeInsn(NEW, className);
+				m.visitInsn(DUP);
+				this.data.ics();
+				this.data.ics();
+
+				for (int i = 0; i < tuple.length; i++) {
+					CompileUtils.push(tuple[i].trim(), data, m, block, line, this.data);
+				}
+				m.visitMethodInsn(INVOKESPECIAL, className, "<init>", TupleCompiler.getConstructorSignature(shape),
+						false);
 			}
 
 			resultName = part;
@@ -346,7 +303,7 @@ public class ExpressionCompiler implements GenericCompiler {
 						if (toString.equals("true") || toString.equals("false")) {
 							m.visitInsn(toString.equals("false") ? ICONST_0 : ICONST_1);
 						} else {
-							m.visitVarInsn(push, Integer.parseInt(obj.toString()));
+							m.visitIntInsn(push, Integer.parseInt(obj.toString()));
 						}
 					}
 					this.data.ics();
@@ -458,7 +415,8 @@ public class ExpressionCompiler implements GenericCompiler {
 			ParameterData[] parameters = new ParameterData[inputs.size()];
 			LambdaClassData lambdaType = typeHint != null ? (LambdaClassData) typeHint.getObjectType() : null;
 			MethodData toImpl = null;
-			String name = "lambda$" + data.getLambdas();
+			MethodOutput output = this.data.getOutput();
+			String name = "lambda$" + output.getIndex() + "$" + output.getLambdas();
 
 			if (lambdaType != null) {
 				if (!lambdaType.isInterface() || lambdaType.getMethods().length != 1) {
@@ -466,8 +424,6 @@ public class ExpressionCompiler implements GenericCompiler {
 				}
 
 				toImpl = lambdaType.getLambdaMethod();
-				toImpl.setContext(data);
-				toImpl.setName(name);
 
 				for (int i = 0; i < inputs.size(); i++) {
 					parameters[i] = toImpl.getParameters().get(i);
@@ -512,9 +468,9 @@ public class ExpressionCompiler implements GenericCompiler {
 			}
 
 			DefinitiveType lambdaDef = DefinitiveType.object(lambdaType);
-			MethodVisitor visitor = data.getClassWriter().visitMethod(ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC, name,
+			MethodVisitor visitor = Optimizer.visitMethod(output, ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC, name,
 					toImpl.getSignature(), null, new String[0]);
-			data.addLambda();
+			output.addLambda();
 
 			Label innerLabel = new Label();
 			visitor.visitLabel(innerLabel);
@@ -707,24 +663,28 @@ public class ExpressionCompiler implements GenericCompiler {
 											false);
 									compiler.compile(data, m, block, new Line[] { line.derive(part) });
 
-									if (compiler.isValid()) {
+									if (compiler.isValid() && this.write && compiler.getConstant() != null) {
+										m.visitInsn(compiler.getConstant() ? ICONST_1 : ICONST_0);
+										this.data.ics();
+									} else if (compiler.isValid() && this.write) {
 										Label iconst = new Label();
 										Label label = new Label();
 
-										compiler.setWrite(this.write);
+										compiler.setWrite(true);
 										compiler.setEnd(iconst);
 
 										compiler.compile(data, m, block, new Line[] { line.derive(part) });
 										if (compiler.isRequireBranch()) {
 											m.visitInsn(ICONST_1);
-											m.visitFrame(F_SAME, this.data.getLocalVariables(), null,
-													this.data.getCurrentStack(), null);
 											m.visitJumpInsn(GOTO, label);
 											m.visitLabel(iconst);
 											m.visitInsn(ICONST_0);
 										}
 
 										m.visitLabel(label);
+									}
+
+									if (compiler.isValid()) {
 
 										resultName = body;
 										resultOwner = data;
@@ -775,6 +735,7 @@ public class ExpressionCompiler implements GenericCompiler {
 							: "Ljava/lang/Object;";
 					m.visitMethodInsn(INVOKESTATIC, "cornflakes/lang/Pointer", "from",
 							"(" + type + ")Lcornflakes/lang/Pointer;", false);
+					m.visitTypeInsn(CHECKCAST, resultType.getObjectType().getClassName());
 				}
 			}
 
@@ -831,6 +792,11 @@ public class ExpressionCompiler implements GenericCompiler {
 		compile(this, cls, data, m, block, new Line[] { line.derive(newBody) });
 	}
 
+	private boolean isImplicitThis(ExpressionCompiler last) {
+		// a preceding value such as 'other' in 'other.x' is already the receiver; a class name pushes nothing
+		return last == null || !last.thisType && last.resultType == null;
+	}
+
 	private void compileVariableReference(ExpressionCompiler last, int source, ClassData containerData, ClassData data,
 			MethodVisitor m, Block block, Line line, String arrayIndex, boolean isLast, boolean isDeref) {
 		String body = line.getLine();
@@ -842,7 +808,7 @@ public class ExpressionCompiler implements GenericCompiler {
 			}
 			if (write) {
 				if (this.data != null && !field.hasModifier(ACC_STATIC)) {
-					if (!this.data.hasModifier(ACC_STATIC) && !thisType && (last == null || !last.thisType)
+					if (!this.data.hasModifier(ACC_STATIC) && !thisType && isImplicitThis(last)
 							&& containerData.getClassName().equals(data.getClassName())) {
 						m.visitVarInsn(ALOAD, 0);
 						this.data.ics();
@@ -879,7 +845,9 @@ public class ExpressionCompiler implements GenericCompiler {
 			field = this.data.getLocal(body, block);
 
 			if (!(!loadVariableReference && isLast)) {
-				int op = Types.getOpcode(Types.LOAD, field.getType().getTypeSignature());
+				LocalData local = (LocalData) field;
+				DefinitiveType stored = local.isScalar() ? local.getScalarType() : field.getType();
+				int op = Types.getOpcode(Types.LOAD, stored.getTypeSignature());
 				if (write) {
 					m.visitVarInsn(op, ((LocalData) field).getIndex());
 				}
@@ -900,12 +868,20 @@ public class ExpressionCompiler implements GenericCompiler {
 			}
 
 			PointerClassData ptrClass = (PointerClassData) type.getObjectType();
-			if (this.write && this.data != null) {
-				m.visitMethodInsn(INVOKEVIRTUAL, type.getAbsoluteTypeName(), "getValue",
-						"()" + ptrClass.getValueType().getAbsoluteTypeSignature(), false);
-			}
+			if (field instanceof LocalData && ((LocalData) field).isScalar()) {
+				type = ((LocalData) field).getScalarType();
+			} else {
+				// an assignment target is neither loaded nor read; the store loads the pointer for setValue
+				if (this.write && this.data != null && !(!loadVariableReference && isLast)) {
+					m.visitMethodInsn(INVOKEVIRTUAL, type.getAbsoluteTypeName(), "getValue",
+							"()" + ptrClass.getValueSignature(), false);
+					if (!ptrClass.getValueSignature().equals(ptrClass.getValueType().getAbsoluteTypeSignature())) {
+						m.visitTypeInsn(CHECKCAST, ptrClass.getValueType().getAbsoluteTypeName());
+					}
+				}
 
-			type = ptrClass.getValueType();
+				type = ptrClass.getValueType();
+			}
 		}
 
 		ClassData typeClass = type.getObjectType();
@@ -913,9 +889,14 @@ public class ExpressionCompiler implements GenericCompiler {
 				: null;
 		DefinitiveType tupleType = null;
 		if (arrayIndex != null) {
+			if (type.isPointer() && indexer == null) {
+				throw new CompileError("Only pointers to numbers can be indexed");
+			}
 			String idxType = Types.getType(arrayIndex, null);
 			if (idxType == null) {
-				ExpressionCompiler compiler = new ExpressionCompiler(this.write, this.data);
+				// an assignment target only resolves its index, which the store pushes itself
+				ExpressionCompiler compiler = new ExpressionCompiler(this.write && !(!loadVariableReference && isLast),
+						this.data);
 				compiler.compile(data, m, block, new Line[] { line.derive(arrayIndex) });
 
 				try {
@@ -939,15 +920,14 @@ public class ExpressionCompiler implements GenericCompiler {
 					if (x < 0) {
 						throw new CompileError("Array literal indexes must be greater than or equal to 0");
 					}
-					if (this.write && !(!loadVariableReference && isLast)) {
-						m.visitLdcInsn(x);
-					}
 					if (type.isTuple()) {
 						TupleClassData clz = (TupleClassData) typeClass;
 						if (x >= clz.getTypes().length) {
 							throw new CompileError("Tuple index out of range");
 						}
 						tupleType = clz.getType(x);
+					} else if (this.write && !(!loadVariableReference && isLast)) {
+						m.visitLdcInsn(x);
 					}
 				}
 			}
@@ -963,14 +943,7 @@ public class ExpressionCompiler implements GenericCompiler {
 					} else if (type.equals("Ljava/lang/String;")) {
 						m.visitMethodInsn(INVOKEVIRTUAL, "java/lang/String", "charAt", "(I)C", false);
 					} else if (type.isTuple()) {
-						if (tupleType.isPrimitive()) {
-							m.visitMethodInsn(INVOKEVIRTUAL, "cornflakes/lang/Tuple",
-									Types.primitiveToCornflakes(tupleType.getAbsoluteTypeSignature()) + "Item",
-									"(I)" + tupleType.getAbsoluteTypeSignature(), false);
-						} else {
-							m.visitMethodInsn(INVOKEVIRTUAL, "cornflakes/lang/Tuple", "item", "(I)Ljava/lang/Object;",
-									false);
-						}
+						loadTupleItem(m, (TupleClassData) typeClass, Integer.parseInt(arrayIndex), tupleType);
 					} else if (typeClass.is("java.util.List")) {
 						m.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "get", "(I)Ljava/lang/Object;", true);
 					} else if (typeClass.is("java.util.Map")) {
@@ -1010,6 +983,26 @@ public class ExpressionCompiler implements GenericCompiler {
 		}
 	}
 
+	private void loadTupleItem(MethodVisitor m, TupleClassData tuple, int index, DefinitiveType item) {
+		char kind = TupleCompiler.getShape(item).charAt(0);
+		String sig = TupleCompiler.getFieldSignature(kind);
+
+		if (tuple.isRow()) {
+			// rows of a tuple array are not instances of the shape, so read them through their accessors
+			m.visitLdcInsn(index);
+			this.data.ics();
+			m.visitMethodInsn(INVOKEVIRTUAL, "cornflakes/lang/Tuple", TupleCompiler.getGetterName(kind),
+					"(I)" + sig, false);
+		} else {
+			m.visitTypeInsn(CHECKCAST, tuple.getShapeName());
+			m.visitFieldInsn(GETFIELD, tuple.getShapeName(), TupleCompiler.getFieldName(index), sig);
+		}
+
+		if (!item.isPrimitive() && !item.equals("Ljava/lang/Object;")) {
+			m.visitTypeInsn(CHECKCAST, item.getAbsoluteTypeName());
+		}
+	}
+
 	private void compileConstructorCall(ClassData containerData, ClassData data, MethodVisitor m, Block block,
 			Line line, String clazz) throws ClassNotFoundException {
 		String body = line.getLine();
@@ -1067,6 +1060,16 @@ public class ExpressionCompiler implements GenericCompiler {
 			String size = split[1].trim();
 
 			DefinitiveType resolved = data.resolveClass(type);
+			TupleClassData tuple = resolved.isTuple() ? (TupleClassData) resolved.getObjectType() : null;
+			if (tuple != null && write) {
+				m.visitTypeInsn(NEW, "cornflakes/lang/TupleArray");
+				m.visitInsn(DUP);
+				m.visitLdcInsn(tuple.getShape());
+				this.data.ics();
+				this.data.ics();
+				this.data.ics();
+			}
+
 			try {
 				int x = Integer.parseInt(size);
 				if (x < 0) {
@@ -1084,7 +1087,10 @@ public class ExpressionCompiler implements GenericCompiler {
 			}
 
 			if (write) {
-				if (Types.isPrimitive(resolved)) {
+				if (tuple != null) {
+					m.visitMethodInsn(INVOKESPECIAL, "cornflakes/lang/TupleArray", "<init>", "(Ljava/lang/String;I)V",
+							false);
+				} else if (Types.isPrimitive(resolved)) {
 					int val;
 					if (resolved.equals("I")) {
 						val = T_INT;
@@ -1111,7 +1117,11 @@ public class ExpressionCompiler implements GenericCompiler {
 				}
 			}
 
-			resultType = DefinitiveType.assume("[" + resolved.getTypeSignature());
+			if (tuple != null) {
+				resultType = DefinitiveType.object(type + "[]");
+			} else {
+				resultType = DefinitiveType.assume("[" + resolved.getTypeSignature());
+			}
 			expressionType = NEW_ARRAY;
 			resultName = "array";
 			resultOwner = containerData;
@@ -1133,15 +1143,9 @@ public class ExpressionCompiler implements GenericCompiler {
 								success = false;
 								break;
 							}
-						} else {
-							ExpressionCompiler compiler = new ExpressionCompiler(false, this.data);
-							compiler.typeHint = paramType;
-							compiler.compile(this, data, data, m, block, new Line[] { line.derive(par) });
-
-							if (!Types.isSuitable(paramType, compiler.getResultType())) {
-								success = false;
-								break;
-							}
+						} else if (!Types.isSuitable(paramType, typeOf(data, m, block, line, par, paramType))) {
+							success = false;
+							break;
 						}
 						idx++;
 					}
@@ -1226,115 +1230,108 @@ public class ExpressionCompiler implements GenericCompiler {
 			resultName = "typeof";
 			resultOwner = containerData;
 		} else {
-			MethodData[] methods = null;
-			if (callType == 0) {
-				methods = containerData.getAllMethods(before);
-			} else if (callType == 1) {
-				methods = ClassData.forName(containerData.getParentName()).getConstructors();
-			} else if (callType == 2) {
-				methods = containerData.getConstructors();
-			}
-
-			MethodData method = null;
-			List<MethodData> possibleMethods = new ArrayList<>();
-
-			for (MethodData met : methods) {
-				if (met.getParameters().size() == split.length) {
-					int idx = 0;
-					boolean success = true;
-					for (String par : split) {
-						ParameterData parData = met.getParameters().get(idx);
-						String type = Types.getType(par, parData.getType().getTypeSignature());
-						DefinitiveType paramType = parData.getType();
+			String overloadKey = callType == 0 ? getOverloadKey(containerData, data, m, block, line, before, split)
+					: null;
+			MethodData method = overloadKey == null ? null : containerData.getOverload(overloadKey);
+			if (method == null) {
+				MethodData[] methods = null;
+				if (callType == 0) {
+					methods = containerData.getAllMethods(before, split.length);
+				} else if (callType == 1) {
+					methods = ClassData.forName(containerData.getParentName()).getConstructors();
+				} else if (callType == 2) {
+					methods = containerData.getConstructors();
+				}
 
-						if (type != null) {
-							if (!Types.isSuitable(paramType, DefinitiveType.object(Types.getTypeSignature(type)))) {
+				List<MethodData> possibleMethods = new ArrayList<>();
+
+				for (MethodData met : methods) {
+					if (met.getParameters().size() == split.length) {
+						int idx = 0;
+						boolean success = true;
+						for (String par : split) {
+							ParameterData parData = met.getParameters().get(idx);
+							String type = Types.getType(par, parData.getType().getTypeSignature());
+							DefinitiveType paramType = parData.getType();
+
+							if (type != null) {
+								if (!Types.isSuitable(paramType,
+										DefinitiveType.object(Types.getTypeSignature(type)))) {
+									success = false;
+									break;
+								}
+							} else if (!Types.isSuitable(paramType, typeOf(data, m, block, line, par, paramType))) {
 								success = false;
 								break;
 							}
-						} else {
-							ExpressionCompiler compiler = new ExpressionCompiler(false, this.data);
-							compiler.typeHint = paramType;
-							compiler.compile(this, data, data, m, block, new Line[] { line.derive(par) });
+							idx++;
+						}
 
-							if (!Types.isSuitable(paramType, compiler.getResultType())) {
-								success = false;
-								break;
+						if (success) {
+							if (!possibleMethods.contains(met)) {
+								possibleMethods.add(met);
 							}
 						}
-						idx++;
 					}
+				}
 
-					if (success) {
-						if (!possibleMethods.contains(met)) {
-							possibleMethods.add(met);
-						}
-					}
+				if (possibleMethods.size() == 0) {
+					throw new CompileError("No overload for method " + before + " takes the given parameters");
 				}
-			}
 
-			if (possibleMethods.size() == 0) {
-				throw new CompileError("No overload for method " + before + " takes the given parameters");
-			}
+				if (possibleMethods.size() == 1) {
+					method = possibleMethods.get(0);
+				} else {
+					String[] argTypes = new String[split.length];
+					for (int i = 0; i < split.length; i++) {
+						String type = Types.getType(split[i], null);
+						if (type != null) {
+							argTypes[i] = Types.getTypeSignature(type);
+						} else {
+							argTypes[i] = typeOf(data, m, block, line, split[i], null).getTypeSignature();
+						}
+					}
 
-			if (possibleMethods.size() == 1) {
-				method = possibleMethods.get(0);
-			} else {
-				int best = 0;
-				MethodData bestMethod = null;
-				for (MethodData m1 : possibleMethods) {
-					for (MethodData m2 : possibleMethods) {
-						int pts1 = 0;
-						int pts2 = 0;
-						if (!m1.equals(m2)) {
-							for (int i = 0; i < m1.getParameters().size(); i++) {
-								ParameterData par1 = m1.getParameters().get(i);
-								ParameterData par2 = m2.getParameters().get(i);
-
-								for (String par : split) {
-									String type = Types.getType(par, null);
-
-									if (type != null) {
-										type = Types.getTypeSignature(type);
-										if (par1.getType().getTypeSignature().equals(type)
-												&& !par2.getType().getTypeSignature().equals(type)) {
-											pts1++;
-										} else if (!par1.getType().getTypeSignature().equals(type)
-												&& par2.getType().getTypeSignature().equals(type)) {
-											pts2++;
-										}
-									} else {
-										ExpressionCompiler compiler = new ExpressionCompiler(false, this.data);
-										compiler.compile(this, data, data, m, block, new Line[] { line.derive(par) });
-										type = compiler.getResultType().getTypeSignature();
-
-										if (par1.getType().getTypeSignature().equals(type)
-												&& !par2.getType().getTypeSignature().equals(type)) {
-											pts1++;
-										} else if (!par1.getType().getTypeSignature().equals(type)
-												&& par2.getType().getTypeSignature().equals(type)) {
-											pts2++;
-										}
+					int best = 0;
+					MethodData bestMethod = null;
+					for (MethodData m1 : possibleMethods) {
+						for (MethodData m2 : possibleMethods) {
+							int pts1 = 0;
+							int pts2 = 0;
+							if (!m1.equals(m2)) {
+								for (int i = 0; i < argTypes.length; i++) {
+									String type = argTypes[i];
+									String type1 = m1.getParameters().get(i).getType().getTypeSignature();
+									String type2 = m2.getParameters().get(i).getType().getTypeSignature();
+
+									if (type1.equals(type) && !type2.equals(type)) {
+										pts1++;
+									} else if (!type1.equals(type) && type2.equals(type)) {
+										pts2++;
 									}
 								}
 							}
-						}
 
-						if (pts1 > pts2 && pts1 > best) {
-							bestMethod = m1;
-							best = pts1;
-						} else if (pts2 > pts1 && pts2 > best) {
-							bestMethod = m2;
-							best = pts2;
-						} else {
-							if (bestMethod == null) {
+							if (pts1 > pts2 && pts1 > best) {
 								bestMethod = m1;
+								best = pts1;
+							} else if (pts2 > pts1 && pts2 > best) {
+								bestMethod = m2;
+								best = pts2;
+							} else {
+								if (bestMethod == null) {
+									bestMethod = m1;
+								}
 							}
 						}
 					}
+
+					method = bestMethod;
 				}
 
-				method = bestMethod;
+				if (overloadKey != null) {
+					containerData.cacheOverload(overloadKey, method);
+				}
 			}
 
 			if (!method.isAccessible(data)) {
@@ -1365,7 +1362,7 @@ public class ExpressionCompiler implements GenericCompiler {
 			}
 
 			if (callType == 0) {
-				if (!this.data.hasModifier(ACC_STATIC) && !thisType && (last == null || !last.thisType)
+				if (!this.data.hasModifier(ACC_STATIC) && !thisType && isImplicitThis(last)
 						&& containerData.getClassName().equals(data.getClassName()) && write) {
 					m.visitVarInsn(ALOAD, 0);
 
@@ -9,6 +9,7 @@ public class FieldData implements Accessible {
 	private ClassData context;
 	private DefinitiveType type;
 	private Object proposedData;
+	private Object constantValue;
 	private boolean isGeneric;
 	private int modifiers;
 
@@ -56,6 +57,14 @@ public class FieldData implements Accessible {
 		this.proposedData = proposedData;
 	}
 
+	public Object getConstantValue() {
+		return constantValue;
+	}
+
+	public void setConstantValue(Object constantValue) {
+		this.constantValue = constantValue;
+	}
+
 	@Override
 	public String toString() {
 		return name + ": " + type;
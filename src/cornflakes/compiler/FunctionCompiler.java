@@ -5,8 +5,10 @@ import java.util.HashMap;
 import java.util.List;
 
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Type;
 
 public class FunctionCompiler extends Compiler implements PostCompiler {
 	private MethodData methodData;
@@ -15,8 +17,7 @@ public class FunctionCompiler extends Compiler implements PostCompiler {
 	private int accessor;
 	private ClassData data;
 	private ClassWriter cw;
-	private Line body;
-	private Line[] lines;
+	private SyntaxNode node;
 	private boolean isBodyless;
 
 	public FunctionCompiler(FunctionType type, boolean write, boolean bodyless) {
@@ -26,17 +27,17 @@ public class FunctionCompiler extends Compiler implements PostCompiler {
 	}
 
 	@Override
-	public void compile(ClassData data, ClassWriter cw, Line line, Line[] lines) {
+	public void compile(ClassData data, ClassWriter cw, SyntaxNode node) {
 		if (!write) {
-			Compiler.addPostCompiler(data.getClassName(), this);
+			Compiler.addPostCompiler(data, this);
 
 			this.data = data;
 			this.cw = cw;
-			this.body = line;
-			this.lines = lines;
+			this.node = node;
 
 			boolean override = false;
-			String keywords = lines[0].substring(0, lines[0].indexOf(this.type.getKeyword())).trim().getLine();
+			Line header = node.getLine();
+			String keywords = header.substring(0, header.indexOf(this.type.getKeyword())).trim().getLine();
 			List<String> usedKeywords = new ArrayList<>();
 			if (type == FunctionType.OPERATOR_OVERLOAD) {
 				usedKeywords.add("static");
@@ -144,7 +145,7 @@ public class FunctionCompiler extends Compiler implements PostCompiler {
 				}
 			}
 
-			String after = lines[0].substring(lines[0].indexOf(type.getKeyword()) + type.getKeyword().length()).trim()
+			String after = header.substring(header.indexOf(type.getKeyword()) + type.getKeyword().length()).trim()
 					.getLine();
 
 			String withoutBracket = after.substring(0, after.length() - 1).trim();
@@ -175,7 +176,7 @@ public class FunctionCompiler extends Compiler implements PostCompiler {
 				String afterParams = withoutBracket.substring(withoutBracket.lastIndexOf(":") + 1).trim();
 				Strings.handleLetterString(afterParams, Strings.TYPE);
 
-				if (Types.isTupleDefinition(afterParams)) {
+				if (Types.isTupleDefinition(afterParams) || Types.isTupleArrayDefinition(afterParams)) {
 					returnType = afterParams;
 				} else {
 					returnType = data.resolveClass(afterParams).getTypeSignature();
@@ -209,6 +210,7 @@ public class FunctionCompiler extends Compiler implements PostCompiler {
 			}
 
 			this.methodData = new MethodData(data, null, null, false, -1);
+			this.methodData.setOutput(Compiler.reserveOutput(data));
 			List<ParameterData> parameters = new ArrayList<>();
 			if (type == FunctionType.INDEXER) {
 				String params = withoutBracket.substring(withoutBracket.indexOf('[') + 1, withoutBracket.indexOf(']'))
@@ -281,7 +283,7 @@ public class FunctionCompiler extends Compiler implements PostCompiler {
 							}
 						}
 
-						if (Types.isTupleDefinition(type)) {
+						if (Types.isTupleDefinition(type) || Types.isTupleArrayDefinition(type)) {
 							parameters.add(
 									new ParameterData(this.methodData, name, DefinitiveType.assume(type), ACC_FINAL));
 						} else {
@@ -358,14 +360,20 @@ public class FunctionCompiler extends Compiler implements PostCompiler {
 						.toArray(String[]::new);
 			}
 
-			MethodVisitor m = cw.visitMethod(accessor, methodData.getName(), methodData.getSignature(), null, ex);
+			MethodVisitor m = Optimizer.visitMethod(methodData.getOutput(), accessor, methodData.getName(),
+					methodData.getSignature(), null, ex);
 			m.visitCode();
 
+			if (methodData.isIterator()) {
+				writeIterator(m);
+				return;
+			}
+
 			Label start = new Label();
 			Label post = new Label();
 
 			m.visitLabel(start);
-			m.visitLineNumber(this.body.getNumber(), start);
+			m.visitLineNumber(node.getNumber(), start);
 
 			Block block = new Block(0, start, post);
 			this.methodData.setBlock(block);
@@ -373,32 +381,19 @@ public class FunctionCompiler extends Compiler implements PostCompiler {
 			if (!methodData.hasModifier(ACC_STATIC)) {
 				this.methodData.addLocalVariable();
 			}
-			if (methodData.isIterator()) {
-				this.methodData.addLocalVariable();
-			}
-
-			int itrIdx = !methodData.hasModifier(ACC_STATIC) ? 1 : 0;
-			if (methodData.isIterator()) {
-				methodData.setIterator(itrIdx);
-			}
 
 			HashMap<String, Integer> paramMap = new HashMap<>();
 			for (ParameterData par : methodData.getParameters()) {
 				paramMap.put(par.getName(), this.methodData.getLocalVariables());
 				this.methodData.addLocalVariable();
+				if (par.getType().equals("J") || par.getType().equals("D")) {
+					this.methodData.addLocalVariable();
+				}
 			}
 
-			if (methodData.isIterator()) {
-				m.visitTypeInsn(NEW, "cornflakes/lang/FunctionalIterator");
-				m.visitInsn(DUP);
-				m.visitMethodInsn(INVOKESPECIAL, "cornflakes/lang/FunctionalIterator", "<init>", "()V", false);
-				m.visitVarInsn(ASTORE, itrIdx);
-			}
-
-			Line[] inner = Strings.before(Strings.after(lines, 1), 1);
-
+			methodData.setScalarPointers(new EscapeAnalysis(node.getChildren()).getScalarPointers());
 			GenericBodyCompiler gbc = new GenericBodyCompiler(methodData);
-			gbc.compile(data, m, block, inner);
+			gbc.compile(data, m, block, node.getChildren());
 
 			if (!gbc.returns()) {
 				if (methodData.getReturnType().getTypeSignature().equals("V")) {
@@ -407,9 +402,6 @@ public class FunctionCompiler extends Compiler implements PostCompiler {
 					}
 
 					m.visitInsn(RETURN);
-				} else if (methodData.isIterator()) {
-					m.visitVarInsn(ALOAD, itrIdx);
-					m.visitInsn(ARETURN);
 				} else {
 					throw new CompileError("A non-void function must return a value");
 				}
@@ -419,10 +411,6 @@ public class FunctionCompiler extends Compiler implements PostCompiler {
 			if (!methodData.hasModifier(ACC_STATIC)) {
 				m.visitLocalVariable("this", Types.padSignature(data.getClassName()), null, start, post, 0);
 			}
-
-			if (methodData.isIterator()) {
-				m.visitLocalVariable("_iterator", "Lcornflakes/lang/FunctionalIterator;", null, start, post, itrIdx);
-			}
 			for (ParameterData par : methodData.getParameters()) {
 				m.visitLocalVariable(par.getName(), par.getType().getAbsoluteTypeSignature(), null, start, post,
 						paramMap.get(par.getName()));
@@ -433,9 +421,133 @@ public class FunctionCompiler extends Compiler implements PostCompiler {
 		}
 	}
 
+	private void writeIterator(MethodVisitor m) {
+		boolean isStatic = methodData.hasModifier(ACC_STATIC);
+		String captured = isStatic ? "" : Types.padSignature(data.getClassName());
+		for (ParameterData par : methodData.getParameters()) {
+			captured += par.getType().getAbsoluteTypeSignature();
+		}
+		String bodyName = "iter$" + methodData.getName();
+		String bodyDesc = "(" + captured + "Lcornflakes/lang/Generator;)Z";
+
+		// the function only creates the generator; its body runs once per element
+		Label start = new Label();
+		Label post = new Label();
+		m.visitLabel(start);
+		m.visitLineNumber(node.getNumber(), start);
+
+		m.visitTypeInsn(NEW, "cornflakes/lang/Generator");
+		m.visitInsn(DUP);
+		int slot = 0;
+		if (!isStatic) {
+			m.visitVarInsn(ALOAD, slot++);
+		}
+		for (ParameterData par : methodData.getParameters()) {
+			m.visitVarInsn(Types.getOpcode(Types.LOAD, par.getType().getAbsoluteTypeSignature()), slot++);
+			if (par.getType().equals("J") || par.getType().equals("D")) {
+				slot++;
+			}
+		}
+
+		Type sam = Type.getMethodType("(Lcornflakes/lang/Generator;)Z");
+		m.visitInvokeDynamicInsn("advance", "(" + captured + ")Lcornflakes/lang/Generator$Body;",
+				new Handle(H_INVOKESTATIC, "java/lang/invoke/LambdaMetafactory", "metafactory",
+						"(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodType;Ljava/lang/invoke/MethodHandle;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/CallSite;",
+						false),
+				sam, new Handle(H_INVOKESTATIC, data.getClassName(), bodyName, bodyDesc, false), sam);
+		m.visitMethodInsn(INVOKESPECIAL, "cornflakes/lang/Generator", "<init>", "(Lcornflakes/lang/Generator$Body;)V",
+				false);
+		m.visitMethodInsn(INVOKESTATIC, "cornflakes/lang/FunctionalIterator", "lazy",
+				"(Ljava/util/Iterator;)Lcornflakes/lang/FunctionalIterator;", false);
+		m.visitInsn(ARETURN);
+
+		m.visitLabel(post);
+		if (!isStatic) {
+			m.visitLocalVariable("this", Types.padSignature(data.getClassName()), null, start, post, 0);
+		}
+		int idx = isStatic ? 0 : 1;
+		for (ParameterData par : methodData.getParameters()) {
+			m.visitLocalVariable(par.getName(), par.getType().getAbsoluteTypeSignature(), null, start, post, idx++);
+			if (par.getType().equals("J") || par.getType().equals("D")) {
+				idx++;
+			}
+		}
+		m.visitMaxs(slot + 2, slot);
+		m.visitEnd();
+
+		MethodVisitor b = Optimizer.visitMethod(methodData.getOutput(), ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC, bodyName,
+				bodyDesc, null, null);
+		b.visitCode();
+
+		Label bodyStart = new Label();
+		Label bodyPost = new Label();
+		Label dispatch = new Label();
+		Label finished = new Label();
+		b.visitLabel(bodyStart);
+		b.visitLineNumber(node.getNumber(), bodyStart);
+
+		Block block = new Block(0, bodyStart, bodyPost);
+		this.methodData.setBlock(block);
+		this.methodData.setLocalVariables(slot + 1);
+		this.methodData.setIterator(slot);
+
+		b.visitJumpInsn(GOTO, dispatch);
+
+		Label entry = new Label();
+		b.visitLabel(entry);
+		GenericBodyCompiler gbc = new GenericBodyCompiler(methodData);
+		gbc.compile(data, b, block, node.getChildren());
+
+		b.visitLabel(finished);
+		b.visitInsn(ICONST_0);
+		b.visitInsn(IRETURN);
+
+		// every local is cleared first so that the saved frame is always assigned
+		b.visitLabel(dispatch);
+		for (LocalData local : methodData.getHoistedLocals()) {
+			CompileUtils.clearLocal(b, local);
+		}
+
+		List<YieldPoint> points = methodData.getYieldPoints();
+		Label[] states = new Label[points.size() + 1];
+		states[0] = entry;
+		for (int i = 0; i < points.size(); i++) {
+			states[i + 1] = new Label();
+		}
+		b.visitVarInsn(ALOAD, slot);
+		b.visitMethodInsn(INVOKEVIRTUAL, "cornflakes/lang/Generator", "getState", "()I", false);
+		this.methodData.ics();
+		b.visitTableSwitchInsn(0, points.size(), finished, states);
+
+		for (int i = 0; i < points.size(); i++) {
+			b.visitLabel(states[i + 1]);
+			for (LocalData local : points.get(i).getLocals()) {
+				CompileUtils.restoreLocal(b, methodData, local);
+			}
+			b.visitJumpInsn(GOTO, points.get(i).getResume());
+		}
+
+		b.visitLabel(bodyPost);
+		if (!isStatic) {
+			b.visitLocalVariable("this", Types.padSignature(data.getClassName()), null, bodyStart, bodyPost, 0);
+		}
+		idx = isStatic ? 0 : 1;
+		for (ParameterData par : methodData.getParameters()) {
+			b.visitLocalVariable(par.getName(), par.getType().getAbsoluteTypeSignature(), null, bodyStart, bodyPost,
+					idx++);
+			if (par.getType().equals("J") || par.getType().equals("D")) {
+				idx++;
+			}
+		}
+		b.visitLocalVariable("_generator", "Lcornflakes/lang/Generator;", null, bodyStart, bodyPost, slot);
+
+		b.visitMaxs(this.methodData.getStackSize() + 2, this.methodData.getLocalVariables());
+		b.visitEnd();
+	}
+
 	public void write() {
 		write = true;
-		compile(data, cw, body, lines);
+		compile(data, cw, node);
 	}
 
 	public boolean isBodyless() {
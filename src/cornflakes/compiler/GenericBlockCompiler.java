@@ -7,16 +7,66 @@ import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 
 public class GenericBlockCompiler implements GenericCompiler {
+	private static final MethodVisitor DEAD_CODE = new MethodVisitor(ASM9) {
+	};
+
 	private MethodData data;
-	private List<Line[]> lines = new ArrayList<>();
+	private List<SyntaxNode> chain;
 
-	public GenericBlockCompiler(MethodData data, List<Line[]> lines) {
+	public GenericBlockCompiler(MethodData data, SyntaxNode node) {
 		this.data = data;
-		this.lines = lines;
+		this.chain = node.getChain();
 	}
 
 	@Override
 	public void compile(ClassData data, MethodVisitor m, Block block, Line[] rawlines) {
+		List<LocalData> accumulated = beginAccumulation(m, block);
+		compileBlock(data, m, block);
+
+		for (LocalData local : accumulated) {
+			int builder = this.data.removeAccumulator(local.getName()).getIndex();
+			Label unchanged = new Label();
+			m.visitVarInsn(ALOAD, builder);
+			m.visitJumpInsn(IFNULL, unchanged);
+			m.visitVarInsn(ALOAD, builder);
+			m.visitMethodInsn(INVOKEVIRTUAL, "java/lang/StringBuilder", "toString", "()Ljava/lang/String;", false);
+			m.visitVarInsn(ASTORE, local.getIndex());
+			m.visitLabel(unchanged);
+		}
+	}
+
+	private List<LocalData> beginAccumulation(MethodVisitor m, Block block) {
+		List<LocalData> accumulated = new ArrayList<>();
+		String header = Strings.normalizeSpaces(chain.get(0).getLine().getLine().trim());
+		// a handler around the loop could observe the local before it is stored back
+		if (this.data.isIterator() || this.data.isHandled()
+				|| !header.startsWith("while ") && !header.startsWith("for ") && !header.startsWith("foreach ")) {
+			return accumulated;
+		}
+
+		// strings which the loop only appends to are built up in a hidden builder, and stored back after it
+		StringAccumulation analysis = new StringAccumulation(chain.get(0));
+		for (LocalData local : new ArrayList<>(this.data.getLocals())) {
+			if (!"Ljava/lang/String;".equals(local.getType().getTypeSignature()) || local.hasModifier(ACC_FINAL)
+					|| local.isScalar() || this.data.getAccumulator(local.getName()) != null
+					|| !analysis.isAccumulator(local.getName())) {
+				continue;
+			}
+
+			// the builder is created on the first append, so a loop which never runs leaves the local as it was
+			int idx = this.data.getLocalVariables();
+			this.data.addLocalVariable();
+			m.visitInsn(ACONST_NULL);
+			m.visitVarInsn(ASTORE, idx);
+
+			this.data.addAccumulator(local.getName(), new LocalData("_sb_" + local.getName(),
+					DefinitiveType.object("Ljava/lang/StringBuilder;"), block, idx, ACC_FINAL));
+			accumulated.add(local);
+		}
+		return accumulated;
+	}
+
+	private void compileBlock(ClassData data, MethodVisitor m, Block block) {
 		Label start = new Label();
 
 		this.data.addBlock();
@@ -24,31 +74,32 @@ public class GenericBlockCompiler implements GenericCompiler {
 		m.visitLabel(start);
 		m.visitLineNumber(this.data.getBlocks(), start);
 
-		Line firstLine = Strings.normalizeSpaces(lines.get(0)[0]);
+		Line firstLine = Strings.normalizeSpaces(chain.get(0).getLine());
 		Line condition = firstLine.substring(0, firstLine.lastIndexOf('{')).trim();
 
 		if (condition.isEmpty()) {
 			Block thisBlock = new Block(block.getStart() + 1, start, null);
 			block.addBlock(thisBlock);
-			Line[] newLines = Strings.before(Strings.after(lines.get(0), 1), 1);
+			SyntaxNode[] newLines = chain.get(0).getChildren();
 
 			thisBlock.setEndLabel(block.getEndLabel());
 			new GenericBodyCompiler(this.data).compile(data, m, thisBlock, newLines);
 		} else {
 			if (condition.startsWith("if ")) {
 				boolean hasElse = false;
+				boolean reachable = true;
 				Label finalEnd = new Label();
 
 				int last = block.getStart() + 1;
-				for (int i = 0; i < lines.size(); i++) {
+				for (int i = 0; i < chain.size(); i++) {
 					Block currentBlock = new Block(last++, start, null);
 					block.addBlock(currentBlock);
 					Label theEnd = new Label();
 					currentBlock.setEndLabel(theEnd);
 
-					firstLine = Strings.normalizeSpaces(lines.get(i)[0]);
+					firstLine = Strings.normalizeSpaces(chain.get(i).getLine());
 					condition = firstLine.substring(0, firstLine.lastIndexOf('{')).trim();
-					Line[] newLines = Strings.before(Strings.after(lines.get(i), 1), 1);
+					SyntaxNode[] newLines = chain.get(i).getChildren();
 
 					int val;
 					if (condition.startsWith("if")) {
@@ -59,54 +110,63 @@ public class GenericBlockCompiler implements GenericCompiler {
 						throw new CompileError("Invalid part of chain");
 					}
 					Line parse = condition.substring(val).trim();
+					Boolean constant = null;
 					if (!parse.isEmpty()) {
 						if (parse.startsWith("if ")) {
 							parse = parse.substring(2).trim();
 						}
 
-						BooleanExpressionCompiler compiler = new BooleanExpressionCompiler(this.data, theEnd, true);
-						compiler.compile(data, m, currentBlock, new Line[] { parse });
+						constant = getConstant(data, currentBlock, parse);
+						if (constant == null && reachable) {
+							BooleanExpressionCompiler compiler = new BooleanExpressionCompiler(this.data, theEnd,
+									true);
+							compiler.compile(data, m, currentBlock, new Line[] { parse });
 
-						if (!compiler.isRequireBranch()) {
-							m.visitFrame(F_SAME, this.data.getLocalVariables(), null, this.data.getCurrentStack(),
-									null);
-							m.visitJumpInsn(IFEQ, theEnd);
+							if (!compiler.isRequireBranch()) {
+								m.visitJumpInsn(IFEQ, theEnd);
+							}
 						}
 					} else {
 						if (hasElse) {
 							throw new CompileError("Cannot have multiple else blocks attached to one if chain");
 						}
 						hasElse = true;
+						constant = true;
 					}
 
-					new GenericBodyCompiler(this.data).compile(data, m, block, newLines);
-					m.visitFrame(F_SAME, this.data.getLocalVariables(), null, this.data.getCurrentStack(), null);
-					m.visitJumpInsn(GOTO, finalEnd);
+					if (!reachable || Boolean.FALSE.equals(constant)) {
+						new GenericBodyCompiler(this.data).compile(data, DEAD_CODE, block, newLines);
+					} else {
+						new GenericBodyCompiler(this.data).compile(data, m, block, newLines);
+						m.visitJumpInsn(GOTO, finalEnd);
 
-					m.visitLabel(theEnd);
+						m.visitLabel(theEnd);
+						reachable = !Boolean.TRUE.equals(constant);
+					}
 				}
 
 				m.visitLabel(finalEnd);
 			} else if (condition.equals("try")) {
-				if (lines.size() == 1) {
+				if (chain.size() == 1) {
 					throw new CompileError("Expecting catch block");
 				}
 
 				TryBlock tryBlock = new TryBlock(block.getStart() + 1, start, null);
 				block.addBlock(tryBlock);
-				Line[] within = Strings.before(Strings.after(lines.get(0), 1), 1);
+				SyntaxNode[] within = chain.get(0).getChildren();
 
 				Label endLabel = new Label();
-				int itrEnd = lines.size();
+				int itrEnd = chain.size();
 				boolean hasFinally = false;
-				if (lines.get(lines.size() - 1)[0].getLine().trim().matches("( *?)finally( *?)\\{")) {
+				if (chain.get(chain.size() - 1).getLine().getLine().trim().matches("( *?)finally( *?)\\{")) {
 					itrEnd--;
 					hasFinally = true;
 				}
 
 				tryBlock.setEndLabel(endLabel);
+				this.data.enterHandler();
 				new GenericBodyCompiler(this.data).compile(data, m, tryBlock, within);
-				m.visitFrame(F_SAME, this.data.getLocalVariables(), null, this.data.getCurrentStack(), null);
+				this.data.exitHandler();
 				m.visitJumpInsn(GOTO, endLabel);
 
 				int last = tryBlock.getStart() + 1;
@@ -119,9 +179,9 @@ public class GenericBlockCompiler implements GenericCompiler {
 					Label theEnd = new Label();
 					currentBlock.setEndLabel(theEnd);
 
-					firstLine = Strings.normalizeSpaces(lines.get(i)[0]);
+					firstLine = Strings.normalizeSpaces(chain.get(i).getLine());
 					condition = firstLine.substring(0, firstLine.lastIndexOf('{')).trim();
-					Line[] newLines = Strings.before(Strings.after(lines.get(i), 1), 1);
+					SyntaxNode[] newLines = chain.get(i).getChildren();
 
 					String parse = condition.substring(5).trim().toString();
 
@@ -162,7 +222,6 @@ public class GenericBlockCompiler implements GenericCompiler {
 						m.visitVarInsn(ASTORE, this.data.getLocalVariables() - 1);
 					}
 					new GenericBodyCompiler(this.data).compile(data, m, block, newLines);
-					m.visitFrame(F_SAME, this.data.getLocalVariables(), null, this.data.getCurrentStack(), null);
 					m.visitJumpInsn(GOTO, endLabel);
 
 					m.visitLabel(theEnd);
@@ -198,13 +257,12 @@ public class GenericBlockCompiler implements GenericCompiler {
 				if (hasFinally) {
 					Block thisBlock = new Block(block.getStart() + 1, start, null);
 					block.addBlock(thisBlock);
-					Line[] newLines = Strings.before(Strings.after(lines.get(lines.size() - 1), 1), 1);
+					SyntaxNode[] newLines = chain.get(chain.size() - 1).getChildren();
 
 					thisBlock.setEndLabel(block.getEndLabel());
 					new GenericBodyCompiler(this.data).compile(data, m, thisBlock, newLines);
 
 					Label after = new Label();
-					m.visitFrame(F_SAME, this.data.getLocalVariables(), null, this.data.getCurrentStack(), null);
 					m.visitJumpInsn(GOTO, after);
 
 					m.visitLabel(after);
@@ -217,21 +275,30 @@ public class GenericBlockCompiler implements GenericCompiler {
 				currentBlock.setEndLabel(outOfLoop);
 
 				Line parse = condition.substring(5).trim();
-				Line[] newLines = Strings.before(Strings.after(lines.get(0), 1), 1);
+				SyntaxNode[] newLines = chain.get(0).getChildren();
 
 				Label afterGoto = new Label();
 				Label after = new Label();
 
-				m.visitFrame(F_SAME, this.data.getLocalVariables(), null, this.data.getCurrentStack(), null);
-				m.visitJumpInsn(GOTO, after);
+				Boolean constant = getConstant(data, currentBlock, parse);
+				if (Boolean.FALSE.equals(constant)) {
+					new GenericBodyCompiler(this.data).compile(data, DEAD_CODE, currentBlock, newLines);
+					m.visitLabel(outOfLoop);
+					return;
+				}
+
+				if (constant == null) {
+					m.visitJumpInsn(GOTO, after);
+				}
 
 				m.visitLabel(afterGoto);
 				new GenericBodyCompiler(this.data).compile(data, m, currentBlock, newLines);
 				m.visitLabel(after);
-				new BooleanExpressionCompiler(this.data, outOfLoop, true).compile(data, m, currentBlock,
-						new Line[] { parse });
+				if (constant == null) {
+					new BooleanExpressionCompiler(this.data, outOfLoop, true).compile(data, m, currentBlock,
+							new Line[] { parse });
+				}
 
-				m.visitFrame(F_SAME, this.data.getLocalVariables(), null, this.data.getCurrentStack(), null);
 				m.visitJumpInsn(GOTO, afterGoto);
 				m.visitLabel(outOfLoop);
 			} else if (condition.startsWith("for ")) {
@@ -242,7 +309,7 @@ public class GenericBlockCompiler implements GenericCompiler {
 				currentBlock.setEndLabel(outOfLoop);
 
 				Line parse = condition.substring(4).trim();
-				Line[] newLines = Strings.before(Strings.after(lines.get(0), 1), 1);
+				SyntaxNode[] newLines = chain.get(0).getChildren();
 
 				Label afterGoto = new Label();
 				Label after = new Label();
@@ -257,20 +324,32 @@ public class GenericBlockCompiler implements GenericCompiler {
 
 				new GenericStatementCompiler(this.data).compile(data, m, currentBlock, new Line[] { declaration });
 
-				m.visitFrame(F_SAME, this.data.getLocalVariables(), null, this.data.getCurrentStack(), null);
-				m.visitJumpInsn(GOTO, after);
+				Boolean constant = getConstant(data, currentBlock, conditionBool);
+				if (Boolean.FALSE.equals(constant)) {
+					new GenericBodyCompiler(this.data).compile(data, DEAD_CODE, currentBlock, newLines);
+					new MathExpressionCompiler(this.data, false, true).compile(data, DEAD_CODE, currentBlock,
+							new Line[] { increment });
+					m.visitLabel(outOfLoop);
+					return;
+				}
+
+				if (constant == null) {
+					m.visitJumpInsn(GOTO, after);
+				}
 
 				m.visitLabel(afterGoto);
 
 				new GenericBodyCompiler(this.data).compile(data, m, currentBlock, newLines);
-				new MathExpressionCompiler(this.data, false, true).compile(data, m, currentBlock,
-						new Line[] { increment });
+				MathExpressionCompiler modification = new MathExpressionCompiler(this.data, false, true);
+				modification.compile(data, m, currentBlock, new Line[] { increment });
+				new GenericStatementCompiler(this.data).discard(m, modification.getResultType());
 
 				m.visitLabel(after);
-				new BooleanExpressionCompiler(this.data, outOfLoop, true).compile(data, m, currentBlock,
-						new Line[] { conditionBool });
+				if (constant == null) {
+					new BooleanExpressionCompiler(this.data, outOfLoop, true).compile(data, m, currentBlock,
+							new Line[] { conditionBool });
+				}
 
-				m.visitFrame(F_SAME, this.data.getLocalVariables(), null, this.data.getCurrentStack(), null);
 				m.visitJumpInsn(GOTO, afterGoto);
 				m.visitLabel(outOfLoop);
 			} else if (condition.startsWith("foreach ")) {
@@ -281,7 +360,7 @@ public class GenericBlockCompiler implements GenericCompiler {
 				currentBlock.setEndLabel(outOfLoop);
 
 				Line parse = condition.substring(8).trim();
-				Line[] newLines = Strings.before(Strings.after(lines.get(0), 1), 1);
+				SyntaxNode[] newLines = chain.get(0).getChildren();
 
 				Line[] parseSplit = Strings.split(parse, " in ");
 				if (parseSplit.length != 2) {
@@ -294,12 +373,21 @@ public class GenericBlockCompiler implements GenericCompiler {
 				ExpressionCompiler exp = new ExpressionCompiler(false, this.data);
 				exp.compile(data, m, currentBlock, new Line[] { itr });
 
-				String x = "Ljava/lang/Object;";
-				if (exp.getResultType().equals("Lcornflakes/lang/I32Range;")) {
-					x = "I";
-				} else if (exp.getResultType().equals("Lcornflakes/lang/F32Range;")) {
-					x = "F";
+				String range = getRangeType(exp.getResultType());
+				if (range != null) {
+					compileRange(data, m, currentBlock, start, var, itr, range, exp, newLines);
+					return;
+				}
+				if (exp.getResultType().isTupleArray()) {
+					compileTupleArray(data, m, currentBlock, start, var, itr, exp, newLines);
+					return;
 				}
+				if (exp.getResultType().getTypeName().startsWith("[")) {
+					compileArray(data, m, currentBlock, start, var, itr, exp, newLines);
+					return;
+				}
+
+				String x = "Ljava/lang/Object;";
 
 				int idx = this.data.getLocalVariables();
 				LocalData objData = new LocalData(var.getLine(), DefinitiveType.assume(x), currentBlock, idx, 0);
@@ -309,12 +397,13 @@ public class GenericBlockCompiler implements GenericCompiler {
 				m.visitLocalVariable(objData.getName(), y, null, start, currentBlock.getEndLabel(), idx);
 				this.data.addLocalVariable();
 
-				int itrIdx = 16384 + this.data.getSyntheticVariables();
-				LocalData itrData = new LocalData("_itr_" + itrIdx, DefinitiveType.assume("Ljava/lang/Iterator;"),
-						currentBlock, itrIdx, ACC_FINAL);
+				int itrIdx = this.data.getLocalVariables();
+				LocalData itrData = new LocalData("_itr_" + this.data.getSyntheticVariables(),
+						DefinitiveType.assume("Ljava/util/Iterator;"), currentBlock, itrIdx, ACC_FINAL);
 				this.data.addLocal(itrData);
 				m.visitLocalVariable(itrData.getName(), itrData.getType().getAbsoluteTypeSignature(), null, start,
 						currentBlock.getEndLabel(), itrIdx);
+				this.data.addLocalVariable();
 				this.data.addSyntheticVariable();
 
 				try {
@@ -323,16 +412,7 @@ public class GenericBlockCompiler implements GenericCompiler {
 						throw new CompileError("Cannot for-each over a primitive type");
 					}
 
-					if (type.getObjectType().getClassName().startsWith("[")) {
-						m.visitTypeInsn(NEW, "cornflakes/lang/ArrayIterator");
-						m.visitInsn(DUP);
-
-						exp.setWrite(true);
-						exp.compile(data, m, currentBlock, new Line[] { itr });
-
-						m.visitMethodInsn(INVOKESPECIAL, "cornflakes/lang/ArrayIterator", "<init>",
-								"([Ljava/lang/Object;)V", false);
-					} else if (type.getObjectType().is("java.util.Iterator")) {
+					if (type.getObjectType().is("java.util.Iterator")) {
 						exp.setWrite(true);
 						exp.compile(data, m, currentBlock, new Line[] { itr });
 					} else if (type.getObjectType().is("java.lang.Iterable") || type.isTuple()) {
@@ -353,16 +433,12 @@ public class GenericBlockCompiler implements GenericCompiler {
 				Label afterGoto = new Label();
 				Label after = new Label();
 
-				m.visitFrame(F_SAME, this.data.getLocalVariables(), null, this.data.getCurrentStack(), null);
 				m.visitJumpInsn(GOTO, after);
 
 				m.visitLabel(afterGoto);
 				m.visitVarInsn(ALOAD, itrIdx);
 				m.visitMethodInsn(INVOKEINTERFACE, "java/util/Iterator", "next", "()Ljava/lang/Object;", true);
 				this.data.ics();
-				if (y.equals("I")) {
-					m.visitMethodInsn(INVOKEVIRTUAL, "java/lang/Integer", "intValue", "()I", false);
-				}
 				m.visitVarInsn(Types.getOpcode(Types.STORE, y), idx);
 
 				new GenericBodyCompiler(this.data).compile(data, m, currentBlock, newLines);
@@ -371,10 +447,8 @@ public class GenericBlockCompiler implements GenericCompiler {
 				m.visitMethodInsn(INVOKEINTERFACE, "java/util/Iterator", "hasNext", "()Z", true);
 				this.data.ics();
 
-				m.visitFrame(F_SAME, this.data.getLocalVariables(), null, this.data.getCurrentStack(), null);
 				m.visitJumpInsn(IFEQ, outOfLoop);
 
-				m.visitFrame(F_SAME, this.data.getLocalVariables(), null, this.data.getCurrentStack(), null);
 				m.visitJumpInsn(GOTO, afterGoto);
 				m.visitLabel(outOfLoop);
 			} else {
@@ -382,4 +456,390 @@ public class GenericBlockCompiler implements GenericCompiler {
 			}
 		}
 	}
+
+	private Boolean getConstant(ClassData data, Block block, Line condition) {
+		// branches of a generator can hold resume points, so they are always kept
+		if (this.data.isIterator()) {
+			return null;
+		}
+		return ConstantFolder.foldCondition(this.data, data, block, condition.getLine());
+	}
+
+	private void compileRange(ClassData data, MethodVisitor m, Block block, Label start, Line var, Line itr,
+			String type, ExpressionCompiler exp, SyntaxNode[] lines) {
+		LocalData varData = declareLocal(m, block, start, var.getLine(), type, 0);
+		LocalData counter = declareLocal(m, block, start, "_i_" + this.data.getLocalVariables(), type, ACC_FINAL);
+		LocalData end = declareLocal(m, block, start, "_end_" + this.data.getLocalVariables(), type, ACC_FINAL);
+
+		Number step = null;
+		LocalData stepData = null;
+		String[] args = getRangeArguments(data, itr);
+		if (args != null) {
+			pushRangeArgument(data, m, block, itr, args[0], type);
+			m.visitVarInsn(Types.getOpcode(Types.STORE, type), counter.getIndex());
+			pushRangeArgument(data, m, block, itr, args[1], type);
+			m.visitVarInsn(Types.getOpcode(Types.STORE, type), end.getIndex());
+
+			if (args.length == 2) {
+				step = 1;
+			} else {
+				String literal = Types.getType(args[2], null);
+				if (literal != null) {
+					step = (Number) Types.parseLiteral(literal, args[2]);
+				}
+
+				stepData = declareLocal(m, block, start, "_step_" + this.data.getLocalVariables(), type, ACC_FINAL);
+				pushRangeArgument(data, m, block, itr, args[2], type);
+				m.visitVarInsn(Types.getOpcode(Types.STORE, type), stepData.getIndex());
+			}
+		} else {
+			String owner = exp.getResultType().getAbsoluteTypeName();
+			stepData = declareLocal(m, block, start, "_step_" + this.data.getLocalVariables(), type, ACC_FINAL);
+
+			exp.setWrite(true);
+			exp.compile(data, m, block, new Line[] { itr });
+			m.visitInsn(DUP);
+			m.visitInsn(DUP);
+			this.data.ics();
+			this.data.ics();
+			m.visitMethodInsn(INVOKEVIRTUAL, owner, "getStart", "()" + type, false);
+			m.visitVarInsn(Types.getOpcode(Types.STORE, type), counter.getIndex());
+			m.visitMethodInsn(INVOKEVIRTUAL, owner, "getEnd", "()" + type, false);
+			m.visitVarInsn(Types.getOpcode(Types.STORE, type), end.getIndex());
+			m.visitMethodInsn(INVOKEVIRTUAL, owner, "getIncrement", "()" + type, false);
+			m.visitVarInsn(Types.getOpcode(Types.STORE, type), stepData.getIndex());
+		}
+
+		Label outOfLoop = block.getEndLabel();
+		Label afterGoto = new Label();
+		Label after = new Label();
+
+		m.visitJumpInsn(GOTO, after);
+
+		m.visitLabel(afterGoto);
+		m.visitVarInsn(Types.getOpcode(Types.LOAD, type), counter.getIndex());
+		m.visitVarInsn(Types.getOpcode(Types.STORE, type), varData.getIndex());
+
+		new GenericBodyCompiler(this.data).compile(data, m, block, lines);
+
+		if (type.equals("I") && step != null && step.intValue() == (short) step.intValue()) {
+			m.visitIincInsn(counter.getIndex(), step.intValue());
+		} else {
+			m.visitVarInsn(Types.getOpcode(Types.LOAD, type), counter.getIndex());
+			if (stepData == null) {
+				pushOne(m, type);
+			} else {
+				m.visitVarInsn(Types.getOpcode(Types.LOAD, type), stepData.getIndex());
+			}
+			m.visitInsn(getRangeOpcode(IADD, type));
+			m.visitVarInsn(Types.getOpcode(Types.STORE, type), counter.getIndex());
+		}
+
+		m.visitLabel(after);
+		Label descending = new Label();
+		if (step == null) {
+			m.visitVarInsn(Types.getOpcode(Types.LOAD, type), stepData.getIndex());
+			if (!type.equals("I")) {
+				pushZero(m, type);
+				m.visitInsn(getRangeOpcode(LCMP, type));
+			}
+			m.visitJumpInsn(IFLT, descending);
+		}
+
+		boolean ascending = step == null || step.doubleValue() >= 0;
+		if (ascending) {
+			compareRange(m, type, counter, end, IFLT, afterGoto);
+		}
+		if (step == null) {
+			m.visitJumpInsn(GOTO, outOfLoop);
+			m.visitLabel(descending);
+		}
+		if (!ascending || step == null) {
+			compareRange(m, type, counter, end, IFGT, afterGoto);
+		}
+		m.visitLabel(outOfLoop);
+	}
+
+	private void compileArray(ClassData data, MethodVisitor m, Block block, Label start, Line var, Line itr,
+			ExpressionCompiler exp, SyntaxNode[] lines) {
+		String type = exp.getResultType().getTypeSignature();
+		String element = type.substring(1);
+
+		LocalData varData = declareLocal(m, block, start, var.getLine(), element, 0);
+		LocalData array = declareLocal(m, block, start, "_array_" + this.data.getLocalVariables(), type, ACC_FINAL);
+		LocalData length = declareLocal(m, block, start, "_length_" + this.data.getLocalVariables(), "I", ACC_FINAL);
+		LocalData index = declareLocal(m, block, start, "_index_" + this.data.getLocalVariables(), "I", ACC_FINAL);
+
+		exp.setWrite(true);
+		exp.compile(data, m, block, new Line[] { itr });
+		m.visitVarInsn(ASTORE, array.getIndex());
+		m.visitVarInsn(ALOAD, array.getIndex());
+		m.visitInsn(ARRAYLENGTH);
+		m.visitVarInsn(ISTORE, length.getIndex());
+		m.visitInsn(ICONST_0);
+		m.visitVarInsn(ISTORE, index.getIndex());
+		this.data.ics();
+
+		Label outOfLoop = block.getEndLabel();
+		Label afterGoto = new Label();
+		Label after = new Label();
+
+		m.visitJumpInsn(GOTO, after);
+
+		m.visitLabel(afterGoto);
+		m.visitVarInsn(ALOAD, array.getIndex());
+		m.visitVarInsn(ILOAD, index.getIndex());
+		m.visitInsn(Types.getArrayOpcode(Types.LOAD, type));
+		m.visitVarInsn(Types.getOpcode(Types.STORE, element), varData.getIndex());
+		this.data.ics();
+
+		new GenericBodyCompiler(this.data).compile(data, m, block, lines);
+		m.visitIincInsn(index.getIndex(), 1);
+
+		m.visitLabel(after);
+		m.visitVarInsn(ILOAD, index.getIndex());
+		m.visitVarInsn(ILOAD, length.getIndex());
+		this.data.ics();
+		m.visitJumpInsn(IF_ICMPLT, afterGoto);
+		m.visitLabel(outOfLoop);
+	}
+
+	private void compileTupleArray(ClassData data, MethodVisitor m, Block block, Label start, Line var, Line itr,
+			ExpressionCompiler exp, SyntaxNode[] lines) {
+		String owner = "cornflakes/lang/TupleArray";
+		TupleArrayClassData type = (TupleArrayClassData) exp.getResultType().getObjectType();
+		String shape = type.getShape();
+
+		String[] names = null;
+		LocalData[] vars;
+		if (Types.isTupleDefinition(var.getLine())) {
+			names = Strings.splitParameters(var.getLine().substring(1, var.getLine().length() - 1).trim());
+			if (names.length != shape.length()) {
+				throw new CompileError("A tuple of " + shape.length() + " items cannot be destructured into "
+						+ names.length + " variables");
+			}
+
+			vars = new LocalData[names.length];
+			for (int i = 0; i < names.length; i++) {
+				vars[i] = declareLocal(m, block, start, names[i].trim(), type.getTuple().getType(i), 0);
+			}
+		} else {
+			vars = new LocalData[] { declareLocal(m, block, start, var.getLine(), type.getRowType(), 0) };
+		}
+
+		LocalData array = declareLocal(m, block, start, "_array_" + this.data.getLocalVariables(),
+				"L" + owner + ";", ACC_FINAL);
+		LocalData length = declareLocal(m, block, start, "_length_" + this.data.getLocalVariables(), "I", ACC_FINAL);
+		LocalData index = declareLocal(m, block, start, "_index_" + this.data.getLocalVariables(), "I", ACC_FINAL);
+
+		exp.setWrite(true);
+		exp.compile(data, m, block, new Line[] { itr });
+		m.visitVarInsn(ASTORE, array.getIndex());
+		m.visitVarInsn(ALOAD, array.getIndex());
+		m.visitMethodInsn(INVOKEVIRTUAL, owner, "getLength", "()I", false);
+		m.visitVarInsn(ISTORE, length.getIndex());
+		m.visitInsn(ICONST_0);
+		m.visitVarInsn(ISTORE, index.getIndex());
+		this.data.ics();
+
+		// destructured elements are read straight from the columns, so no rows are created
+		LocalData[] columns = null;
+		if (names != null) {
+			columns = new LocalData[names.length];
+			for (int i = 0; i < columns.length; i++) {
+				String column = "[" + TupleCompiler.getFieldSignature(shape.charAt(i));
+				columns[i] = declareLocal(m, block, start, "_column_" + this.data.getLocalVariables(), column,
+						ACC_FINAL);
+
+				m.visitVarInsn(ALOAD, array.getIndex());
+				m.visitLdcInsn(i);
+				m.visitMethodInsn(INVOKEVIRTUAL, owner, "getColumn", "(I)Ljava/lang/Object;", false);
+				m.visitTypeInsn(CHECKCAST, column);
+				m.visitVarInsn(ASTORE, columns[i].getIndex());
+				this.data.ics();
+			}
+		}
+
+		Label outOfLoop = block.getEndLabel();
+		Label afterGoto = new Label();
+		Label after = new Label();
+
+		m.visitJumpInsn(GOTO, after);
+
+		m.visitLabel(afterGoto);
+		if (columns == null) {
+			m.visitVarInsn(ALOAD, array.getIndex());
+			m.visitVarInsn(ILOAD, index.getIndex());
+			m.visitMethodInsn(INVOKEVIRTUAL, owner, "_get_index_", "(I)Lcornflakes/lang/Tuple;", false);
+			m.visitVarInsn(ASTORE, vars[0].getIndex());
+		} else {
+			for (int i = 0; i < columns.length; i++) {
+				String column = columns[i].getType().getTypeSignature();
+				DefinitiveType item = vars[i].getType();
+
+				m.visitVarInsn(ALOAD, columns[i].getIndex());
+				m.visitVarInsn(ILOAD, index.getIndex());
+				m.visitInsn(Types.getArrayOpcode(Types.LOAD, column));
+				if (!item.isPrimitive() && !item.equals("Ljava/lang/Object;")) {
+					m.visitTypeInsn(CHECKCAST, item.getAbsoluteTypeName());
+				}
+				m.visitVarInsn(Types.getOpcode(Types.STORE, item.getAbsoluteTypeSignature()), vars[i].getIndex());
+			}
+		}
+		this.data.ics();
+
+		new GenericBodyCompiler(this.data).compile(data, m, block, lines);
+		m.visitIincInsn(index.getIndex(), 1);
+
+		m.visitLabel(after);
+		m.visitVarInsn(ILOAD, index.getIndex());
+		m.visitVarInsn(ILOAD, length.getIndex());
+		this.data.ics();
+		m.visitJumpInsn(IF_ICMPLT, afterGoto);
+		m.visitLabel(outOfLoop);
+	}
+
+	private void compareRange(MethodVisitor m, String type, LocalData counter, LocalData end, int opcode,
+			Label target) {
+		m.visitVarInsn(Types.getOpcode(Types.LOAD, type), counter.getIndex());
+		m.visitVarInsn(Types.getOpcode(Types.LOAD, type), end.getIndex());
+		this.data.ics();
+		this.data.ics();
+		if (type.equals("I")) {
+			opcode += IF_ICMPEQ - IFEQ;
+		} else if (type.equals("J")) {
+			m.visitInsn(LCMP);
+		} else {
+			// NaN bounds should end the loop, so compare towards the exit
+			int cmp = opcode == IFLT ? FCMPG : FCMPL;
+			m.visitInsn(type.equals("F") ? cmp : cmp + DCMPL - FCMPL);
+		}
+		m.visitJumpInsn(opcode, target);
+	}
+
+	private LocalData declareLocal(MethodVisitor m, Block block, Label start, String name, String type,
+			int modifiers) {
+		return declareLocal(m, block, start, name, DefinitiveType.assume(type), modifiers);
+	}
+
+	private LocalData declareLocal(MethodVisitor m, Block block, Label start, String name, DefinitiveType type,
+			int modifiers) {
+		int idx = this.data.getLocalVariables();
+		String sig = type.getAbsoluteTypeSignature();
+		LocalData local = new LocalData(name, type, block, idx, modifiers);
+		this.data.addLocal(local);
+		m.visitLocalVariable(name, sig, null, start, block.getEndLabel(), idx);
+
+		this.data.addLocalVariable();
+		if (sig.equals("J") || sig.equals("D")) {
+			this.data.addLocalVariable();
+		}
+		return local;
+	}
+
+	private void pushRangeArgument(ClassData data, MethodVisitor m, Block block, Line itr, String arg,
+			String type) {
+		DefinitiveType pushed = CompileUtils.push(arg, data, m, block, itr, this.data);
+		if (pushed.isPrimitive() && Types.isSuitable("I", pushed.getTypeSignature())) {
+			if (type.equals("J")) {
+				m.visitInsn(I2L);
+			} else if (type.equals("F")) {
+				m.visitInsn(I2F);
+			} else if (type.equals("D")) {
+				m.visitInsn(I2D);
+			}
+		} else if (type.equals("D") && pushed.getTypeSignature().equals("F")) {
+			m.visitInsn(F2D);
+		}
+		this.data.ics();
+	}
+
+	private String[] getRangeArguments(ClassData data, Line itr) {
+		String raw = itr.getLine();
+		if (!raw.endsWith(")")) {
+			return null;
+		}
+
+		String name;
+		if (raw.startsWith("range!(") && "Range.from".equals(data.resolveMacro("range"))) {
+			name = "range!";
+		} else if (raw.startsWith("Range.from(")) {
+			name = "Range.from";
+		} else {
+			return null;
+		}
+
+		int depth = 0;
+		for (int i = name.length(); i < raw.length() - 1; i++) {
+			char c = raw.charAt(i);
+			if (c == '(') {
+				depth++;
+			} else if (c == ')' && --depth == 0) {
+				return null;
+			}
+		}
+
+		String[] args = Strings.splitParameters(raw.substring(name.length() + 1, raw.length() - 1).trim());
+		return args.length == 2 || args.length == 3 ? args : null;
+	}
+
+	private static String getRangeType(DefinitiveType type) {
+		if (type.equals("Lcornflakes/lang/I32Range;")) {
+			return "I";
+		} else if (type.equals("Lcornflakes/lang/I64Range;")) {
+			return "J";
+		} else if (type.equals("Lcornflakes/lang/F32Range;")) {
+			return "F";
+		} else if (type.equals("Lcornflakes/lang/F64Range;")) {
+			return "D";
+		}
+		return null;
+	}
+
+	private static int getRangeOpcode(int opcode, String type) {
+		switch (type) {
+			case "J":
+				return opcode == LCMP ? LCMP : opcode + 1;
+			case "F":
+				return opcode == LCMP ? FCMPL : opcode + 2;
+			case "D":
+				return opcode == LCMP ? DCMPL : opcode + 3;
+			default:
+				return opcode;
+		}
+	}
+
+	private static void pushZero(MethodVisitor m, String type) {
+		switch (type) {
+			case "J":
+				m.visitInsn(LCONST_0);
+				break;
+			case "F":
+				m.visitInsn(FCONST_0);
+				break;
+			case "D":
+				m.visitInsn(DCONST_0);
+				break;
+			default:
+				m.visitInsn(ICONST_0);
+				break;
+		}
+	}
+
+	private static void pushOne(MethodVisitor m, String type) {
+		switch (type) {
+			case "J":
+				m.visitInsn(LCONST_1);
+				break;
+			case "F":
+				m.visitInsn(FCONST_1);
+				break;
+			case "D":
+				m.visitInsn(DCONST_1);
+				break;
+			default:
+				m.visitInsn(ICONST_1);
+				break;
+		}
+	}
 }
@@ -1,8 +1,10 @@
 package cornflakes.compiler;
 
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 
 import cornflakes.compiler.CompileUtils.VariableDeclaration;
@@ -28,10 +30,12 @@ public class GenericStatementCompiler implements GenericCompiler {
 
 		if (Strings.contains(body, "+=")) {
 			String[] split = Strings.trim(Strings.split(body, "+=", 2));
-			body = split[0] + " = " + split[0] + " + " + split[1];
+			body = isConcurrentPointer(split[0], data, block) ? split[0] + ".add(" + split[1] + ")"
+					: split[0] + " = " + split[0] + " + " + split[1];
 		} else if (Strings.contains(body, "-=")) {
 			String[] split = Strings.trim(Strings.split(body, "-=", 2));
-			body = split[0] + " = " + split[0] + " - " + split[1];
+			body = isConcurrentPointer(split[0], data, block) ? split[0] + ".subtract(" + split[1] + ")"
+					: split[0] + " = " + split[0] + " - " + split[1];
 		} else if (Strings.contains(body, "*=")) {
 			String[] split = Strings.trim(Strings.split(body, "-=", 2));
 			body = split[0] + " = " + split[0] + " * " + split[1];
@@ -51,6 +55,10 @@ public class GenericStatementCompiler implements GenericCompiler {
 			String[] split = Strings.trim(Strings.split(body, "%=", 2));
 			body = split[0] + " = " + split[0] + " % " + split[1];
 		}
+		if (!body.equals(line.getLine())) {
+			line = line.derive(body);
+			lines = new Line[] { line };
+		}
 
 		if (body.startsWith("yield")) {
 			type = YIELD;
@@ -61,11 +69,27 @@ public class GenericStatementCompiler implements GenericCompiler {
 
 			m.visitVarInsn(ALOAD, this.data.getIterator());
 			String str = body.substring(5).trim();
-			CompileUtils.push(str, data, m, block, line, this.data);
+			DefinitiveType yielded = CompileUtils.push(str, data, m, block, line, this.data);
+			if (yielded.isPrimitive()) {
+				String sig = yielded.getTypeSignature();
+				String wrapper = Types.getWrapperType(sig);
+				m.visitMethodInsn(INVOKESTATIC, wrapper, "valueOf", "(" + sig + ")L" + wrapper + ";", false);
+			}
+
+			// save the locals in scope, and resume right after this point on the next element
+			List<LocalData> locals = this.data.getHoistedLocals(block);
+			Label resume = new Label();
+			m.visitLdcInsn(this.data.addYieldPoint(new YieldPoint(resume, locals)));
+			this.data.ics();
+			m.visitMethodInsn(INVOKEVIRTUAL, "cornflakes/lang/Generator", "suspend", "(Ljava/lang/Object;I)V",
+					false);
+			for (LocalData local : locals) {
+				CompileUtils.saveLocal(m, this.data, local);
+			}
 
-			m.visitMethodInsn(INVOKEVIRTUAL, "cornflakes/lang/FunctionalIterator", "add",
-					"(Ljava/lang/Object;)Lcornflakes/lang/FunctionalIterator;", false);
-			m.visitVarInsn(ASTORE, this.data.getIterator());
+			m.visitInsn(ICONST_1);
+			m.visitInsn(IRETURN);
+			m.visitLabel(resume);
 		} else if (body.startsWith("return")) {
 			type = RETURN;
 
@@ -114,7 +138,7 @@ public class GenericStatementCompiler implements GenericCompiler {
 							if (toString.equals("true") || toString.equals("false")) {
 								m.visitInsn(toString.equals("false") ? ICONST_0 : ICONST_1);
 							} else {
-								m.visitVarInsn(push, Integer.parseInt(val.toString()));
+								m.visitIntInsn(push, Integer.parseInt(val.toString()));
 							}
 						}
 						this.data.ics();
@@ -140,8 +164,8 @@ public class GenericStatementCompiler implements GenericCompiler {
 				if (this.data.getReturnType().getTypeSignature().equals("V")) {
 					m.visitInsn(RETURN);
 				} else if (this.data.isIterator()) {
-					m.visitVarInsn(ALOAD, this.data.getIterator());
-					m.visitInsn(ARETURN);
+					m.visitInsn(ICONST_0);
+					m.visitInsn(IRETURN);
 				} else {
 					throw new CompileError("A return value of type "
 							+ Types.beautify(this.data.getReturnType().getTypeSignature()) + " is expected");
@@ -211,6 +235,13 @@ public class GenericStatementCompiler implements GenericCompiler {
 				throw new CompileError("Duplicate variable: " + variableName);
 			}
 
+			// pointers which never leave the method are stored as their value
+			boolean scalar = this.data.isScalarPointer(variableName);
+			if (scalar) {
+				line = line.derive(body.replaceFirst(" = &", " = "));
+				split = line.split(":");
+			}
+
 			VariableDeclaration decl = CompileUtils.declareVariable(this.data, data, m, block, line, split);
 			Object value = decl.getValue();
 			DefinitiveType valueType = decl.getValueType();
@@ -241,14 +272,15 @@ public class GenericStatementCompiler implements GenericCompiler {
 					if (toString.equals("true") || toString.equals("false")) {
 						m.visitInsn(toString.equals("false") ? ICONST_0 : ICONST_1);
 					} else {
-						m.visitVarInsn(push, Integer.parseInt(toString));
+						m.visitIntInsn(push, Integer.parseInt(toString));
 						this.data.ics();
 					}
 				}
 
 				m.visitVarInsn(store, idx);
 			} else {
-				if (valueType == null || valueType.isNull()) {
+				// a null initializer has already been pushed by its expression
+				if (valueType == null) {
 					if (variableType.equals("B") || variableType.equals("S") || variableType.equals("I")
 							|| variableType.equals("C") || variableType.equals("B")) {
 						m.visitInsn(ICONST_0);
@@ -268,14 +300,24 @@ public class GenericStatementCompiler implements GenericCompiler {
 				m.visitVarInsn(Types.getOpcode(Types.STORE, variableType.getTypeSignature()), idx);
 			}
 
-			LocalData local = new LocalData(variableName, variableType, block, idx,
-					body.startsWith("var") ? 0 : ACC_FINAL);
+			LocalData local = new LocalData(variableName, scalar ? getPointerType(variableType) : variableType,
+					block, idx, body.startsWith("var") ? 0 : ACC_FINAL);
+			if (scalar) {
+				local.setScalarType(variableType);
+			} else if (local.hasModifier(ACC_FINAL) && decl.getRawValue() != null) {
+				local.setConstantValue(ConstantFolder.toConstant(
+						value != null ? value : ConstantFolder.fold(this.data, data, block, decl.getRawValue()),
+						variableType.getTypeSignature()));
+			}
 			if (decl.isGenericTyped()) {
 				local.setGeneric(true);
 				local.setGenericTypes(decl.getGenericTypes());
 			}
 			this.data.addLocal(local);
 			this.data.addLocalVariable();
+			if (variableType.equals("J") || variableType.equals("D")) {
+				this.data.addLocalVariable();
+			}
 		} else {
 			boolean ref = true;
 
@@ -285,6 +327,13 @@ public class GenericStatementCompiler implements GenericCompiler {
 				String name = split[0].trim();
 				String value = split[1].trim();
 
+				LocalData builder = this.data.getAccumulator(name);
+				String appended = builder == null ? null : StringAccumulation.getAppended(body, name);
+				if (appended != null) {
+					compileAppend(data, m, block, line, this.data.getLocal(name, block), builder, appended);
+					return;
+				}
+
 				ExpressionCompiler compiler = null;
 				try {
 					compiler = new ExpressionCompiler(true, this.data);
@@ -355,13 +404,14 @@ public class GenericStatementCompiler implements GenericCompiler {
 							if (y < 0) {
 								throw new CompileError("Array literal indexes must be greater than or equal to 0");
 							}
-							m.visitLdcInsn(y);
 							if (type.isTuple()) {
 								TupleClassData clz = (TupleClassData) typeClass;
 								if (y >= clz.getTypes().length) {
 									throw new CompileError("Tuple index out of range");
 								}
 								tupleType = clz.getType(y);
+							} else {
+								m.visitLdcInsn(y);
 							}
 						}
 					}
@@ -377,13 +427,7 @@ public class GenericStatementCompiler implements GenericCompiler {
 									"(Ljava/lang/String;IC)Ljava/lang/String;", false);
 							storeVariable(field, refName, compiler, m);
 						} else if (type.isTuple()) {
-							if (tupleType.isPrimitive()) {
-								m.visitMethodInsn(INVOKEVIRTUAL, "cornflakes/lang/Tuple", "item",
-										"(I" + tupleType.getAbsoluteTypeSignature() + ")V", false);
-							} else {
-								m.visitMethodInsn(INVOKEVIRTUAL, "cornflakes/lang/Tuple", "item",
-										"(ILjava/lang/Object;)V", false);
-							}
+							storeTupleItem(m, (TupleClassData) typeClass, Integer.parseInt(arrayIndex), tupleType);
 						} else if (typeClass.is("java.util.List")) {
 							m.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "set",
 									"(ILjava/lang/Object;)Ljava/lang/Object;", true);
@@ -392,6 +436,8 @@ public class GenericStatementCompiler implements GenericCompiler {
 									"(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;", true);
 						} else if (type.isArray()) {
 							m.visitInsn(Types.getArrayOpcode(Types.STORE, type.getTypeSignature()));
+						} else if (type.isPointer()) {
+							throw new CompileError("Only pointers to numbers can be indexed");
 						} else {
 							throw new CompileError("Cannot index a non-indexable object");
 						}
@@ -404,7 +450,12 @@ public class GenericStatementCompiler implements GenericCompiler {
 					if (field != null) {
 						ref = false;
 
-						if (field.getType().isPointer()) {
+						if (field instanceof LocalData && ((LocalData) field).isScalar()) {
+							LocalData local = (LocalData) field;
+							pushValue(line, value, field, compiler, refName, m, block, data, false, false);
+							m.visitVarInsn(Types.getOpcode(Types.STORE, local.getScalarType().getTypeSignature()),
+									local.getIndex());
+						} else if (field.getType().isPointer()) {
 							if (field instanceof LocalData) {
 								m.visitVarInsn(ALOAD, ((LocalData) field).getIndex());
 							} else if (field instanceof FieldData) {
@@ -415,8 +466,7 @@ public class GenericStatementCompiler implements GenericCompiler {
 
 							pushValue(line, value, field, compiler, refName, m, block, data, false, false);
 							m.visitMethodInsn(INVOKEVIRTUAL, field.getType().getAbsoluteTypeName(), "setValue",
-									"(" + ((PointerClassData) field.getType().getObjectType()).getValueType()
-											.getAbsoluteTypeSignature() + ")V",
+									"(" + ((PointerClassData) field.getType().getObjectType()).getValueSignature() + ")V",
 									false);
 						} else {
 							pushValue(line, value, field, compiler, refName, m, block, data, false, true);
@@ -430,10 +480,23 @@ public class GenericStatementCompiler implements GenericCompiler {
 				ExpressionCompiler compiler = new ExpressionCompiler(true, this.data);
 				compiler.setAllowImplicitGetters(false);
 				compiler.compile(data, m, block, lines);
+				if (!"<init>".equals(compiler.getResultName())) {
+					discard(m, compiler.getResultType());
+				}
 			}
 		}
 	}
 
+	void discard(MethodVisitor m, DefinitiveType result) {
+		if (result == null || result.getTypeSignature().equals("V")) {
+			return;
+		}
+
+		String sig = result.getTypeSignature();
+		m.visitInsn(sig.equals("J") || sig.equals("D") ? POP2 : POP);
+		this.data.dcs();
+	}
+
 	private void pushValue(Line line, String value, FieldData field, ExpressionCompiler compiler, String refName,
 			MethodVisitor m, Block block, ClassData data, boolean array, boolean check) {
 		String valueType = Types.getType(value, field.getType().getTypeSignature());
@@ -458,9 +521,9 @@ public class GenericStatementCompiler implements GenericCompiler {
 						m.visitInsn(ICONST_0);
 					}
 				} else if (valueType.equals("char")) {
-					m.visitVarInsn(push, (int) (char) obj);
+					m.visitIntInsn(push, (int) (char) obj);
 				} else {
-					m.visitVarInsn(push, Integer.parseInt(obj.toString()));
+					m.visitIntInsn(push, Integer.parseInt(obj.toString()));
 				}
 			}
 
@@ -494,4 +557,80 @@ public class GenericStatementCompiler implements GenericCompiler {
 	public int getType() {
 		return type;
 	}
+
+	private void storeTupleItem(MethodVisitor m, TupleClassData tuple, int index, DefinitiveType item) {
+		char kind = TupleCompiler.getShape(item).charAt(0);
+		String sig = TupleCompiler.getFieldSignature(kind);
+
+		int value = this.data.getLocalVariables();
+		this.data.addLocalVariable();
+		if (kind == 'J' || kind == 'D') {
+			this.data.addLocalVariable();
+		}
+		m.visitVarInsn(Types.getOpcode(Types.STORE, sig), value);
+
+		if (tuple.isRow()) {
+			// rows of a tuple array are not instances of the shape, so write them through their accessors
+			m.visitLdcInsn(index);
+			this.data.ics();
+			m.visitVarInsn(Types.getOpcode(Types.LOAD, sig), value);
+			m.visitMethodInsn(INVOKEVIRTUAL, "cornflakes/lang/Tuple", "item", "(I" + sig + ")V", false);
+		} else {
+			m.visitTypeInsn(CHECKCAST, tuple.getShapeName());
+			m.visitVarInsn(Types.getOpcode(Types.LOAD, sig), value);
+			m.visitFieldInsn(PUTFIELD, tuple.getShapeName(), TupleCompiler.getFieldName(index), sig);
+		}
+	}
+
+	private void compileAppend(ClassData data, MethodVisitor m, Block block, Line line, LocalData local,
+			LocalData builder, String appended) {
+		Label seeded = new Label();
+		m.visitVarInsn(ALOAD, builder.getIndex());
+		m.visitJumpInsn(IFNONNULL, seeded);
+		m.visitTypeInsn(NEW, "java/lang/StringBuilder");
+		m.visitInsn(DUP);
+		m.visitVarInsn(ALOAD, local.getIndex());
+		m.visitMethodInsn(INVOKESTATIC, "java/lang/String", "valueOf", "(Ljava/lang/Object;)Ljava/lang/String;",
+				false);
+		m.visitMethodInsn(INVOKESPECIAL, "java/lang/StringBuilder", "<init>", "(Ljava/lang/String;)V", false);
+		m.visitVarInsn(ASTORE, builder.getIndex());
+		m.visitLabel(seeded);
+
+		m.visitVarInsn(ALOAD, builder.getIndex());
+		this.data.ics();
+
+		String signature = "Ljava/lang/String;";
+		Object constant = ConstantFolder.fold(this.data, data, block, appended);
+		if (constant != null) {
+			m.visitLdcInsn(String.valueOf(constant));
+			this.data.ics();
+		} else {
+			ExpressionCompiler compiler = new ExpressionCompiler(true, this.data);
+			compiler.compile(data, m, block, new Line[] { line.derive(appended) });
+			signature = MathExpressionCompiler.getAppendSignature(compiler.getResultType());
+		}
+
+		m.visitMethodInsn(INVOKEVIRTUAL, "java/lang/StringBuilder", "append",
+				"(" + signature + ")Ljava/lang/StringBuilder;", false);
+		m.visitInsn(POP);
+		this.data.dcs();
+		this.data.dcs();
+	}
+
+	private boolean isConcurrentPointer(String name, ClassData data, Block block) {
+		FieldData field = this.data.hasLocal(name, block) ? this.data.getLocal(name, block) : data.getField(name);
+		return field != null && field.getType().isPointer() && field.getType().getObjectType().hasMethod("add");
+	}
+
+	private static DefinitiveType getPointerType(DefinitiveType type) {
+		String name = type.getTypeName();
+		if (Types.isPrimitive(name)) {
+			name = Types.primitiveToCornflakes(name);
+		}
+		try {
+			return DefinitiveType.object(ClassData.forName(name + "*"));
+		} catch (ClassNotFoundException e) {
+			throw new CompileError(e);
+		}
+	}
 }
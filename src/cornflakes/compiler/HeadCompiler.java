@@ -6,12 +6,17 @@ import java.util.List;
 import org.objectweb.asm.ClassWriter;
 
 public class HeadCompiler extends Compiler implements PostCompiler {
-	private Line[] after;
+	private final CompilationContext context;
+	private SyntaxNode after;
 	private ClassWriter cw;
 	private ClassData data;
 
+	public HeadCompiler(CompilationContext context) {
+		this.context = context;
+	}
+
 	@Override
-	public void compile(ClassData data, ClassWriter cw, Line body, Line[] lines) {
+	public void compile(ClassData data, ClassWriter cw, SyntaxNode node) {
 		this.cw = cw;
 		this.data = data;
 
@@ -19,7 +24,12 @@ public class HeadCompiler extends Compiler implements PostCompiler {
 		String simple = "";
 		String parent = "java/lang/Object";
 		String packageName = "";
-		Line firstLine = Strings.normalizeSpaces(lines[0]);
+		SyntaxNode[] lines = node.getChildren();
+		if (lines.length == 0) {
+			throw new CompileError("Expecting class definition");
+		}
+
+		Line firstLine = Strings.normalizeSpaces(lines[0].getLine());
 		int index = 1;
 
 		if (firstLine.startsWith("package ")) {
@@ -28,7 +38,10 @@ public class HeadCompiler extends Compiler implements PostCompiler {
 			className = Strings.transformClassName(className) + "/";
 			packageName = className.substring(0, className.length() - 1);
 
-			firstLine = Strings.normalizeSpaces(lines[1]);
+			if (lines.length < 2) {
+				throw new CompileError("Expecting class definition");
+			}
+			firstLine = Strings.normalizeSpaces(lines[1].getLine());
 			index = 2;
 		}
 
@@ -145,20 +158,23 @@ public class HeadCompiler extends Compiler implements PostCompiler {
 		data.setPackageName(packageName);
 		data.setInterfaces(intArr);
 
-		Compiler.register(cw, data);
-		ClassData.registerCornflakesClass(data);
+		context.register(cw, data);
 
-		cw.visit(V1_8, accessor, className, null, parent, intArr.length == 0 ? null : intArr);
+		cw.visit(context.getTarget(), accessor, className, null, parent, intArr.length == 0 ? null : intArr);
 		cw.visitSource(data.getSourceName(), null);
 
-		after = Strings.after(lines, index);
+		after = new SyntaxNode(null);
+		after.setBlock();
+		for (int i = index; i < lines.length; i++) {
+			after.addChild(lines[i]);
+		}
 
-		Compiler.addPostCompiler(className, this);
+		Compiler.addPostCompiler(data, this);
 	}
 
 	@Override
 	public void write() {
-		BodyCompiler compiler = new BodyCompiler(data, cw, Strings.accumulate(after), after);
-		Compiler.addPostCompiler(data.getClassName(), compiler);
+		BodyCompiler compiler = new BodyCompiler(data, cw, after);
+		Compiler.addPostCompiler(data, compiler);
 	}
 }
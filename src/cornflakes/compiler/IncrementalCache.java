@@ -0,0 +1,121 @@
+package cornflakes.compiler;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class IncrementalCache {
+	private static class Entry {
+		private String hash;
+		private String className;
+		private Map<String, String> references = new TreeMap<>();
+	}
+
+	private final File file;
+	private final Map<String, Entry> entries = new LinkedHashMap<>();
+	private final Map<String, String> digests = new HashMap<>();
+
+	private IncrementalCache(File file) {
+		this.file = file;
+	}
+
+	public static IncrementalCache load(File file) {
+		IncrementalCache cache = new IncrementalCache(file);
+		if (!file.isFile()) {
+			return cache;
+		}
+
+		List<String> lines;
+		try {
+			lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			return cache;
+		}
+
+		Entry entry = null;
+		for (String line : lines) {
+			String[] split = line.split("\t");
+			if (split[0].equals("class") && split.length == 4) {
+				entry = new Entry();
+				entry.hash = split[2];
+				entry.className = split[3];
+				cache.entries.put(split[1], entry);
+			} else if (split[0].equals("ref") && split.length == 4 && entry != null) {
+				entry.references.put(split[1] + "\t" + split[2], split[3]);
+			} else {
+				// unknown format; start over with a clean cache
+				cache.entries.clear();
+				return cache;
+			}
+		}
+		return cache;
+	}
+
+	public static String hash(String text) {
+		try {
+			return ClassIndex.hash(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+		} catch (IOException e) {
+			throw new CompileError(e);
+		}
+	}
+
+	public boolean isUpToDate(String source, String hash, ClassData data, File output) {
+		Entry entry = entries.get(source);
+		if (entry == null || !entry.hash.equals(hash) || !entry.className.equals(data.getClassName())
+				|| !output.isFile()) {
+			return false;
+		}
+
+		for (Map.Entry<String, String> reference : entry.references.entrySet()) {
+			if (!reference.getValue().equals(getDigest(reference.getKey()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public void update(String source, String hash, ClassData data) {
+		Entry entry = new Entry();
+		entry.hash = hash;
+		entry.className = data.getClassName();
+		for (String reference : data.getReferences()) {
+			entry.references.put(reference, getDigest(reference));
+		}
+		entries.put(source, entry);
+	}
+
+	public void retain(List<String> sources) {
+		entries.keySet().retainAll(sources);
+	}
+
+	public void save() throws IOException {
+		List<String> lines = new ArrayList<>();
+		for (Map.Entry<String, Entry> source : entries.entrySet()) {
+			Entry entry = source.getValue();
+			lines.add("class\t" + source.getKey() + "\t" + entry.hash + "\t" + entry.className);
+			for (Map.Entry<String, String> reference : entry.references.entrySet()) {
+				lines.add("ref\t" + reference.getKey() + "\t" + reference.getValue());
+			}
+		}
+		Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+	}
+
+	private String getDigest(String reference) {
+		String digest = digests.get(reference);
+		if (digest == null) {
+			String[] split = reference.split("\t", 2);
+			ClassData owner = ClassData.find(split[0]);
+			digest = hash(owner == null || owner.isJavaClass() ? "" : owner.getMemberDigest(split[1]));
+			digests.put(reference, digest);
+		}
+		return digest;
+	}
+}
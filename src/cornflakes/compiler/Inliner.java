@@ -0,0 +1,397 @@
+package cornflakes.compiler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.FrameNode;
+import org.objectweb.asm.tree.IincInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.LineNumberNode;
+import org.objectweb.asm.tree.LocalVariableNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.MultiANewArrayInsnNode;
+import org.objectweb.asm.tree.TypeInsnNode;
+import org.objectweb.asm.tree.VarInsnNode;
+import org.objectweb.asm.tree.analysis.Analyzer;
+import org.objectweb.asm.tree.analysis.AnalyzerException;
+import org.objectweb.asm.tree.analysis.BasicInterpreter;
+import org.objectweb.asm.tree.analysis.BasicValue;
+import org.objectweb.asm.tree.analysis.Frame;
+
+public class Inliner implements Opcodes {
+	public static final int MAX_INLINE_SIZE = 35;
+	public static final int MAX_CALLER_SIZE = 2000;
+
+	private static final int PENDING = 0;
+	private static final int ACTIVE = 1;
+	private static final int DONE = 2;
+
+	private final Map<String, List<Pending>> methods = new ConcurrentHashMap<>();
+
+	public void defer(ClassData data, MethodNode method) {
+		methods.computeIfAbsent(data.getClassName(), name -> Collections.synchronizedList(new ArrayList<>()))
+				.add(new Pending(data, method));
+	}
+
+	public void remove(ClassData data) {
+		methods.remove(data.getClassName());
+	}
+
+	public void inline(boolean crossClass) {
+		Map<String, Pending> index = new TreeMap<>();
+		for (List<Pending> list : methods.values()) {
+			for (Pending pending : list) {
+				index.put(getKey(pending.data.getClassName(), pending.method.name, pending.method.desc), pending);
+			}
+		}
+
+		for (Pending pending : index.values()) {
+			inline(index, pending, crossClass);
+		}
+	}
+
+	private void inline(Map<String, Pending> index, Pending caller, boolean crossClass) {
+		if (caller.state != PENDING) {
+			return;
+		}
+		caller.state = ACTIVE;
+
+		// callees are finished first, so a chain of small calls collapses from the bottom up
+		int base = -1;
+		boolean changed = false;
+		for (AbstractInsnNode insn : caller.method.instructions.toArray()) {
+			if (!(insn instanceof MethodInsnNode)) {
+				continue;
+			}
+
+			MethodInsnNode call = (MethodInsnNode) insn;
+			Pending callee = index.get(getKey(call.owner, call.name, call.desc));
+			if (callee == null || !crossClass && callee.data != caller.data) {
+				continue;
+			}
+
+			inline(index, callee, crossClass);
+			if (callee.state != DONE || !isInlinable(index, caller, callee, call)
+					|| getSize(caller.method) + getSize(callee.method) > MAX_CALLER_SIZE) {
+				continue;
+			}
+
+			if (base == -1) {
+				base = getMaxLocals(caller.method);
+			}
+			inline(caller, call, callee, base);
+			changed = true;
+		}
+
+		if (changed) {
+			new Optimizer(caller.method).optimize();
+		}
+		caller.state = DONE;
+	}
+
+	private void inline(Pending caller, MethodInsnNode call, Pending callee, int base) {
+		MethodNode method = callee.method;
+		boolean sameSource = caller.data == callee.data;
+
+		Map<LabelNode, LabelNode> labels = new HashMap<>();
+		for (AbstractInsnNode insn = method.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+			if (insn instanceof LabelNode) {
+				labels.put((LabelNode) insn, new LabelNode());
+			}
+		}
+
+		InsnList body = new InsnList();
+		boolean isStatic = (method.access & ACC_STATIC) != 0;
+		Type[] args = Type.getArgumentTypes(method.desc);
+		int[] slots = new int[args.length];
+		int slot = isStatic ? 0 : 1;
+		for (int i = 0; i < args.length; i++) {
+			slots[i] = slot;
+			slot += args[i].getSize();
+		}
+
+		// the arguments are already on the stack, so they are stored last to first
+		for (int i = args.length - 1; i >= 0; i--) {
+			body.add(new VarInsnNode(args[i].getOpcode(ISTORE), base + slots[i]));
+		}
+		if (!isStatic) {
+			body.add(new InsnNode(DUP));
+			body.add(new MethodInsnNode(INVOKESTATIC, "java/util/Objects", "requireNonNull",
+					"(Ljava/lang/Object;)Ljava/lang/Object;", false));
+			body.add(new InsnNode(POP));
+			body.add(new VarInsnNode(ASTORE, base));
+		}
+
+		LabelNode end = new LabelNode();
+		AbstractInsnNode last = getLastInstruction(method);
+		boolean lines = false;
+		for (AbstractInsnNode insn = method.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+			int op = insn.getOpcode();
+			if (insn instanceof FrameNode || insn instanceof LineNumberNode && !sameSource) {
+				continue;
+			}
+			if (op >= IRETURN && op <= RETURN) {
+				if (insn != last) {
+					body.add(new JumpInsnNode(GOTO, end));
+				}
+				continue;
+			}
+
+			AbstractInsnNode copy = insn.clone(labels);
+			if (copy instanceof VarInsnNode) {
+				((VarInsnNode) copy).var += base;
+			} else if (copy instanceof IincInsnNode) {
+				((IincInsnNode) copy).var += base;
+			} else if (copy instanceof LineNumberNode) {
+				lines = true;
+			}
+			body.add(copy);
+		}
+		body.add(end);
+
+		// code after the call belongs to the caller's line again
+		LineNumberNode line = getLineNumber(call);
+		if (lines && line != null) {
+			body.add(new LineNumberNode(line.line, end));
+		}
+
+		if (method.localVariables != null) {
+			if (caller.method.localVariables == null) {
+				caller.method.localVariables = new ArrayList<>();
+			}
+			for (LocalVariableNode local : method.localVariables) {
+				LabelNode start = labels.get(local.start);
+				LabelNode stop = labels.get(local.end);
+				if (start != null && stop != null) {
+					caller.method.localVariables.add(new LocalVariableNode(local.name, local.desc, local.signature,
+							start, stop, local.index + base));
+				}
+			}
+		}
+
+		caller.method.instructions.insert(call, body);
+		caller.method.instructions.remove(call);
+		caller.method.maxLocals = Math.max(caller.method.maxLocals, base + getMaxLocals(method));
+	}
+
+	private boolean isInlinable(Map<String, Pending> index, Pending caller, Pending callee, MethodInsnNode call) {
+		MethodNode method = callee.method;
+		if (callee == caller || method.name.startsWith("<")
+				|| (method.access & (ACC_SYNCHRONIZED | ACC_ABSTRACT | ACC_NATIVE)) != 0
+				|| !method.tryCatchBlocks.isEmpty() || getSize(method) > MAX_INLINE_SIZE) {
+			return false;
+		}
+
+		// only calls which cannot be dispatched to an override are inlined
+		boolean isStatic = (method.access & ACC_STATIC) != 0;
+		if (isStatic != (call.getOpcode() == INVOKESTATIC) || call.getOpcode() == INVOKEINTERFACE) {
+			return false;
+		}
+		if (!isStatic && (method.access & (ACC_PRIVATE | ACC_FINAL)) == 0 && !callee.data.hasModifier(ACC_FINAL)) {
+			return false;
+		}
+
+		try {
+			if (callee.data != caller.data && !isPortable(index, caller.data, callee)) {
+				return false;
+			}
+		} catch (CompileError e) {
+			return false;
+		}
+
+		if (callee.balanced == null) {
+			callee.balanced = isBalanced(callee);
+		}
+		return callee.balanced;
+	}
+
+	private boolean isPortable(Map<String, Pending> index, ClassData caller, Pending callee) {
+		// a static call would have run the owner's static initializer
+		if ((callee.method.access & ACC_STATIC) != 0) {
+			Pending init = index.get(getKey(callee.data.getClassName(), "<clinit>", "()V"));
+			if (init != null && getSize(init.method) > 1) {
+				return false;
+			}
+		}
+
+		for (AbstractInsnNode insn = callee.method.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+			if (insn instanceof FieldInsnNode) {
+				FieldInsnNode field = (FieldInsnNode) insn;
+				ClassData owner = ClassData.find(field.owner);
+				FieldData data = owner == null ? null : owner.getField(field.name);
+				if (data == null || !isAccessible(caller, owner, data.getModifiers())) {
+					return false;
+				}
+			} else if (insn instanceof MethodInsnNode) {
+				MethodInsnNode call = (MethodInsnNode) insn;
+				if (call.getOpcode() == INVOKESPECIAL && !call.name.equals("<init>")) {
+					return false;
+				}
+
+				ClassData owner = ClassData.find(call.owner);
+				if (owner == null || !isAccessible(caller, owner, getModifiers(owner, call))) {
+					return false;
+				}
+			} else if (insn instanceof TypeInsnNode) {
+				if (!isAccessible(caller, ((TypeInsnNode) insn).desc)) {
+					return false;
+				}
+			} else if (insn instanceof MultiANewArrayInsnNode) {
+				if (!isAccessible(caller, ((MultiANewArrayInsnNode) insn).desc)) {
+					return false;
+				}
+			} else if (insn instanceof LdcInsnNode && ((LdcInsnNode) insn).cst instanceof Type) {
+				if (!isAccessible(caller, ((Type) ((LdcInsnNode) insn).cst).getDescriptor())) {
+					return false;
+				}
+			} else if (insn instanceof InvokeDynamicInsnNode) {
+				// handles of lambdas point at synthetic methods of their own class
+				for (Object arg : ((InvokeDynamicInsnNode) insn).bsmArgs) {
+					if (arg instanceof Handle) {
+						return false;
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	private static int getModifiers(ClassData owner, MethodInsnNode call) {
+		if (call.name.equals("<init>")) {
+			for (ConstructorData constructor : owner.getConstructors()) {
+				if (call.desc.startsWith(constructor.getParameterString())) {
+					return constructor.getModifiers();
+				}
+			}
+			return ACC_PRIVATE;
+		}
+
+		MethodData method = owner.getMethod(call.name, call.desc);
+		return method == null ? ACC_PRIVATE : method.getModifiers();
+	}
+
+	private static boolean isAccessible(ClassData caller, String type) {
+		Type resolved = type.startsWith("[") ? Type.getType(type).getElementType() : Type.getObjectType(type);
+		if (resolved.getSort() != Type.OBJECT) {
+			return true;
+		}
+
+		ClassData owner = ClassData.find(resolved.getInternalName());
+		return owner != null && isAccessible(caller, owner, owner.getModifiers() & (ACC_PUBLIC | ACC_PRIVATE));
+	}
+
+	private static boolean isAccessible(ClassData caller, ClassData owner, int modifiers) {
+		if ((modifiers & ACC_PUBLIC) != 0 || owner == caller) {
+			return true;
+		}
+		return (modifiers & ACC_PRIVATE) == 0
+				&& getPackage(owner.getClassName()).equals(getPackage(caller.getClassName()));
+	}
+
+	private static boolean isBalanced(Pending pending) {
+		// every return must leave nothing but its value behind, since the inlined code keeps running
+		MethodNode method = pending.method;
+		method.maxLocals = getMaxLocals(method);
+		method.maxStack = Math.max(method.maxStack, 2 * method.instructions.size());
+
+		Frame<BasicValue>[] frames;
+		try {
+			frames = new Analyzer<>(new BasicInterpreter()).analyze(pending.data.getClassName(), method);
+		} catch (AnalyzerException e) {
+			return false;
+		}
+
+		AbstractInsnNode[] insns = method.instructions.toArray();
+		for (int i = 0; i < insns.length; i++) {
+			int op = insns[i].getOpcode();
+			if (op >= IRETURN && op <= RETURN && frames[i] != null
+					&& frames[i].getStackSize() != (op == RETURN ? 0 : 1)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int getMaxLocals(MethodNode method) {
+		int max = (Type.getArgumentsAndReturnSizes(method.desc) >> 2) - ((method.access & ACC_STATIC) != 0 ? 1 : 0);
+		for (AbstractInsnNode insn = method.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+			if (insn instanceof VarInsnNode) {
+				int op = insn.getOpcode();
+				boolean wide = op == LLOAD || op == DLOAD || op == LSTORE || op == DSTORE;
+				max = Math.max(max, ((VarInsnNode) insn).var + (wide ? 2 : 1));
+			} else if (insn instanceof IincInsnNode) {
+				max = Math.max(max, ((IincInsnNode) insn).var + 1);
+			}
+		}
+		if (method.localVariables != null) {
+			for (LocalVariableNode local : method.localVariables) {
+				max = Math.max(max, local.index + Type.getType(local.desc).getSize());
+			}
+		}
+		return Math.max(max, method.maxLocals);
+	}
+
+	private static int getSize(MethodNode method) {
+		int size = 0;
+		for (AbstractInsnNode insn = method.instructions.getFirst(); insn != null; insn = insn.getNext()) {
+			if (insn.getOpcode() >= 0) {
+				size++;
+			}
+		}
+		return size;
+	}
+
+	private static AbstractInsnNode getLastInstruction(MethodNode method) {
+		AbstractInsnNode insn = method.instructions.getLast();
+		while (insn != null && insn.getOpcode() < 0) {
+			insn = insn.getPrevious();
+		}
+		return insn;
+	}
+
+	private static LineNumberNode getLineNumber(AbstractInsnNode insn) {
+		for (; insn != null; insn = insn.getPrevious()) {
+			if (insn instanceof LineNumberNode) {
+				return (LineNumberNode) insn;
+			}
+		}
+		return null;
+	}
+
+	private static String getPackage(String className) {
+		int idx = className.lastIndexOf('/');
+		return idx == -1 ? "" : className.substring(0, idx);
+	}
+
+	private static String getKey(String owner, String name, String desc) {
+		return owner + "." + name + desc;
+	}
+
+	private static class Pending {
+		private final ClassData data;
+		private final MethodNode method;
+		private int state = PENDING;
+		private Boolean balanced;
+
+		private Pending(ClassData data, MethodNode method) {
+			this.data = data;
+			this.method = method;
+		}
+	}
+}
@@ -0,0 +1,223 @@
+package cornflakes.compiler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Splits a source file into tokens in a single pass. Identifiers and keywords
+ * are interned, literals are classified, and each token keeps its line and
+ * offsets. The character class tables are shared with {@link Strings} and
+ * {@link Types}.
+ *
+ * The tokens only replace the scanning primitives. The statement and
+ * expression compilers still read each statement as {@link Line} text,
+ * through the linear scans in {@link Strings}, and a derived line has no
+ * tokens of its own. Moving those compilers onto token lists means rewriting
+ * how they split expressions, and is left to a separate change.
+ */
+public class Lexer {
+	private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList("package", "use", "public", "private",
+			"protected", "func", "final", "const", "sealed", "abstract", "if", "do", "while", "else", "for", "var",
+			"sync", "serial", "throw", "foreach", "in", "is", "extends", "implements", "array", "as", "try", "catch",
+			"finally"));
+	private static final String[] OPERATORS = { ">>>=", ">>>", "<<=", ">>=", "->", "=>", "==", "!=", "<=", ">=", "&&",
+			"||", "++", "--", "+=", "-=", "*=", "/=", "%=", "&=", "|=", "^=", "<<", ">>", "??", "::", "+", "-", "*",
+			"/", "%", "&", "|", "^", "!", "~", "=", "<", ">", "?", ":", ".", "@", "#", "$" };
+
+	private static final byte LETTER = 1;
+	private static final byte DIGIT = 2;
+	private static final byte WHITESPACE = 4;
+	private static final byte SEPARATOR = 8;
+	private static final byte[] CLASSES = new byte[128];
+
+	static {
+		for (char c = 'a'; c <= 'z'; c++) {
+			CLASSES[c] |= LETTER;
+			CLASSES[Character.toUpperCase(c)] |= LETTER;
+		}
+		for (char c = '0'; c <= '9'; c++) {
+			CLASSES[c] |= DIGIT;
+		}
+		for (char c : new char[] { ' ', '\t', '\r', '\n', '\f', 0x0B }) {
+			CLASSES[c] |= WHITESPACE;
+		}
+		for (char c : new char[] { '(', ')', '{', '}', '[', ']', ',', ';' }) {
+			CLASSES[c] |= SEPARATOR;
+		}
+	}
+
+	private final String source;
+	private int cursor;
+	private int line = 1;
+	private List<Token> tokens;
+
+	public Lexer(String source) {
+		this.source = source;
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	public static boolean isLetter(char c) {
+		return c < 128 && (CLASSES[c] & LETTER) != 0;
+	}
+
+	public static boolean isDigit(char c) {
+		return c < 128 && (CLASSES[c] & DIGIT) != 0;
+	}
+
+	public static boolean isWhitespace(char c) {
+		return c < 128 && (CLASSES[c] & WHITESPACE) != 0;
+	}
+
+	public static boolean isIdentifierStart(char c) {
+		return isLetter(c) || c == '_';
+	}
+
+	public static boolean isIdentifierPart(char c) {
+		return c < 128 && ((CLASSES[c] & (LETTER | DIGIT)) != 0 || c == '_');
+	}
+
+	public static boolean isKeyword(String str) {
+		return KEYWORDS.contains(str);
+	}
+
+	public static boolean isDigits(String str, int start, int end, boolean periods) {
+		if (start >= end) {
+			return false;
+		}
+		for (int i = start; i < end; i++) {
+			char c = str.charAt(i);
+			if (!isDigit(c) && !(periods && c == '.')) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public static TokenType classifyLiteral(String str) {
+		if (str.isEmpty()) {
+			return null;
+		}
+		if (str.equals("true") || str.equals("false")) {
+			return TokenType.BOOLEAN_LITERAL;
+		}
+
+		char first = str.charAt(0);
+		char last = str.charAt(str.length() - 1);
+		if (str.length() > 1 && first == '"' && last == '"') {
+			return TokenType.STRING_LITERAL;
+		}
+		if (str.length() > 1 && first == '\'' && last == '\'') {
+			return TokenType.CHAR_LITERAL;
+		}
+
+		int start = first == '-' ? 1 : 0;
+		int end = str.length();
+		char suffix = Character.toLowerCase(last);
+		if (suffix == 'l' || suffix == 'f' || suffix == 'd') {
+			end--;
+		}
+		if (!isDigits(str, start, end, true)) {
+			return null;
+		}
+
+		int period = str.indexOf('.', start);
+		if (period != -1) {
+			if (str.indexOf('.', period + 1) != -1 || suffix == 'l') {
+				return null;
+			}
+			return TokenType.FLOAT_LITERAL;
+		}
+		return suffix == 'f' || suffix == 'd' ? TokenType.FLOAT_LITERAL : TokenType.INTEGER_LITERAL;
+	}
+
+	public List<Token> tokenize() {
+		if (tokens != null) {
+			return tokens;
+		}
+
+		tokens = new ArrayList<>();
+		int length = source.length();
+		while (cursor < length) {
+			char c = source.charAt(cursor);
+			if (c == '\n') {
+				line++;
+				cursor++;
+			} else if (isWhitespace(c)) {
+				cursor++;
+			} else if (c == '/' && cursor + 1 < length && source.charAt(cursor + 1) == '/') {
+				while (cursor < length && source.charAt(cursor) != '\n') {
+					cursor++;
+				}
+			} else if (isIdentifierStart(c)) {
+				int start = cursor;
+				while (cursor < length && isIdentifierPart(source.charAt(cursor))) {
+					cursor++;
+				}
+				String text = source.substring(start, cursor).intern();
+				TokenType type = TokenType.IDENTIFIER;
+				if (isKeyword(text)) {
+					type = TokenType.KEYWORD;
+				} else if (text.equals("true") || text.equals("false")) {
+					type = TokenType.BOOLEAN_LITERAL;
+				}
+				add(type, text, start);
+			} else if (isDigit(c)) {
+				int start = cursor;
+				while (cursor < length && (isDigit(source.charAt(cursor)) || (source.charAt(cursor) == '.'
+						&& cursor + 1 < length && isDigit(source.charAt(cursor + 1))))) {
+					cursor++;
+				}
+				if (cursor < length && "lLfFdD".indexOf(source.charAt(cursor)) != -1) {
+					cursor++;
+				}
+				String text = source.substring(start, cursor);
+				TokenType type = classifyLiteral(text);
+				if (type == null) {
+					throw new CompileError("Invalid literal: " + text + " on line " + line);
+				}
+				add(type, text, start);
+			} else if (c == '"' || c == '\'') {
+				int start = cursor++;
+				while (cursor < length && source.charAt(cursor) != c && source.charAt(cursor) != '\n') {
+					// an escaped quote or backslash does not end the literal
+					if (source.charAt(cursor) == '\\' && cursor + 1 < length && source.charAt(cursor + 1) != '\n') {
+						cursor++;
+					}
+					cursor++;
+				}
+				if (cursor < length && source.charAt(cursor) == c) {
+					cursor++;
+				}
+				add(c == '"' ? TokenType.STRING_LITERAL : TokenType.CHAR_LITERAL, source.substring(start, cursor),
+						start);
+			} else if (c < 128 && (CLASSES[c] & SEPARATOR) != 0) {
+				add(TokenType.SEPARATOR, Character.toString(c).intern(), cursor++);
+			} else {
+				String op = null;
+				for (String x : OPERATORS) {
+					if (source.startsWith(x, cursor)) {
+						op = x;
+						break;
+					}
+				}
+				if (op == null) {
+					op = Character.toString(c);
+				}
+				add(TokenType.OPERATOR, op, cursor);
+				cursor += op.length();
+			}
+		}
+
+		return tokens;
+	}
+
+	private void add(TokenType type, String text, int start) {
+		tokens.add(new Token(type, text, line, start, start + text.length()));
+	}
+}
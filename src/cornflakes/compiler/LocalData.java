@@ -3,6 +3,7 @@ package cornflakes.compiler;
 public class LocalData extends FieldData {
 	private Block block;
 	private int index;
+	private DefinitiveType scalarType;
 
 	public LocalData(String name, DefinitiveType type, Block block, int index, int mods) {
 		super(null, name, type, mods);
@@ -19,6 +20,18 @@ public class LocalData extends FieldData {
 		this.index = index;
 	}
 
+	public boolean isScalar() {
+		return scalarType != null;
+	}
+
+	public DefinitiveType getScalarType() {
+		return scalarType;
+	}
+
+	public void setScalarType(DefinitiveType scalarType) {
+		this.scalarType = scalarType;
+	}
+
 	public Block getBlock() {
 		return block;
 	}
@@ -1,32 +1,173 @@
 package cornflakes.compiler;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 import org.objectweb.asm.Opcodes;
 
 public class MainCompiler implements Opcodes {
+	public static final int LATEST_TARGET = 25;
+
 	public static void main(String[] args) throws Exception {
+		String source = "src";
+		boolean incremental = false;
+		boolean optimize = false;
+		boolean daemon = false;
+		boolean watch = false;
+		int port = -1;
+		int target = V1_8;
+		int threads = Runtime.getRuntime().availableProcessors();
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if (arg.equals("-incremental")) {
+				incremental = true;
+			} else if (arg.equals("-optimize")) {
+				optimize = true;
+			} else if (arg.equals("-daemon")) {
+				daemon = true;
+			} else if (arg.equals("-watch")) {
+				watch = true;
+			} else if (arg.equals("-port")) {
+				if (i + 1 == args.length) {
+					throw new CompileError("Expected a port after -port");
+				}
+				try {
+					port = Integer.parseInt(args[++i]);
+				} catch (NumberFormatException e) {
+					throw new CompileError("Invalid port: " + args[i]);
+				}
+			} else if (arg.equals("-threads")) {
+				if (i + 1 == args.length) {
+					throw new CompileError("Expected a thread count after -threads");
+				}
+				try {
+					threads = Integer.parseInt(args[++i]);
+				} catch (NumberFormatException e) {
+					throw new CompileError("Invalid thread count: " + args[i]);
+				}
+				if (threads < 1) {
+					throw new CompileError("Invalid thread count: " + args[i]);
+				}
+			} else if (arg.equals("-target")) {
+				if (i + 1 == args.length) {
+					throw new CompileError("Expected a release after -target");
+				}
+				target = getTarget(args[++i]);
+			} else if (arg.startsWith("-")) {
+				throw new CompileError("Unknown option: " + arg);
+			} else {
+				source = arg;
+			}
+		}
+
+		if (daemon || watch || port != -1) {
+			new CompilerDaemon(source, optimize, target).run(watch, port);
+			return;
+		}
+
 		long time = System.currentTimeMillis();
+		compile(source, incremental, optimize, target, threads);
+		System.out.println("Compiled after " + (System.currentTimeMillis() - time) + "ms.");
+		System.out.println();
+	}
 
-		args = new String[] { "src" };
+	public static List<ClassData> compile(String source, boolean incremental)
+			throws IOException, ClassNotFoundException {
+		return compile(source, incremental, false);
+	}
 
-		List<ClassData> list = new ArrayList<>();
-		for (File file : new File(args[0]).listFiles()) {
+	public static List<ClassData> compile(String source, boolean incremental, boolean optimize)
+			throws IOException, ClassNotFoundException {
+		return compile(source, incremental, optimize, V1_8);
+	}
+
+	public static List<ClassData> compile(String source, boolean incremental, boolean optimize, int target)
+			throws IOException, ClassNotFoundException {
+		return compile(source, incremental, optimize, target, Runtime.getRuntime().availableProcessors());
+	}
+
+	public static List<ClassData> compile(String source, boolean incremental, boolean optimize, int target,
+			int threads) throws IOException, ClassNotFoundException {
+		CompilationContext context = new CompilationContext();
+		context.setOptimize(optimize);
+		context.setTarget(target);
+		context.setParallelism(threads);
+		return compile(context, source, "bin", incremental);
+	}
+
+	public static int getTarget(String release) {
+		// class file versions follow the release numbers from 8 onwards; asm 9.8 writes nothing newer than 25
+		String number = release.startsWith("1.") ? release.substring(2) : release;
+		int version;
+		try {
+			version = Integer.parseInt(number);
+		} catch (NumberFormatException e) {
+			throw new CompileError("Invalid target release: " + release);
+		}
+		if (version < 8 || version > LATEST_TARGET) {
+			throw new CompileError("Unsupported target release: " + release);
+		}
+		return V1_8 + version - 8;
+	}
+
+	public static List<ClassData> compile(CompilationContext context, String source, String output,
+			boolean incremental) throws IOException, ClassNotFoundException {
+		context.setClassIndex(ClassIndex.forOutput(output));
+		CompilationContext previous = context.enter();
+		Scheduler scheduler = new Scheduler(context);
+		try {
+			return compile(context, source, output, incremental, scheduler);
+		} finally {
+			scheduler.shutdown();
+			context.exit(previous);
+		}
+	}
+
+	private static List<ClassData> compile(CompilationContext context, String source, String output,
+			boolean incremental, Scheduler scheduler) throws IOException, ClassNotFoundException {
+		File[] listing = new File(source).listFiles();
+		if (listing == null) {
+			throw new CompileError("Source directory not found: " + source);
+		}
+
+		List<File> files = new ArrayList<>();
+		for (File file : listing) {
 			if (file.isFile()) {
 				if (file.getName().endsWith(".cf")) {
-					list.add(Compiler.compile(file.getName(), new String(Files.readAllBytes(file.toPath()))
-							.replaceAll("\\r\\n|\\r|\\n", System.lineSeparator())));
+					files.add(file);
 				}
 			}
 		}
+		files.sort(Comparator.comparing(File::getName));
+
+		IncrementalCache cache = incremental ? IncrementalCache.load(new File(output, ".cfcache")) : null;
+		context.setTrackReferences(incremental);
+
+		List<String> sources = scheduler.map(files, file -> {
+			try {
+				return new String(Files.readAllBytes(file.toPath())).replaceAll("\\r\\n|\\r|\\n",
+						System.lineSeparator());
+			} catch (IOException e) {
+				throw new CompileError(e);
+			}
+		});
+		List<SyntaxNode> roots = scheduler.map(sources, Compiler::parse);
+
+		List<ClassData> list = new ArrayList<>();
+		for (int i = 0; i < files.size(); i++) {
+			list.add(Compiler.compile(context, files.get(i).getName(), roots.get(i)));
+		}
 
 		// compile class head
-		Compiler.executePostCompilers();
+		for (ClassData data : list) {
+			Compiler.executePostCompilers(data);
+		}
 
 		for (ClassData data : list) {
 			for (ClassData other : list) {
@@ -37,18 +178,42 @@ public class MainCompiler implements Opcodes {
 		}
 
 		// compile function signatures
-		Compiler.executePostCompilers();
+		scheduler.forEachByHierarchy(list, Compiler::executePostCompilers);
 
 		for (ClassData data : list) {
 			if (!data.hasConstructor()) {
-				new ConstructorCompiler(true).compileDefault(data, data.getClassWriter());
+				new ConstructorCompiler(false).declareDefault(data);
 			}
+			data.freeze();
+		}
 
-			new StaticInitializerCompiler().compile(data, data.getClassWriter(), null, null);
+		// find classes whose sources and dependencies are unchanged
+		List<String> hashes = new ArrayList<>();
+		List<ClassData> dirty = new ArrayList<>();
+		context.setTrackReferences(false);
+		for (int i = 0; i < list.size(); i++) {
+			ClassData data = list.get(i);
+			hashes.add(incremental ? IncrementalCache.hash(sources.get(i)) : null);
+			if (cache != null && cache.isUpToDate(files.get(i).getName(), hashes.get(i), data,
+					getOutput(output, data))) {
+				data.setByteCode(Files.readAllBytes(getOutput(output, data).toPath()));
+			} else {
+				dirty.add(data);
+			}
 		}
+		context.setTrackReferences(incremental);
+
+		scheduler.forEach(dirty, data -> {
+			ClassData.setCurrentClass(data);
+			new StaticInitializerCompiler().compile(data, data.getClassWriter(), null);
+		});
 
-		// compile functions
-		Compiler.executePostCompilers();
+		// compile functions; each body is its own task and writes into the output reserved for it
+		List<Runnable> bodies = new ArrayList<>();
+		for (ClassData data : dirty) {
+			bodies.addAll(Compiler.takePostCompilers(data));
+		}
+		scheduler.forEach(bodies, Runnable::run);
 
 		// ensure all neccesary functions are implemented
 		for (ClassData data : list) {
@@ -61,14 +226,7 @@ public class MainCompiler implements Opcodes {
 					ClassData ifd = ClassData.forName(ifn);
 
 					for (MethodData method : ifd.getMethods()) {
-						boolean match = false;
-						for (MethodData impl : data.getMethods()) {
-							if (method.toString().equals(impl.toString())) {
-								match = true;
-							}
-						}
-
-						if (!match) {
+						if (data.getMethod(method.getName(), method.getSignature()) == null) {
 							throw new CompileError("The interface " + Types.beautify(ifd.getClassName())
 									+ " requires the method '" + method.getName() + "' to be implemented");
 						}
@@ -77,15 +235,42 @@ public class MainCompiler implements Opcodes {
 			}
 		}
 
+		// inline small functions; incremental builds stay within a class, as cached callers would keep stale bodies
+		if (context.isOptimizing()) {
+			context.getInliner().inline(!incremental);
+		}
+
 		// clean up and finish
-		Compiler.endPostCompilers();
-		System.out.println("Compiled after " + (System.currentTimeMillis() - time) + "ms.");
-		System.out.println();
+		scheduler.forEach(dirty, Compiler::endPostCompilers);
 
-		for (ClassData datum : list) {
-			Path path = Paths.get("bin/" + datum.getClassName() + ".class");
+		for (ClassData datum : dirty) {
+			Path path = getOutput(output, datum).toPath();
 			path.toFile().delete();
+			path.toFile().getParentFile().mkdirs();
 			Files.write(path, datum.getByteCode());
 		}
+
+		for (String shape : context.getTupleShapes()) {
+			Path path = Paths.get(output, TupleCompiler.getClassName(shape) + ".class");
+			path.toFile().getParentFile().mkdirs();
+			Files.write(path, new TupleCompiler(shape, context.getTarget()).compile());
+		}
+
+		if (cache != null) {
+			List<String> names = new ArrayList<>();
+			for (int i = 0; i < list.size(); i++) {
+				names.add(files.get(i).getName());
+				if (dirty.contains(list.get(i))) {
+					cache.update(files.get(i).getName(), hashes.get(i), list.get(i));
+				}
+			}
+			cache.retain(names);
+			cache.save();
+		}
+		return dirty;
+	}
+
+	private static File getOutput(String output, ClassData data) {
+		return Paths.get(output, data.getClassName() + ".class").toFile();
 	}
 }
@@ -2,6 +2,9 @@ package cornflakes.compiler;
 
 import static cornflakes.compiler.Operator.*;
 
+import java.util.Arrays;
+
+import org.objectweb.asm.Handle;
 import org.objectweb.asm.Label;
 import org.objectweb.asm.MethodVisitor;
 
@@ -72,7 +75,7 @@ public class MathExpressionCompiler implements GenericCompiler {
 							if (wop == LDC) {
 								m.visitLdcInsn(Types.parseLiteral(type, "1"));
 							} else {
-								m.visitVarInsn(wop, 1);
+								m.visitIntInsn(wop, 1);
 							}
 							if (this.write) {
 								this.data.ics();
@@ -126,6 +129,20 @@ public class MathExpressionCompiler implements GenericCompiler {
 			}
 		}
 
+		Object constant = ConstantFolder.foldMath(this.data, data, block, body.getLine());
+		if (constant != null) {
+			if (write) {
+				ConstantFolder.push(m, constant);
+				this.data.ics();
+			}
+			resultType = ConstantFolder.getType(constant);
+			return;
+		}
+
+		if (!Strings.contains(body, "&") && compileConcatenation(data, m, block, body)) {
+			return;
+		}
+
 		Line[] split = null;
 		if (Strings.contains(body, "&")) {
 			split = Strings.split(body, "&", 2);
@@ -337,6 +354,10 @@ public class MathExpressionCompiler implements GenericCompiler {
 				}
 			} else {
 				try {
+					if (type.isPointer() && !type.hasOperatorOverload(this.type)
+							&& (this.type == ADD || this.type == SUBTRACT)) {
+						throw new CompileError("Only pointers to numbers support pointer arithmetic");
+					}
 					if (!type.hasOperatorOverload(this.type)) {
 						invalid(new CompileError(
 								"Operator not overloaded for class " + Types.beautify(type.getClassName())));
@@ -368,6 +389,182 @@ public class MathExpressionCompiler implements GenericCompiler {
 		resultType = leftType;
 	}
 
+	private boolean compileConcatenation(ClassData data, MethodVisitor m, Block block, Line body) {
+		String[] terms = Strings.split(body.getLine(), "+");
+		if (terms.length < 3) {
+			return false;
+		}
+
+		// a + b + c is compiled as a + (b + c), so the terms after the last string are summed first
+		DefinitiveType[] types = new DefinitiveType[terms.length];
+		int last = -1;
+		for (int i = 0; i < terms.length; i++) {
+			terms[i] = terms[i].trim();
+			if (terms[i].isEmpty()) {
+				return false;
+			}
+			types[i] = typeOf(body, terms[i], data, m, block);
+			if (types[i] == null) {
+				return false;
+			}
+			if (types[i].equals("Ljava/lang/String;")) {
+				last = i;
+			}
+		}
+		if (last == -1) {
+			return false;
+		}
+
+		int count = last + 1;
+		if (last < terms.length - 1) {
+			String tail = String.join("+", Arrays.copyOfRange(terms, last + 1, terms.length));
+			terms = Arrays.copyOf(terms, count + 1);
+			types = Arrays.copyOf(types, count + 1);
+			terms[count] = tail;
+			types[count] = typeOf(body, tail, data, m, block);
+			if (types[count] == null) {
+				return false;
+			}
+			count++;
+		}
+		if (count < 3) {
+			return false;
+		}
+
+		resultType = DefinitiveType.object("Ljava/lang/String;");
+		if (!write) {
+			return true;
+		}
+
+		Object[] constants = new Object[count];
+		int arguments = 0;
+		for (int i = 0; i < count; i++) {
+			constants[i] = ConstantFolder.fold(this.data, data, block, terms[i]);
+			if (constants[i] == null) {
+				arguments += types[i].equals("J") || types[i].equals("D") ? 2 : 1;
+			}
+		}
+
+		if (data.getCompilationContext().getTarget() >= V9 && arguments <= 200) {
+			StringBuilder recipe = new StringBuilder();
+			StringBuilder signature = new StringBuilder("(");
+			for (int i = 0; i < count; i++) {
+				String constant = constants[i] == null ? null : String.valueOf(constants[i]);
+				if (constant != null && constant.indexOf('\u0001') == -1 && constant.indexOf('\u0002') == -1) {
+					recipe.append(constant);
+				} else {
+					push(body, terms[i], constants[i], data, m, block);
+					recipe.append('\u0001');
+					signature.append(constant != null ? "Ljava/lang/String;" : getAppendSignature(types[i]));
+				}
+			}
+			m.visitInvokeDynamicInsn("makeConcatWithConstants", signature + ")Ljava/lang/String;",
+					new Handle(H_INVOKESTATIC, "java/lang/invoke/StringConcatFactory", "makeConcatWithConstants",
+							"(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;"
+									+ "Ljava/lang/String;[Ljava/lang/Object;)Ljava/lang/invoke/CallSite;",
+							false),
+					recipe.toString());
+			for (int i = 0; i < arguments; i++) {
+				this.data.dcs();
+			}
+			this.data.ics();
+			return true;
+		}
+
+		int capacity = 0;
+		for (int i = 0; i < count; i++) {
+			capacity += constants[i] != null ? String.valueOf(constants[i]).length() : getEstimatedLength(types[i]);
+		}
+
+		m.visitTypeInsn(NEW, "java/lang/StringBuilder");
+		m.visitInsn(DUP);
+		ConstantFolder.push(m, capacity);
+		this.data.ics();
+		this.data.ics();
+		this.data.ics();
+		m.visitMethodInsn(INVOKESPECIAL, "java/lang/StringBuilder", "<init>", "(I)V", false);
+		this.data.dcs();
+		this.data.dcs();
+		for (int i = 0; i < count; i++) {
+			push(body, terms[i], constants[i], data, m, block);
+			String signature = constants[i] != null ? "Ljava/lang/String;" : getAppendSignature(types[i]);
+			m.visitMethodInsn(INVOKEVIRTUAL, "java/lang/StringBuilder", "append",
+					"(" + signature + ")Ljava/lang/StringBuilder;", false);
+			this.data.dcs();
+		}
+		m.visitMethodInsn(INVOKEVIRTUAL, "java/lang/StringBuilder", "toString", "()Ljava/lang/String;", false);
+		return true;
+	}
+
+	private void push(Line line, String term, Object constant, ClassData data, MethodVisitor m, Block block) {
+		if (constant != null) {
+			m.visitLdcInsn(String.valueOf(constant));
+			this.data.ics();
+		} else {
+			DefinitiveType type = pushToStack(line, term, data, m, block);
+			if (type.equals("J") || type.equals("D")) {
+				this.data.ics();
+				this.data.dcs();
+			}
+		}
+	}
+
+	private DefinitiveType typeOf(Line line, String term, ClassData data, MethodVisitor m, Block block) {
+		boolean write = this.write;
+		ExpressionCompiler ref = this.ref;
+		this.write = false;
+		try {
+			return pushToStack(line, term, data, m, block);
+		} catch (CompileError e) {
+			return null;
+		} finally {
+			this.write = write;
+			this.ref = ref;
+		}
+	}
+
+	static String getAppendSignature(DefinitiveType type) {
+		String signature = type.getTypeSignature();
+		switch (signature) {
+			case "Z":
+			case "C":
+			case "I":
+			case "J":
+			case "F":
+			case "D":
+			case "Ljava/lang/String;":
+				return signature;
+			case "B":
+			case "S":
+				return "I";
+			default:
+				return "Ljava/lang/Object;";
+		}
+	}
+
+	private static int getEstimatedLength(DefinitiveType type) {
+		switch (type.getTypeSignature()) {
+			case "Z":
+				return 5;
+			case "C":
+				return 1;
+			case "B":
+				return 4;
+			case "S":
+				return 6;
+			case "I":
+				return 11;
+			case "J":
+				return 20;
+			case "F":
+				return 15;
+			case "D":
+				return 24;
+			default:
+				return 16;
+		}
+	}
+
 	private DefinitiveType pushToStack(Line line, String term, ClassData data, MethodVisitor m, Block thisBlock) {
 		String type = Types.getType(term, "");
 		if (type != null) {
@@ -380,7 +577,7 @@ public class MathExpressionCompiler implements GenericCompiler {
 			} else {
 				if (this.write) {
 					String toString = lit.toString();
-					m.visitVarInsn(oc, Integer.parseInt(toString));
+					m.visitIntInsn(oc, Integer.parseInt(toString));
 				}
 			}
 
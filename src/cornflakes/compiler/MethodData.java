@@ -6,12 +6,15 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.WildcardType;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.MethodNode;
 
 public class MethodData implements Accessible {
 	private ClassData context;
@@ -28,6 +31,12 @@ public class MethodData implements Accessible {
 	private boolean interfaceMethod;
 	private int iterator = -1;
 	private int syntheticVariables = 0;
+	private List<YieldPoint> yieldPoints = new ArrayList<>();
+	private TypeCache typeCache = new TypeCache();
+	private Set<String> scalarPointers = new HashSet<>();
+	private Map<String, LocalData> accumulators = new HashMap<>();
+	private int handlers;
+	private MethodOutput output;
 
 	public static MethodData fromJavaMethod(ClassData context, Method method) {
 		MethodData mData = new MethodData(context, method.getName(),
@@ -61,6 +70,38 @@ public class MethodData implements Accessible {
 		return mData;
 	}
 
+	public static MethodData fromMethodNode(ClassData context, MethodNode method) {
+		org.objectweb.asm.Type returnType = org.objectweb.asm.Type.getReturnType(method.desc);
+		boolean isDefault = (method.access & (Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT
+				| Opcodes.ACC_STATIC)) == Opcodes.ACC_PUBLIC;
+		MethodData mData = new MethodData(context, method.name,
+				DefinitiveType.assume(Types.getTypeSignature(returnType)), context.isInterface() && !isDefault,
+				method.access & 0xFFFF);
+
+		org.objectweb.asm.Type[] params = org.objectweb.asm.Type.getArgumentTypes(method.desc);
+		for (int i = 0; i < params.length; i++) {
+			mData.addParameter(new ParameterData(mData, getParameterName(method, i),
+					DefinitiveType.object(Types.getTypeSignature(params[i])), 0));
+		}
+
+		for (String type : method.exceptions) {
+			mData.addExceptionType(DefinitiveType.object(type));
+		}
+
+		ClassIndex index = CompilationContext.get().getClassIndex();
+		mData.setIterator(returnType.getSort() == org.objectweb.asm.Type.OBJECT
+				&& index.isSubtype(returnType.getInternalName(), "java/util/Iterator") ? -2 : -1);
+
+		return mData;
+	}
+
+	static String getParameterName(MethodNode method, int index) {
+		if (method.parameters != null && index < method.parameters.size()) {
+			return method.parameters.get(index).name;
+		}
+		return "arg" + index;
+	}
+
 	public MethodData(ClassData data, String name, DefinitiveType ret, boolean ifm, int mods) {
 		this.name = name;
 		this.context = data;
@@ -123,6 +164,19 @@ public class MethodData implements Accessible {
 
 	public void addLocal(LocalData local) {
 		locals.add(local);
+		typeCache.clear();
+	}
+
+	public TypeCache getTypeCache() {
+		return typeCache;
+	}
+
+	public MethodOutput getOutput() {
+		return output;
+	}
+
+	public void setOutput(MethodOutput output) {
+		this.output = output;
 	}
 
 	public void setParameters(List<ParameterData> params) {
@@ -131,6 +185,9 @@ public class MethodData implements Accessible {
 		int idx = hasModifier(Opcodes.ACC_STATIC) ? 0 : 1;
 		for (ParameterData par : this.parameters) {
 			this.locals.add(new LocalData(par.getName(), par.getType(), null, idx++, 0));
+			if (par.getType().equals("J") || par.getType().equals("D")) {
+				idx++;
+			}
 		}
 	}
 
@@ -270,6 +327,38 @@ public class MethodData implements Accessible {
 		this.context = context;
 	}
 
+	public boolean isScalarPointer(String name) {
+		return scalarPointers.contains(name);
+	}
+
+	public void setScalarPointers(Set<String> scalarPointers) {
+		this.scalarPointers = scalarPointers;
+	}
+
+	public LocalData getAccumulator(String name) {
+		return accumulators.get(name);
+	}
+
+	public void addAccumulator(String name, LocalData builder) {
+		accumulators.put(name, builder);
+	}
+
+	public LocalData removeAccumulator(String name) {
+		return accumulators.remove(name);
+	}
+
+	public boolean isHandled() {
+		return handlers > 0;
+	}
+
+	public void enterHandler() {
+		handlers++;
+	}
+
+	public void exitHandler() {
+		handlers--;
+	}
+
 	public boolean isIterator() {
 		return iterator != -1;
 	}
@@ -282,6 +371,39 @@ public class MethodData implements Accessible {
 		this.iterator = isIterator;
 	}
 
+	public List<YieldPoint> getYieldPoints() {
+		return yieldPoints;
+	}
+
+	public int addYieldPoint(YieldPoint point) {
+		yieldPoints.add(point);
+		return yieldPoints.size();
+	}
+
+	public List<LocalData> getHoistedLocals() {
+		return new ArrayList<>(locals.subList(parameters.size(), locals.size()));
+	}
+
+	public List<LocalData> getHoistedLocals(Block block) {
+		List<LocalData> live = new ArrayList<>();
+		for (LocalData local : locals.subList(parameters.size(), locals.size())) {
+			// locals of blocks which have already ended are never read again
+			if (local.getBlock() == null || local.getBlock().encloses(block)) {
+				live.add(local);
+			}
+		}
+		return live;
+	}
+
+	public int getFrameSlot(LocalData local) {
+		for (int i = parameters.size(); i < locals.size(); i++) {
+			if (locals.get(i) == local) {
+				return i - parameters.size();
+			}
+		}
+		throw new CompileError("Unknown local variable: " + local.getName());
+	}
+
 	public int getSyntheticVariables() {
 		return syntheticVariables;
 	}
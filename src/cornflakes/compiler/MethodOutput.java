@@ -0,0 +1,51 @@
+package cornflakes.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Collects the methods written by one function, constructor or initializer,
+ * including the lambdas and generator bodies inside it. Outputs are reserved
+ * in source order before any body is compiled, so the class file is the same
+ * whichever order the bodies finish in.
+ */
+public class MethodOutput {
+	private final ClassData data;
+	private final int index;
+	private final List<MethodNode> methods = new ArrayList<>();
+	private int lambdas;
+
+	public MethodOutput(ClassData data, int index) {
+		this.data = data;
+		this.index = index;
+	}
+
+	public void add(MethodNode method) {
+		methods.add(method);
+	}
+
+	public void accept(ClassVisitor cv) {
+		for (MethodNode method : methods) {
+			method.accept(cv);
+		}
+	}
+
+	public ClassData getClassData() {
+		return data;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public int getLambdas() {
+		return lambdas;
+	}
+
+	public void addLambda() {
+		this.lambdas++;
+	}
+}
@@ -6,7 +6,11 @@ public class ObjectPointerClassData extends PointerClassData {
 	public ObjectPointerClassData(String type) {
 		super(type);
 
-		this.type = type;
+		if (type.endsWith("*") || type.endsWith("^")) {
+			this.type = type.substring(0, type.length() - 1).trim();
+		} else {
+			this.type = "java/lang/Object";
+		}
 
 		setClassName("cornflakes/lang/ObjectPointer");
 	}
@@ -15,4 +19,9 @@ public class ObjectPointerClassData extends PointerClassData {
 	public DefinitiveType getValueType() {
 		return DefinitiveType.object(type);
 	}
+
+	@Override
+	public String getValueSignature() {
+		return "Ljava/lang/Object;";
+	}
 }
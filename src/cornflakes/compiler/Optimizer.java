@@ -0,0 +1,481 @@
+package cornflakes.compiler;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.FrameNode;
+import org.objectweb.asm.tree.IincInsnNode;
+import org.objectweb.asm.tree.InsnList;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.IntInsnNode;
+import org.objectweb.asm.tree.JumpInsnNode;
+import org.objectweb.asm.tree.LabelNode;
+import org.objectweb.asm.tree.LdcInsnNode;
+import org.objectweb.asm.tree.LineNumberNode;
+import org.objectweb.asm.tree.LookupSwitchInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+import org.objectweb.asm.tree.TableSwitchInsnNode;
+import org.objectweb.asm.tree.TryCatchBlockNode;
+import org.objectweb.asm.tree.TypeInsnNode;
+import org.objectweb.asm.tree.VarInsnNode;
+
+public class Optimizer implements Opcodes {
+	private final MethodNode method;
+	private final InsnList insns;
+	private Set<LabelNode> targets;
+
+	public static MethodVisitor visitMethod(MethodOutput output, int access, String name, String desc,
+			String signature, String[] exceptions) {
+		ClassData data = output.getClassData();
+		MethodNode method = new MethodNode(ASM9, access, name, desc, signature, exceptions) {
+			@Override
+			public void visitEnd() {
+				if (data.getCompilationContext().isOptimizing()) {
+					new Optimizer(this).optimize();
+					data.getCompilationContext().getInliner().defer(data, this);
+				}
+			}
+		};
+		output.add(method);
+		return method;
+	}
+
+	public Optimizer(MethodNode method) {
+		this.method = method;
+		this.insns = method.instructions;
+	}
+
+	public void optimize() {
+		if (insns.size() == 0) {
+			return;
+		}
+
+		boolean changed;
+		do {
+			changed = shrinkConstants();
+			changed |= foldJumps();
+			changed |= removeUnreachable();
+			changed |= removeDeadStores();
+			changed |= removeRedundantCasts();
+			changed |= removeDiscardedValues();
+			changed |= removeRedundantFrames();
+		} while (changed);
+	}
+
+	private boolean shrinkConstants() {
+		boolean changed = false;
+		for (AbstractInsnNode insn = insns.getFirst(); insn != null; insn = insn.getNext()) {
+			AbstractInsnNode shrunk = null;
+			if (insn.getOpcode() == LDC) {
+				shrunk = getConstant(((LdcInsnNode) insn).cst);
+			} else if (insn.getOpcode() == BIPUSH || insn.getOpcode() == SIPUSH) {
+				shrunk = getConstant(((IntInsnNode) insn).operand);
+				if (shrunk.getOpcode() == insn.getOpcode()) {
+					shrunk = null;
+				}
+			}
+
+			if (shrunk != null) {
+				insns.set(insn, shrunk);
+				insn = shrunk;
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	private static AbstractInsnNode getConstant(Object cst) {
+		if (cst instanceof Integer) {
+			int value = (Integer) cst;
+			if (value >= -1 && value <= 5) {
+				return new InsnNode(ICONST_0 + value);
+			} else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+				return new IntInsnNode(BIPUSH, value);
+			} else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+				return new IntInsnNode(SIPUSH, value);
+			}
+		} else if (cst instanceof Long) {
+			long value = (Long) cst;
+			if (value == 0 || value == 1) {
+				return new InsnNode(LCONST_0 + (int) value);
+			}
+		} else if (cst instanceof Float) {
+			int bits = Float.floatToRawIntBits((Float) cst);
+			for (int i = 0; i <= 2; i++) {
+				if (bits == Float.floatToRawIntBits(i)) {
+					return new InsnNode(FCONST_0 + i);
+				}
+			}
+		} else if (cst instanceof Double) {
+			long bits = Double.doubleToRawLongBits((Double) cst);
+			for (int i = 0; i <= 1; i++) {
+				if (bits == Double.doubleToRawLongBits(i)) {
+					return new InsnNode(DCONST_0 + i);
+				}
+			}
+		}
+		return null;
+	}
+
+	private boolean foldJumps() {
+		boolean changed = false;
+		for (AbstractInsnNode insn = insns.getFirst(); insn != null; insn = insn.getNext()) {
+			if (insn instanceof JumpInsnNode) {
+				JumpInsnNode jump = (JumpInsnNode) insn;
+				LabelNode target = resolve(jump.label);
+				if (target != jump.label) {
+					jump.label = target;
+					changed = true;
+				}
+
+				if (jump.getOpcode() == GOTO) {
+					AbstractInsnNode next = getReal(target);
+					if (next != null && next.getOpcode() >= IRETURN && next.getOpcode() <= RETURN) {
+						InsnNode ret = new InsnNode(next.getOpcode());
+						insns.set(jump, ret);
+						insn = ret;
+						changed = true;
+					} else if (isFallthrough(jump, target)) {
+						insn = jump.getPrevious();
+						insns.remove(jump);
+						changed = true;
+						if (insn == null) {
+							insn = insns.getFirst();
+						}
+					}
+				}
+			} else if (insn instanceof TableSwitchInsnNode) {
+				TableSwitchInsnNode sw = (TableSwitchInsnNode) insn;
+				changed |= resolveAll(sw.labels);
+				LabelNode dflt = resolve(sw.dflt);
+				changed |= dflt != sw.dflt;
+				sw.dflt = dflt;
+			} else if (insn instanceof LookupSwitchInsnNode) {
+				LookupSwitchInsnNode sw = (LookupSwitchInsnNode) insn;
+				changed |= resolveAll(sw.labels);
+				LabelNode dflt = resolve(sw.dflt);
+				changed |= dflt != sw.dflt;
+				sw.dflt = dflt;
+			}
+		}
+		return changed;
+	}
+
+	private boolean resolveAll(List<LabelNode> labels) {
+		boolean changed = false;
+		for (int i = 0; i < labels.size(); i++) {
+			LabelNode target = resolve(labels.get(i));
+			if (target != labels.get(i)) {
+				labels.set(i, target);
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	private LabelNode resolve(LabelNode label) {
+		Set<LabelNode> seen = new HashSet<>();
+		while (seen.add(label)) {
+			AbstractInsnNode next = getReal(label);
+			if (next == null || next.getOpcode() != GOTO) {
+				break;
+			}
+			label = ((JumpInsnNode) next).label;
+		}
+		return label;
+	}
+
+	private static boolean isFallthrough(JumpInsnNode jump, LabelNode target) {
+		for (AbstractInsnNode insn = jump.getNext(); insn != null && insn.getOpcode() < 0; insn = insn.getNext()) {
+			if (insn == target) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean removeUnreachable() {
+		Set<AbstractInsnNode> reachable = new HashSet<>();
+		Deque<AbstractInsnNode> work = new ArrayDeque<>();
+		work.push(insns.getFirst());
+		for (TryCatchBlockNode block : method.tryCatchBlocks) {
+			work.push(block.handler);
+		}
+
+		while (!work.isEmpty()) {
+			AbstractInsnNode insn = work.pop();
+			while (insn != null && reachable.add(insn)) {
+				if (insn instanceof JumpInsnNode) {
+					work.push(((JumpInsnNode) insn).label);
+				} else if (insn instanceof TableSwitchInsnNode) {
+					work.addAll(((TableSwitchInsnNode) insn).labels);
+					work.push(((TableSwitchInsnNode) insn).dflt);
+				} else if (insn instanceof LookupSwitchInsnNode) {
+					work.addAll(((LookupSwitchInsnNode) insn).labels);
+					work.push(((LookupSwitchInsnNode) insn).dflt);
+				}
+				if (isTerminal(insn.getOpcode())) {
+					break;
+				}
+				insn = insn.getNext();
+			}
+		}
+
+		boolean changed = false;
+		for (Iterator<AbstractInsnNode> it = insns.iterator(); it.hasNext();) {
+			AbstractInsnNode insn = it.next();
+			if (reachable.contains(insn)) {
+				continue;
+			}
+			if (insn.getOpcode() >= 0 || insn instanceof FrameNode) {
+				it.remove();
+				changed = true;
+			}
+		}
+
+		for (Iterator<TryCatchBlockNode> it = method.tryCatchBlocks.iterator(); it.hasNext();) {
+			TryCatchBlockNode block = it.next();
+			boolean empty = true;
+			for (AbstractInsnNode insn = block.start; insn != block.end && insn != null; insn = insn.getNext()) {
+				if (insn.getOpcode() >= 0) {
+					empty = false;
+					break;
+				}
+			}
+			if (empty) {
+				it.remove();
+				changed = true;
+			}
+		}
+		return changed;
+	}
+
+	private static boolean isTerminal(int opcode) {
+		return opcode == GOTO || opcode == TABLESWITCH || opcode == LOOKUPSWITCH || opcode == ATHROW
+				|| opcode >= IRETURN && opcode <= RETURN;
+	}
+
+	private boolean removeDeadStores() {
+		Map<Integer, Integer> loads = new HashMap<>();
+		for (AbstractInsnNode insn = insns.getFirst(); insn != null; insn = insn.getNext()) {
+			if (insn.getOpcode() >= ILOAD && insn.getOpcode() <= ALOAD || insn.getOpcode() == RET) {
+				loads.merge(((VarInsnNode) insn).var, 1, Integer::sum);
+			}
+		}
+
+		findTargets();
+		boolean changed = false;
+		for (AbstractInsnNode insn = insns.getFirst(); insn != null; insn = insn.getNext()) {
+			int opcode = insn.getOpcode();
+			if (opcode >= ISTORE && opcode <= ASTORE) {
+				int var = ((VarInsnNode) insn).var;
+				int count = loads.getOrDefault(var, 0);
+				AbstractInsnNode next = getAdjacent(insn);
+				if (count == 0) {
+					InsnNode pop = new InsnNode(opcode == LSTORE || opcode == DSTORE ? POP2 : POP);
+					insns.set(insn, pop);
+					insn = pop;
+					changed = true;
+				} else if (count == 1 && next != null && next.getOpcode() == opcode - ISTORE + ILOAD
+						&& ((VarInsnNode) next).var == var) {
+					loads.put(var, 0);
+					AbstractInsnNode previous = insn.getPrevious();
+					insns.remove(insn);
+					insns.remove(next);
+					insn = previous == null ? insns.getFirst() : previous;
+					changed = true;
+				}
+			} else if (opcode == IINC && !loads.containsKey(((IincInsnNode) insn).var)) {
+				AbstractInsnNode previous = insn.getPrevious();
+				insns.remove(insn);
+				insn = previous == null ? insns.getFirst() : previous;
+				changed = true;
+			}
+			if (insn == null) {
+				break;
+			}
+		}
+		return changed;
+	}
+
+	private boolean removeRedundantCasts() {
+		findTargets();
+		boolean changed = false;
+		for (AbstractInsnNode insn = insns.getFirst(); insn != null; insn = insn.getNext()) {
+			AbstractInsnNode previous = getAdjacentBefore(insn);
+			if (previous == null) {
+				continue;
+			}
+
+			int opcode = insn.getOpcode();
+			boolean redundant = false;
+			boolean pair = false;
+			if (opcode == CHECKCAST) {
+				String type = ((TypeInsnNode) insn).desc;
+				redundant = type.equals("java/lang/Object") || previous.getOpcode() == ACONST_NULL
+						|| type.equals(getProducedType(previous));
+			} else if (opcode == I2B || opcode == I2C || opcode == I2S) {
+				redundant = previous.getOpcode() == opcode;
+			} else if (opcode == L2I && previous.getOpcode() == I2L || opcode == D2I && previous.getOpcode() == I2D
+					|| opcode == D2F && previous.getOpcode() == F2D) {
+				redundant = pair = true;
+			}
+
+			if (redundant) {
+				AbstractInsnNode before = pair ? previous.getPrevious() : previous;
+				if (pair) {
+					insns.remove(previous);
+				}
+				insns.remove(insn);
+				insn = before == null ? insns.getFirst() : before;
+				changed = true;
+				if (insn == null) {
+					break;
+				}
+			}
+		}
+		return changed;
+	}
+
+	private static String getProducedType(AbstractInsnNode insn) {
+		Type type = null;
+		if (insn instanceof TypeInsnNode && insn.getOpcode() == CHECKCAST) {
+			return ((TypeInsnNode) insn).desc;
+		} else if (insn instanceof MethodInsnNode) {
+			type = Type.getReturnType(((MethodInsnNode) insn).desc);
+		} else if (insn.getOpcode() == GETFIELD || insn.getOpcode() == GETSTATIC) {
+			type = Type.getType(((FieldInsnNode) insn).desc);
+		} else if (insn instanceof LdcInsnNode && ((LdcInsnNode) insn).cst instanceof String) {
+			return "java/lang/String";
+		}
+
+		if (type != null && (type.getSort() == Type.OBJECT || type.getSort() == Type.ARRAY)) {
+			return type.getInternalName();
+		}
+		return null;
+	}
+
+	private boolean removeDiscardedValues() {
+		findTargets();
+		boolean changed = false;
+		for (AbstractInsnNode insn = insns.getFirst(); insn != null; insn = insn.getNext()) {
+			if (insn.getOpcode() != POP && insn.getOpcode() != POP2) {
+				continue;
+			}
+
+			AbstractInsnNode previous = getAdjacentBefore(insn);
+			if (previous != null && getPureSize(previous) == (insn.getOpcode() == POP ? 1 : 2)) {
+				AbstractInsnNode before = previous.getPrevious();
+				insns.remove(previous);
+				insns.remove(insn);
+				insn = before == null ? insns.getFirst() : before;
+				changed = true;
+				if (insn == null) {
+					break;
+				}
+			}
+		}
+		return changed;
+	}
+
+	private static int getPureSize(AbstractInsnNode insn) {
+		int opcode = insn.getOpcode();
+		if (opcode == ILOAD || opcode == FLOAD || opcode == ALOAD || opcode == DUP || opcode == BIPUSH
+				|| opcode == SIPUSH || opcode >= ACONST_NULL && opcode <= ICONST_5
+				|| opcode >= FCONST_0 && opcode <= FCONST_2) {
+			return 1;
+		} else if (opcode == LLOAD || opcode == DLOAD || opcode == DUP2 || opcode == LCONST_0 || opcode == LCONST_1
+				|| opcode == DCONST_0 || opcode == DCONST_1) {
+			return 2;
+		} else if (opcode == LDC) {
+			Object cst = ((LdcInsnNode) insn).cst;
+			return cst instanceof Long || cst instanceof Double ? 2 : 1;
+		}
+		return 0;
+	}
+
+	private boolean removeRedundantFrames() {
+		boolean changed = false;
+		for (AbstractInsnNode insn = insns.getFirst(); insn != null; insn = insn.getNext()) {
+			if (!(insn instanceof FrameNode)) {
+				continue;
+			}
+
+			AbstractInsnNode next = insn.getNext();
+			while (next instanceof LabelNode || next instanceof LineNumberNode) {
+				next = next.getNext();
+			}
+			if (next == null || next instanceof FrameNode) {
+				AbstractInsnNode previous = insn.getPrevious();
+				insns.remove(insn);
+				insn = previous == null ? insns.getFirst() : previous;
+				changed = true;
+				if (insn == null) {
+					break;
+				}
+			}
+		}
+		return changed;
+	}
+
+	private void findTargets() {
+		targets = new HashSet<>();
+		for (AbstractInsnNode insn = insns.getFirst(); insn != null; insn = insn.getNext()) {
+			if (insn instanceof JumpInsnNode) {
+				targets.add(((JumpInsnNode) insn).label);
+			} else if (insn instanceof TableSwitchInsnNode) {
+				targets.addAll(((TableSwitchInsnNode) insn).labels);
+				targets.add(((TableSwitchInsnNode) insn).dflt);
+			} else if (insn instanceof LookupSwitchInsnNode) {
+				targets.addAll(((LookupSwitchInsnNode) insn).labels);
+				targets.add(((LookupSwitchInsnNode) insn).dflt);
+			}
+		}
+		for (TryCatchBlockNode block : method.tryCatchBlocks) {
+			targets.add(block.start);
+			targets.add(block.end);
+			targets.add(block.handler);
+		}
+	}
+
+	private AbstractInsnNode getAdjacent(AbstractInsnNode insn) {
+		for (AbstractInsnNode next = insn.getNext(); next != null; next = next.getNext()) {
+			if (next.getOpcode() >= 0) {
+				return next;
+			} else if (next instanceof FrameNode || targets.contains(next)) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	private AbstractInsnNode getAdjacentBefore(AbstractInsnNode insn) {
+		for (AbstractInsnNode previous = insn.getPrevious(); previous != null; previous = previous.getPrevious()) {
+			if (previous.getOpcode() >= 0) {
+				return previous;
+			} else if (previous instanceof FrameNode || targets.contains(previous)) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	private static AbstractInsnNode getReal(AbstractInsnNode insn) {
+		while (insn != null && insn.getOpcode() < 0) {
+			insn = insn.getNext();
+		}
+		return insn;
+	}
+}
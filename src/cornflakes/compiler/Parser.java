@@ -0,0 +1,98 @@
+package cornflakes.compiler;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+public class Parser {
+	private static final String[] CHAIN_KEYWORDS = { "else", "catch", "finally" };
+
+	private String source;
+	private List<Token> tokens;
+
+	public Parser(Lexer lexer) {
+		this.source = lexer.getSource();
+		this.tokens = lexer.tokenize();
+	}
+
+	public SyntaxNode parse() {
+		SyntaxNode root = new SyntaxNode(null);
+		root.setBlock();
+
+		Deque<SyntaxNode> stack = new ArrayDeque<>();
+		stack.push(root);
+
+		SyntaxNode closed = null;
+		int i = 0;
+		while (i < tokens.size()) {
+			// statements end at the end of their source line
+			int number = tokens.get(i).getLine();
+			int start = i;
+			int depth = 0;
+			for (; i < tokens.size() && tokens.get(i).getLine() == number; i++) {
+				Token token = tokens.get(i);
+				if (token.getType() != TokenType.SEPARATOR) {
+					continue;
+				}
+
+				// a closing brace ends a block unless it matches an opening brace on the same line, as in use x.{A, B}
+				if (token.is("{")) {
+					depth++;
+				} else if (token.is("}") && depth-- == 0) {
+					if (start < i) {
+						add(stack, closed, start, i);
+					}
+					if (stack.size() == 1) {
+						throw new CompileError("Unexpected token: } on line " + number);
+					}
+					closed = stack.pop();
+					start = i + 1;
+					depth = 0;
+				}
+			}
+
+			int end = i;
+			if (end > start && tokens.get(end - 1).is(";")) {
+				end--;
+			}
+			if (start < end) {
+				add(stack, closed, start, end);
+				closed = null;
+			}
+		}
+
+		if (stack.size() > 1) {
+			throw new CompileError("Expecting '}' to close block opened on line " + stack.peek().getNumber());
+		}
+
+		return root;
+	}
+
+	private void add(Deque<SyntaxNode> stack, SyntaxNode closed, int start, int end) {
+		Token first = tokens.get(start);
+		Token last = tokens.get(end - 1);
+		Line line = new Line(first.getLine(), source.substring(first.getStart(), last.getEnd()));
+
+		SyntaxNode node = new SyntaxNode(line, Collections.unmodifiableList(tokens.subList(start, end)));
+		if (closed != null && isChainPart(first)) {
+			closed.addChain(node);
+		} else {
+			stack.peek().addChild(node);
+		}
+
+		if (last.is("{")) {
+			node.setBlock();
+			stack.push(node);
+		}
+	}
+
+	private static boolean isChainPart(Token first) {
+		for (String keyword : CHAIN_KEYWORDS) {
+			if (first.is(keyword)) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
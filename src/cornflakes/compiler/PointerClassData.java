@@ -1,22 +1,63 @@
 package cornflakes.compiler;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
 
 public abstract class PointerClassData extends ClassData {
 	private DefinitiveType type;
 
 	public static PointerClassData from(String type) {
-		if (type.equals("i8*") || type.equals("cornflakes/lang/I8Pointer")) {
+		PointerClassData data = create(type);
+		if (type.startsWith("cornflakes/lang/")) {
+			data.setClassName(type);
+		} else if (type.endsWith("^")) {
+			data.setClassName(getAtomicClassName(type.substring(0, type.length() - 1).trim()));
+		}
+		data.addRuntimeMethods();
+		return data;
+	}
+
+	private static String getAtomicClassName(String valueType) {
+		switch (valueType) {
+			case "i32":
+				return "cornflakes/lang/AtomicI32Pointer";
+			case "i64":
+				return "cornflakes/lang/AtomicI64Pointer";
+			case "i8":
+			case "i16":
+			case "f32":
+			case "f64":
+			case "bool":
+			case "char":
+				throw new CompileError("Atomic pointers to " + valueType + " are not supported");
+			default:
+				return "cornflakes/lang/AtomicObjectPointer";
+		}
+	}
+
+	private static PointerClassData create(String type) {
+		if (type.equals("i8*") || type.equals("cornflakes/lang/I8Pointer")
+				|| type.equals("cornflakes/lang/DirectI8Pointer")) {
 			return new I8PointerClassData(type);
-		} else if (type.equals("i16*") || type.equals("cornflakes/lang/I16Pointer")) {
+		} else if (type.equals("i16*") || type.equals("cornflakes/lang/I16Pointer")
+				|| type.equals("cornflakes/lang/DirectI16Pointer")) {
 			return new I16PointerClassData(type);
-		} else if (type.equals("i32*") || type.equals("cornflakes/lang/I32Pointer")) {
+		} else if (type.equals("i32*") || type.equals("i32^") || type.equals("cornflakes/lang/I32Pointer")
+				|| type.equals("cornflakes/lang/DirectI32Pointer") || type.equals("cornflakes/lang/AtomicI32Pointer")) {
 			return new I32PointerClassData(type);
-		} else if (type.equals("i64*") || type.equals("cornflakes/lang/I64Pointer")) {
+		} else if (type.equals("i64*") || type.equals("i64^") || type.equals("cornflakes/lang/I64Pointer")
+				|| type.equals("cornflakes/lang/DirectI64Pointer") || type.equals("cornflakes/lang/AtomicI64Pointer")
+				|| type.equals("cornflakes/lang/StripedI64Pointer")) {
 			return new I64PointerClassData(type);
-		} else if (type.equals("f32*") || type.equals("cornflakes/lang/F32Pointer")) {
+		} else if (type.equals("f32*") || type.equals("cornflakes/lang/F32Pointer")
+				|| type.equals("cornflakes/lang/DirectF32Pointer")) {
 			return new F32PointerClassData(type);
-		} else if (type.equals("f64*") || type.equals("cornflakes/lang/F64Pointer")) {
+		} else if (type.equals("f64*") || type.equals("cornflakes/lang/F64Pointer")
+				|| type.equals("cornflakes/lang/DirectF64Pointer")) {
 			return new F64PointerClassData(type);
 		} else if (type.equals("bool*") || type.equals("cornflakes/lang/BoolPointer")) {
 			return new BoolPointerClassData(type);
@@ -39,14 +80,52 @@ public abstract class PointerClassData extends ClassData {
 		this.type = DefinitiveType.object(type);
 	}
 
+	private void addRuntimeMethods() {
+		ClassIndex index = CompilationContext.get().getClassIndex();
+		ClassNode node = index.getClassNode(getClassName());
+		if (node == null) {
+			throw new CompileError("Could not read class " + getClassName().replace('/', '.'));
+		}
+
+		Set<String> added = new HashSet<>();
+		for (ClassNode type = node; type != null && !type.name.equals("java/lang/Object");) {
+			for (MethodNode method : type.methods) {
+				boolean inherited = type != node;
+				if ((method.access & Opcodes.ACC_PUBLIC) == 0 || (method.access & Opcodes.ACC_BRIDGE) != 0
+						|| method.name.equals("<clinit>") || inherited && method.name.equals("<init>")
+						|| inherited && (method.access & Opcodes.ACC_STATIC) != 0
+						|| !added.add(method.name + method.desc)) {
+					continue;
+				}
+
+				if (method.name.equals("<init>")) {
+					addConstructor(ConstructorData.fromMethodNode(this, method));
+				} else {
+					addMethod(MethodData.fromMethodNode(this, method));
+				}
+			}
+			type = type.superName == null ? null : index.getClassNode(type.superName);
+		}
+
+		setGetIndexedClass(hasMethod("_get_index_"));
+		setSetIndexedClass(hasMethod("_set_index_"));
+	}
+
 	public DefinitiveType getType() {
 		return this.type;
 	}
 
+	public String getValueSignature() {
+		return getValueType().getAbsoluteTypeSignature();
+	}
+
 	@Override
 	public boolean isAssignableFrom(ClassData test) {
 		if (test instanceof PointerClassData) {
 			PointerClassData ptr = (PointerClassData) test;
+			if (!CompilationContext.get().getClassIndex().isSubtype(ptr.getClassName(), getClassName())) {
+				return false;
+			}
 
 			if (this.getClass() == test.getClass()) {
 				return true;
@@ -0,0 +1,127 @@
+package cornflakes.compiler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public class Scheduler {
+	private final CompilationContext context;
+	private final ForkJoinPool pool;
+
+	public Scheduler(CompilationContext context) {
+		this(context, context.getParallelism());
+	}
+
+	public Scheduler(CompilationContext context, int parallelism) {
+		this.context = context;
+		this.pool = new ForkJoinPool(parallelism);
+	}
+
+	@SuppressWarnings("unchecked")
+	public <T, R> List<R> map(List<T> items, Function<T, R> task) {
+		List<ForkJoinTask<Object>> tasks = new ArrayList<>();
+		for (T item : items) {
+			tasks.add(pool.submit(() -> {
+				CompilationContext previous = context.enter();
+				try {
+					return task.apply(item);
+				} catch (RuntimeException | Error e) {
+					return new Failure(e);
+				} finally {
+					context.exit(previous);
+				}
+			}));
+		}
+
+		List<R> results = new ArrayList<>();
+		Failure failure = null;
+		for (ForkJoinTask<Object> submitted : tasks) {
+			Object result = submitted.join();
+			if (result instanceof Failure) {
+				if (failure == null) {
+					failure = (Failure) result;
+				}
+			} else {
+				results.add((R) result);
+			}
+		}
+
+		if (failure != null) {
+			failure.rethrow();
+		}
+		return results;
+	}
+
+	public <T> void forEach(List<T> items, Consumer<T> task) {
+		map(items, item -> {
+			task.accept(item);
+			return null;
+		});
+	}
+
+	public void forEachByHierarchy(List<ClassData> classes, Consumer<ClassData> task) {
+		Map<String, ClassData> byName = new HashMap<>();
+		for (ClassData data : classes) {
+			byName.put(data.getClassName(), data);
+		}
+
+		Map<ClassData, Integer> depths = new HashMap<>();
+		TreeMap<Integer, List<ClassData>> layers = new TreeMap<>();
+		for (ClassData data : classes) {
+			layers.computeIfAbsent(getDepth(data, byName, depths), x -> new ArrayList<>()).add(data);
+		}
+
+		for (List<ClassData> layer : layers.values()) {
+			forEach(layer, task);
+		}
+	}
+
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	private static int getDepth(ClassData data, Map<String, ClassData> byName, Map<ClassData, Integer> depths) {
+		Integer depth = depths.get(data);
+		if (depth != null) {
+			return depth;
+		}
+
+		depths.put(data, 0);
+		int max = 0;
+		List<String> supertypes = new ArrayList<>();
+		supertypes.add(data.getParentName());
+		for (String itf : data.getInterfaces()) {
+			supertypes.add(itf);
+		}
+		for (String supertype : supertypes) {
+			ClassData parent = byName.get(supertype);
+			if (parent != null && parent != data) {
+				max = Math.max(max, getDepth(parent, byName, depths) + 1);
+			}
+		}
+
+		depths.put(data, max);
+		return max;
+	}
+
+	private static class Failure {
+		private final Throwable error;
+
+		Failure(Throwable error) {
+			this.error = error;
+		}
+
+		void rethrow() {
+			if (error instanceof Error) {
+				throw (Error) error;
+			}
+			throw (RuntimeException) error;
+		}
+	}
+}
@@ -10,7 +10,8 @@ import cornflakes.compiler.CompileUtils.VariableDeclaration;
 
 public class StatementCompiler extends Compiler {
 	@Override
-	public void compile(ClassData data, ClassWriter cw, Line line, Line[] lines) {
+	public void compile(ClassData data, ClassWriter cw, SyntaxNode node) {
+		Line line = Strings.normalizeSpaces(node.getLine());
 		String body = line.getLine();
 
 		if (!body.contains(" ")) {
@@ -162,8 +163,20 @@ public class StatementCompiler extends Compiler {
 
 			FieldData fdata = new FieldData(data, variableName, variableType, accessor);
 			if ((accessor & ACC_STATIC) == ACC_STATIC) {
-				if (!valueType.isNull() && (valueType.equals("I") || valueType.equals("J") || valueType.equals("F")
-						|| valueType.equals("D") || valueType.equals("string"))) {
+				Object constant = null;
+				String raw = decl.getRawValue();
+				if (raw != null) {
+					String signature = variableType.getTypeSignature();
+					constant = ConstantFolder.toConstant(Types.getType(raw, signature) != null ? value
+							: ConstantFolder.fold(null, data, null, raw), signature);
+				}
+				if ((accessor & ACC_FINAL) == ACC_FINAL) {
+					fdata.setConstantValue(constant);
+				}
+
+				if (constant instanceof Integer || constant instanceof Long || constant instanceof Float
+						|| constant instanceof Double || constant instanceof String) {
+					value = constant;
 					useValue = true;
 				} else {
 					fdata.setProposedData(value);
@@ -177,7 +190,7 @@ public class StatementCompiler extends Compiler {
 			data.addField(fdata);
 		} else if (Strings.contains(body, " func ")) {
 			FunctionCompiler comp = new FunctionCompiler(FunctionType.FUNCTION, true, true);
-			comp.compile(data, cw, line, lines);
+			comp.compile(data, cw, new SyntaxNode(line, node.getTokens()));
 		} else {
 			throw new CompileError("Unexpected statement: " + cmd);
 		}
@@ -6,7 +6,7 @@ import org.objectweb.asm.MethodVisitor;
 
 public class StaticInitializerCompiler extends Compiler {
 	@Override
-	public void compile(ClassData data, ClassWriter cw, Line body, Line[] lines) {
+	public void compile(ClassData data, ClassWriter cw, SyntaxNode node) {
 		boolean create = false;
 
 		for (FieldData datum : data.getFields()) {
@@ -20,10 +20,11 @@ public class StaticInitializerCompiler extends Compiler {
 			return;
 		}
 
-		MethodVisitor m = cw.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
-		m.visitCode();
-
 		MethodData method = new MethodData(data, "<clinit>", DefinitiveType.primitive("V"), false, ACC_STATIC);
+		method.setOutput(Compiler.reserveOutput(data));
+
+		MethodVisitor m = Optimizer.visitMethod(method.getOutput(), ACC_STATIC, "<clinit>", "()V", null, null);
+		m.visitCode();
 
 		Label start = new Label();
 		Label post = new Label();
@@ -42,7 +43,7 @@ public class StaticInitializerCompiler extends Compiler {
 						m.visitLdcInsn(datum.getProposedData());
 						method.ics();
 					} else {
-						m.visitVarInsn(push, Integer.parseInt(datum.getProposedData().toString()));
+						m.visitIntInsn(push, Integer.parseInt(datum.getProposedData().toString()));
 						method.ics();
 					}
 
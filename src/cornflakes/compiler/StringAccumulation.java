@@ -0,0 +1,111 @@
+package cornflakes.compiler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+public class StringAccumulation {
+	private final List<String> lines = new ArrayList<>();
+	private final Set<SyntaxNode> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+	private boolean eligible = true;
+
+	public StringAccumulation(SyntaxNode loop) {
+		collect(new SyntaxNode[] { loop });
+	}
+
+	private void collect(SyntaxNode[] nodes) {
+		for (SyntaxNode node : nodes) {
+			for (SyntaxNode link : node.getChain()) {
+				if (visited.add(link)) {
+					if (link.getLine() != null) {
+						// builders are not saved at yields, and handlers or lambdas could read a stale value
+						List<Token> tokens = link.getTokens();
+						if (!tokens.isEmpty() && (tokens.get(0).is("yield") || tokens.get(0).is("try"))
+								|| link.hasToken("=>")) {
+							eligible = false;
+						}
+						lines.add(Strings.normalizeSpaces(link.getLine().getLine().trim()));
+					}
+					collect(link.getChildren());
+				}
+			}
+		}
+	}
+
+	public boolean isAccumulator(String name) {
+		if (!eligible) {
+			return false;
+		}
+
+		boolean appended = false;
+		for (String line : lines) {
+			if (!references(line, name)) {
+				continue;
+			}
+			if (getAppended(line, name) == null) {
+				return false;
+			}
+			appended = true;
+		}
+		return appended;
+	}
+
+	public static String getAppended(String line, String name) {
+		String value;
+		if (line.startsWith(name + " += ")) {
+			value = line.substring(name.length() + 4).trim();
+		} else if (line.startsWith(name + " = " + name + " + ")) {
+			value = line.substring(name.length() * 2 + 6).trim();
+		} else {
+			return null;
+		}
+
+		// anything which would stop the value from being parsed as name + (value) is left alone
+		if (value.isEmpty() || references(value, name) || Strings.contains(value, "&") || Strings.contains(value, "|")
+				|| Strings.contains(value, "=") || Strings.contains(value, "<") || Strings.contains(value, ">")
+				|| references(value, "is") || hasMember(value)) {
+			return null;
+		}
+		return value;
+	}
+
+	private static boolean references(String line, String name) {
+		char quote = 0;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quote != 0) {
+				if (c == '\\') {
+					i++;
+				} else if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '"' || c == '\'') {
+				quote = c;
+			} else if (line.startsWith(name, i) && EscapeAnalysis.isReference(line, i, name.length())) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean hasMember(String value) {
+		int opens = 0;
+		boolean quote = false;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '(' || c == '[') {
+				opens++;
+			} else if (c == ')' || c == ']') {
+				opens--;
+			} else if (c == '"') {
+				quote = !quote;
+			} else if (c == '.' && opens == 0 && !quote
+					&& (i + 1 == value.length() || !Character.isDigit(value.charAt(i + 1)))) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
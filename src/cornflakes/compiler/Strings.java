@@ -1,15 +1,9 @@
 package cornflakes.compiler;
 
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.regex.Pattern;
 
 public class Strings {
-	private static final String[] KEYWORDS = { "package", "use", "public", "private", "protected", "func", "final",
-			"const", "sealed", "abstract", "if", "do", "while", "else", "for", "var", "sync", "serial", "throw",
-			"foreach", "in", "is", "extends", "implements", "array", "as", "try", "catch", "finally" };
-	private static final String LETTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvywxyz";
 	public static final char[] NUMBERS = "1234567890".toCharArray();
 	public static final char[] PERIOD = new char[] { '.' };
 	public static final char[] SPACE = new char[] { ' ' };
@@ -17,30 +11,81 @@ public class Strings {
 	public static final char[] VARIABLE_NAME = combineExceptions(NUMBERS, new char[] { '_' });
 	public static final char[] SLASH = new char[] { '/' };
 	public static final char[] TYPE = combineExceptions(NUMBERS, PERIOD, SPACE,
-			new char[] { '(', ')', ',', '/', '[', ']', '*' });
+			new char[] { '(', ')', ',', '/', '[', ']', '*', '^' });
 
 	public static boolean contains(Line x, String value) {
 		return contains(x.getLine(), value);
 	}
 
 	public static boolean contains(String x, String value) {
-		return Pattern.compile(Pattern.quote(value) + "(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)").matcher(x).find();
+		return indexOf(x, value, 0) != -1;
+	}
+
+	public static int indexOf(String x, String value, int from) {
+		return indexOf(x, value, 0, from);
+	}
+
+	/**
+	 * Finds value outside of string and char literals, scanning from start,
+	 * which must not be inside a literal, and matching at from or later.
+	 */
+	private static int indexOf(String x, String value, int start, int from) {
+		if (value.isEmpty()) {
+			return from;
+		}
+
+		char quote = 0;
+		for (int i = start; i < x.length(); i++) {
+			char c = x.charAt(i);
+			if (quote != 0) {
+				if (c == '\\') {
+					i++;
+				} else if (c == quote) {
+					quote = 0;
+				}
+			} else if (c == '"' || c == '\'') {
+				quote = c;
+			} else if (i >= from && x.startsWith(value, i)) {
+				return i;
+			}
+		}
+		return -1;
 	}
 
 	public static String[] split(String x, String value) {
-		return x.split(Pattern.quote(value) + "(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
+		return split(x, value, 0);
 	}
 
 	public static Line[] split(Line x, String value) {
-		return x.split(Pattern.quote(value) + "(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
+		return x.toLineFragment(split(x.getLine(), value, 0));
 	}
 
 	public static Line[] split(Line x, String value, int max) {
-		return x.split(Pattern.quote(value) + "(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", max);
+		return x.toLineFragment(split(x.getLine(), value, max));
 	}
 
 	public static String[] split(String x, String value, int max) {
-		return x.split(Pattern.quote(value) + "(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", max);
+		List<String> list = new ArrayList<>();
+		int start = 0;
+		int index;
+		while ((max <= 0 || list.size() < max - 1) && (index = indexOf(x, value, start, start)) != -1) {
+			list.add(x.substring(start, index));
+			start = index + value.length();
+		}
+
+		if (list.isEmpty()) {
+			return new String[] { x };
+		}
+
+		list.add(x.substring(start));
+		if (max == 0) {
+			int size = list.size();
+			while (size > 0 && list.get(size - 1).isEmpty()) {
+				size--;
+			}
+			return list.subList(0, size).toArray(new String[size]);
+		}
+		return list.toArray(new String[list.size()]);
 	}
 
 	public static String[] trim(String[] x) {
@@ -97,25 +142,20 @@ public class Strings {
 	}
 
 	public static boolean isLetterString(Response<Character> res, String test, boolean handle, char... exceptions) {
-		if (Arrays.asList(KEYWORDS).contains(test)) {
+		if (Lexer.isKeyword(test)) {
 			if (handle) {
 				throw new CompileError("Unexpected keyword: " + test);
 			}
 			return false;
 		}
 
-		String str = LETTERS;
-
-		for (char ch : exceptions) {
-			str += Character.toString(ch);
-		}
-
 		for (int i = 0; i < test.length(); i++) {
-			if (!str.contains(Character.toString(test.charAt(i)))) {
+			char c = test.charAt(i);
+			if (!Lexer.isLetter(c) && !isException(c, exceptions)) {
 				if (handle) {
-					throw new CompileError("Unexpected token: " + test.charAt(i));
+					throw new CompileError("Unexpected token: " + c);
 				}
-				res.setResponse(test.charAt(i));
+				res.setResponse(c);
 				return false;
 			}
 		}
@@ -123,6 +163,15 @@ public class Strings {
 		return true;
 	}
 
+	private static boolean isException(char c, char[] exceptions) {
+		for (char ch : exceptions) {
+			if (ch == c) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	public static boolean handleLetterString(String test, char... exceptions) {
 		return isLetterString(null, test, true, exceptions);
 	}
@@ -132,7 +181,32 @@ public class Strings {
 	}
 
 	public static String normalizeSpaces(String str) {
-		return str.replaceAll("\\s+(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)", " ").trim();
+		int quotes = 0;
+		for (int i = 0; i < str.length(); i++) {
+			if (str.charAt(i) == '"') {
+				quotes++;
+			}
+		}
+
+		StringBuilder builder = new StringBuilder(str.length());
+		boolean space = false;
+		for (int i = 0; i < str.length(); i++) {
+			char c = str.charAt(i);
+			if ((quotes & 1) == 0 && Lexer.isWhitespace(c)) {
+				space = true;
+				continue;
+			}
+			if (space) {
+				builder.append(' ');
+				space = false;
+			}
+			if (c == '"') {
+				quotes--;
+			}
+			builder.append(c);
+		}
+
+		return builder.toString().trim();
 	}
 
 	public static String transformClassName(String cls) {
@@ -163,67 +237,6 @@ public class Strings {
 		return arr2;
 	}
 
-	public static Line accumulate(Line[] arr) {
-		if (arr.length == 0) {
-			return new Line(-1, "");
-		}
-		String x = "";
-		for (Line y : arr) {
-			x += y.getLine() + System.lineSeparator();
-		}
-		return new Line(arr[0].getNumber(), x.trim());
-	}
-
-	public static Line[] accumulate(Line line) {
-		return accumulate(line, line.getNumber());
-	}
-
-	public static Line[] accumulate(Line line, int num) {
-		List<Line> list = new ArrayList<>(Arrays.asList(line.split(System.lineSeparator())));
-		for (int i = 0; i < list.size(); i++) {
-			list.get(i).setNumber(num + i);
-		}
-		return list.toArray(new Line[list.size()]);
-	}
-
-	public static String[] accumulate(String line) {
-		List<String> list = new ArrayList<>(Arrays.asList(line.split(System.lineSeparator())));
-		return list.toArray(new String[list.size()]);
-	}
-
-	public static String accumulate(String[] arr) {
-		String x = "";
-		for (String y : arr) {
-			x += y + System.lineSeparator();
-		}
-		return x.trim();
-	}
-
-	public static String getLine(String[] lines, int cursor) {
-		int chars = 0;
-		for (String line : lines) {
-			chars += line.length();
-			if (cursor < chars) {
-				return line;
-			}
-		}
-		return null;
-	}
-
-	public static int findClosing(char[] text, char open, char close, int openPos) {
-		int closePos = openPos;
-		int counter = 1;
-		while (counter > 0) {
-			char c = text[++closePos];
-			if (c == open) {
-				counter++;
-			} else if (c == close) {
-				counter--;
-			}
-		}
-		return closePos;
-	}
-
 	public static int countOccurrences(String str, String findStr) {
 		int lastIndex = 0;
 		int count = 0;
@@ -0,0 +1,98 @@
+package cornflakes.compiler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class SyntaxNode {
+	private static final SyntaxNode[] EMPTY = new SyntaxNode[0];
+
+	private Line line;
+	private List<Token> tokens;
+	private List<SyntaxNode> children;
+	private List<SyntaxNode> chain;
+	private SyntaxNode owner;
+
+	public SyntaxNode(Line line) {
+		this(line, Collections.emptyList());
+	}
+
+	public SyntaxNode(Line line, List<Token> tokens) {
+		this.line = line;
+		this.tokens = tokens;
+	}
+
+	public Line getLine() {
+		return line;
+	}
+
+	/**
+	 * @return the tokens of this node's own line, without those of its
+	 *         children
+	 */
+	public List<Token> getTokens() {
+		return tokens;
+	}
+
+	public boolean hasToken(String text) {
+		for (Token token : tokens) {
+			if (token.is(text)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public int getNumber() {
+		return line == null ? -1 : line.getNumber();
+	}
+
+	public boolean isBlock() {
+		return children != null;
+	}
+
+	public void setBlock() {
+		if (children == null) {
+			children = new ArrayList<>();
+		}
+	}
+
+	public void addChild(SyntaxNode node) {
+		children.add(node);
+	}
+
+	public SyntaxNode[] getChildren() {
+		if (children == null) {
+			return EMPTY;
+		}
+		return children.toArray(new SyntaxNode[children.size()]);
+	}
+
+	public void addChain(SyntaxNode node) {
+		SyntaxNode first = owner == null ? this : owner;
+		if (first.chain == null) {
+			first.chain = new ArrayList<>();
+			first.chain.add(first);
+		}
+		first.chain.add(node);
+		node.owner = first;
+	}
+
+	public List<SyntaxNode> getChain() {
+		if (chain == null) {
+			List<SyntaxNode> list = new ArrayList<>(1);
+			list.add(this);
+			return list;
+		}
+		return chain;
+	}
+
+	public boolean isChained() {
+		return owner != null;
+	}
+
+	@Override
+	public String toString() {
+		return line == null ? "" : line.toString();
+	}
+}
@@ -0,0 +1,46 @@
+package cornflakes.compiler;
+
+public class Token {
+	private TokenType type;
+	private String text;
+	private int line;
+	private int start;
+	private int end;
+
+	public Token(TokenType type, String text, int line, int start, int end) {
+		this.type = type;
+		this.text = text;
+		this.line = line;
+		this.start = start;
+		this.end = end;
+	}
+
+	public TokenType getType() {
+		return type;
+	}
+
+	public String getText() {
+		return text;
+	}
+
+	public int getLine() {
+		return line;
+	}
+
+	public int getStart() {
+		return start;
+	}
+
+	public int getEnd() {
+		return end;
+	}
+
+	public boolean is(String text) {
+		return this.text.equals(text);
+	}
+
+	@Override
+	public String toString() {
+		return text;
+	}
+}
@@ -0,0 +1,11 @@
+package cornflakes.compiler;
+
+public enum TokenType {
+	IDENTIFIER, KEYWORD, INTEGER_LITERAL, FLOAT_LITERAL, STRING_LITERAL, CHAR_LITERAL, BOOLEAN_LITERAL, OPERATOR,
+	SEPARATOR;
+
+	public boolean isLiteral() {
+		return this == INTEGER_LITERAL || this == FLOAT_LITERAL || this == STRING_LITERAL || this == CHAR_LITERAL
+				|| this == BOOLEAN_LITERAL;
+	}
+}
@@ -0,0 +1,69 @@
+package cornflakes.compiler;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.objectweb.asm.Opcodes;
+
+import cornflakes.lang.TupleArray;
+
+public class TupleArrayClassData extends ClassData {
+	private TupleClassData tuple;
+	private DefinitiveType row;
+
+	public TupleArrayClassData(String array) {
+		super(false);
+
+		setClassName("cornflakes/lang/TupleArray");
+		setPackageName("cornflakes/lang");
+		setModifiers(Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL);
+		setParentName(true, "java/lang/Object");
+		setHasConstructor(true);
+		setInterfaces(new String[] { "java/io/Serializable", "java/lang/Iterable" });
+		setGetIndexedClass(true);
+		setSetIndexedClass(true);
+
+		String definition = array.substring(0, array.length() - 2).trim();
+		this.tuple = new TupleClassData(definition);
+
+		this.row = DefinitiveType.object(Types.TUPLE_ROW + definition);
+		MethodData get = new MethodData(this, "_get_index_", row, false, Opcodes.ACC_PUBLIC);
+		get.addParameter(new ParameterData(get, "index", DefinitiveType.primitive("I"), 0));
+		addMethod(get);
+
+		MethodData set = new MethodData(this, "_set_index_", DefinitiveType.primitive("V"), false,
+				Opcodes.ACC_PUBLIC);
+		set.addParameter(new ParameterData(set, "index", DefinitiveType.primitive("I"), 0));
+		set.addParameter(new ParameterData(set, "value", row, 0));
+		addMethod(set);
+
+		for (Method method : TupleArray.class.getDeclaredMethods()) {
+			if (Modifier.isPublic(method.getModifiers()) && !method.getName().startsWith("_")) {
+				addMethod(MethodData.fromJavaMethod(this, method));
+			}
+		}
+	}
+
+	public TupleClassData getTuple() {
+		return tuple;
+	}
+
+	public DefinitiveType getRowType() {
+		return row;
+	}
+
+	public String getShape() {
+		return tuple.getShape();
+	}
+
+	@Override
+	public boolean isAssignableFrom(ClassData test) {
+		return test instanceof TupleArrayClassData && tuple.isAssignableFrom(((TupleArrayClassData) test).tuple)
+				&& ((TupleArrayClassData) test).tuple.isAssignableFrom(tuple);
+	}
+
+	@Override
+	public boolean is(String test) {
+		return test.equals("java.lang.Iterable") || test.equals("java.io.Serializable");
+	}
+}
@@ -6,10 +6,17 @@ import cornflakes.lang.Tuple;
 
 public class TupleClassData extends ClassData {
 	private DefinitiveType[] types;
+	private String shape;
+	private boolean row;
 
 	public TupleClassData(String tuple) {
 		super(false);
 
+		if (Types.isTupleRowDefinition(tuple)) {
+			tuple = tuple.substring(Types.TUPLE_ROW.length());
+			row = true;
+		}
+
 		setClassName("cornflakes/lang/Tuple");
 		setPackageName("cornflakes/lang");
 		setModifiers(Opcodes.ACC_PUBLIC);
@@ -38,6 +45,20 @@ public class TupleClassData extends ClassData {
 			DefinitiveType resolved = ClassData.getCurrentClass().resolveClass(Types.unpadSignature(split[i].trim()));
 			types[i] = resolved;
 		}
+
+		updateShape();
+	}
+
+	public String getShape() {
+		return shape;
+	}
+
+	public String getShapeName() {
+		return TupleCompiler.getClassName(shape);
+	}
+
+	public boolean isRow() {
+		return row;
 	}
 
 	public DefinitiveType getType(int index) {
@@ -50,13 +71,22 @@ public class TupleClassData extends ClassData {
 
 	public void setTypes(DefinitiveType[] types) {
 		this.types = types;
+		updateShape();
+	}
+
+	private void updateShape() {
+		shape = "";
+		for (DefinitiveType type : types) {
+			shape += TupleCompiler.getShape(type);
+		}
+		CompilationContext.get().useTupleShape(shape);
 	}
 
 	@Override
 	public boolean isAssignableFrom(ClassData test) {
 		if (test instanceof TupleClassData) {
 			TupleClassData tuple = (TupleClassData) test;
-			if (tuple.types.length != this.types.length) {
+			if (!tuple.shape.equals(this.shape) || tuple.row && !this.row) {
 				return false;
 			}
 			for (int i = 0; i < tuple.types.length; i++) {
@@ -0,0 +1,425 @@
+package cornflakes.compiler;
+
+import static org.objectweb.asm.Opcodes.*;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+
+public class TupleCompiler {
+	private static final String TUPLE = "cornflakes/lang/Tuple";
+	private static final String PRIMITIVES = "IJSBFDZC";
+
+	private final String shape;
+	private final String className;
+	private final int target;
+
+	public TupleCompiler(String shape, int target) {
+		this.shape = shape;
+		this.target = target;
+		this.className = getClassName(shape);
+	}
+
+	public static String getClassName(String shape) {
+		return "cornflakes/lang/tuple/Tuple" + shape;
+	}
+
+	public static String getShape(DefinitiveType type) {
+		String sig = type.getAbsoluteTypeSignature();
+		return type.isPrimitive() ? sig : "L";
+	}
+
+	public static String getFieldName(int index) {
+		return "_" + index;
+	}
+
+	public static String getFieldSignature(char shape) {
+		return shape == 'L' ? "Ljava/lang/Object;" : String.valueOf(shape);
+	}
+
+	public static String getGetterName(char shape) {
+		switch (shape) {
+			case 'I':
+				return "i32Item";
+			case 'J':
+				return "i64Item";
+			case 'S':
+				return "i16Item";
+			case 'B':
+				return "i8Item";
+			case 'F':
+				return "f32Item";
+			case 'D':
+				return "f64Item";
+			case 'Z':
+				return "boolItem";
+			case 'C':
+				return "charItem";
+			default:
+				return "item";
+		}
+	}
+
+	public static String getConstructorSignature(String shape) {
+		StringBuilder sig = new StringBuilder("(");
+		for (char c : shape.toCharArray()) {
+			sig.append(getFieldSignature(c));
+		}
+		return sig.append(")V").toString();
+	}
+
+	public byte[] compile() {
+		ClassWriter cw = new CompilerClassWriter();
+		cw.visit(target, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, className, null, TUPLE, null);
+
+		for (int i = 0; i < shape.length(); i++) {
+			cw.visitField(ACC_PUBLIC, getFieldName(i), getFieldSignature(shape.charAt(i)), null, null).visitEnd();
+		}
+
+		compileConstructor(cw);
+		compileLength(cw);
+		compileItem(cw);
+		compileObjectSetter(cw);
+		for (char c : getKinds().toCharArray()) {
+			if (c != 'L') {
+				compileGetter(cw, c);
+			}
+		}
+		for (char c : PRIMITIVES.toCharArray()) {
+			compileSetter(cw, c);
+		}
+		compileEquals(cw);
+		compileHashCode(cw);
+		compileToString(cw);
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	private void compileConstructor(ClassWriter cw) {
+		MethodVisitor m = cw.visitMethod(ACC_PUBLIC, "<init>", getConstructorSignature(shape), null, null);
+		m.visitCode();
+		m.visitVarInsn(ALOAD, 0);
+		m.visitMethodInsn(INVOKESPECIAL, TUPLE, "<init>", "()V", false);
+
+		int slot = 1;
+		for (int i = 0; i < shape.length(); i++) {
+			String sig = getFieldSignature(shape.charAt(i));
+			m.visitVarInsn(ALOAD, 0);
+			m.visitVarInsn(Types.getOpcode(Types.LOAD, sig), slot);
+			m.visitFieldInsn(PUTFIELD, className, getFieldName(i), sig);
+			slot += getSize(shape.charAt(i));
+		}
+
+		m.visitInsn(RETURN);
+		m.visitMaxs(3, slot);
+		m.visitEnd();
+	}
+
+	private void compileLength(ClassWriter cw) {
+		MethodVisitor m = cw.visitMethod(ACC_PUBLIC, "getLength", "()I", null, null);
+		m.visitCode();
+		m.visitLdcInsn(shape.length());
+		m.visitInsn(IRETURN);
+		m.visitMaxs(1, 1);
+		m.visitEnd();
+	}
+
+	private void compileItem(ClassWriter cw) {
+		MethodVisitor m = cw.visitMethod(ACC_PUBLIC, "item", "(I)Ljava/lang/Object;", null, null);
+		m.visitCode();
+
+		Label outOfRange = new Label();
+		Label[] cases = new Label[shape.length()];
+		for (int i = 0; i < cases.length; i++) {
+			cases[i] = new Label();
+		}
+
+		m.visitVarInsn(ILOAD, 1);
+		m.visitTableSwitchInsn(0, cases.length - 1, outOfRange, cases);
+		for (int i = 0; i < cases.length; i++) {
+			m.visitLabel(cases[i]);
+			loadField(m, i);
+			box(m, shape.charAt(i));
+			m.visitInsn(ARETURN);
+		}
+
+		m.visitLabel(outOfRange);
+		throwOutOfRange(m);
+		m.visitMaxs(3, 2);
+		m.visitEnd();
+	}
+
+	private void compileObjectSetter(ClassWriter cw) {
+		MethodVisitor m = cw.visitMethod(ACC_PUBLIC, "item", "(ILjava/lang/Object;)V", null, null);
+		m.visitCode();
+
+		Label outOfRange = new Label();
+		Label[] cases = new Label[shape.length()];
+		for (int i = 0; i < cases.length; i++) {
+			cases[i] = new Label();
+		}
+
+		m.visitVarInsn(ILOAD, 1);
+		m.visitTableSwitchInsn(0, cases.length - 1, outOfRange, cases);
+		for (int i = 0; i < cases.length; i++) {
+			char c = shape.charAt(i);
+			m.visitLabel(cases[i]);
+			m.visitVarInsn(ALOAD, 0);
+			m.visitVarInsn(ALOAD, 2);
+			unbox(m, c);
+			m.visitFieldInsn(PUTFIELD, className, getFieldName(i), getFieldSignature(c));
+			m.visitInsn(RETURN);
+		}
+
+		m.visitLabel(outOfRange);
+		throwOutOfRange(m);
+		m.visitMaxs(3, 3);
+		m.visitEnd();
+	}
+
+	private void compileGetter(ClassWriter cw, char kind) {
+		String sig = getFieldSignature(kind);
+		String name = getGetterName(kind);
+		MethodVisitor m = cw.visitMethod(ACC_PUBLIC, name, "(I)" + sig, null, null);
+		m.visitCode();
+
+		Label other = new Label();
+		int[] keys = getIndices(kind);
+		Label[] cases = new Label[keys.length];
+		for (int i = 0; i < cases.length; i++) {
+			cases[i] = new Label();
+		}
+
+		m.visitVarInsn(ILOAD, 1);
+		m.visitLookupSwitchInsn(other, keys, cases);
+		for (int i = 0; i < cases.length; i++) {
+			m.visitLabel(cases[i]);
+			loadField(m, keys[i]);
+			m.visitInsn(Types.getOpcode(Types.RETURN, sig));
+		}
+
+		m.visitLabel(other);
+		m.visitVarInsn(ALOAD, 0);
+		m.visitVarInsn(ILOAD, 1);
+		m.visitMethodInsn(INVOKESPECIAL, TUPLE, name, "(I)" + sig, false);
+		m.visitInsn(Types.getOpcode(Types.RETURN, sig));
+		m.visitMaxs(2, 2);
+		m.visitEnd();
+	}
+
+	private void compileSetter(ClassWriter cw, char kind) {
+		String sig = getFieldSignature(kind);
+		MethodVisitor m = cw.visitMethod(ACC_PUBLIC, "item", "(I" + sig + ")V", null, null);
+		m.visitCode();
+
+		int[] keys = getIndices(kind);
+		if (keys.length > 0) {
+			Label other = new Label();
+			Label[] cases = new Label[keys.length];
+			for (int i = 0; i < cases.length; i++) {
+				cases[i] = new Label();
+			}
+
+			m.visitVarInsn(ILOAD, 1);
+			m.visitLookupSwitchInsn(other, keys, cases);
+			for (int i = 0; i < cases.length; i++) {
+				m.visitLabel(cases[i]);
+				m.visitVarInsn(ALOAD, 0);
+				m.visitVarInsn(Types.getOpcode(Types.LOAD, sig), 2);
+				m.visitFieldInsn(PUTFIELD, className, getFieldName(keys[i]), sig);
+				m.visitInsn(RETURN);
+			}
+			m.visitLabel(other);
+		}
+
+		// an element of another type takes the value boxed, and rejects it unless it is an object element
+		m.visitVarInsn(ALOAD, 0);
+		m.visitVarInsn(ILOAD, 1);
+		m.visitVarInsn(Types.getOpcode(Types.LOAD, sig), 2);
+		box(m, kind);
+		m.visitMethodInsn(INVOKEVIRTUAL, className, "item", "(ILjava/lang/Object;)V", false);
+		m.visitInsn(RETURN);
+		m.visitMaxs(2 + getSize(kind), 2 + getSize(kind));
+		m.visitEnd();
+	}
+
+	private void compileEquals(ClassWriter cw) {
+		MethodVisitor m = cw.visitMethod(ACC_PUBLIC, "equals", "(Ljava/lang/Object;)Z", null, null);
+		m.visitCode();
+
+		Label notSame = new Label();
+		Label notEqual = new Label();
+		Label sameShape = new Label();
+
+		m.visitVarInsn(ALOAD, 0);
+		m.visitVarInsn(ALOAD, 1);
+		m.visitJumpInsn(IF_ACMPNE, notSame);
+		m.visitInsn(ICONST_1);
+		m.visitInsn(IRETURN);
+
+		// tuples of another shape may still hold equal values, such as an
+		// object element holding a boxed primitive
+		m.visitLabel(notSame);
+		m.visitVarInsn(ALOAD, 1);
+		m.visitTypeInsn(INSTANCEOF, className);
+		m.visitJumpInsn(IFNE, sameShape);
+		m.visitVarInsn(ALOAD, 0);
+		m.visitVarInsn(ALOAD, 1);
+		m.visitMethodInsn(INVOKESPECIAL, TUPLE, "equals", "(Ljava/lang/Object;)Z", false);
+		m.visitInsn(IRETURN);
+
+		m.visitLabel(sameShape);
+		m.visitVarInsn(ALOAD, 1);
+		m.visitTypeInsn(CHECKCAST, className);
+		m.visitVarInsn(ASTORE, 2);
+		for (int i = 0; i < shape.length(); i++) {
+			char c = shape.charAt(i);
+			String sig = getFieldSignature(c);
+			loadField(m, i);
+			m.visitVarInsn(ALOAD, 2);
+			m.visitFieldInsn(GETFIELD, className, getFieldName(i), sig);
+			switch (c) {
+				case 'J':
+					m.visitInsn(LCMP);
+					m.visitJumpInsn(IFNE, notEqual);
+					break;
+				case 'F':
+				case 'D':
+					m.visitMethodInsn(INVOKESTATIC, Types.getWrapperType(sig), "compare", "(" + sig + sig + ")I",
+							false);
+					m.visitJumpInsn(IFNE, notEqual);
+					break;
+				case 'L':
+					m.visitMethodInsn(INVOKESTATIC, "java/util/Objects", "equals",
+							"(Ljava/lang/Object;Ljava/lang/Object;)Z", false);
+					m.visitJumpInsn(IFEQ, notEqual);
+					break;
+				default:
+					m.visitJumpInsn(IF_ICMPNE, notEqual);
+					break;
+			}
+		}
+		m.visitInsn(ICONST_1);
+		m.visitInsn(IRETURN);
+
+		m.visitLabel(notEqual);
+		m.visitInsn(ICONST_0);
+		m.visitInsn(IRETURN);
+		m.visitMaxs(4, 3);
+		m.visitEnd();
+	}
+
+	private void compileHashCode(ClassWriter cw) {
+		MethodVisitor m = cw.visitMethod(ACC_PUBLIC, "hashCode", "()I", null, null);
+		m.visitCode();
+		m.visitInsn(ICONST_1);
+		for (int i = 0; i < shape.length(); i++) {
+			char c = shape.charAt(i);
+			String sig = getFieldSignature(c);
+			m.visitIntInsn(BIPUSH, 31);
+			m.visitInsn(IMUL);
+			loadField(m, i);
+			m.visitMethodInsn(INVOKESTATIC, c == 'L' ? "java/util/Objects" : Types.getWrapperType(sig), "hashCode",
+					"(" + sig + ")I", false);
+			m.visitInsn(IADD);
+		}
+		m.visitInsn(IRETURN);
+		m.visitMaxs(4, 1);
+		m.visitEnd();
+	}
+
+	private void compileToString(ClassWriter cw) {
+		MethodVisitor m = cw.visitMethod(ACC_PUBLIC, "toString", "()Ljava/lang/String;", null, null);
+		m.visitCode();
+		m.visitTypeInsn(NEW, "java/lang/StringBuilder");
+		m.visitInsn(DUP);
+		m.visitLdcInsn("(");
+		m.visitMethodInsn(INVOKESPECIAL, "java/lang/StringBuilder", "<init>", "(Ljava/lang/String;)V", false);
+		for (int i = 0; i < shape.length(); i++) {
+			char c = shape.charAt(i);
+			if (i > 0) {
+				append(m, ", ");
+			}
+			loadField(m, i);
+
+			String sig = c == 'B' || c == 'S' ? "I" : getFieldSignature(c);
+			m.visitMethodInsn(INVOKEVIRTUAL, "java/lang/StringBuilder", "append",
+					"(" + sig + ")Ljava/lang/StringBuilder;", false);
+		}
+		append(m, ")");
+		m.visitMethodInsn(INVOKEVIRTUAL, "java/lang/StringBuilder", "toString", "()Ljava/lang/String;", false);
+		m.visitInsn(ARETURN);
+		m.visitMaxs(4, 1);
+		m.visitEnd();
+	}
+
+	private String getKinds() {
+		StringBuilder kinds = new StringBuilder();
+		for (char c : shape.toCharArray()) {
+			if (kinds.indexOf(String.valueOf(c)) < 0) {
+				kinds.append(c);
+			}
+		}
+		return kinds.toString();
+	}
+
+	private int[] getIndices(char kind) {
+		int count = 0;
+		for (char c : shape.toCharArray()) {
+			if (c == kind) {
+				count++;
+			}
+		}
+
+		int[] indices = new int[count];
+		for (int i = 0, j = 0; i < shape.length(); i++) {
+			if (shape.charAt(i) == kind) {
+				indices[j++] = i;
+			}
+		}
+		return indices;
+	}
+
+	private void loadField(MethodVisitor m, int index) {
+		m.visitVarInsn(ALOAD, 0);
+		m.visitFieldInsn(GETFIELD, className, getFieldName(index), getFieldSignature(shape.charAt(index)));
+	}
+
+	private static void append(MethodVisitor m, String str) {
+		m.visitLdcInsn(str);
+		m.visitMethodInsn(INVOKEVIRTUAL, "java/lang/StringBuilder", "append",
+				"(Ljava/lang/String;)Ljava/lang/StringBuilder;", false);
+	}
+
+	private static void throwOutOfRange(MethodVisitor m) {
+		m.visitTypeInsn(NEW, "java/lang/IndexOutOfBoundsException");
+		m.visitInsn(DUP);
+		m.visitVarInsn(ILOAD, 1);
+		m.visitMethodInsn(INVOKESTATIC, "java/lang/String", "valueOf", "(I)Ljava/lang/String;", false);
+		m.visitMethodInsn(INVOKESPECIAL, "java/lang/IndexOutOfBoundsException", "<init>", "(Ljava/lang/String;)V",
+				false);
+		m.visitInsn(ATHROW);
+	}
+
+	private static void box(MethodVisitor m, char shape) {
+		if (shape != 'L') {
+			String sig = String.valueOf(shape);
+			String wrapper = Types.getWrapperType(sig);
+			m.visitMethodInsn(INVOKESTATIC, wrapper, "valueOf", "(" + sig + ")L" + wrapper + ";", false);
+		}
+	}
+
+	private static void unbox(MethodVisitor m, char shape) {
+		if (shape != 'L') {
+			String sig = String.valueOf(shape);
+			String wrapper = Types.getWrapperType(sig);
+			m.visitTypeInsn(CHECKCAST, wrapper);
+			m.visitMethodInsn(INVOKEVIRTUAL, wrapper, Types.primitiveToJava(sig) + "Value", "()" + sig, false);
+		}
+	}
+
+	private static int getSize(char shape) {
+		return shape == 'J' || shape == 'D' ? 2 : 1;
+	}
+}
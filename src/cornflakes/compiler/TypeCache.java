@@ -0,0 +1,72 @@
+package cornflakes.compiler;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TypeCache {
+	public static class Entry {
+		private DefinitiveType resultType;
+		private String resultName;
+		private ClassData resultOwner;
+		private int expressionType;
+		private boolean math;
+		private List<GenericType> genericTypes;
+		private FieldData field;
+
+		public Entry(DefinitiveType resultType, String resultName, ClassData resultOwner, int expressionType,
+				boolean math, List<GenericType> genericTypes, FieldData field) {
+			this.resultType = resultType;
+			this.resultName = resultName;
+			this.resultOwner = resultOwner;
+			this.expressionType = expressionType;
+			this.math = math;
+			this.genericTypes = genericTypes;
+			this.field = field;
+		}
+
+		public DefinitiveType getResultType() {
+			return resultType;
+		}
+
+		public String getResultName() {
+			return resultName;
+		}
+
+		public ClassData getResultOwner() {
+			return resultOwner;
+		}
+
+		public int getExpressionType() {
+			return expressionType;
+		}
+
+		public boolean isMath() {
+			return math;
+		}
+
+		public List<GenericType> getGenericTypes() {
+			return genericTypes;
+		}
+
+		public FieldData getField() {
+			return field;
+		}
+	}
+
+	private Map<Block, Map<String, Entry>> entries = new IdentityHashMap<>();
+
+	public Entry get(Block block, String expression) {
+		Map<String, Entry> scope = entries.get(block);
+		return scope == null ? null : scope.get(expression);
+	}
+
+	public void put(Block block, String expression, Entry entry) {
+		entries.computeIfAbsent(block, x -> new HashMap<>()).put(expression, entry);
+	}
+
+	public void clear() {
+		entries.clear();
+	}
+}
@@ -1,14 +1,16 @@
 package cornflakes.compiler;
 
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
 
 public class Types implements Opcodes {
 	public static final int STORE = 0;
 	public static final int LOAD = 1;
 	public static final int PUSH = 2;
 	public static final int RETURN = 3;
+	// rows of a tuple array are typed apart from plain tuples of the same shape, as they are not instances of it
+	public static final String TUPLE_ROW = "&";
 
-	private static final String INTEGER = "-0123456789";
 
 	public static String primitiveToJava(String prim) {
 		if (prim.equals("i8") || prim.equals("B")) {
@@ -85,7 +87,7 @@ public class Types implements Opcodes {
 			}
 		}
 
-		if (type.equals("[B")) {
+		if (type.equals("[B") || type.equals("[Z")) {
 			if (op == STORE) {
 				return BASTORE;
 			} else if (op == LOAD) {
@@ -106,6 +108,13 @@ public class Types implements Opcodes {
 				return IALOAD;
 			}
 		}
+		if (type.equals("[C")) {
+			if (op == STORE) {
+				return CASTORE;
+			} else if (op == LOAD) {
+				return CALOAD;
+			}
+		}
 		if (type.equals("[S")) {
 			if (op == STORE) {
 				return SASTORE;
@@ -138,12 +147,23 @@ public class Types implements Opcodes {
 	}
 
 	public static boolean isTupleDefinition(String def) {
+		if (def.startsWith(TUPLE_ROW)) {
+			def = def.substring(TUPLE_ROW.length());
+		}
 		return def.startsWith("(") && def.endsWith(")") && Strings.countOccurrences(def, "(") == 1
 				&& Strings.countOccurrences(def, ")") == 1;
 	}
 
+	public static boolean isTupleRowDefinition(String def) {
+		return def.startsWith(TUPLE_ROW) && isTupleDefinition(def);
+	}
+
+	public static boolean isTupleArrayDefinition(String def) {
+		return def.endsWith("[]") && isTupleDefinition(def.substring(0, def.length() - 2).trim());
+	}
+
 	public static boolean isPointer(String def) {
-		if (def.endsWith("*"))
+		if (def.endsWith("*") || def.endsWith("^"))
 			return true;
 
 		switch (def) {
@@ -153,9 +173,19 @@ public class Types implements Opcodes {
 			case "cornflakes/lang/I64Pointer":
 			case "cornflakes/lang/F32Pointer":
 			case "cornflakes/lang/F64Pointer":
+			case "cornflakes/lang/DirectI8Pointer":
+			case "cornflakes/lang/DirectI16Pointer":
+			case "cornflakes/lang/DirectI32Pointer":
+			case "cornflakes/lang/DirectI64Pointer":
+			case "cornflakes/lang/DirectF32Pointer":
+			case "cornflakes/lang/DirectF64Pointer":
+			case "cornflakes/lang/AtomicI32Pointer":
+			case "cornflakes/lang/AtomicI64Pointer":
+			case "cornflakes/lang/StripedI64Pointer":
 			case "cornflakes/lang/BoolPointer":
 			case "cornflakes/lang/CharPointer":
 			case "cornflakes/lang/ObjectPointer":
+			case "cornflakes/lang/AtomicObjectPointer":
 				return true;
 		}
 
@@ -280,7 +310,10 @@ public class Types implements Opcodes {
 	}
 
 	public static String beautify(String txt1) {
-		if (Types.isTupleDefinition(txt1)) {
+		if (Types.isTupleRowDefinition(txt1)) {
+			return txt1.substring(TUPLE_ROW.length()) + "[] row";
+		}
+		if (Types.isTupleDefinition(txt1) || Types.isTupleArrayDefinition(txt1)) {
 			return txt1;
 		}
 
@@ -462,7 +495,7 @@ public class Types implements Opcodes {
 			return sig;
 		}
 
-		if (Types.isTupleDefinition(sig)) {
+		if (Types.isTupleDefinition(sig) || Types.isTupleArrayDefinition(sig)) {
 			return sig;
 		}
 
@@ -524,22 +557,24 @@ public class Types implements Opcodes {
 			return "string";
 		}
 
-		String xl = x.toLowerCase();
-		if (xl.matches("([1-9.]+?)[a-z]")) {
-			if (xl.endsWith("l")) {
+		if (x.length() > 1 && Lexer.isDigits(x, 0, x.length() - 1, true)) {
+			char suffix = Character.toLowerCase(x.charAt(x.length() - 1));
+			if (suffix == 'l') {
 				return "i64";
-			} else if (xl.endsWith("f")) {
+			} else if (suffix == 'f') {
 				return "f32";
-			} else if (xl.endsWith("d")) {
+			} else if (suffix == 'd') {
 				return "f64";
 			}
 		}
 
 		boolean frac = false;
-		for (char l : x.toCharArray()) {
-			if (!INTEGER.contains(Character.toString(l))) {
+		boolean period = x.indexOf('.') == x.lastIndexOf('.');
+		for (int i = 0; i < x.length(); i++) {
+			char l = x.charAt(i);
+			if (!Lexer.isDigit(l) && l != '-') {
 				if (l == '.') {
-					if (Strings.countOccurrences(x, ".") == 1) {
+					if (period) {
 						if (context == null) {
 							return "f32";
 						}
@@ -634,6 +669,42 @@ public class Types implements Opcodes {
 		}
 	}
 
+	public static String getTypeSignature(Type type) {
+		switch (type.getSort()) {
+			case Type.ARRAY:
+				String element = getTypeSignature(type.getElementType());
+				for (int i = 0; i < type.getDimensions(); i++) {
+					element = "[" + element;
+				}
+				return element;
+			case Type.OBJECT:
+				switch (type.getInternalName()) {
+					case "java/lang/Void":
+						return "V";
+					case "java/lang/Boolean":
+						return "Z";
+					case "java/lang/Byte":
+						return "B";
+					case "java/lang/Character":
+						return "C";
+					case "java/lang/Double":
+						return "D";
+					case "java/lang/Float":
+						return "F";
+					case "java/lang/Integer":
+						return "I";
+					case "java/lang/Long":
+						return "J";
+					case "java/lang/Short":
+						return "S";
+					default:
+						return type.getDescriptor();
+				}
+			default:
+				return type.getDescriptor();
+		}
+	}
+
 	public static String getTypeSignature(Class<?> type) {
 		if (type == Void.class || type.equals(Void.TYPE)) {
 			return "V";
@@ -661,6 +732,9 @@ public class Types implements Opcodes {
 	}
 
 	public static String getTypeSignature(String type) {
+		if (isTupleArrayDefinition(type)) {
+			return type;
+		}
 		type = unpadSignature(type);
 
 		if (type.length() == 1) {
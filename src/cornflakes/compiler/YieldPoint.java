@@ -0,0 +1,23 @@
+package cornflakes.compiler;
+
+import java.util.List;
+
+import org.objectweb.asm.Label;
+
+public class YieldPoint {
+	private Label resume;
+	private List<LocalData> locals;
+
+	public YieldPoint(Label resume, List<LocalData> locals) {
+		this.resume = resume;
+		this.locals = locals;
+	}
+
+	public Label getResume() {
+		return resume;
+	}
+
+	public List<LocalData> getLocals() {
+		return locals;
+	}
+}
@@ -0,0 +1,179 @@
+package cornflakes.lang;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * The <code>Arena</code> class allocates {@link cornflakes.lang.DirectMemory
+ * direct memory}, and frees all of it at once when it is closed, rather than
+ * whenever the garbage collector notices that it is no longer used. Pointers
+ * into memory from a closed arena can no longer be read from or written to.
+ *
+ * An arena is usually used through {@link cornflakes.lang.Arena#scope(Consumer)
+ * scope}, which closes it once a function returns.
+ *
+ * Arenas and their memory are not thread-safe. Threads which share an arena
+ * must synchronize their accesses themselves, and an arena must not be closed
+ * while another thread may still be reading or writing its memory.
+ */
+public final class Arena implements AutoCloseable {
+	private final List<DirectMemory> allocations = new ArrayList<>();
+	private boolean open = true;
+
+	/**
+	 * Creates a new arena, passes it to a function, and closes it once the
+	 * function returns or throws.
+	 *
+	 * @param body
+	 *            The function
+	 */
+	public static void scope(Consumer<Arena> body) {
+		try (Arena arena = new Arena()) {
+			body.accept(arena);
+		}
+	}
+
+	/**
+	 * Allocates a block of memory, in which every byte is 0.
+	 *
+	 * @param size
+	 *            The size of the memory, in bytes
+	 * @return The memory
+	 * @throws IllegalStateException
+	 *             If the arena has been closed
+	 */
+	public DirectMemory allocate(int size) {
+		checkOpen();
+		return add(new DirectMemory(ByteBuffer.allocateDirect(size)));
+	}
+
+	/**
+	 * @param count
+	 *            The number of values
+	 * @return a pointer to the first of a number of new values
+	 * @throws IllegalStateException
+	 *             If the arena has been closed
+	 */
+	public DirectI8Pointer allocateI8(int count) {
+		return allocate(count).i8Pointer(0);
+	}
+
+	/**
+	 * @param count
+	 *            The number of values
+	 * @return a pointer to the first of a number of new values
+	 * @throws IllegalStateException
+	 *             If the arena has been closed
+	 */
+	public DirectI16Pointer allocateI16(int count) {
+		return allocate(Math.multiplyExact(count, 2)).i16Pointer(0);
+	}
+
+	/**
+	 * @param count
+	 *            The number of values
+	 * @return a pointer to the first of a number of new values
+	 * @throws IllegalStateException
+	 *             If the arena has been closed
+	 */
+	public DirectI32Pointer allocateI32(int count) {
+		return allocate(Math.multiplyExact(count, 4)).i32Pointer(0);
+	}
+
+	/**
+	 * @param count
+	 *            The number of values
+	 * @return a pointer to the first of a number of new values
+	 * @throws IllegalStateException
+	 *             If the arena has been closed
+	 */
+	public DirectI64Pointer allocateI64(int count) {
+		return allocate(Math.multiplyExact(count, 8)).i64Pointer(0);
+	}
+
+	/**
+	 * @param count
+	 *            The number of values
+	 * @return a pointer to the first of a number of new values
+	 * @throws IllegalStateException
+	 *             If the arena has been closed
+	 */
+	public DirectF32Pointer allocateF32(int count) {
+		return allocate(Math.multiplyExact(count, 4)).f32Pointer(0);
+	}
+
+	/**
+	 * @param count
+	 *            The number of values
+	 * @return a pointer to the first of a number of new values
+	 * @throws IllegalStateException
+	 *             If the arena has been closed
+	 */
+	public DirectF64Pointer allocateF64(int count) {
+		return allocate(Math.multiplyExact(count, 8)).f64Pointer(0);
+	}
+
+	/**
+	 * Maps a region of a file into memory. Writes to memory mapped with
+	 * {@link java.nio.channels.FileChannel.MapMode#READ_WRITE READ_WRITE} are
+	 * written to the file.
+	 *
+	 * @param channel
+	 *            The file
+	 * @param mode
+	 *            The mapping mode
+	 * @param position
+	 *            The position of the region in the file
+	 * @param size
+	 *            The size of the region, in bytes
+	 * @return The memory
+	 * @throws IOException
+	 *             If the file cannot be mapped
+	 * @throws IllegalStateException
+	 *             If the arena has been closed
+	 */
+	public DirectMemory map(FileChannel channel, MapMode mode, long position, int size)
+			throws IOException {
+		checkOpen();
+		return add(new DirectMemory(channel.map(mode, position, size)));
+	}
+
+	/**
+	 * @return <code>true</code> if the arena has not been closed, otherwise
+	 *         <code>false</code>
+	 */
+	public boolean isOpen() {
+		return open;
+	}
+
+	/**
+	 * Frees all the memory which the arena has allocated. Closing an arena
+	 * more than once has no effect.
+	 */
+	@Override
+	public void close() {
+		if (open) {
+			open = false;
+			for (DirectMemory memory : allocations) {
+				memory.free();
+			}
+			allocations.clear();
+		}
+	}
+
+	private DirectMemory add(DirectMemory memory) {
+		allocations.add(memory);
+		return memory;
+	}
+
+	private void checkOpen() {
+		if (!open) {
+			throw new IllegalStateException("Arena has been closed");
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package cornflakes.lang;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * The <code>AtomicI32Pointer</code> class is the wrapper type for the
+ * <code>i32^</code> Cornflakes type, an <code>i32*</code> which can be shared
+ * between threads. Reads and writes of its 32-bit integer value are volatile, and
+ * it adds atomic read-modify-write operations. <code>p += n</code> and
+ * <code>p -= n</code> on an <code>i32^</code> compile to a single atomic
+ * {@link cornflakes.lang.AtomicI32Pointer#add(int) add}.
+ */
+public final class AtomicI32Pointer extends I32Pointer {
+	private static final long serialVersionUID = 377534015780530059L;
+	private static final AtomicIntegerFieldUpdater<AtomicI32Pointer> VALUE = AtomicIntegerFieldUpdater
+			.newUpdater(AtomicI32Pointer.class, "value");
+
+	private volatile int value;
+
+	/**
+	 * Creates a new pointer with an initial value.
+	 * 
+	 * @param val
+	 *            The initial value for the pointer
+	 */
+	public AtomicI32Pointer(int val) {
+		super(0);
+
+		this.value = val;
+	}
+
+	/**
+	 * Sets the value that the pointer points to.
+	 * 
+	 * @param val
+	 *            The new value
+	 */
+	@Override
+	public void setValue(int val) {
+		this.value = val;
+	}
+
+	/**
+	 * @return the value that the pointer points to
+	 */
+	@Override
+	public int getValue() {
+		return this.value;
+	}
+
+	/**
+	 * Eventually sets the value that the pointer points to. The write is not
+	 * reordered with earlier writes, but may be seen by other threads later
+	 * than a write through {@link cornflakes.lang.AtomicI32Pointer#setValue(int)
+	 * setValue}.
+	 * 
+	 * @param val
+	 *            The new value
+	 */
+	public void lazySet(int val) {
+		VALUE.lazySet(this, val);
+	}
+
+	/**
+	 * Sets the value that the pointer points to, if it is currently an
+	 * expected value.
+	 * 
+	 * @param expect
+	 *            The expected value
+	 * @param update
+	 *            The new value
+	 * @return <code>true</code> if the value was set, otherwise
+	 *         <code>false</code>
+	 */
+	public boolean compareAndSet(int expect, int update) {
+		return VALUE.compareAndSet(this, expect, update);
+	}
+
+	/**
+	 * Sets the value that the pointer points to.
+	 * 
+	 * @param val
+	 *            The new value
+	 * @return The previous value
+	 */
+	public int getAndSet(int val) {
+		return VALUE.getAndSet(this, val);
+	}
+
+	/**
+	 * Adds to the value that the pointer points to.
+	 * 
+	 * @param delta
+	 *            The amount to add
+	 */
+	public void add(int delta) {
+		VALUE.getAndAdd(this, delta);
+	}
+
+	/**
+	 * Subtracts from the value that the pointer points to.
+	 * 
+	 * @param delta
+	 *            The amount to subtract
+	 */
+	public void subtract(int delta) {
+		VALUE.getAndAdd(this, -delta);
+	}
+
+	/**
+	 * Adds to the value that the pointer points to.
+	 * 
+	 * @param delta
+	 *            The amount to add
+	 * @return The previous value
+	 */
+	public int getAndAdd(int delta) {
+		return VALUE.getAndAdd(this, delta);
+	}
+
+	/**
+	 * Adds to the value that the pointer points to.
+	 * 
+	 * @param delta
+	 *            The amount to add
+	 * @return The new value
+	 */
+	public int addAndGet(int delta) {
+		return VALUE.addAndGet(this, delta);
+	}
+
+	/**
+	 * Adds 1 to the value that the pointer points to.
+	 * 
+	 * @return The new value
+	 */
+	public int incrementAndGet() {
+		return VALUE.incrementAndGet(this);
+	}
+
+	/**
+	 * Subtracts 1 from the value that the pointer points to.
+	 * 
+	 * @return The new value
+	 */
+	public int decrementAndGet() {
+		return VALUE.decrementAndGet(this);
+	}
+
+	/**
+	 * Replaces the value that the pointer points to with the result of a
+	 * function of it. The function may be called more than once if other
+	 * threads change the value at the same time, so it should have no side
+	 * effects.
+	 * 
+	 * @param function
+	 *            The function
+	 * @return The new value
+	 */
+	public int updateAndGet(IntUnaryOperator function) {
+		return VALUE.updateAndGet(this, function);
+	}
+
+	/**
+	 * Replaces the value that the pointer points to with the result of a
+	 * function of it and another value. The function may be called more than
+	 * once if other threads change the value at the same time, so it should
+	 * have no side effects.
+	 * 
+	 * @param x
+	 *            The other value
+	 * @param function
+	 *            The function
+	 * @return The new value
+	 */
+	public int accumulateAndGet(int x, IntBinaryOperator function) {
+		return VALUE.accumulateAndGet(this, x, function);
+	}
+}
@@ -0,0 +1,181 @@
+package cornflakes.lang;
+
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.LongBinaryOperator;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * The <code>AtomicI64Pointer</code> class is the wrapper type for the
+ * <code>i64^</code> Cornflakes type, an <code>i64*</code> which can be shared
+ * between threads. Reads and writes of its 64-bit integer value are volatile, and
+ * it adds atomic read-modify-write operations. <code>p += n</code> and
+ * <code>p -= n</code> on an <code>i64^</code> compile to a single atomic
+ * {@link cornflakes.lang.AtomicI64Pointer#add(long) add}.
+ */
+public final class AtomicI64Pointer extends I64Pointer {
+	private static final long serialVersionUID = -5543295995037540672L;
+	private static final AtomicLongFieldUpdater<AtomicI64Pointer> VALUE = AtomicLongFieldUpdater
+			.newUpdater(AtomicI64Pointer.class, "value");
+
+	private volatile long value;
+
+	/**
+	 * Creates a new pointer with an initial value.
+	 * 
+	 * @param val
+	 *            The initial value for the pointer
+	 */
+	public AtomicI64Pointer(long val) {
+		super(0);
+
+		this.value = val;
+	}
+
+	/**
+	 * Sets the value that the pointer points to.
+	 * 
+	 * @param val
+	 *            The new value
+	 */
+	@Override
+	public void setValue(long val) {
+		this.value = val;
+	}
+
+	/**
+	 * @return the value that the pointer points to
+	 */
+	@Override
+	public long getValue() {
+		return this.value;
+	}
+
+	/**
+	 * Eventually sets the value that the pointer points to. The write is not
+	 * reordered with earlier writes, but may be seen by other threads later
+	 * than a write through {@link cornflakes.lang.AtomicI64Pointer#setValue(long)
+	 * setValue}.
+	 * 
+	 * @param val
+	 *            The new value
+	 */
+	public void lazySet(long val) {
+		VALUE.lazySet(this, val);
+	}
+
+	/**
+	 * Sets the value that the pointer points to, if it is currently an
+	 * expected value.
+	 * 
+	 * @param expect
+	 *            The expected value
+	 * @param update
+	 *            The new value
+	 * @return <code>true</code> if the value was set, otherwise
+	 *         <code>false</code>
+	 */
+	public boolean compareAndSet(long expect, long update) {
+		return VALUE.compareAndSet(this, expect, update);
+	}
+
+	/**
+	 * Sets the value that the pointer points to.
+	 * 
+	 * @param val
+	 *            The new value
+	 * @return The previous value
+	 */
+	public long getAndSet(long val) {
+		return VALUE.getAndSet(this, val);
+	}
+
+	/**
+	 * Adds to the value that the pointer points to.
+	 * 
+	 * @param delta
+	 *            The amount to add
+	 */
+	public void add(long delta) {
+		VALUE.getAndAdd(this, delta);
+	}
+
+	/**
+	 * Subtracts from the value that the pointer points to.
+	 * 
+	 * @param delta
+	 *            The amount to subtract
+	 */
+	public void subtract(long delta) {
+		VALUE.getAndAdd(this, -delta);
+	}
+
+	/**
+	 * Adds to the value that the pointer points to.
+	 * 
+	 * @param delta
+	 *            The amount to add
+	 * @return The previous value
+	 */
+	public long getAndAdd(long delta) {
+		return VALUE.getAndAdd(this, delta);
+	}
+
+	/**
+	 * Adds to the value that the pointer points to.
+	 * 
+	 * @param delta
+	 *            The amount to add
+	 * @return The new value
+	 */
+	public long addAndGet(long delta) {
+		return VALUE.addAndGet(this, delta);
+	}
+
+	/**
+	 * Adds 1 to the value that the pointer points to.
+	 * 
+	 * @return The new value
+	 */
+	public long incrementAndGet() {
+		return VALUE.incrementAndGet(this);
+	}
+
+	/**
+	 * Subtracts 1 from the value that the pointer points to.
+	 * 
+	 * @return The new value
+	 */
+	public long decrementAndGet() {
+		return VALUE.decrementAndGet(this);
+	}
+
+	/**
+	 * Replaces the value that the pointer points to with the result of a
+	 * function of it. The function may be called more than once if other
+	 * threads change the value at the same time, so it should have no side
+	 * effects.
+	 * 
+	 * @param function
+	 *            The function
+	 * @return The new value
+	 */
+	public long updateAndGet(LongUnaryOperator function) {
+		return VALUE.updateAndGet(this, function);
+	}
+
+	/**
+	 * Replaces the value that the pointer points to with the result of a
+	 * function of it and another value. The function may be called more than
+	 * once if other threads change the value at the same time, so it should
+	 * have no side effects.
+	 * 
+	 * @param x
+	 *            The other value
+	 * @param function
+	 *            The function
+	 * @return The new value
+	 */
+	public long accumulateAndGet(long x, LongBinaryOperator function) {
+		return VALUE.accumulateAndGet(this, x, function);
+	}
+}
@@ -0,0 +1,120 @@
+package cornflakes.lang;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.BinaryOperator;
+import java.util.function.UnaryOperator;
+
+/**
+ * The <code>AtomicObjectPointer</code> class is the wrapper type for any
+ * Cornflakes non-primitive atomic pointer type, such as <code>string^</code>.
+ * It is an <code>ObjectPointer</code> which can be shared between threads.
+ * Reads and writes of its reference value are volatile, and it adds atomic
+ * read-modify-write operations.
+ */
+public final class AtomicObjectPointer extends ObjectPointer {
+	private static final long serialVersionUID = 2870465318957245186L;
+	private static final AtomicReferenceFieldUpdater<AtomicObjectPointer, Object> VALUE = AtomicReferenceFieldUpdater
+			.newUpdater(AtomicObjectPointer.class, Object.class, "value");
+
+	private volatile Object value;
+
+	/**
+	 * Creates a new pointer with an initial value.
+	 * 
+	 * @param val
+	 *            The initial value for the pointer
+	 */
+	public AtomicObjectPointer(Object val) {
+		super(null);
+
+		this.value = val;
+	}
+
+	/**
+	 * Sets the value that the pointer points to.
+	 * 
+	 * @param val
+	 *            The new value
+	 */
+	@Override
+	public void setValue(Object val) {
+		this.value = val;
+	}
+
+	/**
+	 * @return the value that the pointer points to
+	 */
+	@Override
+	public Object getValue() {
+		return this.value;
+	}
+
+	/**
+	 * Eventually sets the value that the pointer points to. The write is not
+	 * reordered with earlier writes, but may be seen by other threads later
+	 * than a write through
+	 * {@link cornflakes.lang.AtomicObjectPointer#setValue(Object) setValue}.
+	 * 
+	 * @param val
+	 *            The new value
+	 */
+	public void lazySet(Object val) {
+		VALUE.lazySet(this, val);
+	}
+
+	/**
+	 * Sets the value that the pointer points to, if it is currently the same
+	 * reference as an expected value.
+	 * 
+	 * @param expect
+	 *            The expected value, which is compared by reference
+	 * @param update
+	 *            The new value
+	 * @return <code>true</code> if the value was set, otherwise
+	 *         <code>false</code>
+	 */
+	public boolean compareAndSet(Object expect, Object update) {
+		return VALUE.compareAndSet(this, expect, update);
+	}
+
+	/**
+	 * Sets the value that the pointer points to.
+	 * 
+	 * @param val
+	 *            The new value
+	 * @return The previous value
+	 */
+	public Object getAndSet(Object val) {
+		return VALUE.getAndSet(this, val);
+	}
+
+	/**
+	 * Replaces the value that the pointer points to with the result of a
+	 * function of it. The function may be called more than once if other
+	 * threads change the value at the same time, so it should have no side
+	 * effects.
+	 * 
+	 * @param function
+	 *            The function
+	 * @return The new value
+	 */
+	public Object updateAndGet(UnaryOperator<Object> function) {
+		return VALUE.updateAndGet(this, function);
+	}
+
+	/**
+	 * Replaces the value that the pointer points to with the result of a
+	 * function of it and another value. The function may be called more than
+	 * once if other threads change the value at the same time, so it should
+	 * have no side effects.
+	 * 
+	 * @param x
+	 *            The other value
+	 * @param function
+	 *            The function
+	 * @return The new value
+	 */
+	public Object accumulateAndGet(Object x, BinaryOperator<Object> function) {
+		return VALUE.accumulateAndGet(this, x, function);
+	}
+}
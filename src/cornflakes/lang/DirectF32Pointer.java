@@ -0,0 +1,241 @@
+package cornflakes.lang;
+
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The <code>DirectF32Pointer</code> class is a
+ * {@link cornflakes.lang.DirectPointer direct pointer} to 32-bit
+ * floating-point values. Indexing the pointer reads and writes the values
+ * which follow it, so a whole buffer can be addressed through one pointer.
+ *
+ * @author Lucas Baizer
+ */
+public final class DirectF32Pointer extends F32Pointer implements DirectPointer {
+	private static final long serialVersionUID = -4343649165943202694L;
+	private static final int SIZE = 4;
+
+	final DirectMemory memory;
+	final int offset;
+
+	DirectF32Pointer(DirectMemory memory, int offset) {
+		// the value of the heap-stored pointer is never used
+		super(0);
+		this.memory = memory;
+		this.offset = offset;
+	}
+
+	@Override
+	public DirectMemory getMemory() {
+		return memory;
+	}
+
+	@Override
+	public int getOffset() {
+		return offset;
+	}
+
+	@Override
+	public int getLength() {
+		return (memory.getSize() - offset) / SIZE;
+	}
+
+	/**
+	 * Sets the value that the pointer points to.
+	 * 
+	 * @param val
+	 *            The new value
+	 * @throws IllegalStateException
+	 *             If the memory has been freed
+	 */
+	@Override
+	public void setValue(float val) {
+		memory.buffer().putFloat(offset, val);
+	}
+
+	/**
+	 * @return the value that the pointer points to
+	 * @throws IllegalStateException
+	 *             If the memory has been freed
+	 */
+	@Override
+	public float getValue() {
+		return memory.buffer().getFloat(offset);
+	}
+
+	/**
+	 * Returns the value which is a number of values after the one this pointer
+	 * points to.
+	 * 
+	 * @param index
+	 *            The number of values
+	 * @return The value
+	 * @throws IndexOutOfBoundsException
+	 *             If the value is outside of the memory
+	 * @throws IllegalStateException
+	 *             If the memory has been freed
+	 */
+	@Override
+	public float _get_index_(int index) {
+		return memory.buffer().getFloat(DirectMemory.address(offset, index, SIZE));
+	}
+
+	/**
+	 * Sets the value which is a number of values after the one this pointer
+	 * points to.
+	 * 
+	 * @param index
+	 *            The number of values
+	 * @param val
+	 *            The new value
+	 * @throws IndexOutOfBoundsException
+	 *             If the value is outside of the memory
+	 * @throws IllegalStateException
+	 *             If the memory has been freed
+	 */
+	@Override
+	public void _set_index_(int index, float val) {
+		memory.buffer().putFloat(DirectMemory.address(offset, index, SIZE), val);
+	}
+
+	/**
+	 * Returns a pointer to the value which is a number of values after the one
+	 * this pointer points to. The new pointer may point outside of the memory,
+	 * but it cannot be read from or written to there.
+	 * 
+	 * @param count
+	 *            The number of values, which may be negative
+	 * @return The new pointer
+	 * @throws IndexOutOfBoundsException
+	 *             If the new offset is not an <code>i32</code>
+	 */
+	@Override
+	public DirectF32Pointer offset(int count) {
+		return new DirectF32Pointer(memory, DirectMemory.address(offset, count, SIZE));
+	}
+
+	/**
+	 * The <code>+</code> operator, which
+	 * {@link cornflakes.lang.DirectF32Pointer#offset(int) offsets} a pointer
+	 * forwards.
+	 */
+	public static DirectF32Pointer _op_add(DirectF32Pointer ptr, int count) {
+		return ptr.offset(count);
+	}
+
+	/**
+	 * The <code>-</code> operator, which
+	 * {@link cornflakes.lang.DirectF32Pointer#offset(int) offsets} a pointer
+	 * backwards.
+	 */
+	public static DirectF32Pointer _op_sub(DirectF32Pointer ptr, int count) {
+		return ptr.offset(-count);
+	}
+
+	/**
+	 * Sets a number of values, starting with the one the pointer points to.
+	 * 
+	 * @param count
+	 *            The number of values
+	 * @param val
+	 *            The value to set them to
+	 * @throws IndexOutOfBoundsException
+	 *             If any of the values is outside of the memory
+	 * @throws IllegalStateException
+	 *             If the memory has been freed
+	 */
+	public void fill(int count, float val) {
+		ByteBuffer buffer = memory.buffer();
+		for (int i = 0; i < count; i++) {
+			buffer.putFloat(DirectMemory.address(offset, i, SIZE), val);
+		}
+	}
+
+	/**
+	 * Copies a number of values, starting with the one the pointer points to,
+	 * to another pointer. The source and destination may overlap.
+	 * 
+	 * @param dest
+	 *            The pointer to copy to
+	 * @param count
+	 *            The number of values
+	 * @throws IndexOutOfBoundsException
+	 *             If any of the values is outside of its memory
+	 * @throws IllegalStateException
+	 *             If either memory has been freed
+	 */
+	public void copyTo(DirectF32Pointer dest, int count) {
+		memory.copy(offset, dest.memory, dest.offset, count, SIZE);
+	}
+
+	/**
+	 * Copies a number of values, starting with the one the pointer points to,
+	 * to an array.
+	 * 
+	 * @param dest
+	 *            The array to copy to
+	 * @param from
+	 *            The index in the array of the first value
+	 * @param count
+	 *            The number of values
+	 * @throws IndexOutOfBoundsException
+	 *             If any of the values is outside of the memory or the array
+	 * @throws IllegalStateException
+	 *             If the memory has been freed
+	 */
+	public void copyTo(float[] dest, int from, int count) {
+		memory.view(offset, count, SIZE).asFloatBuffer().get(dest, from, count);
+	}
+
+	/**
+	 * Copies a number of values from an array to the memory, starting with the
+	 * value the pointer points to.
+	 * 
+	 * @param src
+	 *            The array to copy from
+	 * @param from
+	 *            The index in the array of the first value
+	 * @param count
+	 *            The number of values
+	 * @throws IndexOutOfBoundsException
+	 *             If any of the values is outside of the memory or the array
+	 * @throws IllegalStateException
+	 *             If the memory has been freed
+	 */
+	public void copyFrom(float[] src, int from, int count) {
+		memory.view(offset, count, SIZE).asFloatBuffer().put(src, from, count);
+	}
+
+	/**
+	 * @return the string representation of the value that the pointer points to
+	 */
+	@Override
+	public String toString() {
+		return String.valueOf(getValue());
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * System.identityHashCode(memory) + offset;
+	}
+
+	/**
+	 * @return <code>true</code> if the other Object is a
+	 *         <code>DirectF32Pointer</code> which points to the same address
+	 *         as this pointer, otherwise <code>false</code>
+	 */
+	@Override
+	public boolean equals(Object obj) {
+		if (obj instanceof DirectF32Pointer) {
+			DirectF32Pointer ptr = (DirectF32Pointer) obj;
+			return ptr.memory == this.memory && ptr.offset == this.offset;
+		}
+		return false;
+	}
+
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		throw new NotSerializableException(getClass().getName());
+	}
+}
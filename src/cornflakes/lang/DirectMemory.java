@@ -0,0 +1,197 @@
+package cornflakes.lang;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * The <code>DirectMemory</code> class is a block of memory outside of the
+ * garbage-collected heap, which is allocated by an
+ * {@link cornflakes.lang.Arena Arena} and is freed when that arena is closed.
+ * Values are read and written through the direct pointers which it creates,
+ * such as {@link cornflakes.lang.DirectI32Pointer DirectI32Pointer}, in the
+ * native byte order.
+ *
+ * Reading or writing memory after it has been freed throws an
+ * <code>IllegalStateException</code>. Direct memory is not thread-safe: this
+ * check only holds for the thread which freed it, or for threads which
+ * synchronize with that thread, as its arena documents.
+ */
+public final class DirectMemory {
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+
+	static {
+		Object unsafe = null;
+		Method invokeCleaner = null;
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+			Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			unsafe = field.get(null);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			invokeCleaner = null;
+		}
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+	}
+
+	private final int size;
+	private ByteBuffer buffer;
+
+	DirectMemory(ByteBuffer buffer) {
+		this.buffer = buffer.order(ByteOrder.nativeOrder());
+		this.size = buffer.capacity();
+	}
+
+	/**
+	 * @return the size of the memory, in bytes
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * @return <code>true</code> if the memory has been freed, otherwise
+	 *         <code>false</code>
+	 */
+	public boolean isFreed() {
+		return buffer == null;
+	}
+
+	/**
+	 * @param offset
+	 *            The offset of the pointer, in bytes
+	 * @return a new pointer which points into the memory
+	 */
+	public DirectI8Pointer i8Pointer(int offset) {
+		return new DirectI8Pointer(this, offset);
+	}
+
+	/**
+	 * @param offset
+	 *            The offset of the pointer, in bytes
+	 * @return a new pointer which points into the memory
+	 */
+	public DirectI16Pointer i16Pointer(int offset) {
+		return new DirectI16Pointer(this, offset);
+	}
+
+	/**
+	 * @param offset
+	 *            The offset of the pointer, in bytes
+	 * @return a new pointer which points into the memory
+	 */
+	public DirectI32Pointer i32Pointer(int offset) {
+		return new DirectI32Pointer(this, offset);
+	}
+
+	/**
+	 * @param offset
+	 *            The offset of the pointer, in bytes
+	 * @return a new pointer which points into the memory
+	 */
+	public DirectI64Pointer i64Pointer(int offset) {
+		return new DirectI64Pointer(this, offset);
+	}
+
+	/**
+	 * @param offset
+	 *            The offset of the pointer, in bytes
+	 * @return a new pointer which points into the memory
+	 */
+	public DirectF32Pointer f32Pointer(int offset) {
+		return new DirectF32Pointer(this, offset);
+	}
+
+	/**
+	 * @param offset
+	 *            The offset of the pointer, in bytes
+	 * @return a new pointer which points into the memory
+	 */
+	public DirectF64Pointer f64Pointer(int offset) {
+		return new DirectF64Pointer(this, offset);
+	}
+
+	ByteBuffer buffer() {
+		ByteBuffer buffer = this.buffer;
+		if (buffer == null) {
+			throw new IllegalStateException("Direct memory has been freed");
+		}
+		return buffer;
+	}
+
+	static int address(int offset, int index, int width) {
+		// an address which wrapped around could land back inside the memory
+		long address = offset + (long) index * width;
+		if (address != (int) address) {
+			throw new IndexOutOfBoundsException("Index " + index + " is outside of the memory");
+		}
+		return (int) address;
+	}
+
+	ByteBuffer view(int offset, int count, int width) {
+		// a buffer would throw BufferUnderflowException or IllegalArgumentException instead
+		if (!contains(offset, count, width)) {
+			throw new IndexOutOfBoundsException(count + " values are outside of the memory");
+		}
+		return view(offset);
+	}
+
+	void copy(int from, DirectMemory dest, int to, int count, int width) {
+		// both ranges are checked first, so that a failing copy writes nothing
+		if (!contains(from, count, width) || !dest.contains(to, count, width)) {
+			throw new IndexOutOfBoundsException(count + " values are outside of the memory");
+		}
+
+		int bytes = count * width;
+		ByteBuffer src = view(from);
+		src.limit(from + bytes);
+		ByteBuffer target = dest.view(to);
+		if (dest == this && from < to + bytes && to < from + bytes) {
+			byte[] temp = new byte[bytes];
+			src.get(temp);
+			target.put(temp);
+		} else {
+			target.put(src);
+		}
+	}
+
+	private boolean contains(int offset, int count, int width) {
+		return offset >= 0 && count >= 0 && count <= (size - offset) / width;
+	}
+
+	private ByteBuffer view(int offset) {
+		ByteBuffer buffer = buffer();
+		ByteBuffer view = buffer.duplicate().order(buffer.order());
+		view.position(offset);
+		return view;
+	}
+
+	void free() {
+		ByteBuffer buffer = this.buffer;
+		this.buffer = null;
+		if (buffer != null && buffer.isDirect()) {
+			release(buffer);
+		}
+	}
+
+	private static void release(ByteBuffer buffer) {
+		try {
+			if (INVOKE_CLEANER != null) {
+				INVOKE_CLEANER.invoke(UNSAFE, buffer);
+			} else {
+				Method cleaner = buffer.getClass().getMethod("cleaner");
+				cleaner.setAccessible(true);
+				Object clean = cleaner.invoke(buffer);
+				if (clean != null) {
+					clean.getClass().getMethod("clean").invoke(clean);
+				}
+			}
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			// the garbage collector releases the memory instead
+		}
+	}
+}
@@ -0,0 +1,34 @@
+package cornflakes.lang;
+
+/**
+ * The <code>DirectPointer</code> interface is implemented by the pointers which
+ * point into {@link cornflakes.lang.DirectMemory direct memory}, such as
+ * {@link cornflakes.lang.DirectI32Pointer DirectI32Pointer}. A direct pointer
+ * addresses a value by its memory and its offset in bytes, and indexing it
+ * reads and writes the values which follow it.
+ *
+ * Each direct pointer extends the heap-stored pointer to the same type, so a
+ * <code>DirectI32Pointer</code> can be used where an <code>i32*</code> is
+ * expected, and indexing that <code>i32*</code> or adding to it addresses the
+ * memory. A heap-stored pointer can only be indexed by 0. Two direct pointers
+ * are equal if they are of the same type and point to the same address.
+ * Direct pointers cannot be serialized.
+ *
+ * @author Lucas Baizer
+ */
+public interface DirectPointer {
+	/**
+	 * @return the memory that the pointer points into
+	 */
+	DirectMemory getMemory();
+
+	/**
+	 * @return the offset, in bytes, of the pointer in its memory
+	 */
+	int getOffset();
+
+	/**
+	 * @return the number of values from the pointer to the end of its memory
+	 */
+	int getLength();
+}
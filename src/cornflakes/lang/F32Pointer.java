@@ -38,6 +38,74 @@ public class F32Pointer extends Pointer {
 		return this.val;
 	}
 
+	/**
+	 * Returns the value which is a number of values after the one this pointer
+	 * points to. A heap-stored pointer points to a single value, so only index
+	 * 0 can be read, but a {@link cornflakes.lang.DirectF32Pointer direct
+	 * pointer} reads the values which follow it in its memory.
+	 * 
+	 * @param index
+	 *            The number of values
+	 * @return The value
+	 * @throws IndexOutOfBoundsException
+	 *             If the index is not 0
+	 */
+	public float _get_index_(int index) {
+		checkIndex(index);
+		return getValue();
+	}
+
+	/**
+	 * Sets the value which is a number of values after the one this pointer
+	 * points to. A heap-stored pointer points to a single value, so only index
+	 * 0 can be written.
+	 * 
+	 * @param index
+	 *            The number of values
+	 * @param val
+	 *            The new value
+	 * @throws IndexOutOfBoundsException
+	 *             If the index is not 0
+	 */
+	public void _set_index_(int index, float val) {
+		checkIndex(index);
+		setValue(val);
+	}
+
+	/**
+	 * Returns a pointer to the value which is a number of values after the one
+	 * this pointer points to. A heap-stored pointer can only be offset by 0,
+	 * which returns the pointer itself.
+	 * 
+	 * @param count
+	 *            The number of values
+	 * @return The new pointer
+	 * @throws IndexOutOfBoundsException
+	 *             If the count is not 0
+	 */
+	public F32Pointer offset(int count) {
+		checkIndex(count);
+		return this;
+	}
+
+	/**
+	 * The <code>+</code> operator, which
+	 * {@link cornflakes.lang.F32Pointer#offset(int) offsets} a pointer
+	 * forwards.
+	 */
+	public static F32Pointer _op_add(F32Pointer ptr, int count) {
+		return ptr.offset(count);
+	}
+
+	/**
+	 * The <code>-</code> operator, which
+	 * {@link cornflakes.lang.F32Pointer#offset(int) offsets} a pointer
+	 * backwards.
+	 */
+	public static F32Pointer _op_sub(F32Pointer ptr, int count) {
+		return ptr.offset(-count);
+	}
+
 	/**
 	 * @return the string representation of the value that the pointer points to
 	 */
@@ -52,13 +120,13 @@ public class F32Pointer extends Pointer {
 	}
 
 	/**
-	 * @return <code>true</code> if the other Object is an
-	 *         <code>F32Pointer</code> which points to the same value as this
-	 *         <code>F32Pointer</code>, otherwise <code>false</code>
+	 * @return <code>true</code> if the other Object is a pointer of the same
+	 *         class as this <code>F32Pointer</code> which points to the same
+	 *         value, otherwise <code>false</code>
 	 */
 	@Override
 	public boolean equals(Object obj) {
-		if (obj instanceof F32Pointer) {
+		if (obj != null && obj.getClass() == getClass()) {
 			F32Pointer ptr = (F32Pointer) obj;
 			return ptr.val == this.val;
 		}
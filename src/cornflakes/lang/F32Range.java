@@ -8,9 +8,8 @@ import java.util.Iterator;
  * including an optional increment size. When the iterator is created, a
  * "pointer" value is initialized to the starting value. After each iteration of
  * the range, the increment size is added to the current pointer. This process
- * repeats until the equation <code>pointer + increment >= max</code> is met.
- * Thus, the end value is never reached, but the value at
- * <code>end - increment</code> is reached. Therefore, the end value is
+ * repeats until the pointer reaches or passes the end value, counting down
+ * instead when the increment is negative. Therefore, the end value is
  * exclusive.
  * 
  * @author Lucas Baizer
@@ -92,7 +91,7 @@ public class F32Range extends Range implements Iterable<Float> {
 
 		@Override
 		public boolean hasNext() {
-			return pointer + increment <= max;
+			return increment < 0 ? pointer > max : pointer < max;
 		}
 
 		@Override
@@ -0,0 +1,102 @@
+package cornflakes.lang;
+
+import java.util.Iterator;
+
+/**
+ * The <code>F64Range</code> class is an iterable <code>Range</code>
+ * implementation used for defining a range between two double-precision
+ * floating-point values, including an optional increment size. When the
+ * iterator is created, a "pointer" value is initialized to the starting value.
+ * After each iteration of the range, the increment size is added to the
+ * current pointer. This process repeats until the pointer reaches or passes
+ * the end value, counting down instead when the increment is negative.
+ * Therefore, the end value is exclusive.
+ */
+public class F64Range extends Range implements Iterable<Double> {
+	private double start;
+	private double end;
+	private double increment;
+
+	/**
+	 * Creates a new <code>F64Range</code> with a default increment size of 1.
+	 * 
+	 * @param start
+	 *            The value at which the range starts at (inclusive)
+	 * @param end
+	 *            The value at which the range ends at (exclusive)
+	 */
+	public F64Range(double start, double end) {
+		this(start, end, 1);
+	}
+
+	/**
+	 * Creates a new <code>F64Range</code> with a specified increment size.
+	 * 
+	 * @param start
+	 *            The value at which the range starts at (inclusive)
+	 * @param end
+	 *            The value at which the range ends at (exclusive)
+	 * @param increment
+	 *            The value of which is added for each iteration of the range
+	 */
+	public F64Range(double start, double end, double increment) {
+		this.start = start;
+		this.end = end;
+		this.increment = increment;
+	}
+
+	/**
+	 * @return The value that the range started at.
+	 */
+	public double getStart() {
+		return this.start;
+	}
+
+	/**
+	 * @return The value that the range exclusively ends at. This value will not
+	 *         be included in the iteration.
+	 */
+	public double getEnd() {
+		return this.end;
+	}
+
+	/**
+	 * @return The amount that is added each iteration until the end it reached.
+	 */
+	public double getIncrement() {
+		return this.increment;
+	}
+
+	/**
+	 * @return A new iterator which iterates using the values assigned to this
+	 *         <code>Range</code> object.
+	 */
+	@Override
+	public Iterator<Double> iterator() {
+		return new F64RangeIterator(start, end, increment);
+	}
+
+	private static class F64RangeIterator implements Iterator<Double> {
+		private double max;
+		private double increment;
+		private double pointer;
+
+		public F64RangeIterator(double min, double max, double increment) {
+			this.max = max;
+			this.increment = increment;
+			this.pointer = min;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return increment < 0 ? pointer > max : pointer < max;
+		}
+
+		@Override
+		public Double next() {
+			double p = pointer;
+			pointer += increment;
+			return p;
+		}
+	}
+}
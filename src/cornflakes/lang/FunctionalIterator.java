@@ -1,44 +1,62 @@
 package cornflakes.lang;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The <code>FunctionalIterator</code> class is an iterator implementation which
  * has several convenience functions commonly found in other languages. It is
  * comparable to the new Java 8 <code>Stream</code> structure.
- * 
+ *
  * The FunctionalIterator is partially immutable. All functions, except for the
  * {@link cornflakes.lang.FunctionalIterator#next() next()} function, return a
  * new iterator and do not modify the original.
+ *
+ * Functions are evaluated lazily, one element at a time, and never copy the
+ * elements into intermediate lists. Iterators over values, arrays and
+ * collections are random-access views, so their length and elements at any
+ * index are found without iterating. Iterators over a lazy source, such as
+ * those returned by iterator functions, can only be traversed once; an
+ * iterator derived from one takes its elements from the same source.
  */
 public class FunctionalIterator<T> implements Iterator<T> {
-	private List<T> list = new ArrayList<>();
+	private Source<T> source;
 
 	/**
 	 * Creates a new empty iterator.
 	 */
 	public FunctionalIterator() {
+		this.source = new ListSource<>(new ArrayList<>(), 0, 0);
 	}
 
 	/**
 	 * Creates a new iterator given a series of initial values.
-	 * 
+	 *
 	 * @param items
 	 *            The initial values
 	 */
 	@SafeVarargs
 	public FunctionalIterator(T... items) {
-		list = new ArrayList<>(Arrays.asList(items));
+		this.source = ListSource.of(new ArrayList<>(Arrays.asList(items)));
 	}
 
 	/**
 	 * Creates a new iterator given an <code>Iterable</code> object.
-	 * 
+	 *
 	 * @param itr
 	 *            The object of which to copy to elements of
 	 */
@@ -48,62 +66,112 @@ public class FunctionalIterator<T> implements Iterator<T> {
 
 	/**
 	 * Creates a new iterator given an <code>Iterator</code> object.
-	 * 
+	 *
 	 * @param itr
 	 *            The iterator of which to copy to elements of
 	 */
 	public FunctionalIterator(Iterator<T> itr) {
+		List<T> list = new ArrayList<>();
 		while (itr.hasNext()) {
 			list.add(itr.next());
 		}
+		this.source = ListSource.of(list);
 	}
 
 	/**
 	 * Creates a new iterator given a <code>Collection</code> object.
-	 * 
+	 *
 	 * @param col
 	 *            The object of which to copy to elements of
 	 */
 	public FunctionalIterator(Collection<T> col) {
-		list = new ArrayList<>(col);
+		this.source = ListSource.of(new ArrayList<>(col));
+	}
+
+	private FunctionalIterator(Source<T> source) {
+		this.source = source;
+	}
+
+	/**
+	 * Creates a new iterator which takes its elements from an
+	 * <code>Iterator</code> only once they are needed, so the source may be
+	 * infinite. Unlike {@link #FunctionalIterator(Iterator)}, the elements are
+	 * not copied up front.
+	 *
+	 * @param source
+	 *            The iterator of which to take the elements from
+	 * @return The new iterator
+	 */
+	public static <T> FunctionalIterator<T> lazy(Iterator<T> source) {
+		return new FunctionalIterator<>(new LazySource<>(source));
 	}
 
 	@Override
 	public boolean hasNext() {
-		return list.size() > 0;
+		return source.has(1);
 	}
 
 	/**
 	 * Returns the next item in the iterator. This mutates the iterator that the
 	 * function is called on by removing the next object, and then returning the
 	 * removed object.
-	 * 
+	 *
 	 * @return the next item in the iterator, or <code>null</code> if the
 	 *         iterator is empty
 	 */
 	@Override
 	public T next() {
-		return list.size() == 0 ? null : list.remove(0);
+		return source.has(1) ? source.next() : null;
 	}
 
 	/**
 	 * Adds an object to a copy iterator and returns it.
-	 * 
+	 *
 	 * @param obj
 	 *            The object to add
 	 * @return The copied iterator with the added object
 	 */
 	public FunctionalIterator<T> add(T obj) {
-		FunctionalIterator<T> copy = copy();
-		copy.list.add(obj);
+		if (source instanceof ListSource) {
+			return new FunctionalIterator<>(((ListSource<T>) source).append(obj));
+		}
+		if (source instanceof IndexedSource) {
+			IndexedSource<T> indexed = (IndexedSource<T>) source;
+			List<T> list = new ArrayList<>(indexed.size() + 1);
+			for (int i = 0; i < indexed.size(); i++) {
+				list.add(indexed.get(i));
+			}
+			list.add(obj);
+			return new FunctionalIterator<>(ListSource.of(list));
+		}
+
+		Iterator<T> upstream = source.iterator();
+		return lazy(new Iterator<T>() {
+			private boolean added;
 
-		return copy;
+			@Override
+			public boolean hasNext() {
+				return upstream.hasNext() || !added;
+			}
+
+			@Override
+			public T next() {
+				if (upstream.hasNext()) {
+					return upstream.next();
+				}
+				if (added) {
+					throw new NoSuchElementException();
+				}
+				added = true;
+				return obj;
+			}
+		});
 	}
 
 	/**
 	 * Skips the first object in a copy iterator. See
 	 * {@link cornflakes.lang.FunctionalIterator#skip(int) skip(int)}.
-	 * 
+	 *
 	 * @return The copied iterator with the first element removed
 	 */
 	public FunctionalIterator<T> skip() {
@@ -112,24 +180,50 @@ public class FunctionalIterator<T> implements Iterator<T> {
 
 	/**
 	 * Skips a given amount of objects at the start of a copy iterator.
-	 * 
+	 *
 	 * @param amount
 	 *            The amount of objects to skip
 	 * @return The copied iterator with the objects removed
+	 * @throws IteratorException
+	 *             If the iterator has fewer objects than the amount
 	 */
-	public FunctionalIterator<T> skip(int amount) {
-		FunctionalIterator<T> copy = copy();
-		for (int i = 0; i < amount; i++) {
-			checkEmpty(copy.list);
-			copy.list.remove(0);
+	public FunctionalIterator<T> skip(int amount) throws IteratorException {
+		if (source instanceof IndexedSource) {
+			IndexedSource<T> indexed = (IndexedSource<T>) source;
+			checkEmpty(amount > indexed.size());
+			return new FunctionalIterator<>(indexed.range(indexed.from + amount, indexed.to));
 		}
-		return copy;
+
+		Iterator<T> upstream = source.iterator();
+		return lazy(new Iterator<T>() {
+			private boolean skipped;
+
+			@Override
+			public boolean hasNext() {
+				if (!skipped) {
+					skipped = true;
+					for (int i = 0; i < amount; i++) {
+						checkEmpty(!upstream.hasNext());
+						upstream.next();
+					}
+				}
+				return upstream.hasNext();
+			}
+
+			@Override
+			public T next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return upstream.next();
+			}
+		});
 	}
 
 	/**
 	 * Skips the last object in a copy iterator. See
 	 * {@link cornflakes.lang.FunctionalIterator#before(int) before(int)}.
-	 * 
+	 *
 	 * @return The copied iterator with the last element removed
 	 */
 	public FunctionalIterator<T> before() {
@@ -138,32 +232,234 @@ public class FunctionalIterator<T> implements Iterator<T> {
 
 	/**
 	 * Skips a given amount of objects at the end of a copy iterator.
-	 * 
+	 *
 	 * @param amount
 	 *            The amount of objects to skip
 	 * @return The copied iterator with the objects removed
+	 * @throws IteratorException
+	 *             If the iterator has fewer objects than the amount
+	 */
+	public FunctionalIterator<T> before(int amount) throws IteratorException {
+		if (source instanceof IndexedSource) {
+			IndexedSource<T> indexed = (IndexedSource<T>) source;
+			checkEmpty(amount > indexed.size());
+			return new FunctionalIterator<>(indexed.range(indexed.from, indexed.to - amount));
+		}
+
+		// hold back the last elements until it is known that they are not the end
+		Iterator<T> upstream = source.iterator();
+		return lazy(new Iterator<T>() {
+			private final ArrayDeque<T> window = new ArrayDeque<>();
+
+			@Override
+			public boolean hasNext() {
+				while (window.size() <= amount && upstream.hasNext()) {
+					window.addLast(upstream.next());
+				}
+				checkEmpty(window.size() < amount);
+				return window.size() > amount;
+			}
+
+			@Override
+			public T next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return window.removeFirst();
+			}
+		});
+	}
+
+	/**
+	 * Takes a given amount of objects at the start of a copy iterator, and
+	 * skips the rest.
+	 *
+	 * @param amount
+	 *            The amount of objects to take
+	 * @return The copied iterator with at most the given amount of objects
 	 */
-	public FunctionalIterator<T> before(int amount) {
-		FunctionalIterator<T> copy = copy();
-		for (int i = 0; i < amount; i++) {
-			checkEmpty(copy.list);
-			copy.list.remove(copy.list.size() - 1);
+	public FunctionalIterator<T> take(int amount) {
+		if (source instanceof IndexedSource) {
+			IndexedSource<T> indexed = (IndexedSource<T>) source;
+			return new FunctionalIterator<>(
+					indexed.range(indexed.from, indexed.from + Math.max(0, Math.min(amount, indexed.size()))));
 		}
-		return copy;
+
+		Iterator<T> upstream = source.iterator();
+		return lazy(new Iterator<T>() {
+			private int taken;
+
+			@Override
+			public boolean hasNext() {
+				return taken < amount && upstream.hasNext();
+			}
+
+			@Override
+			public T next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				taken++;
+				return upstream.next();
+			}
+		});
 	}
 
 	/**
 	 * Creates a copy iterator and reverses all the items in it.
-	 * 
+	 *
 	 * @return The reversed copy iterator
 	 */
 	public FunctionalIterator<T> reverse() {
-		FunctionalIterator<T> copy = copy();
-		for (int i = copy.list.size() - 1; i >= 0; i--) {
-			checkEmpty(copy.list);
-			copy.list.remove(0);
+		IndexedSource<T> indexed = toIndexed();
+		return new FunctionalIterator<>(new ReversedSource<>(indexed.range(indexed.from, indexed.to)));
+	}
+
+	/**
+	 * Creates a copy iterator with a function applied to every item. Mapped
+	 * items are not stored, so the function is applied each time an item is
+	 * read, and it should not have side effects.
+	 *
+	 * @param mapper
+	 *            The function to apply
+	 * @return The mapped copy iterator
+	 */
+	public <R> FunctionalIterator<R> map(Function<? super T, ? extends R> mapper) {
+		if (source instanceof IndexedSource) {
+			IndexedSource<T> indexed = (IndexedSource<T>) source;
+			return new FunctionalIterator<>(new MappedSource<>(indexed, mapper, indexed.from, indexed.to));
 		}
-		return copy;
+
+		Iterator<T> upstream = source.iterator();
+		return lazy(new Iterator<R>() {
+			@Override
+			public boolean hasNext() {
+				return upstream.hasNext();
+			}
+
+			@Override
+			public R next() {
+				return mapper.apply(upstream.next());
+			}
+		});
+	}
+
+	/**
+	 * Creates a copy iterator with only the items which match a condition.
+	 *
+	 * @param condition
+	 *            The condition to test each item with
+	 * @return The filtered copy iterator
+	 */
+	public FunctionalIterator<T> filter(Predicate<? super T> condition) {
+		Iterator<T> upstream = source.iterator();
+		return lazy(new Iterator<T>() {
+			private T next;
+			private boolean ready;
+
+			@Override
+			public boolean hasNext() {
+				while (!ready && upstream.hasNext()) {
+					T value = upstream.next();
+					if (condition.test(value)) {
+						next = value;
+						ready = true;
+					}
+				}
+				return ready;
+			}
+
+			@Override
+			public T next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+
+				T value = next;
+				next = null;
+				ready = false;
+				return value;
+			}
+		});
+	}
+
+	/**
+	 * Creates a copy iterator in which every item is replaced by the items of
+	 * the iterator a function returns for it.
+	 *
+	 * @param mapper
+	 *            The function returning the items to replace each item with
+	 * @return The flattened copy iterator
+	 */
+	public <R> FunctionalIterator<R> flatMap(Function<? super T, ? extends Iterator<? extends R>> mapper) {
+		Iterator<T> upstream = source.iterator();
+		return lazy(new Iterator<R>() {
+			private Iterator<? extends R> current = Collections.emptyIterator();
+
+			@Override
+			public boolean hasNext() {
+				while (!current.hasNext()) {
+					if (!upstream.hasNext()) {
+						return false;
+					}
+					current = mapper.apply(upstream.next());
+				}
+				return true;
+			}
+
+			@Override
+			public R next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return current.next();
+			}
+		});
+	}
+
+	/**
+	 * Combines all the items in the iterator into a single value, starting from
+	 * an initial value.
+	 *
+	 * @param initial
+	 *            The initial value
+	 * @param function
+	 *            The function combining the value so far with the next item
+	 * @return The combined value
+	 */
+	public <R> R fold(R initial, BiFunction<R, ? super T, R> function) {
+		R result = initial;
+		if (source instanceof IndexedSource) {
+			IndexedSource<T> indexed = (IndexedSource<T>) source;
+			for (int i = 0; i < indexed.size(); i++) {
+				result = function.apply(result, indexed.get(i));
+			}
+		} else {
+			while (source.has(1)) {
+				result = function.apply(result, source.next());
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Combines all the items in the iterator into a single value, starting from
+	 * the first item.
+	 *
+	 * @param function
+	 *            The function combining the value so far with the next item
+	 * @return The combined value
+	 * @throws IteratorException
+	 *             If the iterator is empty
+	 */
+	public T reduce(BinaryOperator<T> function) throws IteratorException {
+		T first = first();
+		if (source instanceof IndexedSource) {
+			return skip().fold(first, function);
+		}
+
+		source.next();
+		return fold(first, function);
 	}
 
 	/**
@@ -172,9 +468,9 @@ public class FunctionalIterator<T> implements Iterator<T> {
 	 *             If the iterator is empty
 	 */
 	public T first() throws IteratorException {
-		checkEmpty(list);
+		checkEmpty(!source.has(1));
 
-		return list.get(0);
+		return source.get(0);
 	}
 
 	/**
@@ -183,25 +479,29 @@ public class FunctionalIterator<T> implements Iterator<T> {
 	 *             If the iterator is empty
 	 */
 	public T last() throws IteratorException {
-		checkEmpty(list);
+		IndexedSource<T> indexed = toIndexed();
+		checkEmpty(indexed.size() == 0);
 
-		return list.get(list.size() - 1);
+		return indexed.get(indexed.size() - 1);
 	}
 
 	/**
 	 * Returns an object at a given index in the iterator.
-	 * 
+	 *
 	 * @param idx
 	 *            The index to query
 	 * @return The object at the given index
 	 * @throws IteratorException
-	 *             If the index exceeds the iterator's size
+	 *             If the index is negative or exceeds the iterator's size
 	 */
 	public T at(int idx) throws IteratorException {
-		if (idx >= list.size()) {
+		if (idx < 0) {
+			throw new IteratorException("Index is negative");
+		}
+		if (!source.has(idx + 1)) {
 			throw new IteratorException("Index exceeds iterator size");
 		}
-		return list.get(idx);
+		return source.get(idx);
 	}
 
 	/**
@@ -209,7 +509,12 @@ public class FunctionalIterator<T> implements Iterator<T> {
 	 */
 	@SuppressWarnings("unchecked")
 	public T[] toArray() {
-		return (T[]) list.toArray(new Object[list.size()]);
+		IndexedSource<T> indexed = toIndexed();
+		Object[] array = new Object[indexed.size()];
+		for (int i = 0; i < array.length; i++) {
+			array[i] = indexed.get(i);
+		}
+		return (T[]) array;
 	}
 
 	/**
@@ -223,7 +528,15 @@ public class FunctionalIterator<T> implements Iterator<T> {
 	 * @return All the elements in the iterator into a stream
 	 */
 	public Stream<T> toStream() {
-		return Stream.of(this.toArray());
+		Spliterator<T> spliterator;
+		if (source instanceof IndexedSource) {
+			IndexedSource<T> indexed = (IndexedSource<T>) source;
+			spliterator = Spliterators.spliterator(indexed.range(indexed.from, indexed.to).iterator(),
+					indexed.size(), Spliterator.ORDERED);
+		} else {
+			spliterator = Spliterators.spliteratorUnknownSize(source.iterator(), Spliterator.ORDERED);
+		}
+		return StreamSupport.stream(spliterator, false);
 	}
 
 	/**
@@ -232,7 +545,7 @@ public class FunctionalIterator<T> implements Iterator<T> {
 	 * first iterator followed by the first item in the second iterator,
 	 * followed by the second item in the first iterator followed by the second
 	 * item in the second iterator, etc.
-	 * 
+	 *
 	 * @param other
 	 *            The iterator to zip the current iterator with
 	 * @return A new iterator, which contains the zip of the current iterator
@@ -242,41 +555,286 @@ public class FunctionalIterator<T> implements Iterator<T> {
 	 *             inequal length
 	 */
 	public FunctionalIterator<T> zip(FunctionalIterator<T> other) throws IteratorException {
-		checkEmpty(list);
-		other.checkEmpty(other.list);
+		checkEmpty(!source.has(1));
+		other.checkEmpty(!other.source.has(1));
 
-		if (this.getLength() != other.getLength()) {
-			throw new IteratorException("Cannot zip iterators of inequal length");
+		if (source instanceof IndexedSource && other.source instanceof IndexedSource) {
+			IndexedSource<T> left = (IndexedSource<T>) source;
+			IndexedSource<T> right = (IndexedSource<T>) other.source;
+			if (left.size() != right.size()) {
+				throw new IteratorException("Cannot zip iterators of inequal length");
+			}
+			return new FunctionalIterator<>(new ZippedSource<>(left.range(left.from, left.to),
+					right.range(right.from, right.to), 0, left.size() * 2));
 		}
-		FunctionalIterator<T> result = new FunctionalIterator<>();
-		while (hasNext()) {
-			result.add(next());
-			result.add(other.next());
-		}
-		return result;
+
+		Iterator<T> first = source.iterator();
+		Iterator<T> second = other.source.iterator();
+		return lazy(new Iterator<T>() {
+			private boolean turn;
+
+			@Override
+			public boolean hasNext() {
+				if (turn) {
+					return true;
+				}
+				if (first.hasNext() != second.hasNext()) {
+					throw new IteratorException("Cannot zip iterators of inequal length");
+				}
+				return first.hasNext();
+			}
+
+			@Override
+			public T next() {
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+
+				turn = !turn;
+				return turn ? first.next() : second.next();
+			}
+		});
 	}
 
 	/**
 	 * @return the amount of elements in the iterator
 	 */
 	public int getLength() {
-		return list.size();
+		return toIndexed().size();
 	}
 
 	@Override
 	public String toString() {
-		return list.toString();
+		IndexedSource<T> indexed = toIndexed();
+		StringBuilder builder = new StringBuilder("[");
+		for (int i = 0; i < indexed.size(); i++) {
+			if (i > 0) {
+				builder.append(", ");
+			}
+			builder.append(indexed.get(i));
+		}
+		return builder.append(']').toString();
 	}
 
-	private FunctionalIterator<T> copy() {
-		FunctionalIterator<T> iter = new FunctionalIterator<>();
-		iter.list = new ArrayList<>(this.list);
-		return iter;
+	private IndexedSource<T> toIndexed() {
+		if (!(source instanceof IndexedSource)) {
+			List<T> list = new ArrayList<>();
+			while (source.has(1)) {
+				list.add(source.next());
+			}
+			source = ListSource.of(list);
+		}
+		return (IndexedSource<T>) source;
 	}
 
-	private void checkEmpty(List<T> list) throws IteratorException {
-		if (list.size() == 0) {
+	private void checkEmpty(boolean empty) throws IteratorException {
+		if (empty) {
 			throw new IteratorException("Iterator is empty");
 		}
 	}
+
+	private abstract static class Source<T> {
+		abstract boolean has(int count);
+
+		abstract T next();
+
+		abstract T get(int index);
+
+		Iterator<T> iterator() {
+			return new Iterator<T>() {
+				@Override
+				public boolean hasNext() {
+					return has(1);
+				}
+
+				@Override
+				public T next() {
+					if (!has(1)) {
+						throw new NoSuchElementException();
+					}
+					return Source.this.next();
+				}
+			};
+		}
+	}
+
+	private static final class LazySource<T> extends Source<T> {
+		private Iterator<? extends T> iterator;
+		private final List<T> buffer = new ArrayList<>();
+		private int head;
+
+		LazySource(Iterator<? extends T> iterator) {
+			this.iterator = iterator;
+		}
+
+		@Override
+		boolean has(int count) {
+			if (count == 1 && head == buffer.size()) {
+				return iterator.hasNext();
+			}
+			while (buffer.size() - head < count) {
+				if (!iterator.hasNext()) {
+					return false;
+				}
+				buffer.add(iterator.next());
+			}
+			return true;
+		}
+
+		@Override
+		T next() {
+			if (head == buffer.size()) {
+				return iterator.next();
+			}
+
+			T value = buffer.get(head);
+			buffer.set(head++, null);
+			if (head == buffer.size()) {
+				buffer.clear();
+				head = 0;
+			}
+			return value;
+		}
+
+		@Override
+		T get(int index) {
+			while (buffer.size() - head <= index) {
+				buffer.add(iterator.next());
+			}
+			return buffer.get(head + index);
+		}
+	}
+
+	private abstract static class IndexedSource<T> extends Source<T> {
+		protected int from;
+		protected final int to;
+
+		IndexedSource(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		abstract T element(int index);
+
+		abstract IndexedSource<T> range(int from, int to);
+
+		int size() {
+			return to - from;
+		}
+
+		@Override
+		boolean has(int count) {
+			return to - from >= count;
+		}
+
+		@Override
+		T next() {
+			return element(from++);
+		}
+
+		@Override
+		T get(int index) {
+			return element(from + index);
+		}
+	}
+
+	private static final class ListSource<T> extends IndexedSource<T> {
+		private final List<T> list;
+
+		ListSource(List<T> list, int from, int to) {
+			super(from, to);
+			this.list = list;
+		}
+
+		static <T> ListSource<T> of(List<T> list) {
+			return new ListSource<>(list, 0, list.size());
+		}
+
+		ListSource<T> append(T obj) {
+			// the list is only ever appended to, so views ending at its end can share it
+			if (to == list.size()) {
+				list.add(obj);
+				return new ListSource<>(list, from, to + 1);
+			}
+
+			List<T> copy = new ArrayList<>(list.subList(from, to));
+			copy.add(obj);
+			return of(copy);
+		}
+
+		@Override
+		T element(int index) {
+			return list.get(index);
+		}
+
+		@Override
+		IndexedSource<T> range(int from, int to) {
+			return new ListSource<>(list, from, to);
+		}
+	}
+
+	private static final class MappedSource<S, T> extends IndexedSource<T> {
+		private final IndexedSource<S> inner;
+		private final Function<? super S, ? extends T> mapper;
+
+		MappedSource(IndexedSource<S> inner, Function<? super S, ? extends T> mapper, int from, int to) {
+			super(from, to);
+			this.inner = inner;
+			this.mapper = mapper;
+		}
+
+		@Override
+		T element(int index) {
+			return mapper.apply(inner.element(index));
+		}
+
+		@Override
+		IndexedSource<T> range(int from, int to) {
+			return new MappedSource<>(inner, mapper, from, to);
+		}
+	}
+
+	private static final class ReversedSource<T> extends IndexedSource<T> {
+		private final IndexedSource<T> inner;
+
+		ReversedSource(IndexedSource<T> inner) {
+			this(inner, 0, inner.size());
+		}
+
+		private ReversedSource(IndexedSource<T> inner, int from, int to) {
+			super(from, to);
+			this.inner = inner;
+		}
+
+		@Override
+		T element(int index) {
+			return inner.get(inner.size() - 1 - index);
+		}
+
+		@Override
+		IndexedSource<T> range(int from, int to) {
+			return new ReversedSource<>(inner, from, to);
+		}
+	}
+
+	private static final class ZippedSource<T> extends IndexedSource<T> {
+		private final IndexedSource<T> left;
+		private final IndexedSource<T> right;
+
+		ZippedSource(IndexedSource<T> left, IndexedSource<T> right, int from, int to) {
+			super(from, to);
+			this.left = left;
+			this.right = right;
+		}
+
+		@Override
+		T element(int index) {
+			return (index % 2 == 0 ? left : right).get(index / 2);
+		}
+
+		@Override
+		IndexedSource<T> range(int from, int to) {
+			return new ZippedSource<>(left, right, from, to);
+		}
+	}
 }
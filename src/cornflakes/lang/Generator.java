@@ -0,0 +1,221 @@
+package cornflakes.lang;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The <code>Generator</code> class is used internally by iterator functions.
+ * The body of an iterator function is compiled into a resumable
+ * {@link cornflakes.lang.Generator.Body Body}, which is advanced once per
+ * element, so elements are only produced once they are requested.
+ *
+ * Local variables of the body are saved into the generator when an element is
+ * yielded, and restored when the body is resumed.
+ */
+public final class Generator<T> implements Iterator<T> {
+	private static final int FINISHED = -1;
+
+	private final Body<T> body;
+	private int state;
+	private T value;
+	private boolean ready;
+	private Object[] objects = new Object[0];
+	private long[] values = new long[0];
+
+	/**
+	 * The resumable body of an iterator function.
+	 */
+	public interface Body<T> {
+		/**
+		 * Runs the body until the next element is yielded, or until it
+		 * completes.
+		 *
+		 * @param generator
+		 *            The generator holding the state of the body
+		 * @return <code>true</code> if an element was yielded,
+		 *         <code>false</code> if the body completed
+		 */
+		boolean advance(Generator<T> generator);
+	}
+
+	/**
+	 * Creates a new generator, given the body it runs.
+	 *
+	 * @param body
+	 *            The body
+	 */
+	public Generator(Body<T> body) {
+		this.body = body;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (!ready && state != FINISHED) {
+			ready = body.advance(this);
+			if (!ready) {
+				state = FINISHED;
+				objects = null;
+				values = null;
+			}
+		}
+		return ready;
+	}
+
+	@Override
+	public T next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		T next = value;
+		value = null;
+		ready = false;
+		return next;
+	}
+
+	/**
+	 * @return The point at which the body should resume, where 0 is the start
+	 *         of the body
+	 */
+	public int getState() {
+		return state;
+	}
+
+	/**
+	 * Sets the element produced by the body, and the point at which the body
+	 * resumes.
+	 *
+	 * @param value
+	 *            The yielded element
+	 * @param state
+	 *            The resume point
+	 */
+	public void suspend(T value, int state) {
+		this.value = value;
+		this.state = state;
+	}
+
+	/**
+	 * Restores a saved reference variable.
+	 *
+	 * @param slot
+	 *            The slot of the variable
+	 * @return The saved value
+	 */
+	public Object loadObject(int slot) {
+		return objects[slot];
+	}
+
+	/**
+	 * Saves a reference variable.
+	 *
+	 * @param slot
+	 *            The slot of the variable
+	 * @param value
+	 *            The value of the variable
+	 */
+	public void storeObject(int slot, Object value) {
+		if (slot >= objects.length) {
+			objects = Arrays.copyOf(objects, Math.max(slot + 1, objects.length * 2));
+		}
+		objects[slot] = value;
+	}
+
+	/**
+	 * Restores a saved <code>i32</code>, <code>bool</code>, <code>char</code>,
+	 * <code>i16</code> or <code>i8</code> variable.
+	 *
+	 * @param slot
+	 *            The slot of the variable
+	 * @return The saved value
+	 */
+	public int loadInt(int slot) {
+		return (int) values[slot];
+	}
+
+	/**
+	 * Saves an <code>i32</code>, <code>bool</code>, <code>char</code>,
+	 * <code>i16</code> or <code>i8</code> variable.
+	 *
+	 * @param slot
+	 *            The slot of the variable
+	 * @param value
+	 *            The value of the variable
+	 */
+	public void storeInt(int slot, int value) {
+		storeLong(slot, value);
+	}
+
+	/**
+	 * Restores a saved <code>i64</code> variable.
+	 *
+	 * @param slot
+	 *            The slot of the variable
+	 * @return The saved value
+	 */
+	public long loadLong(int slot) {
+		return values[slot];
+	}
+
+	/**
+	 * Saves an <code>i64</code> variable.
+	 *
+	 * @param slot
+	 *            The slot of the variable
+	 * @param value
+	 *            The value of the variable
+	 */
+	public void storeLong(int slot, long value) {
+		if (slot >= values.length) {
+			values = Arrays.copyOf(values, Math.max(slot + 1, values.length * 2));
+		}
+		values[slot] = value;
+	}
+
+	/**
+	 * Restores a saved <code>f32</code> variable.
+	 *
+	 * @param slot
+	 *            The slot of the variable
+	 * @return The saved value
+	 */
+	public float loadFloat(int slot) {
+		return Float.intBitsToFloat((int) values[slot]);
+	}
+
+	/**
+	 * Saves an <code>f32</code> variable.
+	 *
+	 * @param slot
+	 *            The slot of the variable
+	 * @param value
+	 *            The value of the variable
+	 */
+	public void storeFloat(int slot, float value) {
+		storeLong(slot, Float.floatToRawIntBits(value));
+	}
+
+	/**
+	 * Restores a saved <code>f64</code> variable.
+	 *
+	 * @param slot
+	 *            The slot of the variable
+	 * @return The saved value
+	 */
+	public double loadDouble(int slot) {
+		return Double.longBitsToDouble(values[slot]);
+	}
+
+	/**
+	 * Saves an <code>f64</code> variable.
+	 *
+	 * @param slot
+	 *            The slot of the variable
+	 * @param value
+	 *            The value of the variable
+	 */
+	public void storeDouble(int slot, double value) {
+		storeLong(slot, Double.doubleToRawLongBits(value));
+	}
+}
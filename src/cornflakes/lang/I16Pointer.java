@@ -38,6 +38,74 @@ public class I16Pointer extends Pointer {
 		return this.val;
 	}
 
+	/**
+	 * Returns the value which is a number of values after the one this pointer
+	 * points to. A heap-stored pointer points to a single value, so only index
+	 * 0 can be read, but a {@link cornflakes.lang.DirectI16Pointer direct
+	 * pointer} reads the values which follow it in its memory.
+	 * 
+	 * @param index
+	 *            The number of values
+	 * @return The value
+	 * @throws IndexOutOfBoundsException
+	 *             If the index is not 0
+	 */
+	public short _get_index_(int index) {
+		checkIndex(index);
+		return getValue();
+	}
+
+	/**
+	 * Sets the value which is a number of values after the one this pointer
+	 * points to. A heap-stored pointer points to a single value, so only index
+	 * 0 can be written.
+	 * 
+	 * @param index
+	 *            The number of values
+	 * @param val
+	 *            The new value
+	 * @throws IndexOutOfBoundsException
+	 *             If the index is not 0
+	 */
+	public void _set_index_(int index, short val) {
+		checkIndex(index);
+		setValue(val);
+	}
+
+	/**
+	 * Returns a pointer to the value which is a number of values after the one
+	 * this pointer points to. A heap-stored pointer can only be offset by 0,
+	 * which returns the pointer itself.
+	 * 
+	 * @param count
+	 *            The number of values
+	 * @return The new pointer
+	 * @throws IndexOutOfBoundsException
+	 *             If the count is not 0
+	 */
+	public I16Pointer offset(int count) {
+		checkIndex(count);
+		return this;
+	}
+
+	/**
+	 * The <code>+</code> operator, which
+	 * {@link cornflakes.lang.I16Pointer#offset(int) offsets} a pointer
+	 * forwards.
+	 */
+	public static I16Pointer _op_add(I16Pointer ptr, int count) {
+		return ptr.offset(count);
+	}
+
+	/**
+	 * The <code>-</code> operator, which
+	 * {@link cornflakes.lang.I16Pointer#offset(int) offsets} a pointer
+	 * backwards.
+	 */
+	public static I16Pointer _op_sub(I16Pointer ptr, int count) {
+		return ptr.offset(-count);
+	}
+
 	/**
 	 * @return the string representation of the value that the pointer points to
 	 */
@@ -52,13 +120,13 @@ public class I16Pointer extends Pointer {
 	}
 
 	/**
-	 * @return <code>true</code> if the other Object is an
-	 *         <code>I16Pointer</code> which points to the same value as this
-	 *         <code>I16Pointer</code>, otherwise <code>false</code>
+	 * @return <code>true</code> if the other Object is a pointer of the same
+	 *         class as this <code>I16Pointer</code> which points to the same
+	 *         value, otherwise <code>false</code>
 	 */
 	@Override
 	public boolean equals(Object obj) {
-		if (obj instanceof I16Pointer) {
+		if (obj != null && obj.getClass() == getClass()) {
 			I16Pointer ptr = (I16Pointer) obj;
 			return ptr.val == this.val;
 		}
@@ -38,29 +38,97 @@ public class I32Pointer extends Pointer {
 		return this.val;
 	}
 
+	/**
+	 * Returns the value which is a number of values after the one this pointer
+	 * points to. A heap-stored pointer points to a single value, so only index
+	 * 0 can be read, but a {@link cornflakes.lang.DirectI32Pointer direct
+	 * pointer} reads the values which follow it in its memory.
+	 * 
+	 * @param index
+	 *            The number of values
+	 * @return The value
+	 * @throws IndexOutOfBoundsException
+	 *             If the index is not 0
+	 */
+	public int _get_index_(int index) {
+		checkIndex(index);
+		return getValue();
+	}
+
+	/**
+	 * Sets the value which is a number of values after the one this pointer
+	 * points to. A heap-stored pointer points to a single value, so only index
+	 * 0 can be written.
+	 * 
+	 * @param index
+	 *            The number of values
+	 * @param val
+	 *            The new value
+	 * @throws IndexOutOfBoundsException
+	 *             If the index is not 0
+	 */
+	public void _set_index_(int index, int val) {
+		checkIndex(index);
+		setValue(val);
+	}
+
+	/**
+	 * Returns a pointer to the value which is a number of values after the one
+	 * this pointer points to. A heap-stored pointer can only be offset by 0,
+	 * which returns the pointer itself.
+	 * 
+	 * @param count
+	 *            The number of values
+	 * @return The new pointer
+	 * @throws IndexOutOfBoundsException
+	 *             If the count is not 0
+	 */
+	public I32Pointer offset(int count) {
+		checkIndex(count);
+		return this;
+	}
+
+	/**
+	 * The <code>+</code> operator, which
+	 * {@link cornflakes.lang.I32Pointer#offset(int) offsets} a pointer
+	 * forwards.
+	 */
+	public static I32Pointer _op_add(I32Pointer ptr, int count) {
+		return ptr.offset(count);
+	}
+
+	/**
+	 * The <code>-</code> operator, which
+	 * {@link cornflakes.lang.I32Pointer#offset(int) offsets} a pointer
+	 * backwards.
+	 */
+	public static I32Pointer _op_sub(I32Pointer ptr, int count) {
+		return ptr.offset(-count);
+	}
+
 	/**
 	 * @return the string representation of the value that the pointer points to
 	 */
 	@Override
 	public String toString() {
-		return String.valueOf(val);
+		return String.valueOf(getValue());
 	}
 
 	@Override
 	public int hashCode() {
-		return val;
+		return getValue();
 	}
 
 	/**
-	 * @return <code>true</code> if the other Object is an
-	 *         <code>I32Pointer</code> which points to the same value as this
-	 *         <code>I32Pointer</code>, otherwise <code>false</code>
+	 * @return <code>true</code> if the other Object is a pointer of the same
+	 *         class as this <code>I32Pointer</code> which points to the same
+	 *         value, otherwise <code>false</code>
 	 */
 	@Override
 	public boolean equals(Object obj) {
-		if (obj instanceof I32Pointer) {
+		if (obj != null && obj.getClass() == getClass()) {
 			I32Pointer ptr = (I32Pointer) obj;
-			return ptr.val == this.val;
+			return ptr.getValue() == getValue();
 		}
 		return false;
 	}
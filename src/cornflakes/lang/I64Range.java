@@ -0,0 +1,102 @@
+package cornflakes.lang;
+
+import java.util.Iterator;
+
+/**
+ * The <code>I64Range</code> class is an iterable <code>Range</code>
+ * implementation used for defining a range between two 64-bit integer values,
+ * including an optional increment size. When the iterator is created, a
+ * "pointer" value is initialized to the starting value. After each iteration of
+ * the range, the increment size is added to the current pointer. This process
+ * repeats until the pointer reaches or passes the end value, counting down
+ * instead when the increment is negative. Therefore, the end value is
+ * exclusive.
+ */
+public class I64Range extends Range implements Iterable<Long> {
+	private long start;
+	private long end;
+	private long increment;
+
+	/**
+	 * Creates a new <code>I64Range</code> with a default increment size of 1.
+	 * 
+	 * @param start
+	 *            The value at which the range starts at (inclusive)
+	 * @param end
+	 *            The value at which the range ends at (exclusive)
+	 */
+	public I64Range(long start, long end) {
+		this(start, end, 1);
+	}
+
+	/**
+	 * Creates a new <code>I64Range</code> with a specified increment size.
+	 * 
+	 * @param start
+	 *            The value at which the range starts at (inclusive)
+	 * @param end
+	 *            The value at which the range ends at (exclusive)
+	 * @param increment
+	 *            The value of which is added for each iteration of the range
+	 */
+	public I64Range(long start, long end, long increment) {
+		this.start = start;
+		this.end = end;
+		this.increment = increment;
+	}
+
+	/**
+	 * @return The value that the range started at.
+	 */
+	public long getStart() {
+		return this.start;
+	}
+
+	/**
+	 * @return The value that the range exclusively ends at. This value will not
+	 *         be included in the iteration.
+	 */
+	public long getEnd() {
+		return this.end;
+	}
+
+	/**
+	 * @return The amount that is added each iteration until the end it reached.
+	 */
+	public long getIncrement() {
+		return this.increment;
+	}
+
+	/**
+	 * @return A new iterator which iterates using the values assigned to this
+	 *         <code>Range</code> object.
+	 */
+	@Override
+	public Iterator<Long> iterator() {
+		return new I64RangeIterator(start, end, increment);
+	}
+
+	private static class I64RangeIterator implements Iterator<Long> {
+		private long max;
+		private long increment;
+		private long pointer;
+
+		public I64RangeIterator(long min, long max, long increment) {
+			this.max = max;
+			this.increment = increment;
+			this.pointer = min;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return increment < 0 ? pointer > max : pointer < max;
+		}
+
+		@Override
+		public Long next() {
+			long p = pointer;
+			pointer += increment;
+			return p;
+		}
+	}
+}
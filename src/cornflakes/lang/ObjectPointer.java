@@ -45,18 +45,18 @@ public class ObjectPointer extends Pointer {
 	 */
 	@Override
 	public String toString() {
-		return String.valueOf(val);
+		return String.valueOf(getValue());
 	}
 
 	@Override
 	public int hashCode() {
-		return val.hashCode();
+		return Objects.hashCode(getValue());
 	}
 
 	/**
-	 * @return <code>true</code> if the other Object is an
-	 *         <code>ObjectPointer</code> which points to the same value as this
-	 *         <code>ObjectPointer</code>, otherwise <code>false</code>. This is
+	 * @return <code>true</code> if the other Object is a pointer of the same
+	 *         class as this <code>ObjectPointer</code> which points to the
+	 *         same value, otherwise <code>false</code>. This is
 	 *         determined by calling
 	 *         {@link java.util.Objects#equals(Object, Object)
 	 *         Objects.equals(Object, Object)} on the reference values in each
@@ -64,9 +64,9 @@ public class ObjectPointer extends Pointer {
 	 */
 	@Override
 	public boolean equals(Object obj) {
-		if (obj instanceof ObjectPointer) {
+		if (obj != null && obj.getClass() == getClass()) {
 			ObjectPointer ptr = (ObjectPointer) obj;
-			return Objects.equals(val, ptr.val);
+			return Objects.equals(getValue(), ptr.getValue());
 		}
 		return false;
 	}
@@ -117,4 +117,10 @@ public abstract class Pointer implements Serializable {
 	public static Pointer from(Object val) {
 		return new ObjectPointer(val);
 	}
+
+	static void checkIndex(int index) {
+		if (index != 0) {
+			throw new IndexOutOfBoundsException("Index " + index + " is outside of a heap-stored pointer");
+		}
+	}
 }
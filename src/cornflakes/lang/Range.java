@@ -42,4 +42,40 @@ public abstract class Range {
 	public static F32Range from(float start, float end, float increment) {
 		return new F32Range(start, end, increment);
 	}
+
+	/**
+	 * Creates a new <code>I64Range</code>.
+	 * 
+	 * @see {@link cornflakes.lang.I64Range#I64Range(long, long)}
+	 */
+	public static I64Range from(long start, long end) {
+		return new I64Range(start, end);
+	}
+
+	/**
+	 * Creates a new <code>I64Range</code>.
+	 * 
+	 * @see {@link cornflakes.lang.I64Range#I64Range(long, long, long)}
+	 */
+	public static I64Range from(long start, long end, long increment) {
+		return new I64Range(start, end, increment);
+	}
+
+	/**
+	 * Creates a new <code>F64Range</code>.
+	 * 
+	 * @see {@link cornflakes.lang.F64Range#F64Range(double, double)}
+	 */
+	public static F64Range from(double start, double end) {
+		return new F64Range(start, end);
+	}
+
+	/**
+	 * Creates a new <code>F64Range</code>.
+	 * 
+	 * @see {@link cornflakes.lang.F64Range#F64Range(double, double, double)}
+	 */
+	public static F64Range from(double start, double end, double increment) {
+		return new F64Range(start, end, increment);
+	}
 }
@@ -0,0 +1,116 @@
+package cornflakes.lang;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The <code>StripedI64Pointer</code> class is an <code>i64*</code> for
+ * counters which many threads add to at once. Additions are spread over
+ * several cells, which are only summed when the value is read, so threads
+ * rarely contend with each other; reading the value is slower than with an
+ * {@link cornflakes.lang.AtomicI64Pointer AtomicI64Pointer}, and is not a
+ * snapshot if other threads add to the counter at the same time.
+ * <code>p += n</code> and <code>p -= n</code> compile to a single
+ * {@link cornflakes.lang.StripedI64Pointer#add(long) add}.
+ *
+ * Two striped pointers are only equal if they are the same pointer.
+ */
+public final class StripedI64Pointer extends I64Pointer {
+	private static final long serialVersionUID = -1190833174562218743L;
+
+	private final LongAdder adder = new LongAdder();
+
+	/**
+	 * Creates a new pointer with an initial value.
+	 * 
+	 * @param val
+	 *            The initial value for the pointer
+	 */
+	public StripedI64Pointer(long val) {
+		super(0);
+
+		adder.add(val);
+	}
+
+	/**
+	 * Sets the value that the pointer points to. This is not atomic, so
+	 * additions made by other threads at the same time may be lost.
+	 * 
+	 * @param val
+	 *            The new value
+	 */
+	@Override
+	public void setValue(long val) {
+		adder.reset();
+		adder.add(val);
+	}
+
+	/**
+	 * @return the sum of every addition to the pointer
+	 */
+	@Override
+	public long getValue() {
+		return adder.sum();
+	}
+
+	/**
+	 * Adds to the value that the pointer points to.
+	 * 
+	 * @param delta
+	 *            The amount to add
+	 */
+	public void add(long delta) {
+		adder.add(delta);
+	}
+
+	/**
+	 * Subtracts from the value that the pointer points to.
+	 * 
+	 * @param delta
+	 *            The amount to subtract
+	 */
+	public void subtract(long delta) {
+		adder.add(-delta);
+	}
+
+	/**
+	 * Adds 1 to the value that the pointer points to.
+	 */
+	public void increment() {
+		adder.increment();
+	}
+
+	/**
+	 * Subtracts 1 from the value that the pointer points to.
+	 */
+	public void decrement() {
+		adder.decrement();
+	}
+
+	/**
+	 * Returns the value that the pointer points to, and sets it to 0. This is
+	 * only atomic if no other threads add to the counter at the same time.
+	 * 
+	 * @return The value before it was reset
+	 */
+	public long sumThenReset() {
+		return adder.sumThenReset();
+	}
+
+	/**
+	 * @return the string representation of the value that the pointer points to
+	 */
+	@Override
+	public String toString() {
+		return String.valueOf(adder.sum());
+	}
+
+	@Override
+	public int hashCode() {
+		return System.identityHashCode(this);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return this == obj;
+	}
+}
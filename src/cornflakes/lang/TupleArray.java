@@ -0,0 +1,475 @@
+package cornflakes.lang;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A fixed-length array of tuples which all share one shape, stored in columns.
+ *
+ * Rather than holding a tuple object per element, a <code>TupleArray</code>
+ * holds one array per tuple element, so that a <code>(i64, f64)[]</code> of
+ * length <code>n</code> is backed by a <code>long[n]</code> and a
+ * <code>double[n]</code>. Primitive elements are stored unboxed, and reference
+ * elements are stored in an <code>Object[]</code>.
+ *
+ * The shape of a tuple array is described by one character per element, using
+ * the JVM type signature of primitive elements and <code>L</code> for
+ * reference elements; <code>(i64, f64)</code> has the shape <code>JD</code>.
+ *
+ * {@link cornflakes.lang.TupleArray#_get_index_(int) Indexing} a tuple array
+ * yields a row, a tuple which reads from and writes to the columns of the
+ * array, rather than a copy of its elements. Whole columns are exposed through
+ * {@link cornflakes.lang.TupleArray#getColumn(int) getColumn} and its typed
+ * variants for bulk operations.
+ *
+ * @author Lucas Baizer
+ */
+public final class TupleArray implements Serializable, Iterable<Tuple> {
+	private static final long serialVersionUID = -4313925017405237432L;
+
+	private final String shape;
+	private final int length;
+	private final Object[] columns;
+
+	/**
+	 * Creates a new <code>TupleArray</code> in which every element has its
+	 * default value.
+	 *
+	 * @param shape
+	 *            The shape of the tuples in the array
+	 * @param length
+	 *            The amount of tuples in the array
+	 * @throws IllegalArgumentException
+	 *             If the shape is empty or contains an invalid character
+	 * @throws NegativeArraySizeException
+	 *             If the length is negative
+	 */
+	public TupleArray(String shape, int length) {
+		if (shape.isEmpty()) {
+			throw new IllegalArgumentException("Empty tuple shape");
+		}
+
+		this.shape = shape;
+		this.length = length;
+		this.columns = new Object[shape.length()];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = allocate(shape.charAt(i), length);
+		}
+	}
+
+	private static Object allocate(char kind, int length) {
+		switch (kind) {
+			case 'I':
+				return new int[length];
+			case 'J':
+				return new long[length];
+			case 'S':
+				return new short[length];
+			case 'B':
+				return new byte[length];
+			case 'F':
+				return new float[length];
+			case 'D':
+				return new double[length];
+			case 'Z':
+				return new boolean[length];
+			case 'C':
+				return new char[length];
+			case 'L':
+				return new Object[length];
+			default:
+				throw new IllegalArgumentException("Invalid tuple shape character: " + kind);
+		}
+	}
+
+	/**
+	 * @return The shape of the tuples in the array
+	 */
+	public String getShape() {
+		return shape;
+	}
+
+	/**
+	 * @return The amount of tuples in the array
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * @return The amount of items in each tuple of the array
+	 */
+	public int getWidth() {
+		return columns.length;
+	}
+
+	/**
+	 * Returns the row at a given index. The row is a view of the array, so
+	 * setting its items sets the items of the array, and it reflects any later
+	 * changes to the array.
+	 *
+	 * @param index
+	 *            The index
+	 * @return The row
+	 * @throws IndexOutOfBoundsException
+	 *             If the index is negative or not less than the length of the
+	 *             array
+	 */
+	public Tuple _get_index_(int index) {
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException(String.valueOf(index));
+		}
+		return new Row(index);
+	}
+
+	/**
+	 * Copies the items of a tuple into the row at a given index.
+	 *
+	 * @param index
+	 *            The index
+	 * @param value
+	 *            The tuple, which must have the same shape as the array
+	 * @throws IndexOutOfBoundsException
+	 *             If the index is negative or not less than the length of the
+	 *             array
+	 */
+	public void _set_index_(int index, Tuple value) {
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException(String.valueOf(index));
+		}
+
+		for (int i = 0; i < columns.length; i++) {
+			switch (shape.charAt(i)) {
+				case 'I':
+					((int[]) columns[i])[index] = value.i32Item(i);
+					break;
+				case 'J':
+					((long[]) columns[i])[index] = value.i64Item(i);
+					break;
+				case 'S':
+					((short[]) columns[i])[index] = value.i16Item(i);
+					break;
+				case 'B':
+					((byte[]) columns[i])[index] = value.i8Item(i);
+					break;
+				case 'F':
+					((float[]) columns[i])[index] = value.f32Item(i);
+					break;
+				case 'D':
+					((double[]) columns[i])[index] = value.f64Item(i);
+					break;
+				case 'Z':
+					((boolean[]) columns[i])[index] = value.boolItem(i);
+					break;
+				case 'C':
+					((char[]) columns[i])[index] = value.charItem(i);
+					break;
+				default:
+					((Object[]) columns[i])[index] = value.item(i);
+					break;
+			}
+		}
+	}
+
+	/**
+	 * Returns the array which backs a column. Changes to the returned array
+	 * are changes to the tuple array.
+	 *
+	 * @param column
+	 *            The index of the item in each tuple
+	 * @return The primitive array, or the <code>Object[]</code>, holding the
+	 *         column
+	 */
+	public Object getColumn(int column) {
+		return columns[column];
+	}
+
+	/**
+	 * @param column
+	 *            The index of the item in each tuple
+	 * @return The array which backs an i32 column
+	 * @throws ClassCastException
+	 *             If the column is not an i32 column
+	 */
+	public int[] i32Column(int column) {
+		return (int[]) columns[column];
+	}
+
+	/**
+	 * @param column
+	 *            The index of the item in each tuple
+	 * @return The array which backs an i64 column
+	 * @throws ClassCastException
+	 *             If the column is not an i64 column
+	 */
+	public long[] i64Column(int column) {
+		return (long[]) columns[column];
+	}
+
+	/**
+	 * @param column
+	 *            The index of the item in each tuple
+	 * @return The array which backs an i16 column
+	 * @throws ClassCastException
+	 *             If the column is not an i16 column
+	 */
+	public short[] i16Column(int column) {
+		return (short[]) columns[column];
+	}
+
+	/**
+	 * @param column
+	 *            The index of the item in each tuple
+	 * @return The array which backs an i8 column
+	 * @throws ClassCastException
+	 *             If the column is not an i8 column
+	 */
+	public byte[] i8Column(int column) {
+		return (byte[]) columns[column];
+	}
+
+	/**
+	 * @param column
+	 *            The index of the item in each tuple
+	 * @return The array which backs an f32 column
+	 * @throws ClassCastException
+	 *             If the column is not an f32 column
+	 */
+	public float[] f32Column(int column) {
+		return (float[]) columns[column];
+	}
+
+	/**
+	 * @param column
+	 *            The index of the item in each tuple
+	 * @return The array which backs an f64 column
+	 * @throws ClassCastException
+	 *             If the column is not an f64 column
+	 */
+	public double[] f64Column(int column) {
+		return (double[]) columns[column];
+	}
+
+	/**
+	 * @param column
+	 *            The index of the item in each tuple
+	 * @return The array which backs a bool column
+	 * @throws ClassCastException
+	 *             If the column is not a bool column
+	 */
+	public boolean[] boolColumn(int column) {
+		return (boolean[]) columns[column];
+	}
+
+	/**
+	 * @param column
+	 *            The index of the item in each tuple
+	 * @return The array which backs a char column
+	 * @throws ClassCastException
+	 *             If the column is not a char column
+	 */
+	public char[] charColumn(int column) {
+		return (char[]) columns[column];
+	}
+
+	/**
+	 * @param column
+	 *            The index of the item in each tuple
+	 * @return The array which backs an object column
+	 * @throws ClassCastException
+	 *             If the column is not an object column
+	 */
+	public Object[] objectColumn(int column) {
+		return (Object[]) columns[column];
+	}
+
+	/**
+	 * Copies a range of rows into another tuple array of the same shape, one
+	 * column at a time.
+	 *
+	 * @param from
+	 *            The index of the first row to copy
+	 * @param dest
+	 *            The tuple array to copy into, which may be this array
+	 * @param destFrom
+	 *            The index of the first row to copy into
+	 * @param count
+	 *            The amount of rows to copy
+	 * @throws IllegalArgumentException
+	 *             If the shape of the given tuple array is different
+	 * @throws IndexOutOfBoundsException
+	 *             If either range is out of bounds
+	 */
+	public void copy(int from, TupleArray dest, int destFrom, int count) {
+		if (!shape.equals(dest.shape)) {
+			throw new IllegalArgumentException("Cannot copy " + shape + " tuples into " + dest.shape + " tuples");
+		}
+		for (int i = 0; i < columns.length; i++) {
+			System.arraycopy(columns[i], from, dest.columns[i], destFrom, count);
+		}
+	}
+
+	/**
+	 * @return An iterator over the rows of the array
+	 */
+	@Override
+	public Iterator<Tuple> iterator() {
+		return new Iterator<Tuple>() {
+			private int index;
+
+			@Override
+			public boolean hasNext() {
+				return index < length;
+			}
+
+			@Override
+			public Tuple next() {
+				if (index >= length) {
+					throw new NoSuchElementException();
+				}
+				return new Row(index++);
+			}
+		};
+	}
+
+	/**
+	 * @return A string representation of the rows in the array, surrounded by
+	 *         brackets and separated by commas
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("[");
+		for (int i = 0; i < length; i++) {
+			if (i > 0) {
+				builder.append(", ");
+			}
+			builder.append(new Row(i));
+		}
+		return builder.append(']').toString();
+	}
+
+	private final class Row extends Tuple {
+		private static final long serialVersionUID = 5309419787634398402L;
+
+		private final int index;
+
+		private Row(int index) {
+			this.index = index;
+		}
+
+		@Override
+		public int getLength() {
+			return columns.length;
+		}
+
+		@Override
+		public Object item(int index) {
+			switch (shape.charAt(index)) {
+				case 'I':
+					return i32Item(index);
+				case 'J':
+					return i64Item(index);
+				case 'S':
+					return i16Item(index);
+				case 'B':
+					return i8Item(index);
+				case 'F':
+					return f32Item(index);
+				case 'D':
+					return f64Item(index);
+				case 'Z':
+					return boolItem(index);
+				case 'C':
+					return charItem(index);
+				default:
+					return ((Object[]) columns[index])[this.index];
+			}
+		}
+
+		@Override
+		public int i32Item(int index) {
+			return ((int[]) columns[index])[this.index];
+		}
+
+		@Override
+		public long i64Item(int index) {
+			return ((long[]) columns[index])[this.index];
+		}
+
+		@Override
+		public short i16Item(int index) {
+			return ((short[]) columns[index])[this.index];
+		}
+
+		@Override
+		public byte i8Item(int index) {
+			return ((byte[]) columns[index])[this.index];
+		}
+
+		@Override
+		public float f32Item(int index) {
+			return ((float[]) columns[index])[this.index];
+		}
+
+		@Override
+		public double f64Item(int index) {
+			return ((double[]) columns[index])[this.index];
+		}
+
+		@Override
+		public boolean boolItem(int index) {
+			return ((boolean[]) columns[index])[this.index];
+		}
+
+		@Override
+		public char charItem(int index) {
+			return ((char[]) columns[index])[this.index];
+		}
+
+		@Override
+		public void item(int index, Object item) {
+			((Object[]) columns[index])[this.index] = item;
+		}
+
+		@Override
+		public void item(int index, int item) {
+			((int[]) columns[index])[this.index] = item;
+		}
+
+		@Override
+		public void item(int index, long item) {
+			((long[]) columns[index])[this.index] = item;
+		}
+
+		@Override
+		public void item(int index, short item) {
+			((short[]) columns[index])[this.index] = item;
+		}
+
+		@Override
+		public void item(int index, byte item) {
+			((byte[]) columns[index])[this.index] = item;
+		}
+
+		@Override
+		public void item(int index, float item) {
+			((float[]) columns[index])[this.index] = item;
+		}
+
+		@Override
+		public void item(int index, double item) {
+			((double[]) columns[index])[this.index] = item;
+		}
+
+		@Override
+		public void item(int index, boolean item) {
+			((boolean[]) columns[index])[this.index] = item;
+		}
+
+		@Override
+		public void item(int index, char item) {
+			((char[]) columns[index])[this.index] = item;
+		}
+	}
+}
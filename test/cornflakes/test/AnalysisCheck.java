@@ -0,0 +1,53 @@
+package cornflakes.test;
+
+import java.util.Collections;
+import java.util.Set;
+
+import cornflakes.compiler.Compiler;
+import cornflakes.compiler.EscapeAnalysis;
+import cornflakes.compiler.StringAccumulation;
+import cornflakes.compiler.SyntaxNode;
+
+/**
+ * Checks the source analyses which lambdas defeat, since the bodies of
+ * lambdas cannot yet be compiled and run in a test case.
+ */
+public class AnalysisCheck {
+	public static void main(String[] args) {
+		expect(Collections.singleton("p"), getScalarPointers("var x: i32 = 1", "var p = &x", "*p = 2"));
+		expect(Collections.emptySet(), getScalarPointers("var x: i32 = 1", "var p = &x", "var f = () => *p"));
+		expect(Collections.singleton("p"), getScalarPointers("var x: i32 = 1", "var p = &x", "var s = \"() => p\""));
+
+		expect(true, isAccumulator("s", "s += \"b\""));
+		expect(false, isAccumulator("s", "s += \"b\"", "var f = () => s"));
+		expect(false, isAccumulator("s", "s += \"b\"", "yield s"));
+		expect(true, isAccumulator("s", "s += \"a => b\""));
+
+		expect("island", StringAccumulation.getAppended("s += island", "s"));
+		expect("this", StringAccumulation.getAppended("s = s + this", "s"));
+		expect(null, StringAccumulation.getAppended("s += x is string", "s"));
+	}
+
+	private static Set<String> getScalarPointers(String... body) {
+		return new EscapeAnalysis(parse("func f() {", body).getChildren()).getScalarPointers();
+	}
+
+	private static boolean isAccumulator(String name, String... body) {
+		return new StringAccumulation(parse("while true {", body)).isAccumulator(name);
+	}
+
+	private static SyntaxNode parse(String header, String... body) {
+		StringBuilder source = new StringBuilder(header).append('\n');
+		for (String line : body) {
+			source.append('\t').append(line).append('\n');
+		}
+		return Compiler.parse(source.append("}\n").toString()).getChildren()[0];
+	}
+
+	private static void expect(Object expected, Object actual) {
+		if (expected == null ? actual != null : !expected.equals(actual)) {
+			System.out.println("expected " + expected + ", got " + actual);
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,156 @@
+package cornflakes.test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compiles and runs every case under a cases directory. A case is a
+ * directory holding a src directory of .cf files and either an
+ * expected.txt with the output of running test.Test, or an error.txt with
+ * text that the compile error must contain. Each line of an optional
+ * options file is a set of compiler flags to run the case with; without
+ * one, the case is compiled both plainly and with -optimize. Compiled
+ * classes always run with -Xverify:all.
+ */
+public class CaseRunner {
+	private final File cases;
+	private final String classPath;
+	private final File work;
+
+	public static void main(String[] args) throws Exception {
+		if (args.length != 3) {
+			System.err.println("Usage: CaseRunner <cases> <compiler classpath> <work directory>");
+			System.exit(2);
+		}
+
+		List<String> failures = new CaseRunner(new File(args[0]), args[1], new File(args[2])).run();
+		for (String failure : failures) {
+			System.out.println(failure);
+			System.out.println();
+		}
+		System.out.println(failures.isEmpty() ? "All cases passed." : failures.size() + " case runs failed.");
+		System.exit(failures.isEmpty() ? 0 : 1);
+	}
+
+	public CaseRunner(File cases, String classPath, File work) {
+		this.cases = cases;
+		this.classPath = classPath;
+		this.work = work;
+	}
+
+	public List<String> run() throws IOException, InterruptedException {
+		File[] dirs = cases.listFiles(File::isDirectory);
+		if (dirs == null) {
+			throw new IOException("Cases directory not found: " + cases);
+		}
+		Arrays.sort(dirs);
+
+		List<String> failures = new ArrayList<>();
+		for (File dir : dirs) {
+			for (String options : getOptions(dir)) {
+				String name = dir.getName() + (options.isEmpty() ? "" : " [" + options + "]");
+				String failure = runCase(dir, options.isEmpty() ? new String[0] : options.split("\\s+"));
+				System.out.println((failure == null ? "PASS " : "FAIL ") + name);
+				if (failure != null) {
+					failures.add(name + ":\n" + failure);
+				}
+			}
+		}
+		return failures;
+	}
+
+	private String runCase(File dir, String[] options) throws IOException, InterruptedException {
+		File out = new File(work, dir.getName());
+		delete(out);
+		out.mkdirs();
+
+		List<String> compile = new ArrayList<>(Arrays.asList(java(), "-cp", classPath,
+				"cornflakes.compiler.MainCompiler"));
+		compile.addAll(Arrays.asList(options));
+		compile.add(new File(dir, "src").getAbsolutePath());
+		Result compiled = exec(out, compile);
+
+		File error = new File(dir, "error.txt");
+		if (error.exists()) {
+			String expected = read(error).trim();
+			if (compiled.code == 0 || !compiled.output.contains(expected)) {
+				return "expected a compile error containing '" + expected + "', got:\n" + compiled.output;
+			}
+			return null;
+		}
+		if (compiled.code != 0) {
+			return "compilation failed:\n" + compiled.output;
+		}
+
+		Result ran = exec(out, Arrays.asList(java(), "-Xverify:all", "-cp",
+				new File(out, "bin").getAbsolutePath() + File.pathSeparator + classPath, "test.Test"));
+		String expected = read(new File(dir, "expected.txt"));
+		if (ran.code != 0 || !ran.output.equals(expected)) {
+			return "expected:\n" + expected + "got (exit " + ran.code + "):\n" + ran.output;
+		}
+		return null;
+	}
+
+	private static List<String> getOptions(File dir) throws IOException {
+		File file = new File(dir, "options");
+		if (!file.exists()) {
+			return Arrays.asList("", "-optimize");
+		}
+
+		List<String> options = new ArrayList<>();
+		for (String line : Files.readAllLines(file.toPath())) {
+			options.add(line.trim());
+		}
+		return options;
+	}
+
+	static Result exec(File dir, List<String> command) throws IOException, InterruptedException {
+		Process process = new ProcessBuilder(command).directory(dir).redirectErrorStream(true).start();
+		byte[] output = readFully(process.getInputStream());
+		return new Result(process.waitFor(), new String(output).replace("\r\n", "\n"));
+	}
+
+	static byte[] readFully(InputStream in) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buffer = new byte[8192];
+		int read;
+		while ((read = in.read(buffer)) != -1) {
+			bytes.write(buffer, 0, read);
+		}
+		return bytes.toByteArray();
+	}
+
+	static String java() {
+		return new File(System.getProperty("java.home"), "bin" + File.separator + "java").getPath();
+	}
+
+	static String read(File file) throws IOException {
+		return new String(Files.readAllBytes(file.toPath())).replace("\r\n", "\n");
+	}
+
+	static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+	static class Result {
+		final int code;
+		final String output;
+
+		Result(int code, String output) {
+			this.code = code;
+			this.output = output;
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package cornflakes.test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.InvokeDynamicInsnNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import cornflakes.compiler.CompilationContext;
+import cornflakes.compiler.MainCompiler;
+
+/**
+ * Checks that a concatenation chain is built by one StringBuilder when
+ * targeting Java 8 and by one StringConcatFactory call site when targeting
+ * Java 9, and that both print the same text.
+ */
+public class ConcatCheck implements Opcodes {
+	private static final String SOURCE = "package test\npublic class Test\n\n"
+			+ "public static func main(args: string[]) {\n"
+			+ "\tvar name: string = \"cf\"\n\tvar count: i32 = 3\n\tvar ratio: f64 = 0.5d\n"
+			+ "\tvar text: string = \"<\" + name + \"|\" + count + \"|\" + ratio + \">\"\n"
+			+ "\tprintln!(text)\n}\n";
+
+	public static void main(String[] args) throws Exception {
+		File work = new File(args[1]);
+		CaseRunner.delete(work);
+
+		MethodNode eight = compile(args[0], work, V1_8);
+		expect(1, count(eight, "java/lang/StringBuilder.<init>"));
+		expect(0, count(eight, "cornflakes/lang/StringUtility.combine"));
+		expect(0, count(eight, "makeConcatWithConstants"));
+
+		MethodNode nine = compile(args[0], work, V9);
+		expect(1, count(nine, "makeConcatWithConstants"));
+		expect(0, count(nine, "java/lang/StringBuilder.<init>"));
+		expect(0, count(nine, "cornflakes/lang/StringUtility.combine"));
+	}
+
+	private static MethodNode compile(String classpath, File work, int target) throws Exception {
+		File dir = new File(work, "target" + (target - V1_8 + 8));
+		File src = new File(dir, "src");
+		src.mkdirs();
+		Files.write(new File(src, "Test.cf").toPath(), SOURCE.getBytes());
+
+		File bin = new File(dir, "bin");
+		CompilationContext context = new CompilationContext();
+		context.setTarget(target);
+		MainCompiler.compile(context, src.getPath(), bin.getPath(), false);
+
+		CaseRunner.Result result = CaseRunner.exec(bin, Arrays.asList(CaseRunner.java(), "-Xverify:all", "-cp",
+				bin.getAbsolutePath() + File.pathSeparator + classpath, "test.Test"));
+		if (result.code != 0) {
+			fail("the program failed:\n" + result.output);
+		}
+		expect("<cf|3|0.5>", result.output.trim());
+
+		ClassNode node = new ClassNode();
+		new ClassReader(Files.readAllBytes(new File(bin, "test/Test.class").toPath())).accept(node, 0);
+		expect(target, node.version);
+		for (MethodNode method : node.methods) {
+			if (method.name.equals("main")) {
+				return method;
+			}
+		}
+		throw new NoSuchMethodException("main");
+	}
+
+	private static int count(MethodNode method, String call) {
+		int count = 0;
+		for (AbstractInsnNode insn : method.instructions.toArray()) {
+			String name = null;
+			if (insn instanceof MethodInsnNode) {
+				name = ((MethodInsnNode) insn).owner + "." + ((MethodInsnNode) insn).name;
+			} else if (insn instanceof InvokeDynamicInsnNode) {
+				name = ((InvokeDynamicInsnNode) insn).name;
+			}
+			if (call.equals(name)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static void expect(Object expected, Object actual) {
+		if (!expected.equals(actual)) {
+			fail("expected " + expected + ", got " + actual);
+		}
+	}
+
+	private static void fail(String message) {
+		System.out.println(message);
+		System.exit(1);
+	}
+}
@@ -0,0 +1,82 @@
+package cornflakes.test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import cornflakes.compiler.CompilationContext;
+import cornflakes.compiler.MainCompiler;
+
+/**
+ * Checks that compiler state is only reachable from inside a compilation,
+ * and that compilations running side by side on separate threads keep their
+ * state, such as the tuple shapes they use, apart.
+ */
+public class ContextCheck {
+	public static void main(String[] args) throws Exception {
+		File work = new File(args[1]);
+		CaseRunner.delete(work);
+
+		try {
+			CompilationContext.get();
+			fail("a context was available outside of a compilation");
+		} catch (IllegalStateException expected) {
+		}
+
+		File first = write(work, "first", "var t = (x, \"a\")");
+		File second = write(work, "second", "var t = (2.5d, true)");
+
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		try {
+			List<Future<?>> compiling = new ArrayList<>();
+			for (File dir : new File[] { first, second }) {
+				compiling.add(pool.submit(() -> {
+					CompilationContext context = new CompilationContext();
+					MainCompiler.compile(context, new File(dir, "src").getPath(), new File(dir, "bin").getPath(),
+							false);
+					return null;
+				}));
+			}
+			for (Future<?> future : compiling) {
+				future.get();
+			}
+		} finally {
+			pool.shutdown();
+		}
+
+		expectTuples(first, "TupleIL.class");
+		expectTuples(second, "TupleDZ.class");
+	}
+
+	private static File write(File work, String name, String tuple) throws Exception {
+		File dir = new File(work, name);
+		File src = new File(dir, "src");
+		src.mkdirs();
+		String source = "package test\npublic class Test\n\npublic static func main(args: string[]) {\n\tvar x: i32 = 1\n\t"
+				+ tuple + "\n\tprintln!(t)\n}\n";
+		Files.write(new File(src, "Test.cf").toPath(), source.getBytes());
+		return dir;
+	}
+
+	private static void expectTuples(File dir, String... expected) {
+		String[] tuples = new File(dir, "bin/cornflakes/lang/tuple").list();
+		if (tuples == null) {
+			tuples = new String[0];
+		}
+		Arrays.sort(tuples);
+		if (!Arrays.equals(tuples, expected)) {
+			fail(dir.getName() + " wrote tuple classes " + Arrays.toString(tuples) + ", expected "
+					+ Arrays.toString(expected));
+		}
+	}
+
+	private static void fail(String message) {
+		System.out.println(message);
+		System.exit(1);
+	}
+}
@@ -0,0 +1,93 @@
+package cornflakes.test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks the daemon protocol over standard input: builds are written next to
+ * the source directory rather than the daemon's working directory, and
+ * answer with the number of classes recompiled.
+ */
+public class DaemonCheck {
+	public static void main(String[] args) throws Exception {
+		File work = new File(args[1]);
+		CaseRunner.delete(work);
+		File cwd = new File(work, "cwd");
+		File first = new File(work, "first");
+		File second = new File(work, "second");
+		cwd.mkdirs();
+		write(first, "Test", "one");
+		write(first, "Other", "two");
+		write(second, "Test", "three");
+
+		Process daemon = new ProcessBuilder(CaseRunner.java(), "-cp", args[0], "cornflakes.compiler.MainCompiler",
+				"-daemon", new File(first, "src").getAbsolutePath()).directory(cwd).redirectErrorStream(true)
+						.start();
+		try {
+			BufferedReader in = new BufferedReader(
+					new InputStreamReader(daemon.getInputStream(), StandardCharsets.UTF_8));
+			PrintStream out = new PrintStream(daemon.getOutputStream(), true, "UTF-8");
+
+			expectAnswer("ok 2 ", in.readLine());
+			expectClass(first, "Test");
+
+			out.println("compile");
+			expectAnswer("ok 0 ", in.readLine());
+
+			write(first, "Other", "changed");
+			out.println("compile " + new File(first, "src").getAbsolutePath());
+			expectAnswer("ok 1 ", in.readLine());
+
+			out.println("compile " + new File(second, "src").getAbsolutePath());
+			expectAnswer("ok 1 ", in.readLine());
+			expectClass(second, "Test");
+
+			out.println("compile " + new File(work, "missing").getAbsolutePath());
+			expectAnswer("error ", in.readLine());
+
+			out.println("rebuild");
+			expectAnswer("error Unknown command: rebuild", in.readLine());
+
+			out.println("quit");
+			expectAnswer("ok", in.readLine());
+			if (!daemon.waitFor(30, TimeUnit.SECONDS)) {
+				fail("the daemon did not stop after quit");
+			}
+		} finally {
+			daemon.destroy();
+		}
+
+		if (new File(cwd, "bin").exists()) {
+			fail("the daemon wrote classes into its working directory");
+		}
+	}
+
+	private static void write(File project, String name, String text) throws Exception {
+		File src = new File(project, "src");
+		src.mkdirs();
+		Files.write(new File(src, name + ".cf").toPath(), ("package test\npublic class " + name + "\n\n"
+				+ "public static func main(args: string[]) {\n\tprintln!(\"" + text + "\")\n}\n").getBytes());
+	}
+
+	private static void expectClass(File project, String name) {
+		if (!new File(project, "bin/test/" + name + ".class").isFile()) {
+			fail(name + " was not written to " + new File(project, "bin"));
+		}
+	}
+
+	private static void expectAnswer(String prefix, String answer) {
+		if (answer == null || !answer.startsWith(prefix)) {
+			fail("expected an answer starting with '" + prefix + "', got " + answer);
+		}
+	}
+
+	private static void fail(String message) {
+		System.out.println(message);
+		System.exit(1);
+	}
+}
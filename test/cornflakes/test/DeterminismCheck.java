@@ -0,0 +1,110 @@
+package cornflakes.test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import cornflakes.compiler.CompilationContext;
+import cornflakes.compiler.MainCompiler;
+
+/**
+ * Checks that compiling function bodies in parallel writes exactly the class
+ * files of a build on a single thread, with and without optimization.
+ */
+public class DeterminismCheck {
+	private static final int CLASSES = 4;
+	private static final int FUNCTIONS = 12;
+
+	public static void main(String[] args) throws Exception {
+		File work = new File(args[1]);
+		CaseRunner.delete(work);
+		File src = new File(work, "src");
+		src.mkdirs();
+		for (int i = 0; i < CLASSES; i++) {
+			Files.write(new File(src, "Part" + letter(i) + ".cf").toPath(), source(i).getBytes());
+		}
+
+		for (boolean optimize : new boolean[] { false, true }) {
+			File expected = compile(work, src, optimize, 1, "sequential");
+			for (int run = 0; run < 3; run++) {
+				File actual = compile(work, src, optimize, 8, "parallel" + run);
+				compare(expected, actual, optimize);
+			}
+		}
+	}
+
+	private static String source(int index) {
+		StringBuilder source = new StringBuilder("package test\npublic class Part" + letter(index) + "\n\n");
+		source.append("public static var base: i32 = " + index + " + 1\n\n");
+		source.append("public var scale: i32\n\n");
+		source.append("public constructor(scale: i32) {\n\tsuper()\n\tthis.scale = scale\n}\n\n");
+		for (int i = 0; i < FUNCTIONS; i++) {
+			source.append("public static func f" + letter(i).toLowerCase() + "(x: i32): i32 {\n");
+			source.append("\tvar total: i32 = x\n");
+			source.append("\tvar i: i32 = 0\n");
+			source.append("\twhile i < " + (i + 2) + " {\n\t\ttotal = total + i * base\n\t\ti = i + 1\n\t}\n");
+			source.append("\tvar s: string = \"\"\n\ts += \"f" + i + "\"\n");
+			source.append("\tvar g = () => total\n");
+			source.append("\treturn total\n}\n\n");
+			source.append("public static func f" + letter(i).toLowerCase() + "(x: string): string {\n");
+			source.append("\tvar h = () => x\n");
+			source.append("\treturn x + \"" + i + "\"\n}\n\n");
+		}
+		source.append("public static iter steps(n: i32) {\n\tvar i: i32 = 0\n\twhile i < n {\n\t\tyield i\n\t\ti = i + 1\n\t}\n}\n");
+		return source.toString();
+	}
+
+	private static String letter(int index) {
+		return String.valueOf((char) ('A' + index));
+	}
+
+	private static File compile(File work, File src, boolean optimize, int threads, String name) throws Exception {
+		File bin = new File(work, (optimize ? "optimized-" : "") + name);
+		CompilationContext context = new CompilationContext();
+		context.setOptimize(optimize);
+		context.setParallelism(threads);
+		MainCompiler.compile(context, src.getPath(), bin.getPath(), false);
+		return bin;
+	}
+
+	private static void compare(File expected, File actual, boolean optimize) throws Exception {
+		List<String> expectedFiles = list(expected, "");
+		List<String> actualFiles = list(actual, "");
+		if (!expectedFiles.equals(actualFiles)) {
+			fail("a parallel build wrote " + actualFiles + ", a sequential one " + expectedFiles);
+		}
+
+		for (String file : expectedFiles) {
+			byte[] a = Files.readAllBytes(new File(expected, file).toPath());
+			byte[] b = Files.readAllBytes(new File(actual, file).toPath());
+			if (!Arrays.equals(a, b)) {
+				fail(file + " differs between a parallel and a sequential build"
+						+ (optimize ? " with -optimize" : ""));
+			}
+		}
+	}
+
+	private static List<String> list(File dir, String prefix) {
+		List<String> files = new ArrayList<>();
+		String[] names = dir.list();
+		Arrays.sort(names);
+		for (String name : names) {
+			File file = new File(dir, name);
+			if (file.isDirectory()) {
+				if (!name.startsWith(".")) {
+					files.addAll(list(file, prefix + name + "/"));
+				}
+			} else if (name.endsWith(".class")) {
+				files.add(prefix + name);
+			}
+		}
+		return files;
+	}
+
+	private static void fail(String message) {
+		System.out.println(message);
+		System.exit(1);
+	}
+}
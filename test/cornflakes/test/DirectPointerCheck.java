@@ -0,0 +1,81 @@
+package cornflakes.test;
+
+import cornflakes.lang.Arena;
+import cornflakes.lang.DirectI32Pointer;
+import cornflakes.lang.DirectI64Pointer;
+import cornflakes.lang.I32Pointer;
+
+/**
+ * Checks that indices whose address does not fit in an <code>i32</code> are
+ * rejected rather than wrapping around into the memory, that copies outside
+ * of the memory throw <code>IndexOutOfBoundsException</code>, and that a
+ * direct pointer indexed as an <code>i32*</code> reads its memory.
+ */
+public class DirectPointerCheck {
+	public static void main(String[] args) {
+		Arena.scope(arena -> {
+			DirectI64Pointer ptr = arena.allocateI64(4);
+			ptr._set_index_(1, 7);
+			expect(7L, ptr._get_index_(1));
+			expect(7L, ptr.offset(1).getValue());
+
+			// 8 * 536870913 wraps around to 8, the address of index 1
+			expectOutOfBounds(() -> ptr._get_index_(536870913));
+			expectOutOfBounds(() -> ptr._set_index_(536870913, 1));
+			expectOutOfBounds(() -> ptr.offset(Integer.MIN_VALUE));
+			expect(7L, ptr._get_index_(1));
+
+			DirectI64Pointer other = arena.allocateI64(4);
+			expectOutOfBounds(() -> ptr.copyTo(other, 5));
+			expectOutOfBounds(() -> ptr.copyTo(other, -1));
+			expectOutOfBounds(() -> ptr.offset(-1).copyTo(other, 1));
+			expect(0L, other._get_index_(1));
+			ptr.copyTo(other, 4);
+			expect(7L, other._get_index_(1));
+
+			long[] values = new long[4];
+			expectOutOfBounds(() -> ptr.copyTo(values, 0, 5));
+			expectOutOfBounds(() -> ptr.offset(3).copyTo(values, 0, 2));
+			expectOutOfBounds(() -> ptr.offset(-1).copyTo(values, 0, 1));
+			expectOutOfBounds(() -> ptr.copyTo(values, 3, 2));
+			expectOutOfBounds(() -> ptr.copyFrom(values, 0, 5));
+			expectOutOfBounds(() -> ptr.offset(-1).copyFrom(values, 0, 1));
+			expectOutOfBounds(() -> ptr.copyFrom(values, 0, -1));
+			expect(7L, ptr._get_index_(1));
+			ptr.copyTo(values, 0, 4);
+			expect(7L, values[1]);
+
+			I32Pointer ints = arena.allocateI32(3);
+			ints._set_index_(2, 5);
+			expect(5, ints.offset(2).getValue());
+			expect(5, I32Pointer._op_sub(I32Pointer._op_add(ints, 2), 0)._get_index_(0));
+			expect(true, ints instanceof DirectI32Pointer);
+
+			I32Pointer heap = new I32Pointer(4);
+			expect(4, heap._get_index_(0));
+			expect(heap, heap.offset(0));
+			expectOutOfBounds(() -> heap._get_index_(1));
+			expectOutOfBounds(() -> heap.offset(-1));
+		});
+	}
+
+	private static void expectOutOfBounds(Runnable action) {
+		try {
+			action.run();
+		} catch (IndexOutOfBoundsException e) {
+			return;
+		}
+		fail("expected an IndexOutOfBoundsException");
+	}
+
+	private static void expect(Object expected, Object actual) {
+		if (!expected.equals(actual)) {
+			fail("expected " + expected + ", got " + actual);
+		}
+	}
+
+	private static void fail(String message) {
+		System.out.println(message);
+		System.exit(1);
+	}
+}
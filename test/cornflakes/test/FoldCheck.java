@@ -0,0 +1,93 @@
+package cornflakes.test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import cornflakes.compiler.CompilationContext;
+import cornflakes.compiler.MainCompiler;
+
+/**
+ * Checks that constant expressions are compiled to a single push of their
+ * value, and that a division by a constant zero is left to fail at run time.
+ */
+public class FoldCheck implements Opcodes {
+	private static final String SOURCE = "package test\npublic class Test\n\n"
+			+ "public static const MB: i32 = 1024 * 1024\n\n"
+			+ "public static func ints(): i32 {\n\treturn 2147483647 + 1\n}\n\n"
+			+ "public static func shifts(): i32 {\n\treturn 1 << 4\n}\n\n"
+			+ "public static func longs(): i64 {\n\treturn 40L * 3L\n}\n\n"
+			+ "public static func reals(): f64 {\n\treturn 1.5d * 4.0d\n}\n\n"
+			+ "public static func fields(): i32 {\n\treturn MB / 4\n}\n\n"
+			+ "public static func locals(): i32 {\n\tconst A: i32 = 6\n\tconst B: i32 = A * 7\n\treturn B\n}\n\n"
+			+ "public static func words(): string {\n\treturn \"con\" + \"stant\"\n}\n\n"
+			+ "public static func zero(): i32 {\n\treturn 5 / 0\n}\n";
+
+	public static void main(String[] args) throws Exception {
+		File work = new File(args[1]);
+		CaseRunner.delete(work);
+		File src = new File(work, "src");
+		src.mkdirs();
+		Files.write(new File(src, "Test.cf").toPath(), SOURCE.getBytes());
+
+		File bin = new File(work, "bin");
+		MainCompiler.compile(new CompilationContext(), src.getPath(), bin.getPath(), false);
+		ClassNode node = new ClassNode();
+		new ClassReader(Files.readAllBytes(new File(bin, "test/Test.class").toPath())).accept(node, 0);
+
+		int checked = 0;
+		for (MethodNode method : node.methods) {
+			List<Integer> opcodes = getOpcodes(method);
+			switch (method.name) {
+			case "ints":
+			case "shifts":
+			case "longs":
+			case "reals":
+			case "fields":
+			case "words":
+				if (opcodes.size() != 2) {
+					fail(method.name + " was not folded: " + opcodes);
+				}
+				break;
+			case "locals":
+				if (opcodes.contains(IMUL)) {
+					fail("locals was not folded: " + opcodes);
+				}
+				break;
+			case "zero":
+				if (!opcodes.contains(IDIV)) {
+					fail("a division by zero was folded: " + opcodes);
+				}
+				break;
+			default:
+				continue;
+			}
+			checked++;
+		}
+		if (checked != 8) {
+			fail("only " + checked + " of 8 functions were compiled");
+		}
+	}
+
+	private static List<Integer> getOpcodes(MethodNode method) {
+		List<Integer> opcodes = new ArrayList<>();
+		for (AbstractInsnNode insn : method.instructions.toArray()) {
+			if (insn.getOpcode() >= 0) {
+				opcodes.add(insn.getOpcode());
+			}
+		}
+		return opcodes;
+	}
+
+	private static void fail(String message) {
+		System.out.println(message);
+		System.exit(1);
+	}
+}
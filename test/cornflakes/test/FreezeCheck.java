@@ -0,0 +1,67 @@
+package cornflakes.test;
+
+import org.objectweb.asm.Opcodes;
+
+import cornflakes.compiler.ClassData;
+import cornflakes.compiler.CompilationContext;
+import cornflakes.compiler.ConstructorData;
+import cornflakes.compiler.DefinitiveType;
+import cornflakes.compiler.FieldData;
+import cornflakes.compiler.MethodData;
+
+/**
+ * Checks that the members and supertypes of a frozen class can no longer be
+ * changed, while indexed classes still load their members on first use.
+ */
+public class FreezeCheck {
+	public static void main(String[] args) throws Exception {
+		CompilationContext context = new CompilationContext();
+		CompilationContext previous = context.enter();
+		try {
+			ClassData data = new ClassData();
+			data.setClassName("test/Frozen");
+			data.setParentName("java/lang/Object");
+			data.setInterfaces(new String[0]);
+			data.addField(new FieldData(data, "x", DefinitiveType.primitive("I"), Opcodes.ACC_PUBLIC));
+			data.freeze();
+
+			expectRejected(() -> data.addMethod(
+					new MethodData(data, "f", DefinitiveType.primitive("V"), false, Opcodes.ACC_PUBLIC)));
+			expectRejected(() -> data.addConstructor(new ConstructorData(data, Opcodes.ACC_PUBLIC)));
+			expectRejected(() -> data.addField(
+					new FieldData(data, "y", DefinitiveType.primitive("I"), Opcodes.ACC_PUBLIC)));
+			expectRejected(() -> data.setInterfaces(new String[] { "java/io/Serializable" }));
+			expectRejected(() -> data.setParentName("java/lang/Number"));
+			expectRejected(() -> data.setModifiers(Opcodes.ACC_PUBLIC));
+			expect(true, data.hasField("x"));
+			expect(false, data.hasField("y"));
+			expect(0, data.getInterfaces().length);
+
+			ClassData indexed = ClassData.forName("cornflakes/lang/FunctionalIterator");
+			expect(true, indexed.isFrozen());
+			expect(true, indexed.hasMethod("map"));
+		} finally {
+			context.exit(previous);
+		}
+	}
+
+	private static void expectRejected(Runnable action) {
+		try {
+			action.run();
+		} catch (IllegalStateException e) {
+			return;
+		}
+		fail("a frozen class was changed");
+	}
+
+	private static void expect(Object expected, Object actual) {
+		if (!expected.equals(actual)) {
+			fail("expected " + expected + ", got " + actual);
+		}
+	}
+
+	private static void fail(String message) {
+		System.out.println(message);
+		System.exit(1);
+	}
+}
@@ -0,0 +1,82 @@
+package cornflakes.test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import cornflakes.compiler.ClassData;
+import cornflakes.compiler.CompilationContext;
+import cornflakes.compiler.MainCompiler;
+
+/**
+ * Checks that incremental builds only recompile the classes whose sources
+ * or dependencies changed, and that the classes read back from the cache
+ * still run with the recompiled ones.
+ */
+public class IncrementalCheck {
+	private static final String MAIN = "public static func main(args: string[]) {\n\tvar value = Other.value()\n"
+			+ "\tprintln!(prefix)\n\tprintln!(value)\n}\n";
+
+	public static void main(String[] args) throws Exception {
+		File work = new File(args[1]);
+		CaseRunner.delete(work);
+		File src = new File(work, "src");
+		File bin = new File(work, "bin");
+		src.mkdirs();
+
+		write(src, "Test", "public static var prefix: string = \"value\"\n\n" + MAIN);
+		write(src, "Other", "public static var base: i32 = 40\n\n"
+				+ "public static func value(): i32 {\n\treturn base + 2\n}\n");
+
+		expect(Arrays.asList("test/Other", "test/Test"), compile(src, bin));
+		expect("value\n42", run(args[0], bin));
+
+		expect(Arrays.asList(), compile(src, bin));
+		expect("value\n42", run(args[0], bin));
+
+		write(src, "Test", "public static var prefix: string = \"changed\"\n\n" + MAIN);
+		expect(Arrays.asList("test/Test"), compile(src, bin));
+		expect("changed\n42", run(args[0], bin));
+
+		write(src, "Other", "public static var base: i32 = 40\n\n"
+				+ "public static func value(): string {\n\treturn \"text\"\n}\n");
+		expect(Arrays.asList("test/Other", "test/Test"), compile(src, bin));
+		expect("changed\ntext", run(args[0], bin));
+	}
+
+	private static void write(File src, String name, String body) throws Exception {
+		Files.write(new File(src, name + ".cf").toPath(),
+				("package test\npublic class " + name + "\n\n" + body).getBytes());
+	}
+
+	private static List<String> compile(File src, File bin) throws Exception {
+		List<String> names = new ArrayList<>();
+		for (ClassData data : MainCompiler.compile(new CompilationContext(), src.getPath(), bin.getPath(), true)) {
+			names.add(data.getClassName());
+		}
+		names.sort(null);
+		return names;
+	}
+
+	private static String run(String classpath, File bin) throws Exception {
+		CaseRunner.Result result = CaseRunner.exec(bin, Arrays.asList(CaseRunner.java(), "-Xverify:all", "-cp",
+				bin.getAbsolutePath() + File.pathSeparator + classpath, "test.Test"));
+		if (result.code != 0) {
+			fail("the program failed:\n" + result.output);
+		}
+		return result.output.trim();
+	}
+
+	private static void expect(Object expected, Object actual) {
+		if (!expected.equals(actual)) {
+			fail("expected " + expected + ", got " + actual);
+		}
+	}
+
+	private static void fail(String message) {
+		System.out.println(message);
+		System.exit(1);
+	}
+}
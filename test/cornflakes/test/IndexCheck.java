@@ -0,0 +1,60 @@
+package cornflakes.test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * Checks that the class index is cached in the output directory rather than
+ * the user's home, and that the runtime image is listed exactly when the
+ * bundled ASM can read its class files.
+ */
+public class IndexCheck {
+	public static void main(String[] args) throws Exception {
+		File work = new File(args[1]);
+		CaseRunner.delete(work);
+		File home = new File(work, "home");
+		File src = new File(work, "src");
+		home.mkdirs();
+		src.mkdirs();
+
+		Files.write(new File(src, "Test.cf").toPath(), ("package test\npublic class Test\n\n"
+				+ "public static func main(args: string[]) {\n\tprintln!(\"indexed\")\n}\n").getBytes());
+
+		CaseRunner.Result compiled = CaseRunner.exec(work, Arrays.asList(CaseRunner.java(),
+				"-Duser.home=" + home.getAbsolutePath(), "-cp", args[0], "cornflakes.compiler.MainCompiler",
+				src.getAbsolutePath()));
+		if (compiled.code != 0) {
+			fail("compilation failed:\n" + compiled.output);
+		}
+
+		String[] written = home.list();
+		if (written.length != 0) {
+			fail("the compiler wrote to the home directory: " + Arrays.toString(written));
+		}
+
+		File[] listings = new File(work, "bin/.cfindex").listFiles((dir, name) -> name.endsWith(".idx"));
+		if (listings == null || listings.length == 0) {
+			fail("no class listings were cached in the output directory");
+		}
+
+		// asm 9.8 reads class files up to java 25
+		String version = System.getProperty("java.specification.version");
+		if (!version.startsWith("1.")) {
+			boolean readable = Integer.parseInt(version) <= 25;
+			boolean listed = false;
+			for (File listing : listings) {
+				listed |= Files.readAllLines(listing.toPath()).contains("java.base/java/lang/Object");
+			}
+			if (listed != readable) {
+				fail(readable ? "the runtime image was not listed although its classes can be read"
+						: "the runtime image was listed although its classes cannot be read");
+			}
+		}
+	}
+
+	private static void fail(String message) {
+		System.out.println(message);
+		System.exit(1);
+	}
+}
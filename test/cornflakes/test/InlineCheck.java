@@ -0,0 +1,140 @@
+package cornflakes.test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.LineNumberNode;
+import org.objectweb.asm.tree.LocalVariableNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import cornflakes.compiler.CompilationContext;
+import cornflakes.compiler.MainCompiler;
+
+/**
+ * Checks which calls of the inlining case are replaced by the callee's body
+ * when optimizing, and that the inlined bodies keep their local variable
+ * names and line numbers.
+ */
+public class InlineCheck {
+	private static final File CASE = new File("test/cases/inlining/src");
+
+	public static void main(String[] args) throws Exception {
+		File work = new File(args[1]);
+		CaseRunner.delete(work);
+
+		MethodNode plain = compile(new File(work, "plain"), false, false);
+		expectCalls(plain, "test/Test.sum", "test/Test.widen", "test/Test.sign", "test/Vect._op_add",
+				"test/Vect._get_index_", "test/Vect.dot", "test/Counter.next");
+
+		MethodNode optimized = compile(new File(work, "optimized"), true, false);
+		expectNoCalls(optimized, "test/Test.square", "test/Test.sum", "test/Test.widen", "test/Test.sign",
+				"test/Vect._op_add", "test/Vect._get_index_", "test/Vect.dot", "test/Counter.next");
+		expectLocals(optimized, "total", "scaled", "ox", "oy");
+		expectLines(optimized, getLine("Test.cf", "func square"), getLine("Test.cf", "func widen"));
+
+		// incremental builds only inline within a class, as the other class may be recompiled alone
+		MethodNode incremental = compile(new File(work, "incremental"), true, true);
+		expectNoCalls(incremental, "test/Test.sum", "test/Test.widen");
+		expectCalls(incremental, "test/Vect._op_add", "test/Vect.dot", "test/Counter.next");
+	}
+
+	private static MethodNode compile(File dir, boolean optimize, boolean incremental) throws Exception {
+		File src = new File(dir, "src");
+		src.mkdirs();
+		for (File file : CASE.listFiles()) {
+			Files.copy(file.toPath(), new File(src, file.getName()).toPath());
+		}
+
+		File bin = new File(dir, "bin");
+		CompilationContext context = new CompilationContext();
+		context.setOptimize(optimize);
+		MainCompiler.compile(context, src.getPath(), bin.getPath(), incremental);
+
+		ClassNode node = new ClassNode();
+		new ClassReader(Files.readAllBytes(new File(bin, "test/Test.class").toPath())).accept(node, 0);
+		for (MethodNode method : node.methods) {
+			if (method.name.equals("main")) {
+				return method;
+			}
+		}
+		throw new NoSuchMethodException("main");
+	}
+
+	private static List<String> getCalls(MethodNode method) {
+		List<String> calls = new ArrayList<>();
+		for (AbstractInsnNode insn : method.instructions.toArray()) {
+			if (insn instanceof MethodInsnNode) {
+				calls.add(((MethodInsnNode) insn).owner + "." + ((MethodInsnNode) insn).name);
+			}
+		}
+		return calls;
+	}
+
+	private static void expectCalls(MethodNode method, String... calls) {
+		List<String> actual = getCalls(method);
+		for (String call : calls) {
+			if (!actual.contains(call)) {
+				fail("main no longer calls " + call);
+			}
+		}
+	}
+
+	private static void expectNoCalls(MethodNode method, String... calls) {
+		List<String> actual = getCalls(method);
+		for (String call : calls) {
+			if (actual.contains(call)) {
+				fail("main still calls " + call);
+			}
+		}
+	}
+
+	private static void expectLocals(MethodNode method, String... names) {
+		List<String> actual = new ArrayList<>();
+		for (LocalVariableNode local : method.localVariables) {
+			if (local.index >= method.maxLocals) {
+				fail(local.name + " is stored in slot " + local.index + " of " + method.maxLocals);
+			}
+			actual.add(local.name);
+		}
+		for (String name : names) {
+			if (!actual.contains(name)) {
+				fail("main has no local variable " + name + ", only " + actual);
+			}
+		}
+	}
+
+	private static void expectLines(MethodNode method, int... lines) {
+		List<Integer> actual = new ArrayList<>();
+		for (AbstractInsnNode insn : method.instructions.toArray()) {
+			if (insn instanceof LineNumberNode) {
+				actual.add(((LineNumberNode) insn).line);
+			}
+		}
+		for (int line : lines) {
+			if (!actual.contains(line)) {
+				fail("main has no line " + line + ", only " + actual);
+			}
+		}
+	}
+
+	private static int getLine(String file, String text) throws Exception {
+		List<String> lines = Files.readAllLines(new File(CASE, file).toPath());
+		for (int i = 0; i < lines.size(); i++) {
+			if (lines.get(i).contains(text)) {
+				return i + 1;
+			}
+		}
+		throw new IllegalArgumentException(text + " is not in " + file);
+	}
+
+	private static void fail(String message) {
+		System.out.println(message);
+		System.exit(1);
+	}
+}
@@ -0,0 +1,52 @@
+package cornflakes.test;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cornflakes.lang.FunctionalIterator;
+import cornflakes.lang.IteratorException;
+
+/**
+ * Checks indexing into iterators over both random-access and lazy sources.
+ */
+public class IteratorCheck {
+	public static void main(String[] args) {
+		FunctionalIterator<Integer> values = new FunctionalIterator<>(0, 1, 2, 3);
+		expect(2, values.skip(1).at(1));
+		expectRejected(() -> values.skip(1).at(-1));
+		expectRejected(() -> values.skip(1).at(3));
+
+		FunctionalIterator<Integer> lazy = FunctionalIterator.lazy(Arrays.asList(0, 1, 2, 3).iterator()).skip(1);
+		expectRejected(() -> lazy.at(-1));
+		expect(1, lazy.at(0));
+
+		AtomicInteger calls = new AtomicInteger();
+		FunctionalIterator<Integer> mapped = values.map(x -> {
+			calls.incrementAndGet();
+			return x * 10;
+		});
+		expect(30, mapped.at(3));
+		expect(30, mapped.at(3));
+		expect(2, calls.get());
+	}
+
+	private static void expectRejected(Runnable action) {
+		try {
+			action.run();
+		} catch (IteratorException e) {
+			return;
+		}
+		fail("expected an IteratorException");
+	}
+
+	private static void expect(Object expected, Object actual) {
+		if (!expected.equals(actual)) {
+			fail("expected " + expected + ", got " + actual);
+		}
+	}
+
+	private static void fail(String message) {
+		System.out.println(message);
+		System.exit(1);
+	}
+}
@@ -0,0 +1,88 @@
+package cornflakes.test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import cornflakes.compiler.CompilationContext;
+import cornflakes.compiler.MainCompiler;
+
+/**
+ * Checks that foreach loops which can be counted are compiled without
+ * iterators or boxing, and that destructuring the rows of a tuple array reads
+ * its columns without creating rows.
+ */
+public class LoopCheck {
+	private static final String HEADER = "package test\npublic class Test\n\n"
+			+ "public static func run(n: i32, ints: i32[], reals: f64[], words: string[], "
+			+ "rows: (i64, f64)[]) {\n";
+
+	public static void main(String[] args) throws Exception {
+		File work = new File(args[1]);
+		CaseRunner.delete(work);
+
+		expectNoCalls(work, "ranges", "x in range!(0, n)", "java/util/Iterator", "java/lang/Integer");
+		expectNoCalls(work, "steps", "x in range!(n, 0, -1)", "java/util/Iterator", "java/lang/Integer");
+		expectNoCalls(work, "longs", "x in range!(0L, 9L, 2L)", "java/util/Iterator", "java/lang/Long");
+		expectNoCalls(work, "doubles", "x in range!(0.0d, 1.0d, 0.25d)", "java/util/Iterator",
+				"java/lang/Double");
+
+		expectNoCalls(work, "ints", "x in ints", "java/util/Iterator", "java/lang/Integer",
+				"cornflakes/lang/ArrayIterator");
+		expectNoCalls(work, "reals", "x in reals", "java/util/Iterator", "java/lang/Double",
+				"cornflakes/lang/ArrayIterator");
+		expectNoCalls(work, "words", "x in words", "java/util/Iterator", "cornflakes/lang/ArrayIterator");
+
+		expectNoCalls(work, "rows", "x in rows", "java/util/Iterator");
+		expectNoCalls(work, "columns", "(id, w) in rows", "java/util/Iterator",
+				"cornflakes/lang/TupleArray._get_index_", "java/lang/Long", "java/lang/Double");
+	}
+
+	private static void expectNoCalls(File work, String name, String loop, String... owners)
+			throws Exception {
+		for (String call : getCalls(work, name, loop)) {
+			for (String owner : owners) {
+				if (call.startsWith(owner)) {
+					fail("foreach " + loop + " calls " + call);
+				}
+			}
+		}
+	}
+
+	private static List<String> getCalls(File work, String name, String loop) throws Exception {
+		File dir = new File(work, name);
+		File src = new File(dir, "src");
+		src.mkdirs();
+		Files.write(new File(src, "Test.cf").toPath(), (HEADER + "\tforeach " + loop + " {\n\t\tprintln!(n)\n\t}\n}\n").getBytes());
+
+		File bin = new File(dir, "bin");
+		MainCompiler.compile(new CompilationContext(), src.getPath(), bin.getPath(), false);
+
+		ClassNode node = new ClassNode();
+		new ClassReader(Files.readAllBytes(new File(bin, "test/Test.class").toPath())).accept(node, 0);
+		List<String> calls = new ArrayList<>();
+		for (MethodNode method : node.methods) {
+			if (method.name.equals("run")) {
+				for (AbstractInsnNode insn : method.instructions.toArray()) {
+					if (insn instanceof MethodInsnNode) {
+						MethodInsnNode call = (MethodInsnNode) insn;
+						calls.add(call.owner + "." + call.name);
+					}
+				}
+			}
+		}
+		return calls;
+	}
+
+	private static void fail(String message) {
+		System.out.println(message);
+		System.exit(1);
+	}
+}
@@ -0,0 +1,138 @@
+package cornflakes.test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import cornflakes.compiler.Optimizer;
+
+/**
+ * Checks each peephole rewrite on a small method, and that the rewritten
+ * methods still verify and return what they did before.
+ */
+public class OptimizerCheck implements Opcodes {
+	private static final List<MethodNode> methods = new ArrayList<>();
+
+	public static void main(String[] args) throws Exception {
+		MethodNode m = method("constant", "()I");
+		m.visitIntInsn(BIPUSH, 3);
+		m.visitInsn(IRETURN);
+		expectOpcodes(m, ICONST_3, IRETURN);
+
+		m = method("wide", "()J");
+		m.visitLdcInsn(1L);
+		m.visitInsn(LRETURN);
+		expectOpcodes(m, LCONST_1, LRETURN);
+
+		m = method("chain", "(I)I");
+		Label first = new Label();
+		Label second = new Label();
+		m.visitJumpInsn(GOTO, first);
+		m.visitLabel(second);
+		m.visitVarInsn(ILOAD, 0);
+		m.visitInsn(IRETURN);
+		m.visitLabel(first);
+		m.visitJumpInsn(GOTO, second);
+		expectOpcodes(m, ILOAD, IRETURN);
+
+		m = method("stored", "(I)I");
+		m.visitVarInsn(ILOAD, 0);
+		m.visitVarInsn(ISTORE, 1);
+		m.visitInsn(ICONST_1);
+		m.visitVarInsn(ISTORE, 2);
+		m.visitVarInsn(ILOAD, 1);
+		m.visitInsn(IRETURN);
+		expectOpcodes(m, ILOAD, IRETURN);
+
+		m = method("cast", "(Ljava/lang/Object;)Ljava/lang/String;");
+		m.visitVarInsn(ALOAD, 0);
+		m.visitTypeInsn(CHECKCAST, "java/lang/String");
+		m.visitTypeInsn(CHECKCAST, "java/lang/String");
+		m.visitInsn(ARETURN);
+		expectOpcodes(m, ALOAD, CHECKCAST, ARETURN);
+
+		m = method("widen", "(I)I");
+		m.visitVarInsn(ILOAD, 0);
+		m.visitInsn(I2L);
+		m.visitInsn(L2I);
+		m.visitInsn(IRETURN);
+		expectOpcodes(m, ILOAD, IRETURN);
+
+		Class<?> cls = define();
+		expect(3, invoke(cls, "constant"));
+		expect(1L, invoke(cls, "wide"));
+		expect(7, invoke(cls, "chain", 7));
+		expect(8, invoke(cls, "stored", 8));
+		expect("s", invoke(cls, "cast", "s"));
+		expect(9, invoke(cls, "widen", 9));
+	}
+
+	private static MethodNode method(String name, String desc) {
+		MethodNode method = new MethodNode(ASM9, ACC_PUBLIC | ACC_STATIC, name, desc, null, null);
+		methods.add(method);
+		return method;
+	}
+
+	private static void expectOpcodes(MethodNode method, int... expected) {
+		method.visitMaxs(0, 0);
+		new Optimizer(method).optimize();
+
+		List<Integer> actual = new ArrayList<>();
+		for (AbstractInsnNode insn : method.instructions.toArray()) {
+			if (insn.getOpcode() >= 0) {
+				actual.add(insn.getOpcode());
+			}
+		}
+
+		List<Integer> wanted = new ArrayList<>();
+		for (int opcode : expected) {
+			wanted.add(opcode);
+		}
+		if (!actual.equals(wanted)) {
+			fail(method.name + " was optimized to " + actual + ", expected " + wanted);
+		}
+	}
+
+	private static Class<?> define() {
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+		cw.visit(V1_8, ACC_PUBLIC, "test/Optimized", null, "java/lang/Object", null);
+		for (MethodNode method : methods) {
+			method.accept(cw);
+		}
+		cw.visitEnd();
+		byte[] bytes = cw.toByteArray();
+
+		return new ClassLoader(OptimizerCheck.class.getClassLoader()) {
+			Class<?> define() {
+				return defineClass("test.Optimized", bytes, 0, bytes.length);
+			}
+		}.define();
+	}
+
+	private static Object invoke(Class<?> cls, String name, Object... args) throws Exception {
+		for (Method method : cls.getMethods()) {
+			if (method.getName().equals(name)) {
+				return method.invoke(null, args);
+			}
+		}
+		throw new NoSuchMethodException(name + Arrays.toString(args));
+	}
+
+	private static void expect(Object expected, Object actual) {
+		if (!expected.equals(actual)) {
+			fail("expected " + expected + ", got " + actual);
+		}
+	}
+
+	private static void fail(String message) {
+		System.out.println(message);
+		System.exit(1);
+	}
+}
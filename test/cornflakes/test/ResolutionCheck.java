@@ -0,0 +1,67 @@
+package cornflakes.test;
+
+import cornflakes.compiler.ClassData;
+import cornflakes.compiler.CompilationContext;
+import cornflakes.compiler.CompileError;
+import cornflakes.compiler.Types;
+
+/**
+ * Checks that failed type lookups are answered again without resolving, that
+ * importing a class makes a failed short name resolvable, and that cached
+ * subtype answers match the class hierarchy.
+ */
+public class ResolutionCheck {
+	public static void main(String[] args) throws Exception {
+		CompilationContext context = new CompilationContext();
+		CompilationContext previous = context.enter();
+		try {
+			expect(null, ClassData.find("test/Nowhere"));
+			expect(null, ClassData.find("test/Nowhere"));
+
+			ClassData scope = new ClassData();
+			scope.setClassName("test/Scope");
+			expectUnresolved(scope, "Nowhere");
+			expectUnresolved(scope, "Nowhere");
+			expectUnresolved(scope, "LinkedList");
+
+			scope.use("java/util/LinkedList");
+			expect("java/util/LinkedList", scope.resolveClass("LinkedList").getTypeName());
+			expect("java/util/LinkedList", scope.resolveClass("LinkedList").getTypeName());
+
+			ClassData list = ClassData.forName("java/util/List");
+			ClassData linked = ClassData.forName("java/util/LinkedList");
+			for (int i = 0; i < 2; i++) {
+				expect(true, list.isAssignableFrom(linked));
+				expect(false, linked.isAssignableFrom(list));
+				expect(true, linked.is("java.util.Collection"));
+				expect(true, linked.is("java.util.Deque"));
+				expect(false, linked.is("java.util.Map"));
+				expect(true, Types.isSuitable("Ljava/util/List;", "Ljava/util/LinkedList;"));
+				expect(false, Types.isSuitable("Ljava/util/LinkedList;", "Ljava/util/List;"));
+			}
+		} finally {
+			context.exit(previous);
+		}
+	}
+
+	private static void expectUnresolved(ClassData scope, String name) {
+		try {
+			scope.resolveClass(name);
+		} catch (CompileError e) {
+			expect("Unresolved type: " + name, e.getMessage());
+			return;
+		}
+		fail(name + " was resolved");
+	}
+
+	private static void expect(Object expected, Object actual) {
+		if (expected == null ? actual != null : !expected.equals(actual)) {
+			fail("expected " + expected + ", got " + actual);
+		}
+	}
+
+	private static void fail(String message) {
+		System.out.println(message);
+		System.exit(1);
+	}
+}
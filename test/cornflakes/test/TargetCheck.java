@@ -0,0 +1,121 @@
+package cornflakes.test;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FrameNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import cornflakes.compiler.CompileError;
+import cornflakes.compiler.MainCompiler;
+
+/**
+ * Checks the releases accepted by -target, that compiled classes carry the
+ * selected class file version, and that methods with branches are given
+ * stack map frames. Classes are only run when the running Java supports
+ * their version.
+ */
+public class TargetCheck implements Opcodes {
+	private static final String SOURCE = "package test\npublic class Test\n\n"
+			+ "public static func main(args: string[]) {\n\tvar total: i32 = 0\n"
+			+ "\tfor var i: i32 = 0; i < 4; i++ {\n\t\tif i % 2 == 0 {\n\t\t\ttotal += i\n\t\t}\n\t}\n"
+			+ "\tprintln!(total)\n}\n";
+
+	public static void main(String[] args) throws Exception {
+		expect(V1_8, MainCompiler.getTarget("8"));
+		expect(V1_8, MainCompiler.getTarget("1.8"));
+		expect(V9, MainCompiler.getTarget("9"));
+		expect(V11, MainCompiler.getTarget("11"));
+		expect(V17, MainCompiler.getTarget("17"));
+		expect(V21, MainCompiler.getTarget("21"));
+		expect(V25, MainCompiler.getTarget("25"));
+		expectRejected("7", "Unsupported target release: 7");
+		expectRejected("1.7", "Unsupported target release: 1.7");
+		expectRejected("26", "Unsupported target release: 26");
+		expectRejected("latest", "Invalid target release: latest");
+
+		File work = new File(args[1]);
+		CaseRunner.delete(work);
+		expect(V1_8, compile(args[0], new File(work, "default")));
+		expect(V1_8, compile(args[0], new File(work, "eight"), "-target", "8"));
+		expect(V9, compile(args[0], new File(work, "nine"), "-target", "9"));
+		for (int release : new int[] { 11, 17, 21, 25 }) {
+			expect(V1_8 + release - 8,
+					compile(args[0], new File(work, "release" + release), "-target", String.valueOf(release)));
+		}
+	}
+
+	private static int compile(String classpath, File dir, String... options) throws Exception {
+		File src = new File(dir, "src");
+		src.mkdirs();
+		Files.write(new File(src, "Test.cf").toPath(), SOURCE.getBytes());
+
+		List<String> command = new ArrayList<>(Arrays.asList(CaseRunner.java(), "-cp", classpath,
+				"cornflakes.compiler.MainCompiler"));
+		command.addAll(Arrays.asList(options));
+		command.add(src.getAbsolutePath());
+		CaseRunner.Result compiled = CaseRunner.exec(dir, command);
+		if (compiled.code != 0) {
+			fail("compilation failed:\n" + compiled.output);
+		}
+
+		File bin = new File(dir, "bin");
+		ClassNode node = new ClassNode();
+		new ClassReader(Files.readAllBytes(new File(bin, "test/Test.class").toPath())).accept(node, 0);
+
+		// classes for a newer release than the running one can only be inspected
+		if (node.version <= getRuntimeVersion()) {
+			CaseRunner.Result ran = CaseRunner.exec(bin, Arrays.asList(CaseRunner.java(), "-Xverify:all", "-cp",
+					bin.getAbsolutePath() + File.pathSeparator + classpath, "test.Test"));
+			expect("2", ran.output.trim());
+		}
+		for (MethodNode method : node.methods) {
+			if (method.name.equals("main") && !hasFrames(method)) {
+				fail("main has no stack map frames");
+			}
+		}
+		return node.version;
+	}
+
+	private static int getRuntimeVersion() {
+		String version = System.getProperty("java.specification.version");
+		return V1_8 + (version.startsWith("1.") ? 0 : Integer.parseInt(version) - 8);
+	}
+
+	private static boolean hasFrames(MethodNode method) {
+		for (AbstractInsnNode insn : method.instructions.toArray()) {
+			if (insn instanceof FrameNode) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void expectRejected(String release, String message) {
+		try {
+			MainCompiler.getTarget(release);
+		} catch (CompileError e) {
+			expect(message, e.getMessage());
+			return;
+		}
+		fail("-target " + release + " was accepted");
+	}
+
+	private static void expect(Object expected, Object actual) {
+		if (!expected.equals(actual)) {
+			fail("expected " + expected + ", got " + actual);
+		}
+	}
+
+	private static void fail(String message) {
+		System.out.println(message);
+		System.exit(1);
+	}
+}
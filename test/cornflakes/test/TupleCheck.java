@@ -0,0 +1,46 @@
+package cornflakes.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import cornflakes.lang.Tuple;
+
+/**
+ * Checks that tuples made through the deprecated factory store, copy and
+ * serialize their boxed elements.
+ */
+public class TupleCheck {
+	@SuppressWarnings("deprecation")
+	public static void main(String[] args) throws Exception {
+		Tuple tuple = Tuple.create(3, new int[9]);
+		tuple.item(0, 5);
+		tuple.item(1, "a");
+		tuple.item(2, 2.5);
+		expect("(5, a, 2.5)", tuple.toString());
+		expect(5, tuple.i32Item(0));
+
+		Tuple clone = tuple.clone();
+		clone.item(1, "b");
+		expect("(5, a, 2.5)", tuple.toString());
+		expect("(5, b, 2.5)", clone.toString());
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(tuple);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			Object read = in.readObject();
+			expect(tuple, read);
+			expect(tuple.hashCode(), read.hashCode());
+		}
+	}
+
+	private static void expect(Object expected, Object actual) {
+		if (!expected.equals(actual)) {
+			System.out.println("expected " + expected + ", got " + actual);
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,29 @@
+#!/bin/sh
+# Builds the compiler into target/classes, then runs the cases under test/cases and every *Check class.
+# Compiled programs always run with -Xverify:all.
+set -e
+cd "$(dirname "$0")/.."
+root=$(pwd)
+deps=$(ls "$root"/dependencies/*.jar | tr '\n' ':')
+cp="$root/target/classes:$deps"
+
+rm -rf target/classes target/test-classes target/test-work
+mkdir -p target/classes target/test-classes target/test-work
+# lang/Main.java is a scratch launcher for a program outside the repository
+javac -nowarn -Xlint:-options -source 1.8 -target 1.8 -encoding UTF-8 -d target/classes -cp "$deps" \
+	$(find src -name '*.java' ! -path '*/lang/Main.java')
+javac -nowarn -Xlint:-options -source 1.8 -target 1.8 -encoding UTF-8 -d target/test-classes -cp "$cp" $(find test -name '*.java')
+
+status=0
+java -cp "target/test-classes:$cp" cornflakes.test.CaseRunner test/cases "$cp" target/test-work || status=1
+for check in test/cornflakes/test/*Check.java; do
+	[ -e "$check" ] || continue
+	name=$(basename "$check" .java)
+	if java -cp "target/test-classes:$cp" "cornflakes.test.$name" "$cp" "target/test-work/$name"; then
+		echo "PASS $name"
+	else
+		echo "FAIL $name"
+		status=1
+	fi
+done
+exit $status